@@ -0,0 +1,84 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.preprocess.ImageQuality;
+import com.dls.driverlicensescannerapi.preprocess.ImageQualityAnalyzer;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * {@link ImageQualityAnalyzer} cost, decode included, with the default {@code QUALITY_MAX_PIXELS}:
+ * a camera frame the web UI would precheck, a 1080p frame at the edge of the decode budget, and a
+ * full-resolution 12 MP phone photo, which is passed through after reading its header.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageQualityBenchmark {
+
+    @Param({"1280x720", "1920x1080", "4032x3024"})
+    public String size;
+
+    private final ScanMetrics scanMetrics = new ScanMetrics(new SimpleMeterRegistry());
+    private final ImageQualityAnalyzer analyzer = new ImageQualityAnalyzer(scanMetrics,
+            new CardPreprocessor(scanMetrics, false, 1012, 24_000_000), 100, 50, 225, 20, 0.08, 2_500_000);
+    private MockMultipartFile upload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        BufferedImage photo = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(5);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grain = 90 + random.nextInt(16);
+                photo.setRGB(x, y, new Color(grain, grain - 20, grain - 40).getRGB());
+            }
+        }
+        Graphics2D graphics = photo.createGraphics();
+        graphics.setColor(new Color(226, 214, 222));
+        graphics.fillRect(width / 6, height / 5, width * 2 / 3, height * 3 / 5);
+        graphics.setColor(new Color(40, 40, 40));
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, height / 24));
+        for (int line = 0; line < 6; line++) {
+            graphics.drawString("5. SAMPL901010AB9CD", width / 3, height / 3 + line * height / 12);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(photo, "jpg", bytes);
+        upload = new MockMultipartFile("image", "licence.jpg", "image/jpeg", bytes.toByteArray());
+    }
+
+    @Benchmark
+    public ImageQuality analyze() {
+        return analyzer.analyze(upload, ScanContext.of("bench"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Prints the score and allocation deltas between two JMH JSON result files, keyed by benchmark
+ * and parameters. Usage: {@code JmhResultComparison <baseline.json> <current.json>}.
+ */
+public final class JmhResultComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private JmhResultComparison() {}
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: JmhResultComparison <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        JsonMapper mapper = new JsonMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = index(mapper.readTree(new File(args[1])));
+
+        System.out.printf(Locale.ROOT, "%-90s %14s %14s %9s %14s %9s%n",
+                "benchmark", "baseline", "current", "delta", "alloc B/op", "delta");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode result = entry.getValue();
+            JsonNode previous = baseline.get(entry.getKey());
+            double score = result.path("primaryMetric").path("score").asDouble();
+            double allocation = allocation(result);
+            if (previous == null) {
+                System.out.printf(Locale.ROOT, "%-90s %14s %14.3f %9s %14.0f %9s%n",
+                        entry.getKey(), "-", score, "new", allocation, "-");
+                continue;
+            }
+            double previousScore = previous.path("primaryMetric").path("score").asDouble();
+            double previousAllocation = allocation(previous);
+            System.out.printf(Locale.ROOT, "%-90s %14.3f %14.3f %9s %14.0f %9s%n",
+                    entry.getKey(), previousScore, score, percent(previousScore, score),
+                    allocation, percent(previousAllocation, allocation));
+        }
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asString()
+                    .replace("com.dls.driverlicensescannerapi.", ""));
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asString()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            indexed.put(key.toString(), result);
+        }
+        return indexed;
+    }
+
+    private static double allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION_METRIC);
+        return metric.isMissingNode() ? Double.NaN : metric.path("score").asDouble();
+    }
+
+    private static String percent(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return "-";
+        }
+        return String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+    }
+}
@@ -0,0 +1,64 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.ocr.OcrResponseDecoder;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Decode cost of a worker {@code /ocr} response: full data binding (what {@code RestTemplate} did)
+ * against {@link OcrResponseDecoder}. Run with {@code -prof gc} to compare allocation per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OcrResponseDecodeBenchmark {
+
+    @Param({"20", "200"})
+    public int lineCount;
+
+    private final JsonMapper jsonMapper = new JsonMapper();
+    private final OcrResponseDecoder decoder = new OcrResponseDecoder(500, 512, 1024 * 1024);
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<OcrLine> lines = new ArrayList<>(lineCount);
+        StringBuilder rawText = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            String text = i + ". 123 CASTLEROCK ROAD, COLERAINE, CO. LONDONDERRY BT51 3TB";
+            lines.add(new OcrLine(text, 0.93));
+            rawText.append(text).append('\n');
+        }
+        body = jsonMapper.writeValueAsBytes(new OcrResult("req-1", "paddle", 0.82, lines, 620L, rawText.toString()));
+    }
+
+    @Benchmark
+    public OcrResult dataBinding() {
+        return jsonMapper.readValue(new ByteArrayInputStream(body), OcrResult.class);
+    }
+
+    @Benchmark
+    public OcrResult streaming() {
+        return decoder.decode(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,98 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.engine.EngineStatisticsRegistry;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClient;
+import com.dls.driverlicensescannerapi.ocr.OcrResponseDecoder;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.ocr.OcrRetryPolicy;
+import com.dls.driverlicensescannerapi.stub.StubOcrWorker;
+import com.dls.driverlicensescannerapi.stub.UnixSocketOcrStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Round trip through {@link OcrClient} to a local stub worker, over HTTP loopback and over the
+ * Unix domain socket frame protocol. The stubs answer instantly, so the score is transport cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OcrTransportBenchmark {
+
+    @Param({"http", "unix"})
+    public String transport;
+
+    @Param({"200000", "2000000"})
+    public int imageBytes;
+
+    private Closeable stub;
+    private Path socketDirectory;
+    private OcrClient ocrClient;
+    private MockMultipartFile image;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String workerUrl;
+        if ("unix".equals(transport)) {
+            socketDirectory = Files.createTempDirectory("ocr-bench");
+            Path socket = socketDirectory.resolve("ocr.sock");
+            stub = UnixSocketOcrStubServer.canned(socket);
+            workerUrl = "unix:" + socket;
+        } else {
+            StubOcrWorker worker = new StubOcrWorker(0, 8);
+            stub = worker;
+            workerUrl = worker.url();
+        }
+        ocrClient = new OcrClient(
+                new RestTemplateBuilder(),
+                new OcrResponseDecoder(500, 512, 1024 * 1024),
+                new ScanMetrics(new SimpleMeterRegistry()),
+                new EngineTimeoutPolicy(new EngineStatisticsRegistry(200), false, 0.99, 2.0, 500, 20_000, 20),
+                new OcrRetryPolicy(new SimpleMeterRegistry(), 2, 20, 200, 0.1, 10, ""),
+                workerUrl,
+                "bench-key",
+                8
+        );
+        byte[] bytes = new byte[imageBytes];
+        new Random(42).nextBytes(bytes);
+        image = new MockMultipartFile("image", "license.jpg", "image/jpeg", bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ocrClient.close();
+        stub.close();
+        if (socketDirectory != null) {
+            Files.deleteIfExists(socketDirectory);
+        }
+    }
+
+    @Benchmark
+    public OcrResult scan() {
+        return ocrClient.scan(image, "bench-request", "paddle");
+    }
+}
@@ -0,0 +1,229 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.corpus.LicenceCase;
+import com.dls.driverlicensescannerapi.corpus.OcrNoise;
+import com.dls.driverlicensescannerapi.corpus.SyntheticLicenceCorpus;
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.parser.LicenceNumberReconciler;
+import com.dls.driverlicensescannerapi.parser.LicenseFieldParser;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Parses synthetic corpora with known ground truth and compares parser throughput and per-field
+ * accuracy with a checked-in baseline, exiting non-zero on a regression.
+ *
+ * <p>Throughput is normalised by a fixed JDK-only string workload timed right after each parser
+ * round (parses per calibration run), so the baseline carries over between machines of different
+ * speed. Usage:
+ * {@code ParserRegressionGate <baseline.json> [check|update] [throughputTolerance] [accuracyTolerance]}.
+ */
+public final class ParserRegressionGate {
+
+    private static final Map<String, CorpusSpec> CORPORA = Map.of(
+            "clean", new CorpusSpec(1L, 1000, OcrNoise.NONE),
+            "noisy", new CorpusSpec(2L, 3000, OcrNoise.TYPICAL)
+    );
+    private static final Map<String, Function<LicenseFields, Object>> FIELDS = fieldAccessors();
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 9;
+    private static final Pattern CALIBRATION_PATTERN = Pattern.compile("(\\d{2})[./-](\\d{2})[./-](\\d{4})");
+
+    /** Keeps timed work observable so the JIT cannot drop it. */
+    private static volatile int sink;
+
+    private ParserRegressionGate() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ParserRegressionGate <baseline.json> [check|update] "
+                    + "[throughputTolerance] [accuracyTolerance]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        boolean update = args.length > 1 && "update".equals(args[1]);
+        double throughputTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+        double accuracyTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 0.005;
+
+        JsonMapper mapper = new JsonMapper();
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String name : List.of("clean", "noisy")) {
+            CorpusSpec spec = CORPORA.get(name);
+            List<LicenceCase> corpus = SyntheticLicenceCorpus.generate(spec.seed(), spec.size(), spec.noise());
+            results.put(name, measure(corpus));
+        }
+
+        if (update || !baselineFile.exists()) {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile, results);
+            System.out.println("Parser baseline written to " + baselineFile);
+            print(results, null, accuracyTolerance);
+            return;
+        }
+
+        JsonNode baseline = mapper.readTree(baselineFile);
+        List<String> regressions = print(results, baseline, accuracyTolerance);
+        for (String name : results.keySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> current = (Map<String, Object>) results.get(name);
+            JsonNode previous = baseline.path(name);
+            double throughput = (double) current.get("normalisedThroughput");
+            double previousThroughput = previous.path("normalisedThroughput").asDouble();
+            if (throughput < previousThroughput * (1 - throughputTolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s throughput %.4f is below baseline %.4f",
+                        name, throughput, previousThroughput));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            System.err.println("Parser regression gate failed:");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.err.println("If the change is intended, refresh the baseline with -PupdateParserBaseline.");
+            System.exit(1);
+        }
+        System.out.println("Parser regression gate passed.");
+    }
+
+    private static Map<String, Object> measure(List<LicenceCase> corpus) {
+        Map<String, Integer> correct = new LinkedHashMap<>();
+        FIELDS.keySet().forEach(field -> correct.put(field, 0));
+        for (LicenceCase licenceCase : corpus) {
+            LicenseFields parsed = parse(licenceCase.lines());
+            FIELDS.forEach((field, accessor) -> {
+                if (Objects.equals(normalise(accessor.apply(parsed)), normalise(accessor.apply(licenceCase.expected())))) {
+                    correct.merge(field, 1, Integer::sum);
+                }
+            });
+        }
+        Map<String, Double> accuracy = new LinkedHashMap<>();
+        correct.forEach((field, count) -> accuracy.put(field, round((double) count / corpus.size())));
+
+        IntWork parseCorpus = () -> {
+            int hash = 0;
+            for (LicenceCase licenceCase : corpus) {
+                hash += parse(licenceCase.lines()).hashCode();
+            }
+            return hash;
+        };
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += parseCorpus.run();
+            sink += calibration();
+        }
+        double[] parsesPerSecond = new double[MEASURED_ROUNDS];
+        double[] normalised = new double[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parsesPerSecond[i] = corpus.size() / secondsFor(parseCorpus);
+            normalised[i] = parsesPerSecond[i] * secondsFor(ParserRegressionGate::calibration);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cases", corpus.size());
+        result.put("parsesPerSecond", round(median(parsesPerSecond)));
+        result.put("normalisedThroughput", round(median(normalised)));
+        result.put("accuracy", accuracy);
+        return result;
+    }
+
+    private static LicenseFields parse(List<OcrLine> lines) {
+        return LicenceNumberReconciler.reconcile(LicenseFieldParser.parse(lines), lines);
+    }
+
+    private static double secondsFor(IntWork work) {
+        long startedAt = System.nanoTime();
+        sink += work.run();
+        return (System.nanoTime() - startedAt) / 1e9;
+    }
+
+    /**
+     * A fixed mix of the JDK string and regex operations the parser is built on.
+     */
+    private static int calibration() {
+        int tokens = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String line = "  3.  0" + (i % 9 + 1) + ".07.19" + (40 + i % 60) + "   UNITED   KINGDOM ";
+            String normalised = line.replaceAll("\\s+", " ").trim().toUpperCase(Locale.ROOT);
+            if (CALIBRATION_PATTERN.matcher(normalised).find()) {
+                tokens += normalised.split(" ").length;
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> print(Map<String, Object> results, JsonNode baseline, double accuracyTolerance) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((name, value) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = (Map<String, Object>) value;
+            JsonNode previous = baseline == null ? null : baseline.path(name);
+            System.out.printf(Locale.ROOT, "%s corpus: %d cases, %.0f parses/s, normalised throughput %.4f%s%n",
+                    name, (int) result.get("cases"), (double) result.get("parsesPerSecond"),
+                    (double) result.get("normalisedThroughput"),
+                    previous == null ? "" : String.format(Locale.ROOT, " (baseline %.4f)",
+                            previous.path("normalisedThroughput").asDouble()));
+            @SuppressWarnings("unchecked")
+            Map<String, Double> accuracy = (Map<String, Double>) result.get("accuracy");
+            accuracy.forEach((field, score) -> {
+                String comparison = "";
+                if (previous != null) {
+                    double previousScore = previous.path("accuracy").path(field).asDouble();
+                    comparison = String.format(Locale.ROOT, " (baseline %.4f)", previousScore);
+                    if (score < previousScore - accuracyTolerance) {
+                        regressions.add(String.format(Locale.ROOT, "%s %s accuracy %.4f is below baseline %.4f",
+                                name, field, score, previousScore));
+                    }
+                }
+                System.out.printf(Locale.ROOT, "  %-14s %.4f%s%n", field, score, comparison);
+            });
+        });
+        return regressions;
+    }
+
+    private static Object normalise(Object value) {
+        if (value instanceof String text) {
+            String normalised = text.replaceAll("\\s+", " ").trim().toUpperCase(Locale.ROOT);
+            return normalised.isEmpty() ? null : normalised;
+        }
+        if (value instanceof List<?> list && list.isEmpty()) {
+            return null;
+        }
+        return value;
+    }
+
+    private static Map<String, Function<LicenseFields, Object>> fieldAccessors() {
+        Map<String, Function<LicenseFields, Object>> accessors = new LinkedHashMap<>();
+        accessors.put("firstName", LicenseFields::firstName);
+        accessors.put("lastName", LicenseFields::lastName);
+        accessors.put("dateOfBirth", LicenseFields::dateOfBirth);
+        accessors.put("addressLine", LicenseFields::addressLine);
+        accessors.put("licenceNumber", LicenseFields::licenceNumber);
+        accessors.put("expiryDate", LicenseFields::expiryDate);
+        accessors.put("categories", LicenseFields::categories);
+        return accessors;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+
+    @FunctionalInterface
+    private interface IntWork {
+        int run();
+    }
+
+    private record CorpusSpec(long seed, int size, OcrNoise noise) {}
+}
@@ -0,0 +1,115 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.ValidationError;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Encode cost of {@link ScanResponse} in each negotiable format, for one response and for a batch.
+ * The {@code encodedBytes} secondary result reports the payload size of one encode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private ObjectMapper mapper;
+    private Object payload;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new JsonMapper();
+        };
+        List<ScanResponse> responses = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            responses.add(response(i));
+        }
+        payload = batchSize == 1 ? responses.get(0) : responses;
+        encoded = mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize size) {
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        size.encodedBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object decode() {
+        return batchSize == 1
+                ? mapper.readValue(encoded, ScanResponse.class)
+                : mapper.readValue(encoded, ScanResponse[].class);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            encodedBytes = 0;
+        }
+    }
+
+    private static ScanResponse response(int index) {
+        return new ScanResponse(
+                "6f1c2a4e-0b7d-4c55-9a3e-" + String.format("%012d", index),
+                "paddle",
+                List.of("paddle", "vision"),
+                0.85,
+                0.70,
+                912L,
+                new LicenseFields(
+                        "ANDREA JOAN",
+                        "CAMPBELL",
+                        "05.07.1964",
+                        "123 CASTLEROCK ROAD, COLERAINE, CO. LONDONDERRY, BT51 3TB",
+                        "CAMPB657054AJ9AB",
+                        "30.11.2031",
+                        List.of("AM", "A", "B1", "B", "f", "k", "p", "q")
+                ),
+                new ValidationResult(
+                        List.of(new ValidationError("EXPIRY_DATE_PAST", "expiryDate", "Expiry date is in the past.")),
+                        List.of("Age outside 21-75")
+                ),
+                Map.of("firstName", "paddle", "lastName", "paddle", "licenceNumber", "vision")
+        );
+    }
+}
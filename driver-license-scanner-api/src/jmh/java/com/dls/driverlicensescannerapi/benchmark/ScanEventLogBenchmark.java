@@ -0,0 +1,102 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.analytics.ScanEventLog;
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.ValidationError;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request-path cost of {@link ScanEventLog#record}; pass {@code -t} for more request threads.
+ * {@code disabled} is the baseline; {@code running} has the writer draining into memory-mapped
+ * segments; {@code stalled} has no writer, so the ring is full and every event is dropped. The
+ * last two should cost the same, showing a writer that falls behind never slows a scan down.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanEventLogBenchmark {
+
+    private static final int BUFFER = 8192;
+
+    @Param({"disabled", "running", "stalled"})
+    public String writer;
+
+    private Path directory;
+    private ScanEventLog eventLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("scan-events-bench");
+        eventLog = new ScanEventLog(new SimpleMeterRegistry(), !writer.equals("disabled"), directory.toString(),
+                BUFFER, 16L << 20, 4);
+        if (writer.equals("running")) {
+            eventLog.start();
+        } else {
+            Scan scan = new Scan();
+            for (int i = 0; i < BUFFER; i++) {
+                eventLog.record(scan.context, scan.response, null, 195_000_000L);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void record(Scan scan) {
+        eventLog.record(scan.context, scan.response, null, 195_000_000L);
+    }
+
+    /** A finished scan per request thread, as each request has its own timeline. */
+    @State(Scope.Thread)
+    public static class Scan {
+
+        final ScanContext context = ScanContext.of("3f2b8c1e-6d4a-4f7e-9b1a-2c5d8e7f0a13");
+        final ScanResponse response = new ScanResponse(context.requestId(), "paddle", List.of("paddle"),
+                0.91, 0.70, 180L, new LicenseFields(null, null, null, null, null, null, List.of()),
+                new ValidationResult(List.of(new ValidationError("INVALID_POSTCODE", "addressLine", "")), List.of()));
+
+        public Scan() {
+            context.timeline().record(ScanMetrics.STAGE_UPLOAD_READ, null, 400_000L);
+            context.timeline().record(ScanMetrics.STAGE_PREPROCESS, null, 12_000_000L);
+            context.timeline().record(ScanMetrics.STAGE_OCR, "paddle", 180_000_000L);
+            context.timeline().record(ScanMetrics.STAGE_PARSE, "paddle", 90_000L);
+            context.timeline().record(ScanMetrics.STAGE_ATTEMPT, "paddle", 182_000_000L);
+            context.timeline().record(ScanMetrics.STAGE_VALIDATE, "paddle", 30_000L);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.analytics.ScanEventLog;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.engine.EngineBulkheads;
+import com.dls.driverlicensescannerapi.engine.EngineStatisticsRegistry;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
+import com.dls.driverlicensescannerapi.engine.FixedOrderEngineSelectionPolicy;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClient;
+import com.dls.driverlicensescannerapi.ocr.OcrResponseDecoder;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.ocr.OcrRetryPolicy;
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.service.FieldMerger;
+import com.dls.driverlicensescannerapi.service.ResponseAssembler;
+import com.dls.driverlicensescannerapi.service.ScanService;
+import com.dls.driverlicensescannerapi.stub.CannedOcrResults;
+import com.dls.driverlicensescannerapi.stub.OcrLineSets;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * End-to-end {@link ScanService} cost with the worker call stubbed out, so the score is the
+ * orchestration, parsing, merging and validation overhead the API adds to every scan. With
+ * fallback on, the first engine returns the line set under test and the second a clean card.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanServiceBenchmark {
+
+    @Param({OcrLineSets.CLEAN, OcrLineSets.NOISY, OcrLineSets.ADVERSARIAL})
+    public String lineSet;
+
+    @Param({"false", "true"})
+    public boolean fallback;
+
+    private ScanService scanService;
+    private MultipartFile image;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ScanMetrics scanMetrics = new ScanMetrics(new SimpleMeterRegistry());
+        ValidationService validationService = new ValidationService();
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(200);
+        EngineTimeoutPolicy timeoutPolicy = new EngineTimeoutPolicy(statistics, false, 0.99, 2.0, 500, 20_000, 20);
+        OcrResult primary = new OcrResult("bench", "paddle", 0.9, OcrLineSets.named(lineSet), 15L, null);
+        OcrResult secondary = CannedOcrResults.licence("bench", "vision");
+
+        scanService = new ScanService(
+                new StubOcrClient(scanMetrics, timeoutPolicy, primary, secondary),
+                new CardPreprocessor(scanMetrics, false, 1012, 24_000_000),
+                new ResponseAssembler(0.70, validationService, scanMetrics),
+                new FixedOrderEngineSelectionPolicy(statistics),
+                statistics,
+                timeoutPolicy,
+                new FieldMerger(validationService),
+                scanMetrics,
+                new ClientRateLimiter(new SimpleMeterRegistry(), false, 60, 10, "", 1, 600, ""),
+                new EngineBulkheads(new SimpleMeterRegistry(), true, 16, 16, 250, ""),
+                new ScanEventLog(new SimpleMeterRegistry(), false, "", 16, 4096, 1),
+                fallback,
+                2,
+                0.70,
+                ParserLimits.DEFAULT
+        );
+        image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1, 2, 3});
+    }
+
+    @Benchmark
+    public ScanResponse scan() {
+        return scanService.scan(image, "bench");
+    }
+
+    private static final class StubOcrClient extends OcrClient {
+
+        private final OcrResult primary;
+        private final OcrResult secondary;
+
+        StubOcrClient(ScanMetrics scanMetrics, EngineTimeoutPolicy timeoutPolicy, OcrResult primary,
+                      OcrResult secondary) {
+            super(new RestTemplateBuilder(), new OcrResponseDecoder(500, 512, 1024 * 1024), scanMetrics,
+                    timeoutPolicy, new OcrRetryPolicy(new SimpleMeterRegistry(), 0, 20, 200, 0.1, 10, ""),
+                    "http://127.0.0.1:0", "bench-key", 1);
+            this.primary = primary;
+            this.secondary = secondary;
+        }
+
+        @Override
+        public OcrResult scan(MultipartFile image, ScanContext context, String engine, EngineBulkheads.Permit permit) {
+            return "vision".equals(engine) ? secondary : primary;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.dls.driverlicensescannerapi.benchmark;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.parser.LicenseFieldParser;
+import com.dls.driverlicensescannerapi.stub.OcrLineSets;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ValidationService} cost on the fields each line set parses to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({OcrLineSets.CLEAN, OcrLineSets.NOISY, OcrLineSets.ADVERSARIAL})
+    public String lineSet;
+
+    private final ValidationService validationService = new ValidationService();
+    private LicenseFields fields;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fields = LicenseFieldParser.parse(OcrLineSets.named(lineSet));
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validationService.validate(fields);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dls.driverlicensescannerapi.parser;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.stub.OcrLineSets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-component parser cost. Lives in the parser package so the package-private stages can be
+ * measured on their own; every stage is fed the whole normalised line set rather than its label
+ * range, which is the worst case each one can see.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({OcrLineSets.CLEAN, OcrLineSets.NOISY, OcrLineSets.ADVERSARIAL})
+    public String lineSet;
+
+    private List<OcrLine> lines;
+    private List<String> normalizedLines;
+    private LicenseFields parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lines = OcrLineSets.named(lineSet);
+        normalizedLines = new ArrayList<>(lines.size());
+        for (OcrLine line : lines) {
+            normalizedLines.add(line.text().replaceAll("\\s+", " ").trim());
+        }
+        parsed = LicenseFieldParser.parse(lines);
+    }
+
+    @Benchmark
+    public LicenseFields licenseFieldParser() {
+        return LicenseFieldParser.parse(lines);
+    }
+
+    @Benchmark
+    public LabelIndex labelIndex() {
+        return LabelIndex.from(normalizedLines);
+    }
+
+    @Benchmark
+    public String addressAssembler() {
+        return AddressAssembler.assemble(normalizedLines);
+    }
+
+    @Benchmark
+    public List<String> categoryParser() {
+        return CategoryParser.parse(normalizedLines);
+    }
+
+    @Benchmark
+    public String dateParser() {
+        return DateParser.findFirstDate(normalizedLines, true);
+    }
+
+    @Benchmark
+    public LicenseFields licenceNumberReconciler() {
+        return LicenceNumberReconciler.reconcile(parsed, lines);
+    }
+}
@@ -0,0 +1,89 @@
+package com.dls.driverlicensescannerapi.parser;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse time for generated hostile OCR output. Each shape targets one matcher: label-like tokens
+ * for the label scan, long digit and separator runs for the date scan, and random text over the
+ * parser's alphabet for everything else. Sampled so the report shows the worst invocations, not
+ * just the mean; with the parser limits in place the maximum should stay flat as {@code
+ * inputLines} and {@code lineLength} grow past {@link ParserLimits#DEFAULT}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserFuzzBenchmark {
+
+    private static final int INPUTS = 32;
+    private static final int POOL = 256;
+    private static final String ALPHABET = "0123456789412. )-/abABoOsSiIxX";
+
+    @Param({"random", "labels", "digits", "separators"})
+    public String shape;
+
+    @Param({"50", "5000"})
+    public int inputLines;
+
+    @Param({"64", "8192"})
+    public int lineLength;
+
+    private List<List<OcrLine>> inputs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(48L);
+        // Inputs share a pool of generated lines so the large parameters fit in a small heap.
+        List<OcrLine> pool = new ArrayList<>(POOL);
+        for (int i = 0; i < POOL; i++) {
+            pool.add(new OcrLine(line(random), random.nextDouble()));
+        }
+        inputs = new ArrayList<>(INPUTS);
+        for (int i = 0; i < INPUTS; i++) {
+            List<OcrLine> lines = new ArrayList<>(inputLines);
+            for (int j = 0; j < inputLines; j++) {
+                lines.add(pool.get(random.nextInt(POOL)));
+            }
+            inputs.add(lines);
+        }
+    }
+
+    @Benchmark
+    public LicenseFields parse() {
+        List<OcrLine> lines = inputs.get(next++ & (INPUTS - 1));
+        return LicenceNumberReconciler.reconcile(LicenseFieldParser.parse(lines), lines);
+    }
+
+    private String line(Random random) {
+        StringBuilder text = new StringBuilder(lineLength);
+        while (text.length() < lineLength) {
+            switch (shape) {
+                case "labels" -> text.append(random.nextBoolean() ? "4b. " : "1 ");
+                case "digits" -> text.append((char) ('0' + random.nextInt(10)));
+                case "separators" -> text.append(random.nextInt(8) == 0 ? "OS" : "12.").append(random.nextBoolean() ? '/' : '-');
+                default -> text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return text.substring(0, lineLength);
+    }
+}
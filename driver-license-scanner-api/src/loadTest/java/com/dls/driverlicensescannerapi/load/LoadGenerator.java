@@ -0,0 +1,297 @@
+package com.dls.driverlicensescannerapi.load;
+
+import com.dls.driverlicensescannerapi.DriverLicenseScannerApiApplication;
+import com.dls.driverlicensescannerapi.stub.EngineProfile;
+import com.dls.driverlicensescannerapi.stub.StubOcrWorker;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Drives {@code POST /license/scan} at a fixed arrival rate against the API booted in-process,
+ * backed by a {@link StubOcrWorker}. Each phase runs once with fallback off and once with it on
+ * (or only the one selected) and reports throughput, latency percentiles, the error code
+ * breakdown and peak heap.
+ *
+ * <p>Arrivals are open loop: latency is measured from the scheduled send time, so a stalled
+ * server shows up in the percentiles instead of slowing the generator down.
+ *
+ * <p>Options (as {@code key=value} arguments): {@code rate} requests per second, {@code duration}
+ * seconds, {@code fallback} on, off or both, {@code profiles} as in {@link EngineProfile#parseAll},
+ * {@code imageBytes}, {@code maxInFlight} and {@code report} directory.
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULT_PROFILES =
+            "paddle[latency=lognormal:250:0.5,error=0.01,timeout=0.002,payload=noisy,confidence=0.6];"
+                    + "vision[latency=lognormal:450:0.4,error=0.005,payload=clean]";
+    private static final String BOUNDARY = "dls-load-boundary";
+
+    private final JsonMapper jsonMapper = new JsonMapper();
+    private final Map<String, String> options;
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length == 2 && !keyValue[1].isBlank()) {
+                options.put(keyValue[0], keyValue[1]);
+            }
+        }
+        new LoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        Map<String, EngineProfile> profiles = new LinkedHashMap<>(
+                EngineProfile.parseAll(options.getOrDefault("profiles", DEFAULT_PROFILES)));
+        if (!profiles.containsKey(StubOcrWorker.DEFAULT_ENGINE) && profiles.containsKey("paddle")) {
+            profiles.put(StubOcrWorker.DEFAULT_ENGINE, profiles.get("paddle"));
+        }
+        String fallback = options.getOrDefault("fallback", "both");
+        List<Boolean> phases = switch (fallback) {
+            case "on" -> List.of(true);
+            case "off" -> List.of(false);
+            default -> List.of(false, true);
+        };
+
+        List<Map<String, Object>> reports = new ArrayList<>();
+        for (boolean fallbackEnabled : phases) {
+            reports.add(runPhase(fallbackEnabled, profiles));
+        }
+
+        Path reportDirectory = Path.of(options.getOrDefault("report", "build/reports/load"));
+        Files.createDirectories(reportDirectory);
+        Path reportFile = reportDirectory.resolve("load-report.json");
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), reports);
+        System.out.println("Load report written to " + reportFile.toAbsolutePath());
+    }
+
+    private Map<String, Object> runPhase(boolean fallbackEnabled, Map<String, EngineProfile> profiles)
+            throws Exception {
+        int rate = Integer.parseInt(options.getOrDefault("rate", "50"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("maxInFlight", "2000"));
+        int imageBytes = Integer.parseInt(options.getOrDefault("imageBytes", "262144"));
+
+        try (StubOcrWorker worker = new StubOcrWorker(0, 512, profiles, Duration.ofSeconds(25));
+             ConfigurableApplicationContext context = startApi(worker.url(), fallbackEnabled)) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI target = URI.create("http://127.0.0.1:" + port + "/license/scan");
+            byte[] body = multipartBody(imageBytes);
+
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(32);
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            warmUp(client, target, body);
+            resetPeakHeap();
+
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+            Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+            LongAdder dropped = new LongAdder();
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long total = (long) rate * durationSeconds;
+            long startedAt = System.nanoTime();
+            for (long i = 0; i < total; i++) {
+                long scheduledAt = startedAt + i * intervalNanos;
+                long wait = scheduledAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped.increment();
+                    continue;
+                }
+                HttpRequest request = HttpRequest.newBuilder(target)
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .header("X-Request-Id", "load-" + i)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                        .build();
+                pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .handle((response, failure) -> {
+                            latenciesMicros.add((System.nanoTime() - scheduledAt) / 1_000);
+                            outcomes.computeIfAbsent(outcomeOf(response, failure), key -> new LongAdder()).increment();
+                            inFlight.release();
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(120, TimeUnit.SECONDS);
+            double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+            clientExecutor.shutdownNow();
+
+            Map<String, Object> report = report(fallbackEnabled, rate, elapsedSeconds, latenciesMicros, outcomes,
+                    dropped.sum(), worker.requestCounts());
+            print(report);
+            return report;
+        }
+    }
+
+    private ConfigurableApplicationContext startApi(String workerUrl, boolean fallbackEnabled) {
+        return new SpringApplicationBuilder(DriverLicenseScannerApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "OCR_WORKER_URL=" + workerUrl,
+                        "X_INTERNAL_KEY=load-test",
+                        "ENABLE_FALLBACK_OCR=" + fallbackEnabled,
+                        "spring.main.banner-mode=off"
+                )
+                .run();
+    }
+
+    private void warmUp(HttpClient client, URI target, byte[] body) {
+        for (int i = 0; i < 20; i++) {
+            HttpRequest request = HttpRequest.newBuilder(target)
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException ex) {
+                // Warm-up failures show up again, and are counted, in the measured phase.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private String outcomeOf(HttpResponse<byte[]> response, Throwable failure) {
+        if (failure != null) {
+            Throwable cause = failure.getCause() == null ? failure : failure.getCause();
+            return "CLIENT " + cause.getClass().getSimpleName();
+        }
+        if (response.statusCode() == 200) {
+            return "200";
+        }
+        try {
+            JsonNode error = jsonMapper.readTree(response.body()).path("error");
+            return response.statusCode() + " " + error.path("code").asString("UNKNOWN");
+        } catch (RuntimeException ex) {
+            return response.statusCode() + " UNPARSEABLE";
+        }
+    }
+
+    private Map<String, Object> report(
+            boolean fallbackEnabled,
+            int rate,
+            double elapsedSeconds,
+            ConcurrentLinkedQueue<Long> latenciesMicros,
+            Map<String, LongAdder> outcomes,
+            long dropped,
+            Map<String, Long> workerRequests
+    ) {
+        long[] sorted = latenciesMicros.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+        long succeeded = outcomeCounts.getOrDefault("200", 0L);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("fallback", fallbackEnabled);
+        report.put("targetRate", rate);
+        report.put("completed", sorted.length);
+        report.put("dropped", dropped);
+        report.put("throughputPerSecond", round(sorted.length / elapsedSeconds));
+        report.put("successPerSecond", round(succeeded / elapsedSeconds));
+        report.put("p50Ms", percentileMillis(sorted, 0.50));
+        report.put("p99Ms", percentileMillis(sorted, 0.99));
+        report.put("p999Ms", percentileMillis(sorted, 0.999));
+        report.put("maxMs", sorted.length == 0 ? 0 : round(sorted[sorted.length - 1] / 1000.0));
+        report.put("outcomes", outcomeCounts);
+        report.put("workerRequests", workerRequests);
+        report.put("peakHeapMb", round(peakHeapBytes() / (1024.0 * 1024.0)));
+        return report;
+    }
+
+    private static void print(Map<String, Object> report) {
+        System.out.println();
+        System.out.println("=== fallback " + (Boolean.TRUE.equals(report.get("fallback")) ? "on" : "off") + " ===");
+        report.forEach((key, value) -> System.out.printf("%-20s %s%n", key, value));
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return round(sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of per-pool peaks, an upper bound on peak heap. Covers the generator as well as the API
+     * since both share the JVM; the generator's share is small and constant between phases.
+     */
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static byte[] multipartBody(int imageBytes) throws IOException {
+        byte[] image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(imageBytes + 256);
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"license.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(image);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+}
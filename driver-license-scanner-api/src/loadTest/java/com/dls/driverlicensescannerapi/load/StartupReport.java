@@ -0,0 +1,242 @@
+package com.dls.driverlicensescannerapi.load;
+
+import com.dls.driverlicensescannerapi.stub.StubOcrWorker;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compares cold starts of the boot jar in three modes: plain, with the AppCDS archive the
+ * Dockerfile records from a training run, and with that archive plus Spring AOT (the image's
+ * opt-in). For each mode the jar is started several times against a {@link StubOcrWorker}; the
+ * report holds the median time from process launch to the first {@code 200} from
+ * {@code POST /license/scan} and the resident set size at that point. Modes are interleaved run
+ * by run so a slow stretch on the machine does not land on one mode only.
+ *
+ * <p>Options (as {@code key=value} arguments): {@code jar} the boot jar, {@code runs} per mode,
+ * {@code work} scratch directory and {@code report} directory.
+ */
+public final class StartupReport {
+
+    private static final String BOUNDARY = "dls-startup-boundary";
+    private static final String INTERNAL_KEY = "startup-key";
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Map<String, String> options;
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private StartupReport(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length == 2 && !keyValue[1].isBlank()) {
+                options.put(keyValue[0], keyValue[1]);
+            }
+        }
+        new StartupReport(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        Path bootJar = Path.of(options.get("jar"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path work = Path.of(options.getOrDefault("work", "build/startup"));
+        Path reportDirectory = Path.of(options.getOrDefault("report", "build/reports/startup"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("java", Runtime.version().toString());
+        report.put("runs", runs);
+        try (StubOcrWorker worker = new StubOcrWorker(0, 16)) {
+            Path app = extract(bootJar, work.resolve("app"));
+            Path archive = work.resolve("app.jsa");
+            train(app, archive, worker.url());
+
+            Map<String, List<String>> modes = new LinkedHashMap<>();
+            modes.put("default", List.of("-jar", app.toString()));
+            modes.put("cds", List.of("-XX:SharedArchiveFile=" + archive, "-jar", app.toString()));
+            modes.put("cdsAot", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                    "-jar", app.toString()));
+            report.putAll(measure(runs, worker.url(), modes));
+        }
+
+        Files.createDirectories(reportDirectory);
+        Path reportFile = reportDirectory.resolve("startup-report.json");
+        new JsonMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        report.forEach((key, value) -> System.out.printf("%-10s %s%n", key, value));
+        System.out.println("Startup report written to " + reportFile.toAbsolutePath());
+    }
+
+    /**
+     * CDS only archives classes loaded from plain jars on the class path, so the boot jar is
+     * unpacked the same way the Dockerfile does it.
+     */
+    private Path extract(Path bootJar, Path destination) throws Exception {
+        if (Files.exists(destination)) {
+            try (var paths = Files.walk(destination)) {
+                paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+        exec(List.of(java, "-Djarmode=tools", "-jar", bootJar.toString(), "extract", "--destination",
+                destination.toString()), Map.of());
+        return destination.resolve(bootJar.getFileName());
+    }
+
+    private void train(Path app, Path archive, String workerUrl) throws Exception {
+        Files.deleteIfExists(archive);
+        exec(List.of(java, "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                "-jar", app.toString()), environment(workerUrl));
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("Training run did not write " + archive);
+        }
+    }
+
+    private Map<String, Object> measure(int runs, String workerUrl, Map<String, List<String>> modes)
+            throws Exception {
+        Map<String, long[]> firstScanMillis = new LinkedHashMap<>();
+        Map<String, long[]> rssKb = new LinkedHashMap<>();
+        modes.keySet().forEach(mode -> {
+            firstScanMillis.put(mode, new long[runs]);
+            rssKb.put(mode, new long[runs]);
+        });
+        byte[] body = multipartBody();
+        for (int run = 0; run < runs; run++) {
+            for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                long[] sample = start(workerUrl, mode.getValue(), body);
+                firstScanMillis.get(mode.getKey())[run] = sample[0];
+                rssKb.get(mode.getKey())[run] = sample[1];
+            }
+        }
+        Map<String, Object> results = new LinkedHashMap<>();
+        modes.forEach((mode, jvmArgs) -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("jvmArgs", jvmArgs.subList(0, jvmArgs.size() - 2));
+            result.put("timeToFirstScanMs", median(firstScanMillis.get(mode)));
+            result.put("rssMb", rssKb.get(mode)[0] < 0 ? null : median(rssKb.get(mode)) / 1024);
+            result.put("samplesMs", Arrays.toString(firstScanMillis.get(mode)));
+            results.put(mode, result);
+        });
+        return results;
+    }
+
+    /**
+     * One cold start: milliseconds to the first scan and RSS in KB at that point.
+     */
+    private long[] start(String workerUrl, List<String> jvmArgs, byte[] body) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.add("--server.port=" + port);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putAll(environment(workerUrl));
+
+        long startedAt = System.nanoTime();
+        Process process = builder.start();
+        try {
+            awaitFirstScan(process, port, body, startedAt);
+            return new long[] {(System.nanoTime() - startedAt) / 1_000_000, residentSetKb(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitFirstScan(Process process, int port, byte[] body, long startedAt) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/license/scan"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        while (System.nanoTime() - startedAt < START_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("API exited with " + process.exitValue() + " before serving a scan");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // Not listening yet.
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful scan within " + START_TIMEOUT);
+    }
+
+    private static Map<String, String> environment(String workerUrl) {
+        return Map.of("OCR_WORKER_URL", workerUrl, "X_INTERNAL_KEY", INTERNAL_KEY);
+    }
+
+    private static void exec(List<String> command, Map<String, String> environment) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putAll(environment);
+        int exit = builder.start().waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " exited with " + exit);
+        }
+    }
+
+    /**
+     * {@code VmRSS} from procfs, or -1 where there is none.
+     */
+    private static long residentSetKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // Not Linux.
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static byte[] multipartBody() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"license.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(new byte[4096]);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,20 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+/**
+ * Analytics record of one scan. Holds the request id, engine, counts, confidence, error and
+ * validation codes and stage timings only; never field values or image content.
+ *
+ * @param validationCodes bit set over {@link ScanEventCodec#VALIDATION_CODES}
+ * @param stageMicros     summed stage durations, indexed like {@link ScanEventCodec#STAGES}
+ */
+public record ScanEvent(
+        long timestampMillis,
+        String requestId,
+        String engine,
+        int attempts,
+        float confidence,
+        String errorCode,
+        int validationCodes,
+        int warnings,
+        int[] stageMicros
+) {}
@@ -0,0 +1,158 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed binary layout of scan event segments. A segment starts with a {@value #HEADER_BYTES} byte
+ * header (magic, version, record size) followed by {@value #RECORD_BYTES} byte little-endian
+ * records:
+ *
+ * <pre>
+ *   0  int    record marker, written last
+ *   4  byte   attempts
+ *   5  byte   warnings
+ *   8  long   timestamp, epoch millis
+ *  16  40 B   request id, ASCII, zero padded
+ *  56  16 B   engine, ASCII, zero padded
+ *  72  24 B   error code, ASCII, zero padded; empty on success
+ *  96  float  OCR confidence
+ * 100  int    validation code bits
+ * 104  int[9] stage durations in microseconds
+ * </pre>
+ *
+ * The memory behind a fresh segment is zero, so a reader stops at the first record without a
+ * marker. Code and stage tables are append-only; their order is part of the format.
+ */
+public final class ScanEventCodec {
+
+    public static final int SEGMENT_MAGIC = 0x45534C44; // "DLSE"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 144;
+
+    /** Validation codes with a bit each; anything else sets {@link #OTHER_VALIDATION_CODE}. */
+    public static final List<String> VALIDATION_CODES = List.of(
+            "MISSING_REQUIRED_FIELD",
+            "EXPIRY_DATE_PAST",
+            "INVALID_POSTCODE",
+            "INVALID_LICENCE_NUMBER"
+    );
+    public static final int OTHER_VALIDATION_CODE = 31;
+
+    /** Timeline stages with a slot each; {@code scan} is the time spent in {@code ScanService}. */
+    public static final List<String> STAGES = List.of(
+            ScanMetrics.STAGE_UPLOAD_READ,
+            ScanMetrics.STAGE_QUALITY,
+            ScanMetrics.STAGE_PREPROCESS,
+            ScanMetrics.STAGE_OCR,
+            ScanTimeline.STAGE_WORKER,
+            ScanMetrics.STAGE_ATTEMPT,
+            ScanMetrics.STAGE_PARSE,
+            ScanMetrics.STAGE_VALIDATE,
+            "scan"
+    );
+
+    static final int RECORD_MAGIC = 0x5CE7E001;
+
+    private static final int REQUEST_ID_BYTES = 40;
+    private static final int ENGINE_BYTES = 16;
+    private static final int ERROR_CODE_BYTES = 24;
+
+    private ScanEventCodec() {}
+
+    static void writeHeader(ByteBuffer segment) {
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(0, SEGMENT_MAGIC);
+        segment.putShort(4, VERSION);
+        segment.putShort(6, (short) RECORD_BYTES);
+    }
+
+    /**
+     * Writes {@code event} at {@code offset}; the marker goes in last so a concurrent reader never
+     * sees a half-written record.
+     */
+    static void write(ByteBuffer segment, int offset, ScanEvent event) {
+        segment.put(offset + 4, (byte) Math.min(event.attempts(), 0xFF));
+        segment.put(offset + 5, (byte) Math.min(event.warnings(), 0xFF));
+        segment.putLong(offset + 8, event.timestampMillis());
+        putAscii(segment, offset + 16, REQUEST_ID_BYTES, event.requestId());
+        putAscii(segment, offset + 56, ENGINE_BYTES, event.engine());
+        putAscii(segment, offset + 72, ERROR_CODE_BYTES, event.errorCode());
+        segment.putFloat(offset + 96, event.confidence());
+        segment.putInt(offset + 100, event.validationCodes());
+        int[] stageMicros = event.stageMicros();
+        for (int i = 0; i < STAGES.size(); i++) {
+            segment.putInt(offset + 104 + i * 4, i < stageMicros.length ? stageMicros[i] : 0);
+        }
+        segment.putInt(offset, RECORD_MAGIC);
+    }
+
+    /** The record at {@code offset}, or null when none has been written there. */
+    static ScanEvent read(ByteBuffer segment, int offset) {
+        if (offset + RECORD_BYTES > segment.limit() || segment.getInt(offset) != RECORD_MAGIC) {
+            return null;
+        }
+        int[] stageMicros = new int[STAGES.size()];
+        for (int i = 0; i < stageMicros.length; i++) {
+            stageMicros[i] = segment.getInt(offset + 104 + i * 4);
+        }
+        return new ScanEvent(
+                segment.getLong(offset + 8),
+                getAscii(segment, offset + 16, REQUEST_ID_BYTES),
+                getAscii(segment, offset + 56, ENGINE_BYTES),
+                segment.get(offset + 4) & 0xFF,
+                segment.getFloat(offset + 96),
+                getAscii(segment, offset + 72, ERROR_CODE_BYTES),
+                segment.getInt(offset + 100),
+                segment.get(offset + 5) & 0xFF,
+                stageMicros
+        );
+    }
+
+    static int validationBit(String code) {
+        int index = VALIDATION_CODES.indexOf(code);
+        return 1 << (index < 0 ? OTHER_VALIDATION_CODE : index);
+    }
+
+    public static List<String> validationCodes(int bits) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < VALIDATION_CODES.size(); i++) {
+            if ((bits & (1 << i)) != 0) {
+                codes.add(VALIDATION_CODES.get(i));
+            }
+        }
+        if ((bits & (1 << OTHER_VALIDATION_CODE)) != 0) {
+            codes.add("OTHER");
+        }
+        return codes;
+    }
+
+    private static void putAscii(ByteBuffer segment, int offset, int length, String value) {
+        int count = value == null ? 0 : Math.min(value.length(), length);
+        for (int i = 0; i < length; i++) {
+            byte b = 0;
+            if (i < count) {
+                char c = value.charAt(i);
+                b = c >= 0x20 && c < 0x7F ? (byte) c : (byte) '?';
+            }
+            segment.put(offset + i, b);
+        }
+    }
+
+    private static String getAscii(ByteBuffer segment, int offset, int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            byte b = segment.get(offset + i);
+            if (b == 0) {
+                break;
+            }
+            value.append((char) b);
+        }
+        return value.isEmpty() ? null : value.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts scan event segments to CSV, one row per scan with stage durations in milliseconds.
+ * Run with {@code gradle exportScanEvents -Pevents=<dir or segment> [-Pout=<file>]}; without
+ * an output file the CSV goes to standard output.
+ */
+public final class ScanEventExport {
+
+    private ScanEventExport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].isBlank()) {
+            System.err.println("usage: ScanEventExport <segment dir or file> [output.csv]");
+            System.exit(2);
+        }
+        List<ScanEvent> events = ScanEventReader.read(Path.of(args[0]));
+        if (args.length > 1 && !args[1].isBlank()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(args[1])), false,
+                    StandardCharsets.UTF_8)) {
+                write(events, out);
+            }
+            System.err.println("Exported " + events.size() + " scan events to " + args[1]);
+        } else {
+            write(events, System.out);
+            System.out.flush();
+        }
+    }
+
+    static void write(List<ScanEvent> events, Appendable out) {
+        try {
+            out.append(header()).append('\n');
+            for (ScanEvent event : events) {
+                out.append(row(event)).append('\n');
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static String header() {
+        StringBuilder header = new StringBuilder(
+                "timestamp,request_id,engine,attempts,confidence,error_code,validation_codes,warnings");
+        for (String stage : ScanEventCodec.STAGES) {
+            header.append(',').append(stage).append("_ms");
+        }
+        return header.toString();
+    }
+
+    static String row(ScanEvent event) {
+        StringBuilder row = new StringBuilder(160)
+                .append(Instant.ofEpochMilli(event.timestampMillis())).append(',')
+                .append(field(event.requestId())).append(',')
+                .append(field(event.engine())).append(',')
+                .append(event.attempts()).append(',')
+                .append(String.format(Locale.ROOT, "%.3f", event.confidence())).append(',')
+                .append(field(event.errorCode())).append(',')
+                .append(String.join("|", ScanEventCodec.validationCodes(event.validationCodes()))).append(',')
+                .append(event.warnings());
+        for (int micros : event.stageMicros()) {
+            row.append(',').append(String.format(Locale.ROOT, "%.3f", micros / 1000.0));
+        }
+        return row.toString();
+    }
+
+    /** Quotes values holding CSV delimiters; request ids come from callers. */
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
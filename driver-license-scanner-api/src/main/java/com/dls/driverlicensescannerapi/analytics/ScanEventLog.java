@@ -0,0 +1,309 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.StageTiming;
+import com.dls.driverlicensescannerapi.dto.ValidationError;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-scan analytics sink. {@code ScanService} hands each finished scan to {@link #record}, which
+ * builds a {@link ScanEvent} and offers it to a lock-free ring; a single background writer appends
+ * the events to memory-mapped segment files in {@code SCAN_EVENTS_DIR}, rolling to a new file
+ * every {@code SCAN_EVENTS_SEGMENT_BYTES} and keeping the newest {@code SCAN_EVENTS_MAX_SEGMENTS}.
+ *
+ * <p>The request thread never waits on the writer or the disk: when {@code SCAN_EVENTS_BUFFER}
+ * events are already queued, the event is dropped and counted instead. An idle writer parks
+ * until the next event is published. An event that cannot be written is counted as failed and
+ * the writer carries on with the next. Segments are read back
+ * with {@link ScanEventReader} and converted to CSV by {@link ScanEventExport}.
+ */
+@Component
+public class ScanEventLog {
+
+    public static final String RECORD_COUNTER = "dls.scanevents.records";
+    public static final String BACKLOG_GAUGE = "dls.scanevents.backlog";
+    public static final String SEGMENT_PREFIX = "scan-events-";
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanEventLog.class);
+    private static final long OPEN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int SCAN_STAGE = ScanEventCodec.STAGES.indexOf("scan");
+    private static final Map<String, Integer> STAGE_SLOTS = stageSlots();
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final ScanEventRing ring;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private MappedByteBuffer segment;
+    private int position;
+    private int segmentSequence;
+    private long nextOpenNanos = System.nanoTime();
+
+    public ScanEventLog(
+            MeterRegistry registry,
+            @Value("${SCAN_EVENTS_ENABLED:false}") boolean enabled,
+            @Value("${SCAN_EVENTS_DIR:${java.io.tmpdir}/dls-scan-events}") String directory,
+            @Value("${SCAN_EVENTS_BUFFER:8192}") int bufferSize,
+            @Value("${SCAN_EVENTS_SEGMENT_BYTES:16777216}") long segmentBytes,
+            @Value("${SCAN_EVENTS_MAX_SEGMENTS:16}") int maxSegments
+    ) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = (int) Math.max(ScanEventCodec.HEADER_BYTES + ScanEventCodec.RECORD_BYTES,
+                Math.min(Integer.MAX_VALUE, segmentBytes));
+        this.maxSegments = Math.max(1, maxSegments);
+        this.ring = new ScanEventRing(enabled ? bufferSize : 2);
+        this.written = counter(registry, "written");
+        this.dropped = counter(registry, "dropped");
+        this.failed = counter(registry, "failed");
+        Gauge.builder(BACKLOG_GAUGE, ring, ScanEventRing::size)
+                .description("Scan events queued for the writer")
+                .register(registry);
+    }
+
+    /**
+     * Starts the writer. Until then nothing drains the ring, which lets tests and benchmarks
+     * measure a writer that has fallen behind.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (enabled && writer == null) {
+            running = true;
+            writer = new Thread(this::drainLoop, "scan-event-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the analytics event for a scan that returned {@code response}, or failed with
+     * {@code errorCode} when {@code response} is null.
+     */
+    public void record(ScanContext context, ScanResponse response, String errorCode, long elapsedNanos) {
+        if (enabled) {
+            publish(toEvent(context, response, errorCode, elapsedNanos));
+        }
+    }
+
+    boolean publish(ScanEvent event) {
+        if (ring.offer(event)) {
+            if (writerParked) {
+                LockSupport.unpark(writer);
+            }
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    int backlog() {
+        return ring.size();
+    }
+
+    /** Stops the writer after it has written everything already queued. */
+    @PreDestroy
+    public synchronized void close() {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ScanEvent toEvent(ScanContext context, ScanResponse response, String errorCode, long elapsedNanos) {
+        int[] stageMicros = new int[ScanEventCodec.STAGES.size()];
+        int attemptStages = 0;
+        int ocrStages = 0;
+        String lastEngine = null;
+        for (StageTiming stage : context.timeline().stages()) {
+            Integer slot = STAGE_SLOTS.get(stage.stage());
+            if (slot != null) {
+                stageMicros[slot] += (int) Math.round(stage.durationMs() * 1000);
+            }
+            if (ScanMetrics.STAGE_ATTEMPT.equals(stage.stage())) {
+                attemptStages++;
+                lastEngine = stage.engine();
+            } else if (ScanMetrics.STAGE_OCR.equals(stage.stage())) {
+                ocrStages++;
+                if (attemptStages == 0) {
+                    lastEngine = stage.engine();
+                }
+            }
+        }
+        stageMicros[SCAN_STAGE] = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+
+        if (response == null) {
+            int attempts = attemptStages > 0 ? attemptStages : Math.min(ocrStages, 1);
+            return new ScanEvent(System.currentTimeMillis(), context.requestId(), lastEngine, attempts, 0f,
+                    errorCode, 0, 0, stageMicros);
+        }
+        int validationCodes = 0;
+        int warnings = 0;
+        ValidationResult validation = response.validation();
+        if (validation != null) {
+            for (ValidationError error : validation.blockingErrors()) {
+                validationCodes |= ScanEventCodec.validationBit(error.code());
+            }
+            warnings = validation.warnings().size();
+        }
+        List<String> attempted = response.attemptedEngines();
+        return new ScanEvent(System.currentTimeMillis(), context.requestId(), response.selectedEngine(),
+                attempted == null ? 1 : attempted.size(), (float) response.ocrConfidence(), errorCode,
+                validationCodes, warnings, stageMicros);
+    }
+
+    /**
+     * Publishers only unpark the writer once it has announced that it is parking, and it looks at
+     * the ring again after announcing, so an event offered in between is never left waiting.
+     */
+    private void drainLoop() {
+        while (true) {
+            ScanEvent event = ring.poll();
+            if (event != null) {
+                writeOrCount(event);
+            } else if (running) {
+                writerParked = true;
+                if (ring.size() == 0 && running) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+            } else {
+                break;
+            }
+        }
+        try {
+            forceSegment();
+        } catch (RuntimeException ex) {
+            logger.warn("Scan event segment could not be flushed: {}", ex.toString());
+        }
+    }
+
+    private void writeOrCount(ScanEvent event) {
+        try {
+            write(event);
+        } catch (RuntimeException ex) {
+            failed.increment();
+            logger.warn("Scan event could not be written: {}", ex.toString());
+        }
+    }
+
+    private void write(ScanEvent event) {
+        if (segment == null || position + ScanEventCodec.RECORD_BYTES > segment.capacity()) {
+            rollSegment();
+            if (segment == null) {
+                failed.increment();
+                return;
+            }
+        }
+        ScanEventCodec.write(segment, position, event);
+        position += ScanEventCodec.RECORD_BYTES;
+        written.increment();
+    }
+
+    private void rollSegment() {
+        long now = System.nanoTime();
+        try {
+            forceSegment();
+            segment = null;
+            if (now - nextOpenNanos < 0) {
+                return;
+            }
+            Path path = directory.resolve(String.format(Locale.ROOT, "%s%013d-%06d%s",
+                    SEGMENT_PREFIX, System.currentTimeMillis(), segmentSequence++, SEGMENT_SUFFIX));
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            }
+            ScanEventCodec.writeHeader(segment);
+            position = ScanEventCodec.HEADER_BYTES;
+            pruneSegments();
+        } catch (IOException | RuntimeException ex) {
+            segment = null;
+            nextOpenNanos = now + OPEN_RETRY_NANOS;
+            logger.warn("Scan event segment could not be rolled over, dropping events for {}s: {}",
+                    TimeUnit.NANOSECONDS.toSeconds(OPEN_RETRY_NANOS), ex.toString());
+        }
+    }
+
+    private void pruneSegments() throws IOException {
+        List<Path> segments = segmentFiles(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void forceSegment() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /** Segment files in {@code directory}, oldest first. */
+    static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Map<String, Integer> stageSlots() {
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < ScanEventCodec.STAGES.size(); i++) {
+            slots.put(ScanEventCodec.STAGES.get(i), i);
+        }
+        return Map.copyOf(slots);
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder(RECORD_COUNTER)
+                .description("Scan analytics events by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads scan event segments. Safe to run against the segment the writer is still filling: it
+ * returns the records complete at the time of reading.
+ */
+public final class ScanEventReader {
+
+    private ScanEventReader() {}
+
+    /** Events in {@code path}, a segment file or a directory of them, oldest first. */
+    public static List<ScanEvent> read(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return readSegment(path);
+        }
+        List<ScanEvent> events = new ArrayList<>();
+        for (Path segment : ScanEventLog.segmentFiles(path)) {
+            events.addAll(readSegment(segment));
+        }
+        return events;
+    }
+
+    static List<ScanEvent> readSegment(Path segment) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < ScanEventCodec.HEADER_BYTES
+                || buffer.getInt(0) != ScanEventCodec.SEGMENT_MAGIC
+                || buffer.getShort(4) != ScanEventCodec.VERSION
+                || buffer.getShort(6) != ScanEventCodec.RECORD_BYTES) {
+            throw new IOException("Not a scan event segment: " + segment.getFileName());
+        }
+        List<ScanEvent> events = new ArrayList<>();
+        for (int offset = ScanEventCodec.HEADER_BYTES; ; offset += ScanEventCodec.RECORD_BYTES) {
+            ScanEvent event = ScanEventCodec.read(buffer, offset);
+            if (event == null) {
+                return events;
+            }
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many request threads and the single writer thread. Each slot carries
+ * a sequence number: a producer claims a position with one CAS on the tail and publishes the
+ * event by advancing the slot's sequence, and the consumer hands the slot back a lap later. A
+ * full ring rejects the event instead of waiting, so a slow writer never blocks a request.
+ */
+final class ScanEventRing {
+
+    private final ScanEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    ScanEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 30)) - 1) << 1;
+        events = new ScanEvent[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** Queues {@code event}; false when the ring is full. */
+    boolean offer(ScanEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /** The oldest published event, or null. Only the writer thread may call this. */
+    ScanEvent poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        ScanEvent event = events[index];
+        events[index] = null;
+        sequences.set(index, position + events.length);
+        head = position + 1;
+        return event;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
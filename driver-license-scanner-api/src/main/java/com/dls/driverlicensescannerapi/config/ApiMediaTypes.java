@@ -0,0 +1,16 @@
+package com.dls.driverlicensescannerapi.config;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Response encodings offered to callers through the {@code Accept} header. JSON stays the default;
+ * CBOR and Smile carry the same records in a compact binary form for server-to-server clients.
+ */
+public final class ApiMediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private ApiMediaTypes() {}
+}
@@ -0,0 +1,18 @@
+package com.dls.driverlicensescannerapi.config;
+
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ParserConfig {
+
+    @Bean
+    public ParserLimits parserLimits(
+            @Value("${PARSER_MAX_LINES:200}") int maxLines,
+            @Value("${PARSER_MAX_LINE_LENGTH:256}") int maxLineLength
+    ) {
+        return new ParserLimits(maxLines, maxLineLength);
+    }
+}
@@ -0,0 +1,23 @@
+package com.dls.driverlicensescannerapi.config;
+
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final ClientRateLimiter rateLimiter;
+
+    public RateLimitConfig(ClientRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter))
+                .addPathPatterns("/license/scan", "/license/scan/two-sided");
+    }
+}
@@ -1,22 +1,46 @@
 package com.dls.driverlicensescannerapi.controller;
 
+import com.dls.driverlicensescannerapi.config.ApiMediaTypes;
 import com.dls.driverlicensescannerapi.dto.ErrorDetail;
 import com.dls.driverlicensescannerapi.dto.ErrorResponse;
+import com.dls.driverlicensescannerapi.dto.MultiCardScanResponse;
+import com.dls.driverlicensescannerapi.dto.PrecheckResponse;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.StageTiming;
 import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.preprocess.ImageQuality;
+import com.dls.driverlicensescannerapi.preprocess.ImageQualityAnalyzer;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.service.MultiCardScanService;
 import com.dls.driverlicensescannerapi.service.ScanService;
+import com.dls.driverlicensescannerapi.service.TwoSidedScanService;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +49,9 @@ import org.springframework.web.multipart.MultipartFile;
 @RequestMapping("/license")
 public class ScanController {
 
+    /** {@code mode} of a scan whose photo holds several cards, each scanned separately. */
+    static final String MODE_MULTI_CARD = "multi";
+
     private static final long MAX_FILE_BYTES = 10 * 1024 * 1024;
     private static final Set<String> ALLOWED_CONTENT_TYPES =
             Set.of(MediaType.IMAGE_JPEG_VALUE, "image/jpg", MediaType.IMAGE_PNG_VALUE, "image/webp");
@@ -32,22 +59,172 @@ public class ScanController {
             Set.of(".jpg", ".jpeg", ".png", ".webp");
 
     private final ScanService scanService;
+    private final TwoSidedScanService twoSidedScanService;
+    private final MultiCardScanService multiCardScanService;
+    private final ScanMetrics scanMetrics;
+    private final ImageQualityAnalyzer qualityAnalyzer;
+    private final boolean qualityGateEnabled;
+    private final boolean responseTimingsEnabled;
+    private final Duration defaultDeadline;
+    private final Duration maxDeadline;
 
-    public ScanController(ScanService scanService) {
+    public ScanController(
+            ScanService scanService,
+            TwoSidedScanService twoSidedScanService,
+            MultiCardScanService multiCardScanService,
+            ScanMetrics scanMetrics,
+            ImageQualityAnalyzer qualityAnalyzer,
+            @Value("${QUALITY_GATE_ENABLED:false}") boolean qualityGateEnabled,
+            @Value("${SCAN_RESPONSE_TIMINGS:false}") boolean responseTimingsEnabled,
+            @Value("${SCAN_DEADLINE_MS:30000}") long defaultDeadlineMs,
+            @Value("${SCAN_DEADLINE_MAX_MS:60000}") long maxDeadlineMs
+    ) {
         this.scanService = scanService;
+        this.twoSidedScanService = twoSidedScanService;
+        this.multiCardScanService = multiCardScanService;
+        this.scanMetrics = scanMetrics;
+        this.qualityAnalyzer = qualityAnalyzer;
+        this.qualityGateEnabled = qualityGateEnabled;
+        this.responseTimingsEnabled = responseTimingsEnabled;
+        this.maxDeadline = Duration.ofMillis(Math.max(1, maxDeadlineMs));
+        this.defaultDeadline = Duration.ofMillis(Math.min(Math.max(1, defaultDeadlineMs), maxDeadline.toMillis()));
     }
 
+    /**
+     * Scans one card, or with {@code mode=multi} every card in a photo of several, answering with
+     * a {@link MultiCardScanResponse}. Any other {@code mode} is rejected with 400.
+     */
     @PostMapping(
             path = "/scan",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    ApiMediaTypes.APPLICATION_SMILE_VALUE
+            }
     )
     public ResponseEntity<?> scan(
             @RequestPart(value = "image", required = false) MultipartFile image,
-            @RequestHeader(value = "X-Request-Id", required = false) String requestIdHeader
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestHeader(value = "X-Request-Id", required = false) String requestIdHeader,
+            @RequestHeader(value = TraceContext.HEADER, required = false) String traceparentHeader,
+            @RequestHeader(value = Deadline.HEADER, required = false) String timeoutHeader,
+            HttpServletRequest request
+    ) {
+        ScanContext context = newContext(requestIdHeader, traceparentHeader, timeoutHeader, request);
+        if (mode != null && !MODE_MULTI_CARD.equalsIgnoreCase(mode)) {
+            return errorResponse(context.requestId(), HttpStatus.BAD_REQUEST, ErrorCatalog.INVALID_MODE_CODE,
+                    ErrorCatalog.INVALID_MODE_MESSAGE);
+        }
+        ResponseEntity<ErrorResponse> invalid = validateImage(image, context.requestId());
+        if (invalid != null) {
+            return invalid;
+        }
+        ImageQualityAnalyzer.Check checked = checkQuality(image, context);
+        if (!checked.quality().acceptable()) {
+            return qualityTooLow(context);
+        }
+        MultipartFile upload = checked.image();
+        if (MODE_MULTI_CARD.equalsIgnoreCase(mode)) {
+            return respond(context, () -> multiCardScanService.scan(upload, context), response -> null,
+                    MultiCardScanResponse::withTimings);
+        }
+        return respond(context, () -> scanService.scan(upload, context), ScanResponse::selectedEngine,
+                ScanResponse::withTimings);
+    }
+
+    /**
+     * Measures sharpness, exposure, contrast and glare without running OCR, so a client can ask
+     * for a retake before uploading a frame for a full scan.
+     */
+    @PostMapping(
+            path = "/precheck",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> precheck(
+            @RequestPart(value = "image", required = false) MultipartFile image,
+            @RequestHeader(value = "X-Request-Id", required = false) String requestIdHeader,
+            HttpServletRequest request
+    ) {
+        ScanContext context = newContext(requestIdHeader, null, null, request);
+        ResponseEntity<ErrorResponse> invalid = validateImage(image, context.requestId());
+        if (invalid != null) {
+            return invalid;
+        }
+        ImageQuality quality = qualityAnalyzer.analyze(image, context);
+        context.timeline().finish();
+        HttpHeaders headers = noStoreHeaders();
+        headers.set(ScanTimeline.HEADER, context.timeline().toServerTiming());
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new PrecheckResponse(
+                        context.requestId(),
+                        quality.analyzed(),
+                        quality.acceptable(),
+                        quality.sharpness(),
+                        quality.brightness(),
+                        quality.contrast(),
+                        quality.glareFraction(),
+                        quality.issues()
+                ));
+    }
+
+    /**
+     * Scans the front and back of a card together. Both parts are required and checked like
+     * {@code image} on the single-sided scan.
+     */
+    @PostMapping(
+            path = "/scan/two-sided",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    ApiMediaTypes.APPLICATION_SMILE_VALUE
+            }
+    )
+    public ResponseEntity<?> scanTwoSided(
+            @RequestPart(value = "front", required = false) MultipartFile front,
+            @RequestPart(value = "back", required = false) MultipartFile back,
+            @RequestHeader(value = "X-Request-Id", required = false) String requestIdHeader,
+            @RequestHeader(value = TraceContext.HEADER, required = false) String traceparentHeader,
+            @RequestHeader(value = Deadline.HEADER, required = false) String timeoutHeader,
+            HttpServletRequest request
     ) {
-        String requestId = resolveRequestId(requestIdHeader);
+        ScanContext context = newContext(requestIdHeader, traceparentHeader, timeoutHeader, request);
+        ResponseEntity<ErrorResponse> invalid = validateImage(front, context.requestId());
+        if (invalid == null) {
+            invalid = validateImage(back, context.requestId());
+        }
+        if (invalid != null) {
+            return invalid;
+        }
+        ImageQualityAnalyzer.Check checkedFront = checkQuality(front, context);
+        if (!checkedFront.quality().acceptable()) {
+            return qualityTooLow(context);
+        }
+        ImageQualityAnalyzer.Check checkedBack = checkQuality(back, context);
+        if (!checkedBack.quality().acceptable()) {
+            return qualityTooLow(context);
+        }
+        return respond(context, () -> twoSidedScanService.scan(checkedFront.image(), checkedBack.image(), context),
+                ScanResponse::selectedEngine, ScanResponse::withTimings);
+    }
 
+    private ScanContext newContext(String requestIdHeader, String traceparentHeader, String timeoutHeader,
+                                   HttpServletRequest request) {
+        ScanContext context = new ScanContext(
+                resolveRequestId(requestIdHeader),
+                TraceContext.continueOrStart(traceparentHeader),
+                new ScanTimeline(),
+                Deadline.resolve(timeoutHeader, defaultDeadline, maxDeadline),
+                (String) request.getAttribute(ClientRateLimiter.CLIENT_ATTRIBUTE)
+        );
+        request.setAttribute(ScanContext.ATTRIBUTE, context);
+        return context;
+    }
+
+    private ResponseEntity<ErrorResponse> validateImage(MultipartFile image, String requestId) {
         if (image == null || image.isEmpty()) {
             return errorResponse(requestId, ErrorCatalog.MISSING_IMAGE_MESSAGE);
         }
@@ -59,11 +236,50 @@ public class ScanController {
         if (!hasAllowedFormat(image)) {
             return errorResponse(requestId, ErrorCatalog.INVALID_FORMAT_MESSAGE);
         }
+        return null;
+    }
 
-        ScanResponse response = scanService.scan(image, requestId);
+    /**
+     * With {@code QUALITY_GATE_ENABLED}, measures images before they reach the OCR worker so the
+     * ones the analyzer judges unreadable are rejected. The returned upload is the one to scan:
+     * it carries the bitmap the gate decoded, so cropping does not decode it again.
+     */
+    private ImageQualityAnalyzer.Check checkQuality(MultipartFile image, ScanContext context) {
+        if (!qualityGateEnabled) {
+            return new ImageQualityAnalyzer.Check(ImageQuality.NOT_ANALYZED, image);
+        }
+        return qualityAnalyzer.check(image, context);
+    }
+
+    private ResponseEntity<ErrorResponse> qualityTooLow(ScanContext context) {
+        return errorResponse(context.requestId(), HttpStatus.UNPROCESSABLE_CONTENT,
+                ErrorCatalog.IMAGE_QUALITY_TOO_LOW_CODE, ErrorCatalog.IMAGE_QUALITY_TOO_LOW_MESSAGE);
+    }
+
+    private <T> ResponseEntity<T> respond(ScanContext context, Supplier<T> scan, Function<T, String> engine,
+                                          BiFunction<T, List<StageTiming>, T> withTimings) {
+        Timer.Sample sample = scanMetrics.start();
+        T response = null;
+        String outcome = ScanMetrics.OUTCOME_ERROR;
+        try {
+            response = scan.get();
+            outcome = ScanMetrics.OUTCOME_SUCCESS;
+        } catch (OcrClientException ex) {
+            outcome = ScanMetrics.outcomeOf(ex.getCode());
+            throw ex;
+        } finally {
+            scanMetrics.recordStage(sample, ScanMetrics.STAGE_REQUEST,
+                    response == null ? null : engine.apply(response), outcome);
+        }
+        context.timeline().finish();
+        if (responseTimingsEnabled) {
+            response = withTimings.apply(response, context.timeline().stages());
+        }
 
+        HttpHeaders headers = noStoreHeaders();
+        headers.set(ScanTimeline.HEADER, context.timeline().toServerTiming());
         return ResponseEntity.ok()
-                .headers(noStoreHeaders())
+                .headers(headers)
                 .body(response);
     }
 
@@ -82,11 +298,17 @@ public class ScanController {
     }
 
     private ResponseEntity<ErrorResponse> errorResponse(String requestId, String message) {
+        return errorResponse(requestId, HttpStatus.BAD_REQUEST, ErrorCatalog.INVALID_IMAGE_CODE, message);
+    }
+
+    private ResponseEntity<ErrorResponse> errorResponse(String requestId, HttpStatus status, String code,
+                                                        String message) {
+        scanMetrics.error(code);
         ErrorResponse response = new ErrorResponse(
                 requestId,
-                new ErrorDetail(ErrorCatalog.INVALID_IMAGE_CODE, message)
+                new ErrorDetail(code, message)
         );
-        return ResponseEntity.badRequest()
+        return ResponseEntity.status(status)
                 .headers(noStoreHeaders())
                 .body(response);
     }
@@ -0,0 +1,25 @@
+package com.dls.driverlicensescannerapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Result of scanning a photo of several cards: one scan per card read, in reading order, and one
+ * error per card that could not be. Card request ids are the request id with the card's
+ * position appended, {@code <requestId>-1} for the first.
+ */
+public record MultiCardScanResponse(
+        String requestId,
+        List<ScanResponse> cards,
+        List<ErrorResponse> failures,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<StageTiming> timings
+) {
+
+    public MultiCardScanResponse(String requestId, List<ScanResponse> cards, List<ErrorResponse> failures) {
+        this(requestId, cards, failures, null);
+    }
+
+    public MultiCardScanResponse withTimings(List<StageTiming> timings) {
+        return new MultiCardScanResponse(requestId, cards, failures, timings);
+    }
+}
@@ -0,0 +1,14 @@
+package com.dls.driverlicensescannerapi.dto;
+
+import java.util.List;
+
+public record PrecheckResponse(
+        String requestId,
+        boolean analyzed,
+        boolean acceptable,
+        double sharpness,
+        double brightness,
+        double contrast,
+        double glareFraction,
+        List<String> issues
+) {}
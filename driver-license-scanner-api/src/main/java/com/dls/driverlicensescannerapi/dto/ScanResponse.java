@@ -1,7 +1,12 @@
 package com.dls.driverlicensescannerapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Fields added after the original eight go at the end, so positional callers keep working.
+ */
 public record ScanResponse(
         String requestId,
         String selectedEngine,
@@ -10,5 +15,42 @@ public record ScanResponse(
         double confidenceThreshold,
         long processingTimeMs,
         LicenseFields fields,
-        ValidationResult validation
-) {}
+        ValidationResult validation,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<StageTiming> timings,
+        Map<String, String> fieldSources
+) {
+
+    public ScanResponse(
+            String requestId,
+            String selectedEngine,
+            List<String> attemptedEngines,
+            double ocrConfidence,
+            double confidenceThreshold,
+            long processingTimeMs,
+            LicenseFields fields,
+            ValidationResult validation
+    ) {
+        this(requestId, selectedEngine, attemptedEngines, ocrConfidence, confidenceThreshold, processingTimeMs,
+                fields, validation, Map.of());
+    }
+
+    public ScanResponse(
+            String requestId,
+            String selectedEngine,
+            List<String> attemptedEngines,
+            double ocrConfidence,
+            double confidenceThreshold,
+            long processingTimeMs,
+            LicenseFields fields,
+            ValidationResult validation,
+            Map<String, String> fieldSources
+    ) {
+        this(requestId, selectedEngine, attemptedEngines, ocrConfidence, confidenceThreshold, processingTimeMs,
+                fields, validation, null, fieldSources);
+    }
+
+    public ScanResponse withTimings(List<StageTiming> timings) {
+        return new ScanResponse(requestId, selectedEngine, attemptedEngines, ocrConfidence, confidenceThreshold,
+                processingTimeMs, fields, validation, timings, fieldSources);
+    }
+}
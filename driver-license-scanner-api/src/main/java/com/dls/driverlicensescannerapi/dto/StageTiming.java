@@ -0,0 +1,7 @@
+package com.dls.driverlicensescannerapi.dto;
+
+public record StageTiming(
+        String stage,
+        String engine,
+        double durationMs
+) {}
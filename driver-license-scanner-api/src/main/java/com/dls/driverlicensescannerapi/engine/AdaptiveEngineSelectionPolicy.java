@@ -0,0 +1,127 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Orders engines by expected cost per accepted scan.
+ *
+ * <p>Trying engine {@code i} costs its mean latency plus its configured cost weight (in milliseconds
+ * of latency it is worth) and ends the scan with probability {@code p_i}, its first-try acceptance
+ * rate. Sorting ascending by {@code cost_i / p_i} minimises the expected total cost of the attempt
+ * sequence. Until every engine has enough samples the default order is kept.
+ *
+ * <p>A share {@code OCR_ENGINE_EXPLORATION_RATE} of scans puts a random other engine first, so an
+ * engine that has been demoted keeps getting first tries, its statistics stay current and it
+ * can win its place back.
+ */
+@Component
+@ConditionalOnProperty(name = "OCR_ENGINE_POLICY", havingValue = "adaptive")
+public class AdaptiveEngineSelectionPolicy implements EngineSelectionPolicy {
+
+    private static final double MIN_ACCEPTANCE_RATE = 0.01;
+
+    private final EngineStatisticsRegistry statisticsRegistry;
+    private final Map<String, Double> costWeights;
+    private final int minSamples;
+    private final double explorationRate;
+
+    public AdaptiveEngineSelectionPolicy(
+            EngineStatisticsRegistry statisticsRegistry,
+            @Value("${OCR_ENGINE_COST_WEIGHTS:paddle:0,vision:1000}") String costWeights,
+            @Value("${OCR_ENGINE_MIN_SAMPLES:20}") int minSamples,
+            @Value("${OCR_ENGINE_EXPLORATION_RATE:0.05}") double explorationRate
+    ) {
+        this.statisticsRegistry = statisticsRegistry;
+        this.costWeights = parseCostWeights(costWeights);
+        this.minSamples = Math.max(1, minSamples);
+        this.explorationRate = Math.min(1.0, Math.max(0.0, explorationRate));
+    }
+
+    @Override
+    public String name() {
+        return "adaptive";
+    }
+
+    @Override
+    public List<String> order() {
+        List<EngineRanking> ranking = ranking();
+        if (ranking.stream().anyMatch(engine -> engine.samples() < minSamples)) {
+            return DEFAULT_ORDER;
+        }
+        return ranking.stream().map(EngineRanking::engine).toList();
+    }
+
+    @Override
+    public List<String> orderForScan() {
+        List<String> order = order();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (order.size() < 2 || explorationRate == 0 || random.nextDouble() >= explorationRate) {
+            return order;
+        }
+        List<String> explored = new ArrayList<>(order);
+        explored.add(0, explored.remove(1 + random.nextInt(order.size() - 1)));
+        return List.copyOf(explored);
+    }
+
+    @Override
+    public List<EngineRanking> ranking() {
+        List<EngineRanking> scored = new ArrayList<>();
+        for (String engine : DEFAULT_ORDER) {
+            EngineStatistics.Snapshot snapshot = statisticsRegistry.forEngine(engine).snapshot();
+            double costWeight = costWeights.getOrDefault(engine, 0.0);
+            double expectedCost = (snapshot.meanLatencyMs() + costWeight)
+                    / Math.max(MIN_ACCEPTANCE_RATE, snapshot.acceptanceRate());
+            scored.add(new EngineRanking(
+                    engine,
+                    0,
+                    snapshot.samples(),
+                    snapshot.meanLatencyMs(),
+                    snapshot.successRate(),
+                    snapshot.acceptanceRate(),
+                    costWeight,
+                    expectedCost
+            ));
+        }
+        scored.sort(Comparator.comparingDouble(EngineRanking::expectedCost));
+
+        List<EngineRanking> ranking = new ArrayList<>(scored.size());
+        for (EngineRanking engine : scored) {
+            ranking.add(new EngineRanking(
+                    engine.engine(),
+                    ranking.size() + 1,
+                    engine.samples(),
+                    engine.meanLatencyMs(),
+                    engine.successRate(),
+                    engine.acceptanceRate(),
+                    engine.costWeight(),
+                    engine.expectedCost()
+            ));
+        }
+        return ranking;
+    }
+
+    private static Map<String, Double> parseCostWeights(String value) {
+        Map<String, Double> weights = new HashMap<>();
+        if (!StringUtils.hasText(value)) {
+            return weights;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalStateException("OCR_ENGINE_COST_WEIGHTS entries must look like engine:weight");
+            }
+            weights.put(parts[0].trim().toLowerCase(Locale.ROOT), Double.parseDouble(parts[1].trim()));
+        }
+        return weights;
+    }
+}
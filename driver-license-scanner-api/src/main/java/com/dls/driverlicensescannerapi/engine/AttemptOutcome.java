@@ -0,0 +1,7 @@
+package com.dls.driverlicensescannerapi.engine;
+
+public enum AttemptOutcome {
+    ACCEPTED,
+    FELL_BACK,
+    FAILED
+}
@@ -0,0 +1,200 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * One concurrency pool per OCR engine, so a slow engine can only hold its own share of request
+ * threads. Each engine gets {@code OCR_BULKHEAD_MAX_CONCURRENT} permits and room for
+ * {@code OCR_BULKHEAD_QUEUE} callers waiting at most {@code OCR_BULKHEAD_MAX_WAIT_MS} for one;
+ * {@code OCR_BULKHEAD_LIMITS} overrides both per engine as {@code engine:concurrent[:queue]},
+ * for example {@code vision:4:2}. When permits and queue are both taken, {@link #tryAcquire}
+ * fails at once.
+ */
+@Component
+public class EngineBulkheads {
+
+    public static final String ACTIVE_GAUGE = "dls.ocr.bulkhead.active";
+    public static final String QUEUED_GAUGE = "dls.ocr.bulkhead.queued";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> engineLimits;
+    private final Duration maxWait;
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public EngineBulkheads(
+            MeterRegistry registry,
+            @Value("${OCR_BULKHEAD_ENABLED:true}") boolean enabled,
+            @Value("${OCR_BULKHEAD_MAX_CONCURRENT:16}") int maxConcurrent,
+            @Value("${OCR_BULKHEAD_QUEUE:16}") int queue,
+            @Value("${OCR_BULKHEAD_MAX_WAIT_MS:250}") long maxWaitMs,
+            @Value("${OCR_BULKHEAD_LIMITS:}") String engineLimits
+    ) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.defaultLimit = new Limit(maxConcurrent, queue);
+        this.engineLimits = parseLimits(engineLimits, defaultLimit);
+        this.maxWait = Duration.ofMillis(Math.max(0, maxWaitMs));
+    }
+
+    /**
+     * Takes a permit for {@code engine}, waiting at most the configured wait and
+     * {@code remaining}, and only when a queue slot is free. Returns {@code null} when the engine
+     * is saturated; otherwise the permit must be closed once the attempt is over.
+     */
+    public Permit tryAcquire(String engine, Duration remaining) {
+        if (!enabled || engine == null) {
+            return Permit.NONE;
+        }
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(engine.toLowerCase(Locale.ROOT), this::newBulkhead);
+        return acquire(bulkhead, remaining) ? new HeldPermit(this, bulkhead) : null;
+    }
+
+    private boolean acquire(Bulkhead bulkhead, Duration remaining) {
+        if (bulkhead.permits.tryAcquire()) {
+            return true;
+        }
+        Duration wait = remaining.compareTo(maxWait) < 0 ? remaining : maxWait;
+        if (wait.isNegative() || wait.isZero()) {
+            return false;
+        }
+        if (bulkhead.queued.incrementAndGet() > bulkhead.limit.queue()) {
+            bulkhead.queued.decrementAndGet();
+            return false;
+        }
+        try {
+            return bulkhead.permits.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            bulkhead.queued.decrementAndGet();
+        }
+    }
+
+    private Bulkhead newBulkhead(String engine) {
+        Bulkhead bulkhead = new Bulkhead(engineLimits.getOrDefault(engine, defaultLimit));
+        Gauge.builder(ACTIVE_GAUGE, bulkhead, b -> b.limit.maxConcurrent() - b.permits.availablePermits())
+                .description("OCR attempts holding a bulkhead permit")
+                .tag("engine", engine)
+                .register(registry);
+        Gauge.builder(QUEUED_GAUGE, bulkhead, b -> b.queued.get())
+                .description("OCR attempts waiting for a bulkhead permit")
+                .tag("engine", engine)
+                .register(registry);
+        return bulkhead;
+    }
+
+    /**
+     * Parses {@code engine:concurrent[:queue],...}; the queue defaults to the global one.
+     */
+    static Map<String, Limit> parseLimits(String spec, Limit defaults) {
+        Map<String, Limit> limits = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return limits;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid engine bulkhead: " + entry);
+            }
+            int maxConcurrent = Integer.parseInt(parts[1].trim());
+            int queue = parts.length == 3 ? Integer.parseInt(parts[2].trim()) : defaults.queue();
+            limits.put(parts[0].trim().toLowerCase(Locale.ROOT), new Limit(maxConcurrent, queue));
+        }
+        return limits;
+    }
+
+    /**
+     * A held bulkhead permit. It can be handed back while its holder waits, such as between two
+     * tries of the same OCR call, and taken again before the next one.
+     */
+    public interface Permit extends AutoCloseable {
+
+        Permit NONE = new Permit() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean reacquire(Duration remaining) {
+                return true;
+            }
+        };
+
+        /** Releases the permit; closing one that is not held does nothing. */
+        @Override
+        void close();
+
+        /**
+         * Takes a released permit again, waiting like {@link #tryAcquire}. Returns {@code false}
+         * when the engine is saturated.
+         */
+        boolean reacquire(Duration remaining);
+    }
+
+    /** Used by one request thread at a time. */
+    private static final class HeldPermit implements Permit {
+        private final EngineBulkheads owner;
+        private final Bulkhead bulkhead;
+        private boolean held = true;
+
+        private HeldPermit(EngineBulkheads owner, Bulkhead bulkhead) {
+            this.owner = owner;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public void close() {
+            if (held) {
+                held = false;
+                bulkhead.release();
+            }
+        }
+
+        @Override
+        public boolean reacquire(Duration remaining) {
+            if (!held) {
+                held = owner.acquire(bulkhead, remaining);
+            }
+            return held;
+        }
+    }
+
+    record Limit(int maxConcurrent, int queue) {
+
+        Limit {
+            if (maxConcurrent < 1 || queue < 0) {
+                throw new IllegalArgumentException("Bulkhead needs at least one permit and a non-negative queue");
+            }
+        }
+    }
+
+    private static final class Bulkhead {
+        private final Limit limit;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Bulkhead(Limit limit) {
+            this.limit = limit;
+            this.permits = new Semaphore(limit.maxConcurrent());
+        }
+
+        private void release() {
+            permits.release();
+        }
+    }
+}
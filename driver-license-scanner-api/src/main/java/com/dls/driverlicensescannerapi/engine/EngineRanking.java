@@ -0,0 +1,12 @@
+package com.dls.driverlicensescannerapi.engine;
+
+public record EngineRanking(
+        String engine,
+        int rank,
+        int samples,
+        double meanLatencyMs,
+        double successRate,
+        double acceptanceRate,
+        double costWeight,
+        double expectedCost
+) {}
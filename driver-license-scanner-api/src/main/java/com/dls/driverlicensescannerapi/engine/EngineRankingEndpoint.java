@@ -0,0 +1,28 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "ocrengines")
+public class EngineRankingEndpoint {
+
+    private final EngineSelectionPolicy engineSelectionPolicy;
+
+    public EngineRankingEndpoint(EngineSelectionPolicy engineSelectionPolicy) {
+        this.engineSelectionPolicy = engineSelectionPolicy;
+    }
+
+    @ReadOperation
+    public EngineRankingReport ranking() {
+        return new EngineRankingReport(
+                engineSelectionPolicy.name(),
+                engineSelectionPolicy.order(),
+                engineSelectionPolicy.ranking()
+        );
+    }
+
+    public record EngineRankingReport(String policy, List<String> order, List<EngineRanking> engines) {}
+}
@@ -0,0 +1,22 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.List;
+
+/**
+ * Decides in which order OCR engines are tried for a single scan.
+ */
+public interface EngineSelectionPolicy {
+
+    List<String> DEFAULT_ORDER = List.of("paddle", "vision");
+
+    String name();
+
+    List<String> order();
+
+    /** Order for one scan; differs from {@link #order()} when a policy explores. */
+    default List<String> orderForScan() {
+        return order();
+    }
+
+    List<EngineRanking> ranking();
+}
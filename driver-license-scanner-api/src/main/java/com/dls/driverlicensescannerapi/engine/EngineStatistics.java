@@ -0,0 +1,69 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of the most recent attempts against one OCR engine. The acceptance rate only
+ * counts attempts that were first in their chain: a later attempt is judged after fallback and
+ * says little about how often the engine ends a scan on its own.
+ */
+public final class EngineStatistics {
+
+    private final long[] latencies;
+    private final AttemptOutcome[] outcomes;
+    private final boolean[] firstAttempts;
+    private int next;
+    private int count;
+
+    EngineStatistics(int window) {
+        this.latencies = new long[Math.max(1, window)];
+        this.outcomes = new AttemptOutcome[latencies.length];
+        this.firstAttempts = new boolean[latencies.length];
+    }
+
+    synchronized void record(long latencyMs, AttemptOutcome outcome, boolean firstAttempt) {
+        latencies[next] = Math.max(0, latencyMs);
+        outcomes[next] = outcome;
+        firstAttempts[next] = firstAttempt;
+        next = (next + 1) % latencies.length;
+        count = Math.min(count + 1, latencies.length);
+    }
+
+    public synchronized Snapshot snapshot() {
+        if (count == 0) {
+            return new Snapshot(0, 0.0, 0.0, 0.0, 0);
+        }
+        long totalLatency = 0;
+        int succeeded = 0;
+        int first = 0;
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            totalLatency += latencies[i];
+            succeeded += outcomes[i] == AttemptOutcome.FAILED ? 0 : 1;
+            if (firstAttempts[i]) {
+                first++;
+                accepted += outcomes[i] == AttemptOutcome.ACCEPTED ? 1 : 0;
+            }
+        }
+        return new Snapshot(
+                count,
+                (double) totalLatency / count,
+                (double) succeeded / count,
+                first == 0 ? 0.0 : (double) accepted / first,
+                first
+        );
+    }
+
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.min(count - 1, Math.max(0, index))];
+    }
+
+    public record Snapshot(int samples, double meanLatencyMs, double successRate, double acceptanceRate,
+                           int firstAttempts) {}
+}
@@ -0,0 +1,31 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EngineStatisticsRegistry {
+
+    private final int window;
+    private final ConcurrentMap<String, EngineStatistics> statistics = new ConcurrentHashMap<>();
+
+    public EngineStatisticsRegistry(@Value("${OCR_ENGINE_STATS_WINDOW:200}") int window) {
+        this.window = window;
+    }
+
+    /** Records an attempt that was first in its chain. */
+    public void record(String engine, long latencyMs, AttemptOutcome outcome) {
+        record(engine, latencyMs, outcome, true);
+    }
+
+    public void record(String engine, long latencyMs, AttemptOutcome outcome, boolean firstAttempt) {
+        forEngine(engine).record(latencyMs, outcome, firstAttempt);
+    }
+
+    public EngineStatistics forEngine(String engine) {
+        return statistics.computeIfAbsent(engine.toLowerCase(Locale.ROOT), key -> new EngineStatistics(window));
+    }
+}
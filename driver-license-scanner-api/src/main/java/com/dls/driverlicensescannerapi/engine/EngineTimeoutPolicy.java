@@ -0,0 +1,72 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derives per-engine OCR timeouts from the latency each engine has shown recently: a high
+ * percentile times a headroom factor, kept between a floor and the fixed ceiling. Until an engine
+ * has enough samples, and for calls where the worker picks the engine, the ceiling applies.
+ */
+@Component
+public class EngineTimeoutPolicy {
+
+    private final EngineStatisticsRegistry statistics;
+    private final boolean adaptive;
+    private final double percentile;
+    private final double headroom;
+    private final Duration minTimeout;
+    private final Duration maxTimeout;
+    private final int minSamples;
+
+    public EngineTimeoutPolicy(
+            EngineStatisticsRegistry statistics,
+            @Value("${OCR_ADAPTIVE_TIMEOUTS:true}") boolean adaptive,
+            @Value("${OCR_TIMEOUT_PERCENTILE:0.99}") double percentile,
+            @Value("${OCR_TIMEOUT_HEADROOM:2.0}") double headroom,
+            @Value("${OCR_TIMEOUT_MIN_MS:500}") long minTimeoutMs,
+            @Value("${OCR_TIMEOUT_MAX_MS:20000}") long maxTimeoutMs,
+            @Value("${OCR_TIMEOUT_MIN_SAMPLES:20}") int minSamples
+    ) {
+        this.statistics = statistics;
+        this.adaptive = adaptive;
+        this.percentile = percentile;
+        this.headroom = Math.max(1.0, headroom);
+        this.maxTimeout = Duration.ofMillis(Math.max(1, maxTimeoutMs));
+        this.minTimeout = Duration.ofMillis(Math.min(Math.max(1, minTimeoutMs), this.maxTimeout.toMillis()));
+        this.minSamples = Math.max(1, minSamples);
+    }
+
+    public Duration timeoutFor(String engine) {
+        if (!adaptive || engine == null) {
+            return maxTimeout;
+        }
+        EngineStatistics engineStatistics = statistics.forEngine(engine);
+        if (engineStatistics.snapshot().samples() < minSamples) {
+            return maxTimeout;
+        }
+        long millis = Math.round(engineStatistics.percentile(percentile) * headroom);
+        return Duration.ofMillis(Math.min(Math.max(millis, minTimeout.toMillis()), maxTimeout.toMillis()));
+    }
+
+    /**
+     * Whether an attempt against {@code engine} is worth starting with {@code remaining} left:
+     * at least the timeout floor and the engine's median latency.
+     */
+    public boolean fits(String engine, Duration remaining) {
+        if (remaining.compareTo(minTimeout) < 0) {
+            return false;
+        }
+        if (engine == null) {
+            return true;
+        }
+        EngineStatistics engineStatistics = statistics.forEngine(engine);
+        return engineStatistics.snapshot().samples() < minSamples
+                || remaining.toMillis() >= engineStatistics.percentile(0.5);
+    }
+
+    public Duration maxTimeout() {
+        return maxTimeout;
+    }
+}
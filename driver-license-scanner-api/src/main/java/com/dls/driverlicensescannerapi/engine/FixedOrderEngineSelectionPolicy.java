@@ -0,0 +1,46 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "OCR_ENGINE_POLICY", havingValue = "fixed", matchIfMissing = true)
+public class FixedOrderEngineSelectionPolicy implements EngineSelectionPolicy {
+
+    private final EngineStatisticsRegistry statisticsRegistry;
+
+    public FixedOrderEngineSelectionPolicy(EngineStatisticsRegistry statisticsRegistry) {
+        this.statisticsRegistry = statisticsRegistry;
+    }
+
+    @Override
+    public String name() {
+        return "fixed";
+    }
+
+    @Override
+    public List<String> order() {
+        return DEFAULT_ORDER;
+    }
+
+    @Override
+    public List<EngineRanking> ranking() {
+        List<EngineRanking> ranking = new ArrayList<>();
+        for (String engine : DEFAULT_ORDER) {
+            EngineStatistics.Snapshot snapshot = statisticsRegistry.forEngine(engine).snapshot();
+            ranking.add(new EngineRanking(
+                    engine,
+                    ranking.size() + 1,
+                    snapshot.samples(),
+                    snapshot.meanLatencyMs(),
+                    snapshot.successRate(),
+                    snapshot.acceptanceRate(),
+                    0.0,
+                    snapshot.meanLatencyMs()
+            ));
+        }
+        return ranking;
+    }
+}
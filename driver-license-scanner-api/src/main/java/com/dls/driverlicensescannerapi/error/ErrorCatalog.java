@@ -25,5 +25,28 @@ public final class ErrorCatalog {
     public static final String OCR_FAILED_MESSAGE =
             "OCR service failed. Please try again.";
 
+    public static final String OCR_BUSY_CODE = "OCR_BUSY";
+
+    public static final String OCR_BUSY_MESSAGE =
+            "OCR service is busy. Please try again.";
+
+    public static final String RATE_LIMITED_CODE = "RATE_LIMITED";
+
+    public static final String RATE_LIMITED_MESSAGE =
+            "Too many scan requests. Please retry later.";
+
+    public static final String IMAGE_QUALITY_TOO_LOW_CODE = "IMAGE_QUALITY_TOO_LOW";
+
+    public static final String IMAGE_QUALITY_TOO_LOW_MESSAGE =
+            "Image is too blurry, dark or washed out to read. Please retake the photo.";
+
+    public static final String INVALID_MODE_CODE = "INVALID_MODE";
+
+    public static final String INVALID_MODE_MESSAGE =
+            "Unsupported scan mode. Leave mode out, or use mode=multi for a photo of several cards.";
+
+    /** Recorded for scans that failed on an unexpected exception; the API answers those with 500. */
+    public static final String INTERNAL_ERROR_CODE = "INTERNAL_ERROR";
+
     private ErrorCatalog() {}
 }
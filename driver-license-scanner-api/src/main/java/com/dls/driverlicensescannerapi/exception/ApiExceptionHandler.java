@@ -3,7 +3,11 @@ package com.dls.driverlicensescannerapi.exception;
 import com.dls.driverlicensescannerapi.dto.ErrorDetail;
 import com.dls.driverlicensescannerapi.dto.ErrorResponse;
 import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
 import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.UUID;
@@ -24,6 +28,12 @@ public class ApiExceptionHandler {
 
     private static final String REQUEST_ID_HEADER = "X-Request-Id";
 
+    private final ScanMetrics scanMetrics;
+
+    public ApiExceptionHandler(ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+    }
+
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ErrorResponse> handlePayloadTooLarge(
             MaxUploadSizeExceededException ex,
@@ -81,35 +91,75 @@ public class ApiExceptionHandler {
             OcrClientException ex,
             HttpServletRequest request
     ) {
-        HttpStatus status = ErrorCatalog.OCR_TIMEOUT_CODE.equals(ex.getCode())
-                ? HttpStatus.GATEWAY_TIMEOUT
-                : HttpStatus.BAD_GATEWAY;
+        HttpStatus status = switch (ex.getCode()) {
+            case ErrorCatalog.OCR_TIMEOUT_CODE -> HttpStatus.GATEWAY_TIMEOUT;
+            case ErrorCatalog.OCR_BUSY_CODE -> HttpStatus.SERVICE_UNAVAILABLE;
+            default -> HttpStatus.BAD_GATEWAY;
+        };
         return buildErrorResponse(request, status, ex.getCode(), ex.getMessage());
     }
 
+    /**
+     * Retry-After is rounded up to whole seconds so a client honouring it finds a token waiting.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceeded(
+            RateLimitExceededException ex,
+            HttpServletRequest request
+    ) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        HttpHeaders headers = responseHeaders(request);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return buildErrorResponse(
+                request,
+                HttpStatus.TOO_MANY_REQUESTS,
+                ErrorCatalog.RATE_LIMITED_CODE,
+                ErrorCatalog.RATE_LIMITED_MESSAGE,
+                headers
+        );
+    }
+
     private ResponseEntity<ErrorResponse> buildErrorResponse(
             HttpServletRequest request,
             HttpStatus status,
             String code,
             String message
     ) {
+        return buildErrorResponse(request, status, code, message, responseHeaders(request));
+    }
+
+    private ResponseEntity<ErrorResponse> buildErrorResponse(
+            HttpServletRequest request,
+            HttpStatus status,
+            String code,
+            String message,
+            HttpHeaders headers
+    ) {
+        scanMetrics.error(code);
         String requestId = resolveRequestId(request);
         ErrorResponse response = new ErrorResponse(
                 requestId,
                 new ErrorDetail(code, message)
         );
         return ResponseEntity.status(status)
-                .headers(noStoreHeaders())
+                .headers(headers)
                 .body(response);
     }
 
-    private HttpHeaders noStoreHeaders() {
+    private HttpHeaders responseHeaders(HttpServletRequest request) {
         HttpHeaders headers = new HttpHeaders();
         headers.setCacheControl(CacheControl.noStore());
+        if (request.getAttribute(ScanContext.ATTRIBUTE) instanceof ScanContext context) {
+            context.timeline().finish();
+            headers.set(ScanTimeline.HEADER, context.timeline().toServerTiming());
+        }
         return headers;
     }
 
     private String resolveRequestId(HttpServletRequest request) {
+        if (request.getAttribute(ScanContext.ATTRIBUTE) instanceof ScanContext context) {
+            return context.requestId();
+        }
         String requestId = request.getHeader(REQUEST_ID_HEADER);
         if (requestId != null && !requestId.isBlank()) {
             return requestId;
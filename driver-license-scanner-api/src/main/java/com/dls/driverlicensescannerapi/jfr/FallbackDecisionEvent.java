@@ -0,0 +1,30 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ScanEvents.PREFIX + "FallbackDecision")
+@Label("Fallback Decision")
+@Description("Whether the result of an engine attempt was accepted or handed to the next engine")
+@Category({ScanEvents.CATEGORY, "Scan"})
+public class FallbackDecisionEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Fell Back")
+    public boolean fellBack;
+
+    @Label("Reason")
+    @Description("accepted, incomplete, error, or deadline when the attempt was skipped")
+    public String reason;
+
+    @Label("Field Confidence")
+    public double confidence;
+}
@@ -0,0 +1,32 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ScanEvents.PREFIX + "OcrAttempt")
+@Label("OCR Attempt")
+@Description("One call to the OCR worker")
+@Category({ScanEvents.CATEGORY, "Scan"})
+public class OcrAttemptEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Image Size")
+    @DataAmount
+    public long imageBytes;
+
+    @Label("Lines")
+    public int lineCount;
+
+    @Label("Outcome")
+    @Description("success, or the lower-cased ErrorCatalog code")
+    public String outcome;
+}
@@ -0,0 +1,26 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ScanEvents.PREFIX + "Parse")
+@Label("Parse")
+@Description("Parsing and reconciling the fields of one OCR result")
+@Category({ScanEvents.CATEGORY, "Scan"})
+public class ParseEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Lines")
+    public int lineCount;
+
+    @Label("Field Confidence")
+    public double confidence;
+}
@@ -0,0 +1,23 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import java.util.List;
+
+/**
+ * JFR events emitted by the scan pipeline. Events carry request ids, engine names, sizes, counts
+ * and outcomes only; never field values or image content.
+ */
+public final class ScanEvents {
+
+    public static final String PREFIX = "com.dls.scan.";
+    public static final String CATEGORY = "Driver Licence Scanner";
+
+    public static final List<String> NAMES = List.of(
+            PREFIX + "UploadRead",
+            PREFIX + "OcrAttempt",
+            PREFIX + "Parse",
+            PREFIX + "Validate",
+            PREFIX + "FallbackDecision"
+    );
+
+    private ScanEvents() {}
+}
@@ -0,0 +1,176 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the scan events together with the JDK profile settings (CPU and allocation sampling,
+ * GC, locks) for a bounded number of seconds. {@code POST /actuator/jfr} starts a recording and
+ * returns its id straight away; JFR stops it on its own once the duration is up, and
+ * {@code GET /actuator/jfr/{id}} returns the {@code .jfr} file then (409 while it is still
+ * running). No request thread waits on a recording.
+ *
+ * <p>At most {@code JFR_RECORDING_MAX_CONCURRENT} recordings are kept, running or waiting to be
+ * fetched; a further start gets 429. A finished recording nobody fetches is discarded after
+ * {@link #RETENTION}.
+ *
+ * <p>JDK events that capture the environment, system properties or the command line are
+ * switched off, because those carry the internal key and worker URL.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@ConditionalOnBooleanProperty("JFR_ENDPOINT_ENABLED")
+public class ScanRecordingEndpoint {
+
+    static final Duration RETENTION = Duration.ofMinutes(5);
+    static final int STATUS_CONFLICT = 409;
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanRecordingEndpoint.class);
+    private static final String SETTINGS = "profile";
+    private static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.JVMInformation",
+            "jdk.SystemProcess"
+    );
+
+    private final Map<Long, Recording> recordings = new LinkedHashMap<>();
+    private final int defaultSeconds;
+    private final int maxSeconds;
+    private final long maxBytes;
+    private final int maxConcurrent;
+
+    public ScanRecordingEndpoint(
+            @Value("${JFR_RECORDING_DEFAULT_SECONDS:30}") int defaultSeconds,
+            @Value("${JFR_RECORDING_MAX_SECONDS:120}") int maxSeconds,
+            @Value("${JFR_RECORDING_MAX_MB:64}") int maxMegabytes,
+            @Value("${JFR_RECORDING_MAX_CONCURRENT:1}") int maxConcurrent
+    ) {
+        this.maxSeconds = Math.max(1, maxSeconds);
+        this.defaultSeconds = clamp(defaultSeconds, this.maxSeconds);
+        this.maxBytes = Math.max(1, maxMegabytes) * 1024L * 1024L;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingStarted> start(@Nullable Integer seconds) {
+        int duration = seconds == null ? defaultSeconds : clamp(seconds, maxSeconds);
+        synchronized (recordings) {
+            discardExpired();
+            if (recordings.size() >= maxConcurrent) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+            }
+            try {
+                Recording jfr = new Recording(settings());
+                jfr.setName("dls-scan");
+                jfr.setMaxSize(maxBytes);
+                jfr.setToDisk(true);
+                jfr.setDuration(Duration.ofSeconds(duration));
+                jfr.start();
+                recordings.put(jfr.getId(), jfr);
+                return new WebEndpointResponse<>(new RecordingStarted(jfr.getId(), duration));
+            } catch (IOException | ParseException ex) {
+                logger.warn("JFR recording failed to start", ex);
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    /**
+     * Returns the finished recording once and releases it.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) {
+        Recording jfr;
+        synchronized (recordings) {
+            discardExpired();
+            jfr = recordings.get(id);
+            if (jfr == null) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            if (jfr.getState() != RecordingState.STOPPED) {
+                return new WebEndpointResponse<>(STATUS_CONFLICT);
+            }
+            recordings.remove(id);
+        }
+        try (jfr) {
+            return new WebEndpointResponse<>(new ByteArrayResource(read(jfr)));
+        } catch (IOException ex) {
+            logger.warn("JFR recording dump failed", ex);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (recordings) {
+            recordings.values().forEach(Recording::close);
+            recordings.clear();
+        }
+    }
+
+    private static byte[] read(Recording jfr) throws IOException {
+        Path file = Files.createTempFile("dls-scan-", ".jfr");
+        try {
+            jfr.dump(file);
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void discardExpired() {
+        Instant cutoff = Instant.now().minus(RETENTION);
+        for (Iterator<Recording> it = recordings.values().iterator(); it.hasNext(); ) {
+            Recording jfr = it.next();
+            if (jfr.getState() == RecordingState.STOPPED && jfr.getStopTime().isBefore(cutoff)) {
+                jfr.close();
+                it.remove();
+            }
+        }
+    }
+
+    private static int clamp(int seconds, int maxSeconds) {
+        return Math.min(Math.max(1, seconds), maxSeconds);
+    }
+
+    private static Map<String, String> settings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(SETTINGS).getSettings());
+        for (String event : ScanEvents.NAMES) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", "0 ms");
+        }
+        for (String event : SENSITIVE_EVENTS) {
+            settings.put(event + "#enabled", "false");
+        }
+        return settings;
+    }
+
+    public record RecordingStarted(long id, int seconds) {}
+}
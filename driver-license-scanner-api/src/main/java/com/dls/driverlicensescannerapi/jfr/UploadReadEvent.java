@@ -0,0 +1,25 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ScanEvents.PREFIX + "UploadRead")
+@Label("Upload Read")
+@Description("Reading the uploaded image into memory before an OCR call")
+@Category({ScanEvents.CATEGORY, "Scan"})
+public class UploadReadEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Image Size")
+    @DataAmount
+    public long imageBytes;
+}
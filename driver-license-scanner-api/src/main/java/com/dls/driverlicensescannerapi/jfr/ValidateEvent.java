@@ -0,0 +1,23 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ScanEvents.PREFIX + "Validate")
+@Label("Validate")
+@Description("Validating and assembling the scan response")
+@Category({ScanEvents.CATEGORY, "Scan"})
+public class ValidateEvent extends Event {
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Blocking Errors")
+    public int blockingErrors;
+
+    @Label("Warnings")
+    public int warnings;
+}
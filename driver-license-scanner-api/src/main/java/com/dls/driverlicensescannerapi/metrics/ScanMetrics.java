@@ -0,0 +1,123 @@
+package com.dls.driverlicensescannerapi.metrics;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the scan pipeline. Every stage is one {@value #STAGE_TIMER} timer series tagged by
+ * stage, engine and outcome, published as a histogram so p99 can be computed server side.
+ * Tags never carry request data beyond engine names and error codes.
+ */
+@Component
+public class ScanMetrics {
+
+    public static final String STAGE_TIMER = "dls.scan.stage";
+    public static final String FALLBACK_COUNTER = "dls.scan.fallback";
+    public static final String FALLBACK_SKIPPED_COUNTER = "dls.scan.fallback.skipped";
+    public static final String OCR_TIMEOUT_COUNTER = "dls.ocr.timeouts";
+    public static final String OCR_RETRY_COUNTER = "dls.ocr.retries";
+    public static final String ERROR_COUNTER = "dls.scan.errors";
+
+    public static final String STAGE_REQUEST = "request";
+    public static final String STAGE_UPLOAD_READ = "upload_read";
+    public static final String STAGE_QUALITY = "quality";
+    public static final String STAGE_PREPROCESS = "preprocess";
+    public static final String STAGE_OCR = "ocr";
+    public static final String STAGE_ATTEMPT = "attempt";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_VALIDATE = "validate";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+
+    private static final String NO_ENGINE = "none";
+
+    private final MeterRegistry registry;
+
+    public ScanMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Stops the sample against the stage timer and returns the measured duration in nanoseconds.
+     */
+    public long recordStage(Timer.Sample sample, String stage, String engine, String outcome) {
+        return sample.stop(Timer.builder(STAGE_TIMER)
+                .description("Latency of one scan pipeline stage")
+                .tag("stage", stage)
+                .tag("engine", engine == null ? NO_ENGINE : engine)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * One handover to the next engine, tagged with the engine whose attempt caused it. Only
+     * counted when the next engine actually runs.
+     */
+    public void fallbackTriggered(String engine, String reason) {
+        Counter.builder(FALLBACK_COUNTER)
+                .description("Engine attempts that handed over to the next engine")
+                .tag("engine", engine == null ? NO_ENGINE : engine)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void fallbackSkipped(String engine, String reason) {
+        Counter.builder(FALLBACK_SKIPPED_COUNTER)
+                .description("Fallback attempts not started because the request could not afford them")
+                .tag("engine", engine == null ? NO_ENGINE : engine)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void ocrTimeout(String engine) {
+        Counter.builder(OCR_TIMEOUT_COUNTER)
+                .description("OCR worker calls that timed out")
+                .tag("engine", engine == null ? NO_ENGINE : engine)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * One retry decision after a transport failure: {@code retried}, or {@code budget_exhausted}
+     * when the retry budget could not pay for it.
+     */
+    public void ocrRetry(String engine, String outcome) {
+        Counter.builder(OCR_RETRY_COUNTER)
+                .description("Same-engine OCR retries after transport failures")
+                .tag("engine", engine == null ? NO_ENGINE : engine)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    public void error(String code) {
+        Counter.builder(ERROR_COUNTER)
+                .description("Error responses by ErrorCatalog code")
+                .tag("code", code)
+                .register(registry)
+                .increment();
+    }
+
+    public static String outcomeOf(String errorCode) {
+        if (errorCode == null) {
+            return OUTCOME_SUCCESS;
+        }
+        return errorCode.toLowerCase(Locale.ROOT);
+    }
+
+    public static boolean isTimeout(String errorCode) {
+        return ErrorCatalog.OCR_TIMEOUT_CODE.equals(errorCode);
+    }
+}
@@ -0,0 +1,66 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+/**
+ * Rate-limited warnings for expected worker failures. The first failure of each kind and engine
+ * in a window is logged with its request id; the rest are only counted and reported in one
+ * summary line when the next window opens, so an outage costs a few log lines per window rather
+ * than one per request. Nothing is flushed on a timer: counts of a window with no later failure
+ * stay in the {@code dls.ocr.*} and {@code dls.scan.stage} meters only.
+ */
+final class FailureLog {
+
+    static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+
+    private final Logger logger;
+    private final long windowNanos;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    FailureLog(Logger logger, Duration window) {
+        this.logger = logger;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * {@code event} must be a fixed description with bounded detail (a status code, a reject
+     * reason); it keys the window and is logged as is.
+     */
+    void warn(String event, String engine, String requestId) {
+        long now = System.nanoTime();
+        String key = engine == null ? event : event + '\u0000' + engine;
+        Window window = windows.get(key);
+        if (window == null) {
+            Window created = new Window(now);
+            window = windows.putIfAbsent(key, created);
+            if (window == null) {
+                logger.warn("{} requestId={} engine={}", event, requestId, engine);
+                return;
+            }
+        }
+        long start = window.start.get();
+        if (now - start < windowNanos || !window.start.compareAndSet(start, now)) {
+            window.suppressed.incrementAndGet();
+            return;
+        }
+        long suppressed = window.suppressed.getAndSet(0);
+        if (suppressed > 0) {
+            logger.warn("{} engine={} repeated {} times in the last {}s",
+                    event, engine, suppressed, Duration.ofNanos(now - start).toSeconds());
+        }
+        logger.warn("{} requestId={} engine={}", event, requestId, engine);
+    }
+
+    private static final class Window {
+        private final AtomicLong start;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+}
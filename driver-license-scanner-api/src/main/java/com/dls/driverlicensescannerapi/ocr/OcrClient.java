@@ -1,20 +1,38 @@
 package com.dls.driverlicensescannerapi.ocr;
 
+import com.dls.driverlicensescannerapi.engine.EngineBulkheads;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
 import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.jfr.OcrAttemptEvent;
+import com.dls.driverlicensescannerapi.jfr.UploadReadEvent;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.restclient.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -26,36 +44,62 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.EOFException;
 import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 
 @Component
 public class OcrClient {
 
     private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
-    private static final Duration READ_TIMEOUT = Duration.ofSeconds(20);
+    private static final String UNIX_SCHEME = "unix:";
+    private static final String RETRY_RETRIED = "retried";
+    private static final String RETRY_BUDGET_EXHAUSTED = "budget_exhausted";
     private static final Logger logger = LoggerFactory.getLogger(OcrClient.class);
+    private static final FailureLog failureLog = new FailureLog(logger, FailureLog.DEFAULT_WINDOW);
 
     private final RestTemplate restTemplate;
+    private final OcrResponseDecoder responseDecoder;
+    private final ScanMetrics scanMetrics;
+    private final EngineTimeoutPolicy timeoutPolicy;
+    private final OcrRetryPolicy retryPolicy;
+    private final AttemptTimeoutRequestFactory requestFactory;
+    private final UnixSocketOcrTransport unixSocketTransport;
     private final String workerUrl;
     private final String internalKey;
 
     public OcrClient(
             RestTemplateBuilder builder,
+            OcrResponseDecoder responseDecoder,
+            ScanMetrics scanMetrics,
+            EngineTimeoutPolicy timeoutPolicy,
+            OcrRetryPolicy retryPolicy,
             @Value("${OCR_WORKER_URL:}") String workerUrl,
-            @Value("${X_INTERNAL_KEY:}") String internalKey
+            @Value("${X_INTERNAL_KEY:}") String internalKey,
+            @Value("${OCR_UNIX_POOL_SIZE:8}") int unixPoolSize
     ) {
+        Duration readTimeout = timeoutPolicy.maxTimeout();
         this.restTemplate = builder
                 .connectTimeout(CONNECT_TIMEOUT)
-                .readTimeout(READ_TIMEOUT)
+                .readTimeout(readTimeout)
                 .build();
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        this.requestFactory = new AttemptTimeoutRequestFactory();
         requestFactory.setConnectTimeout(Math.toIntExact(CONNECT_TIMEOUT.toMillis()));
-        requestFactory.setReadTimeout(Math.toIntExact(READ_TIMEOUT.toMillis()));
+        requestFactory.setReadTimeout(Math.toIntExact(readTimeout.toMillis()));
         this.restTemplate.setRequestFactory(requestFactory);
         ensureMultipartConverter();
+        this.responseDecoder = responseDecoder;
+        this.scanMetrics = scanMetrics;
+        this.timeoutPolicy = timeoutPolicy;
+        this.retryPolicy = retryPolicy;
         this.workerUrl = workerUrl;
         this.internalKey = internalKey;
+        this.unixSocketTransport = isUnixSocket(workerUrl)
+                ? new UnixSocketOcrTransport(unixSocketPath(workerUrl), unixPoolSize, readTimeout, responseDecoder.limits(),
+                        retryPolicy)
+                : null;
     }
 
     @PostConstruct
@@ -68,6 +112,13 @@ public class OcrClient {
         }
     }
 
+    @PreDestroy
+    public void close() {
+        if (unixSocketTransport != null) {
+            unixSocketTransport.close();
+        }
+    }
+
     private void ensureMultipartConverter() {
         List<HttpMessageConverter<?>> converters = new ArrayList<>(restTemplate.getMessageConverters());
         boolean hasFormConverter = converters.stream()
@@ -83,19 +134,188 @@ public class OcrClient {
     }
 
     public OcrResult scan(MultipartFile image, String requestId, String engine) {
+        return scan(image, ScanContext.of(requestId), engine);
+    }
+
+    public OcrResult scan(MultipartFile image, ScanContext context, String engine) {
+        return scan(image, context, engine, EngineBulkheads.Permit.NONE);
+    }
+
+    /**
+     * One attempt, bounded by the engine's adaptive timeout and the request deadline, whichever
+     * is shorter. An already expired deadline fails as a timeout without calling the worker.
+     * {@code permit} is the engine's bulkhead permit the caller holds; it is handed back while
+     * waiting to retry, so a backoff does not keep another request from the engine.
+     */
+    public OcrResult scan(MultipartFile image, ScanContext context, String engine, EngineBulkheads.Permit permit) {
         if (image == null || image.isEmpty()) {
             throw new OcrClientException(ErrorCatalog.INVALID_IMAGE_CODE, ErrorCatalog.MISSING_IMAGE_MESSAGE);
         }
 
-        String filename = Objects.requireNonNullElse(image.getOriginalFilename(), "image");
+        String requestId = context.requestId();
+        Duration timeout = context.deadline().cap(timeoutPolicy.timeoutFor(engine));
+        if (timeout.isZero()) {
+            scanMetrics.ocrTimeout(engine);
+            failureLog.warn("OCR deadline exceeded before attempt", engine, requestId);
+            throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+        }
+        byte[] imageBytes = readImage(image, context, engine);
 
-        byte[] imageBytes;
+        OcrAttemptEvent event = new OcrAttemptEvent();
+        event.begin();
+        Timer.Sample sample = scanMetrics.start();
+        String outcome = ScanMetrics.OUTCOME_SUCCESS;
+        OcrResult result = null;
         try {
-            imageBytes = image.getBytes();
+            result = callWorker(image, imageBytes, context, engine, timeout, permit);
+            return result;
+        } catch (OcrClientException ex) {
+            outcome = ScanMetrics.outcomeOf(ex.getCode());
+            if (ScanMetrics.isTimeout(ex.getCode())) {
+                scanMetrics.ocrTimeout(engine);
+            }
+            throw ex;
+        } finally {
+            long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_OCR, engine, outcome);
+            String timelineEngine = result != null && result.engine() != null ? result.engine() : engine;
+            context.timeline().record(ScanMetrics.STAGE_OCR, timelineEngine, durationNanos);
+            if (result != null) {
+                context.timeline().record(ScanTimeline.STAGE_WORKER, timelineEngine,
+                        result.processingTimeMs() * 1_000_000L);
+            }
+            if (event.shouldCommit()) {
+                event.requestId = requestId;
+                event.engine = timelineEngine;
+                event.imageBytes = imageBytes.length;
+                event.lineCount = result == null ? 0 : result.lines().size();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Sends the image, retrying connection failures on the same engine while the retry budget,
+     * the attempt limit and the request deadline all allow; a connection lost after the request
+     * went out is retried only for the engines {@link OcrRetryPolicy} allows. The bulkhead permit
+     * is released for the backoff and taken again before the retry; when the engine has filled
+     * up meanwhile, the original failure is reported.
+     */
+    private OcrResult callWorker(MultipartFile image, byte[] imageBytes, ScanContext context, String engine,
+                                 Duration timeout, EngineBulkheads.Permit permit) {
+        Duration backoff = Duration.ZERO;
+        for (int retry = 0; ; retry++) {
+            try {
+                OcrResult result = unixSocketTransport != null
+                        ? unixSocketTransport.scan(context.requestId(), engine, internalKey, imageBytes, timeout)
+                        : postToWorker(image, imageBytes, context, engine, timeout);
+                retryPolicy.recordSuccess();
+                return result;
+            } catch (OcrTransportException ex) {
+                if (retry >= retryPolicy.maxRetries()
+                        || ex.requestSent() && !retryPolicy.retriesLostConnections(engine)) {
+                    throw ex;
+                }
+                backoff = retryPolicy.nextBackoff(backoff);
+                if (context.deadline().remaining().compareTo(backoff) <= 0) {
+                    throw ex;
+                }
+                if (!retryPolicy.tryAcquireRetry()) {
+                    scanMetrics.ocrRetry(engine, RETRY_BUDGET_EXHAUSTED);
+                    throw ex;
+                }
+                scanMetrics.ocrRetry(engine, RETRY_RETRIED);
+                permit.close();
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                if (!permit.reacquire(context.deadline().remaining())) {
+                    throw ex;
+                }
+                timeout = context.deadline().cap(timeoutPolicy.timeoutFor(engine));
+                if (timeout.isZero()) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private byte[] readImage(MultipartFile image, ScanContext context, String engine) {
+        UploadReadEvent event = new UploadReadEvent();
+        event.begin();
+        Timer.Sample sample = scanMetrics.start();
+        try {
+            byte[] imageBytes = image.getBytes();
+            event.end();
+            if (event.shouldCommit()) {
+                event.requestId = context.requestId();
+                event.engine = engine;
+                event.imageBytes = imageBytes.length;
+                event.commit();
+            }
+            long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_UPLOAD_READ, null,
+                    ScanMetrics.OUTCOME_SUCCESS);
+            context.timeline().record(ScanMetrics.STAGE_UPLOAD_READ, engine, durationNanos);
+            return imageBytes;
         } catch (IOException ex) {
-            logger.warn("Failed to read image bytes requestId={}", requestId, ex);
+            scanMetrics.recordStage(sample, ScanMetrics.STAGE_UPLOAD_READ, null,
+                    ScanMetrics.outcomeOf(ErrorCatalog.OCR_FAILED_CODE));
+            logger.warn("Failed to read image bytes requestId={}", context.requestId(), ex);
             throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE, ex);
         }
+    }
+
+    /**
+     * Opens up to {@code count} worker connections ahead of traffic: the idle pool of the unix
+     * socket transport, or concurrent {@code GET /health} calls that leave keep-alive connections
+     * in the JDK cache (at most {@code http.maxConnections} per host, 5 by default). Returns how
+     * many were established.
+     */
+    public int warmUpConnections(int count) {
+        if (unixSocketTransport != null) {
+            return unixSocketTransport.prefill(count);
+        }
+        String healthEndpoint = workerUrl.endsWith("/") ? workerUrl + "health" : workerUrl + "/health";
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, count));
+        try {
+            List<Future<Boolean>> calls = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                calls.add(executor.submit(() -> {
+                    restTemplate.getForEntity(healthEndpoint, String.class);
+                    return true;
+                }));
+            }
+            int established = 0;
+            String failure = null;
+            for (Future<Boolean> call : calls) {
+                try {
+                    established += call.get() ? 1 : 0;
+                } catch (ExecutionException ex) {
+                    failure = ex.getCause() instanceof HttpStatusCodeException status
+                            ? "status " + status.getStatusCode().value()
+                            : ex.getCause().getClass().getSimpleName();
+                }
+            }
+            if (failure != null) {
+                logger.warn("OCR connection warm-up opened {} of {} connections, last failure: {}",
+                        established, count, failure);
+            }
+            return established;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private OcrResult postToWorker(MultipartFile image, byte[] imageBytes, ScanContext context, String engine,
+                                   Duration timeout) {
+        String requestId = context.requestId();
+        String filename = Objects.requireNonNullElse(image.getOriginalFilename(), "image");
 
         HttpHeaders partHeaders = new HttpHeaders();
         if (StringUtils.hasText(image.getContentType())) {
@@ -119,40 +339,103 @@ public class OcrClient {
         if (StringUtils.hasText(requestId)) {
             headers.set("X-Request-Id", requestId);
         }
+        headers.set(TraceContext.HEADER, context.trace().childHeader());
+        headers.set(Deadline.HEADER, Long.toString(timeout.toMillis()));
 
         HttpEntity<LinkedMultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
         String ocrEndpoint = workerUrl.endsWith("/") ? workerUrl + "ocr" : workerUrl + "/ocr";
 
+        requestFactory.attemptTimeout.set(timeout);
         try {
-            ResponseEntity<OcrResult> response = restTemplate.postForEntity(
+            OcrResult result = restTemplate.execute(
                     ocrEndpoint,
-                    requestEntity,
-                    OcrResult.class
+                    HttpMethod.POST,
+                    restTemplate.httpEntityCallback(requestEntity),
+                    response -> responseDecoder.decode(response.getBody())
             );
-            if (response.getBody() == null) {
-                logger.warn("OCR response empty requestId={} status={}", requestId, response.getStatusCode());
+            if (result == null) {
+                failureLog.warn("OCR response empty", engine, requestId);
                 throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
             }
-            return response.getBody();
+            return result;
+        } catch (OcrResponseRejectedException ex) {
+            failureLog.warn("OCR response rejected reason=" + ex.getReason(), engine, requestId);
+            throw ex;
         } catch (ResourceAccessException ex) {
-            logger.warn("OCR request timeout requestId={}", requestId, ex);
             if (isConnectFailure(ex)) {
-                throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+                failureLog.warn("OCR worker connect failed", engine, requestId);
+                throw new OcrTransportException();
+            }
+            if (hasCause(ex, SocketException.class) || hasCause(ex, EOFException.class)) {
+                // HttpURLConnection does not say whether the request went out before the connection
+                // was lost, so the worker may already have run it.
+                failureLog.warn("OCR worker connection lost", engine, requestId);
+                throw new OcrTransportException(true);
+            }
+            if (hasCause(ex, SocketTimeoutException.class)) {
+                failureLog.warn("OCR request timeout", engine, requestId);
+            } else {
+                logger.warn("OCR request I/O error requestId={} engine={}", requestId, engine, ex);
             }
             throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
         } catch (HttpStatusCodeException ex) {
-            logger.warn("OCR request failed requestId={} status={}", requestId, ex.getStatusCode(), ex);
+            failureLog.warn("OCR request failed status=" + ex.getStatusCode().value(), engine, requestId);
+            if (ex.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value()) {
+                // The worker gave up because the deadline it was sent had already passed.
+                throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+            }
             throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
         } catch (RestClientException ex) {
-            logger.warn("OCR request error requestId={}", requestId, ex);
+            logger.warn("OCR request error requestId={} engine={}", requestId, engine, ex);
             throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        } finally {
+            requestFactory.attemptTimeout.remove();
+        }
+    }
+
+    private static boolean isUnixSocket(String workerUrl) {
+        return workerUrl != null && workerUrl.startsWith(UNIX_SCHEME);
+    }
+
+    /**
+     * Accepts {@code unix:/run/ocr.sock} as well as {@code unix:///run/ocr.sock}.
+     */
+    private static Path unixSocketPath(String workerUrl) {
+        String path = workerUrl.substring(UNIX_SCHEME.length());
+        if (path.startsWith("//")) {
+            path = path.substring(2);
+        }
+        return Path.of(path);
+    }
+
+    /**
+     * Applies the timeout of the attempt in progress on this thread to the connection
+     * {@link RestTemplate#execute} opens for it.
+     */
+    private static final class AttemptTimeoutRequestFactory extends SimpleClientHttpRequestFactory {
+
+        private final ThreadLocal<Duration> attemptTimeout = new ThreadLocal<>();
+
+        @Override
+        protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+            super.prepareConnection(connection, httpMethod);
+            Duration timeout = attemptTimeout.get();
+            if (timeout != null) {
+                int millis = (int) Math.min(Integer.MAX_VALUE, Math.max(1, timeout.toMillis()));
+                connection.setReadTimeout(millis);
+                connection.setConnectTimeout(Math.min(connection.getConnectTimeout(), millis));
+            }
         }
     }
 
     private boolean isConnectFailure(Throwable ex) {
+        return hasCause(ex, ConnectException.class) || hasCause(ex, UnknownHostException.class);
+    }
+
+    private static boolean hasCause(Throwable ex, Class<? extends Throwable> type) {
         Throwable current = ex;
         while (current != null) {
-            if (current instanceof ConnectException || current instanceof UnknownHostException) {
+            if (type.isInstance(current)) {
                 return true;
             }
             current = current.getCause();
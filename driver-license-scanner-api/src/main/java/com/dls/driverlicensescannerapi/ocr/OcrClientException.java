@@ -1,11 +1,17 @@
 package com.dls.driverlicensescannerapi.ocr;
 
+/**
+ * An OCR attempt that failed with an {@code ErrorCatalog} code. Failures raised by the client's
+ * own checks (timeouts, refused connections, worker errors) are expected under load and carry no
+ * stack trace, which keeps them cheap during a worker outage; only exceptions wrapping an
+ * unexpected cause capture one.
+ */
 public class OcrClientException extends RuntimeException {
     private final String code;
     private final String message;
 
     public OcrClientException(String code, String message) {
-        super(message);
+        super(message, null, false, false);
         this.code = code;
         this.message = message;
     }
@@ -0,0 +1,174 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+/**
+ * Streams the worker {@code /ocr} JSON into an {@link OcrResult}.
+ *
+ * <p>Only the fields the API uses are materialised; {@code rawText} and unknown fields are skipped
+ * token by token. Line count, line length and total bytes are capped so a misbehaving worker fails
+ * fast with {@code OCR_FAILED} instead of exhausting memory.
+ */
+@Component
+public class OcrResponseDecoder {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private final OcrResponseLimits limits;
+
+    public OcrResponseDecoder(
+            @Value("${OCR_MAX_LINES:500}") int maxLines,
+            @Value("${OCR_MAX_LINE_LENGTH:512}") int maxLineLength,
+            @Value("${OCR_MAX_RESPONSE_BYTES:1048576}") long maxResponseBytes
+    ) {
+        this.limits = new OcrResponseLimits(maxLines, maxLineLength, maxResponseBytes);
+    }
+
+    public OcrResponseLimits limits() {
+        return limits;
+    }
+
+    public OcrResult decode(InputStream body) {
+        if (body == null) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(
+                ObjectReadContext.empty(),
+                new BoundedInputStream(body, limits.maxResponseBytes()))) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new OcrResponseRejectedException("response is not a JSON object");
+            }
+            return readResult(parser);
+        } catch (JacksonException ex) {
+            throw new OcrResponseRejectedException("malformed response JSON");
+        }
+    }
+
+    private OcrResult readResult(JsonParser parser) {
+        String requestId = null;
+        String engine = null;
+        double confidence = 0.0;
+        List<OcrLine> lines = List.of();
+        long processingTimeMs = 0L;
+
+        String name;
+        while ((name = parser.nextName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "requestId" -> requestId = readString(parser, value);
+                case "engine" -> engine = readString(parser, value);
+                case "confidence" -> confidence = value == JsonToken.VALUE_NULL ? 0.0 : parser.getValueAsDouble();
+                case "processingTimeMs" -> processingTimeMs = value == JsonToken.VALUE_NULL ? 0L : parser.getValueAsLong();
+                case "lines" -> lines = readLines(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new OcrResult(requestId, engine, confidence, lines, processingTimeMs, null);
+    }
+
+    private List<OcrLine> readLines(JsonParser parser, JsonToken token) {
+        if (token == JsonToken.VALUE_NULL) {
+            return List.of();
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new OcrResponseRejectedException("lines is not an array");
+        }
+        List<OcrLine> lines = new ArrayList<>();
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element == null) {
+                throw new OcrResponseRejectedException("truncated response JSON");
+            }
+            if (element != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            if (lines.size() >= limits.maxLines()) {
+                throw new OcrResponseRejectedException("line count exceeds " + limits.maxLines());
+            }
+            lines.add(readLine(parser));
+        }
+        return lines;
+    }
+
+    private OcrLine readLine(JsonParser parser) {
+        String text = null;
+        double confidence = 0.0;
+        String name;
+        while ((name = parser.nextName()) != null) {
+            JsonToken value = parser.nextToken();
+            if ("text".equals(name)) {
+                if (value == JsonToken.VALUE_STRING && parser.getStringLength() > limits.maxLineLength()) {
+                    throw new OcrResponseRejectedException("line length exceeds " + limits.maxLineLength());
+                }
+                text = readString(parser, value);
+            } else if ("confidence".equals(name)) {
+                confidence = value == JsonToken.VALUE_NULL ? 0.0 : parser.getValueAsDouble();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new OcrLine(text, confidence);
+    }
+
+    private static String readString(JsonParser parser, JsonToken token) {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getString();
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(long read) {
+            count += read;
+            if (count > limit) {
+                throw new OcrResponseRejectedException("response size exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
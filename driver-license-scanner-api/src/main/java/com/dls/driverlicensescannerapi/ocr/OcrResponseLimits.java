@@ -0,0 +1,3 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+public record OcrResponseLimits(int maxLines, int maxLineLength, long maxResponseBytes) {}
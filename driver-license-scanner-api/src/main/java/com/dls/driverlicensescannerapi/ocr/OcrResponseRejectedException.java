@@ -0,0 +1,20 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+
+/**
+ * Worker response that was malformed or exceeded a configured limit. The reason is safe to log;
+ * it never contains OCR text.
+ */
+public class OcrResponseRejectedException extends OcrClientException {
+    private final String reason;
+
+    public OcrResponseRejectedException(String reason) {
+        super(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
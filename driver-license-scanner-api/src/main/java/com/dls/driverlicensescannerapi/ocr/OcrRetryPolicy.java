@@ -0,0 +1,111 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Same-engine retries for {@link OcrTransportException}s, paid for from one process-wide retry
+ * budget. Every successful worker call deposits {@code OCR_RETRY_BUDGET_RATIO} of a token, up to
+ * {@code OCR_RETRY_BUDGET_MAX}, and every retry withdraws a whole one; so beyond the initial
+ * allowance retries stay below that fraction of traffic, and during an outage, when nothing
+ * succeeds, they stop. Waits between retries use decorrelated jitter: a random delay between the
+ * base and three times the previous one, capped at {@code OCR_RETRY_MAX_BACKOFF_MS}.
+ *
+ * <p>A request lost after it was sent is retried only for the engines in
+ * {@code OCR_RETRY_ENGINES}, or for every engine when that is blank; paid engines can be left
+ * out so that a worker which did run the first attempt is not billed twice.
+ */
+@Component
+public class OcrRetryPolicy {
+
+    public static final String BUDGET_GAUGE = "dls.ocr.retry.budget";
+
+    private static final long MILLI_TOKENS = 1_000;
+
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long depositMilliTokens;
+    private final long capacityMilliTokens;
+    private final AtomicLong milliTokens;
+    private final Set<String> lostConnectionEngines;
+
+    public OcrRetryPolicy(
+            MeterRegistry registry,
+            @Value("${OCR_RETRY_MAX_ATTEMPTS:2}") int maxRetries,
+            @Value("${OCR_RETRY_BASE_MS:20}") long baseBackoffMillis,
+            @Value("${OCR_RETRY_MAX_BACKOFF_MS:200}") long maxBackoffMillis,
+            @Value("${OCR_RETRY_BUDGET_RATIO:0.1}") double budgetRatio,
+            @Value("${OCR_RETRY_BUDGET_MAX:10}") int budgetMax,
+            @Value("${OCR_RETRY_ENGINES:}") String lostConnectionEngines
+    ) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseBackoffMillis = Math.max(1, baseBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+        this.depositMilliTokens = Math.round(Math.max(0, budgetRatio) * MILLI_TOKENS);
+        this.capacityMilliTokens = Math.max(0, budgetMax) * MILLI_TOKENS;
+        this.milliTokens = new AtomicLong(capacityMilliTokens);
+        this.lostConnectionEngines = StringUtils.commaDelimitedListToSet(lostConnectionEngines.toLowerCase(Locale.ROOT))
+                .stream()
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toUnmodifiableSet());
+        Gauge.builder(BUDGET_GAUGE, milliTokens, tokens -> tokens.get() / (double) MILLI_TOKENS)
+                .description("Retries the OCR retry budget can currently pay for")
+                .register(registry);
+    }
+
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Whether a request to {@code engine} that may already have reached the worker is retried.
+     */
+    public boolean retriesLostConnections(String engine) {
+        return lostConnectionEngines.isEmpty()
+                || engine != null && lostConnectionEngines.contains(engine.toLowerCase(Locale.ROOT));
+    }
+
+    public void recordSuccess() {
+        if (depositMilliTokens == 0) {
+            return;
+        }
+        milliTokens.getAndUpdate(tokens -> Math.min(capacityMilliTokens, tokens + depositMilliTokens));
+    }
+
+    /**
+     * Withdraws one retry from the budget. Returns {@code false} when the budget is spent.
+     */
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long tokens = milliTokens.get();
+            if (tokens < MILLI_TOKENS) {
+                return false;
+            }
+            if (milliTokens.compareAndSet(tokens, tokens - MILLI_TOKENS)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The wait before the next retry, given the previous wait ({@link Duration#ZERO} before the
+     * first retry).
+     */
+    public Duration nextBackoff(Duration previous) {
+        long upper = Math.min(maxBackoffMillis, Math.max(baseBackoffMillis, previous.toMillis() * 3));
+        return Duration.ofMillis(upper <= baseBackoffMillis
+                ? baseBackoffMillis
+                : ThreadLocalRandom.current().nextLong(baseBackoffMillis, upper + 1));
+    }
+}
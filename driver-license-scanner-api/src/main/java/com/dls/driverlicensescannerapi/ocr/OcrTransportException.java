@@ -0,0 +1,31 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+
+/**
+ * The connection to the worker failed, as opposed to a timeout or an answer the worker gave.
+ * Either the request never reached the worker (the connect was refused or writing it failed), or
+ * the connection was reset or closed before the answer came back. OCR has no side effects, so
+ * both are retried on the same engine; after a lost connection the worker may have run, and
+ * billed, the first attempt, so {@link #requestSent()} lets that case be limited per engine.
+ */
+public class OcrTransportException extends OcrClientException {
+
+    private final boolean requestSent;
+
+    public OcrTransportException() {
+        this(false);
+    }
+
+    public OcrTransportException(boolean requestSent) {
+        super(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        this.requestSent = requestSent;
+    }
+
+    /**
+     * Whether the request may have reached the worker before the connection was lost.
+     */
+    public boolean requestSent() {
+        return requestSent;
+    }
+}
@@ -0,0 +1,187 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length-prefixed binary frames spoken with a co-located OCR worker over a Unix domain socket.
+ *
+ * <pre>
+ * request:  int length | byte version | string requestId | string engine | string internalKey
+ *           | int imageLength | image bytes
+ * response: int length | byte version | byte status | string requestId | string engine
+ *           | double confidence | long processingTimeMs | int lineCount
+ *           | lineCount * (string text | double confidence)
+ * </pre>
+ *
+ * <p>Strings are an unsigned short byte count followed by UTF-8 bytes; an empty string means absent.
+ * The length prefix counts the bytes that follow it. Integers are big-endian.
+ */
+public final class UnixSocketFrameCodec {
+
+    public static final byte VERSION = 1;
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_FAILED = 1;
+    public static final byte STATUS_TIMEOUT = 2;
+
+    private UnixSocketFrameCodec() {}
+
+    public record RequestFrame(String requestId, String engine, String internalKey, byte[] image) {}
+
+    /**
+     * Encodes everything but the image bytes, so callers can gather-write the image without copying it.
+     */
+    public static ByteBuffer encodeRequestHeader(String requestId, String engine, String internalKey, int imageLength) {
+        byte[] requestIdBytes = bytes(requestId);
+        byte[] engineBytes = bytes(engine);
+        byte[] keyBytes = bytes(internalKey);
+        int headerLength = 1 + 2 + requestIdBytes.length + 2 + engineBytes.length + 2 + keyBytes.length + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + headerLength);
+        buffer.putInt(headerLength + imageLength);
+        buffer.put(VERSION);
+        putString(buffer, requestIdBytes);
+        putString(buffer, engineBytes);
+        putString(buffer, keyBytes);
+        buffer.putInt(imageLength);
+        return buffer.flip();
+    }
+
+    public static RequestFrame decodeRequest(ByteBuffer payload) {
+        checkVersion(payload.get());
+        String requestId = getString(payload);
+        String engine = getString(payload);
+        String internalKey = getString(payload);
+        byte[] image = new byte[payload.getInt()];
+        payload.get(image);
+        return new RequestFrame(requestId, engine, internalKey, image);
+    }
+
+    public static ByteBuffer encodeResponse(byte status, OcrResult result) {
+        byte[] requestIdBytes = bytes(result == null ? null : result.requestId());
+        byte[] engineBytes = bytes(result == null ? null : result.engine());
+        List<OcrLine> lines = result == null || result.lines() == null ? List.of() : result.lines();
+        List<byte[]> lineBytes = new ArrayList<>(lines.size());
+        int length = 1 + 1 + 2 + requestIdBytes.length + 2 + engineBytes.length + 8 + 8 + 4;
+        for (OcrLine line : lines) {
+            byte[] text = bytes(line.text());
+            lineBytes.add(text);
+            length += 2 + text.length + 8;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        buffer.put(VERSION);
+        buffer.put(status);
+        putString(buffer, requestIdBytes);
+        putString(buffer, engineBytes);
+        buffer.putDouble(result == null ? 0.0 : result.confidence());
+        buffer.putLong(result == null ? 0L : result.processingTimeMs());
+        buffer.putInt(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            putString(buffer, lineBytes.get(i));
+            buffer.putDouble(lines.get(i).confidence());
+        }
+        return buffer.flip();
+    }
+
+    public static OcrResult decodeResponse(ByteBuffer payload, OcrResponseLimits limits) {
+        checkVersion(payload.get());
+        byte status = payload.get();
+        if (status == STATUS_TIMEOUT) {
+            throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+        }
+        if (status != STATUS_OK) {
+            throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        }
+        String requestId = getString(payload);
+        String engine = getString(payload);
+        double confidence = payload.getDouble();
+        long processingTimeMs = payload.getLong();
+        int lineCount = payload.getInt();
+        if (lineCount < 0 || lineCount > limits.maxLines()) {
+            throw new OcrResponseRejectedException("line count exceeds " + limits.maxLines());
+        }
+        List<OcrLine> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            int textLength = Short.toUnsignedInt(payload.getShort());
+            if (textLength > limits.maxLineLength() * 4) {
+                throw new OcrResponseRejectedException("line length exceeds " + limits.maxLineLength());
+            }
+            if (textLength > payload.remaining()) {
+                throw new OcrResponseRejectedException("truncated response frame");
+            }
+            String text = new String(payload.array(), payload.arrayOffset() + payload.position(), textLength,
+                    StandardCharsets.UTF_8);
+            payload.position(payload.position() + textLength);
+            if (text.length() > limits.maxLineLength()) {
+                throw new OcrResponseRejectedException("line length exceeds " + limits.maxLineLength());
+            }
+            lines.add(new OcrLine(text, payload.getDouble()));
+        }
+        return new OcrResult(requestId, engine, confidence, lines, processingTimeMs, null);
+    }
+
+    /**
+     * Blocking read of one frame; returns {@code null} when the peer closed the connection between frames.
+     */
+    public static ByteBuffer readFrame(ReadableByteChannel channel, long maxFrameBytes) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        if (!readFully(channel, lengthBuffer, true)) {
+            return null;
+        }
+        int length = lengthBuffer.flip().getInt();
+        if (length < 0 || length > maxFrameBytes) {
+            throw new IOException("frame size " + length + " exceeds " + maxFrameBytes + " bytes");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, false);
+        return payload.flip();
+    }
+
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean eofAllowed)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (eofAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("connection closed mid-frame");
+            }
+        }
+        return true;
+    }
+
+    private static void checkVersion(byte version) {
+        if (version != VERSION) {
+            throw new OcrResponseRejectedException("unsupported frame version " + version);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("string field exceeds 65535 bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,269 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends OCR requests to a co-located worker as {@link UnixSocketFrameCodec} frames.
+ *
+ * <p>Connections are persistent: each one carries many request/response exchanges and is returned to
+ * a bounded idle pool afterwards. A pooled connection the worker has since closed is replaced once
+ * before the failure is reported, but only when writing the request failed: once the request is
+ * written the worker may already be running OCR, and sending it again could bill the engine twice.
+ * That replacement is a retry like any other and is paid for from the {@link OcrRetryPolicy}
+ * budget.
+ *
+ * <p>A connection lost while waiting for the answer surfaces as an {@link OcrTransportException}
+ * marked as sent; whether to send it again is left to {@link OcrClient}, under the retry budget.
+ */
+public class UnixSocketOcrTransport implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnixSocketOcrTransport.class);
+    private static final FailureLog failureLog = new FailureLog(logger, FailureLog.DEFAULT_WINDOW);
+
+    private final UnixDomainSocketAddress address;
+    private final Duration readTimeout;
+    private final OcrResponseLimits limits;
+    private final OcrRetryPolicy retryPolicy;
+    private final BlockingQueue<Connection> idleConnections;
+    private volatile boolean closed;
+
+    public UnixSocketOcrTransport(Path socketPath, int maxIdleConnections, Duration readTimeout, OcrResponseLimits limits,
+                                  OcrRetryPolicy retryPolicy) {
+        this.address = UnixDomainSocketAddress.of(socketPath);
+        this.readTimeout = readTimeout;
+        this.limits = limits;
+        this.retryPolicy = retryPolicy;
+        this.idleConnections = new ArrayBlockingQueue<>(Math.max(1, maxIdleConnections));
+    }
+
+    public OcrResult scan(String requestId, String engine, String internalKey, byte[] image) {
+        return scan(requestId, engine, internalKey, image, readTimeout);
+    }
+
+    /**
+     * Like {@link #scan(String, String, String, byte[])}, with {@code timeout} in place of the
+     * transport's read timeout for this exchange.
+     */
+    public OcrResult scan(String requestId, String engine, String internalKey, byte[] image, Duration timeout) {
+        Connection connection = idleConnections.poll();
+        boolean reused = connection != null;
+        try {
+            if (connection == null) {
+                connection = openConnection(requestId, engine);
+            }
+            try {
+                return exchange(connection, requestId, engine, internalKey, image, timeout);
+            } catch (RequestNotSentException ex) {
+                if (!reused || !retryPolicy.tryAcquireRetry()) {
+                    throw ex;
+                }
+                // The worker dropped the idle pooled connection; retry once on a fresh one.
+                connection.close();
+                connection = openConnection(requestId, engine);
+                return exchange(connection, requestId, engine, internalKey, image, timeout);
+            }
+        } catch (SocketTimeoutException ex) {
+            closeQuietly(connection);
+            connection = null;
+            failureLog.warn("OCR socket request timeout", engine, requestId);
+            throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+        } catch (RequestNotSentException ex) {
+            closeQuietly(connection);
+            connection = null;
+            failureLog.warn("OCR socket request not sent error=" + ex.getCause().getClass().getSimpleName(), engine,
+                    requestId);
+            throw new OcrTransportException();
+        } catch (IOException ex) {
+            closeQuietly(connection);
+            connection = null;
+            failureLog.warn("OCR socket request error error=" + ex.getClass().getSimpleName(), engine, requestId);
+            throw new OcrTransportException(true);
+        } catch (BufferUnderflowException ex) {
+            closeQuietly(connection);
+            connection = null;
+            throw new OcrResponseRejectedException("truncated response frame");
+        } catch (OcrResponseRejectedException ex) {
+            closeQuietly(connection);
+            connection = null;
+            throw ex;
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+    }
+
+    private OcrResult exchange(Connection connection, String requestId, String engine, String internalKey, byte[] image,
+                               Duration timeout) throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ByteBuffer header = UnixSocketFrameCodec.encodeRequestHeader(requestId, engine, internalKey, image.length);
+        try {
+            connection.write(new ByteBuffer[] {header, ByteBuffer.wrap(image)}, deadline);
+        } catch (SocketTimeoutException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new RequestNotSentException(ex);
+        }
+        ByteBuffer payload = connection.readFrame(deadline, limits.maxResponseBytes());
+        return UnixSocketFrameCodec.decodeResponse(payload, limits);
+    }
+
+    private Connection openConnection(String requestId, String engine) {
+        try {
+            return Connection.open(address);
+        } catch (IOException ex) {
+            failureLog.warn("OCR socket connect failed", engine, requestId);
+            throw new OcrTransportException();
+        }
+    }
+
+    /**
+     * Opens connections into the idle pool until it holds {@code count} (at most its capacity), so
+     * the first requests do not pay for the connect. Returns the number of idle connections.
+     */
+    public int prefill(int count) {
+        while (!closed && idleConnections.size() < count) {
+            Connection connection;
+            try {
+                connection = Connection.open(address);
+            } catch (IOException ex) {
+                logger.warn("OCR socket prefill failed: {}", ex.getMessage());
+                break;
+            }
+            if (!idleConnections.offer(connection)) {
+                connection.close();
+                break;
+            }
+        }
+        return idleConnections.size();
+    }
+
+    private void release(Connection connection) {
+        if (closed || !idleConnections.offer(connection)) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final Selector selector;
+
+        private Connection(SocketChannel channel, Selector selector) {
+            this.channel = channel;
+            this.selector = selector;
+        }
+
+        static Connection open(UnixDomainSocketAddress address) throws IOException {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(address);
+                channel.configureBlocking(false);
+                return new Connection(channel, Selector.open());
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        void write(ByteBuffer[] buffers, long deadline) throws IOException {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                if (channel.write(buffers) == 0) {
+                    await(SelectionKey.OP_WRITE, deadline);
+                }
+            }
+        }
+
+        ByteBuffer readFrame(long deadline, long maxFrameBytes) throws IOException {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            readFully(lengthBuffer, deadline);
+            int length = lengthBuffer.flip().getInt();
+            if (length < 0 || length > maxFrameBytes) {
+                throw new OcrResponseRejectedException("response size exceeds " + maxFrameBytes + " bytes");
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, deadline);
+            return payload.flip();
+        }
+
+        private void readFully(ByteBuffer buffer, long deadline) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("connection closed by worker");
+                }
+                if (read == 0) {
+                    await(SelectionKey.OP_READ, deadline);
+                }
+            }
+        }
+
+        private void await(int operation, long deadline) throws IOException {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                throw new SocketTimeoutException("OCR socket timed out");
+            }
+            SelectionKey key = channel.register(selector, operation);
+            try {
+                if (selector.select(remainingMillis) == 0) {
+                    throw new SocketTimeoutException("OCR socket timed out");
+                }
+            } finally {
+                key.interestOps(0);
+                selector.selectedKeys().clear();
+            }
+        }
+
+        void close() {
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // The channel is still closed below.
+            } finally {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release.
+                }
+            }
+        }
+    }
+
+    /** Writing the request failed, so the worker cannot have started on it. */
+    private static final class RequestNotSentException extends IOException {
+        RequestNotSentException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
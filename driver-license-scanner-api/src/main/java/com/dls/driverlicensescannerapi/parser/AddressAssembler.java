@@ -43,8 +43,7 @@ final class AddressAssembler {
         String cleaned = token.replaceAll("\\s+", " ").trim();
         cleaned = cleaned.replaceAll(",\\s*", ", ");
         cleaned = cleaned.replaceAll("\\.(?=\\S)", ". ");
-        cleaned = cleaned.replaceAll("(?<=\\d)(?=[A-Z])", " ");
-        cleaned = cleaned.replaceAll("(?<=[A-Z])(?=\\d)", " ");
+        cleaned = separateDigitsFromLetters(cleaned);
         cleaned = splitSuffix(cleaned);
         String compact = cleaned.replaceAll("\\s+", "").toUpperCase(Locale.ROOT);
         if (POSTCODE_COMPACT_PATTERN.matcher(compact).matches()) {
@@ -53,6 +52,37 @@ final class AddressAssembler {
         return cleaned;
     }
 
+    /**
+     * Puts a space wherever a digit and an upper-case letter touch, either way round, so
+     * {@code 12HIGH STREET} becomes {@code 12 HIGH STREET}. One forward pass over the token.
+     */
+    static String separateDigitsFromLetters(String text) {
+        StringBuilder separated = null;
+        for (int i = 1; i < text.length(); i++) {
+            char previous = text.charAt(i - 1);
+            char current = text.charAt(i);
+            boolean boundary = isDigit(previous) && isUpperCase(current) || isUpperCase(previous) && isDigit(current);
+            if (boundary && separated == null) {
+                separated = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (separated != null) {
+                if (boundary) {
+                    separated.append(' ');
+                }
+                separated.append(current);
+            }
+        }
+        return separated == null ? text : separated.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
     private static String normalize(String text) {
         return text == null ? "" : text.replaceAll("\\s+", " ").trim();
     }
@@ -5,6 +5,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 final class CategoryParser {
     private static final Set<String> EU_CODES = Set.of(
@@ -15,6 +16,7 @@ final class CategoryParser {
             "G", "H", "M"
     );
     private static final Set<String> NATIONAL_CODES = Set.of("f", "k", "l", "n", "p", "q");
+    private static final Pattern TABLE_DATE = Pattern.compile("\\d{2}[./-]\\d{2}[./-]\\d{2,4}");
 
     private CategoryParser() {}
 
@@ -54,19 +56,43 @@ final class CategoryParser {
                 categories.add("B");
                 continue;
             }
-            if ("1".equals(token) || "I".equalsIgnoreCase(token)) {
-                token = "l";
+            String code = canonical(token);
+            if (code != null) {
+                categories.add(code);
             }
-            String upper = token.toUpperCase(Locale.ROOT);
-            if (EU_CODES.contains(upper)) {
-                categories.add(upper);
+        }
+        return categories.isEmpty() ? List.of() : new ArrayList<>(categories);
+    }
+
+    /**
+     * Categories from the table on the back of the card: one row per category, columns 9 to 12.
+     * Every category is printed with its pictogram, but only those held carry a valid-from date
+     * (column 10), so a row counts only when its first token is a code and a date follows it.
+     */
+    static List<String> parseTable(List<String> lines) {
+        Set<String> categories = new LinkedHashSet<>();
+        for (String line : lines) {
+            String[] tokens = line.trim().split("\\s+", 2);
+            if (tokens.length < 2 || !TABLE_DATE.matcher(tokens[1]).find()) {
                 continue;
             }
-            String lower = token.toLowerCase(Locale.ROOT);
-            if (NATIONAL_CODES.contains(lower)) {
-                categories.add(lower);
+            String code = canonical(tokens[0].replaceAll("[^A-Za-z0-9]", ""));
+            if (code != null) {
+                categories.add(code);
             }
         }
         return categories.isEmpty() ? List.of() : new ArrayList<>(categories);
     }
+
+    private static String canonical(String token) {
+        if ("1".equals(token) || "I".equalsIgnoreCase(token)) {
+            token = "l";
+        }
+        String upper = token.toUpperCase(Locale.ROOT);
+        if (EU_CODES.contains(upper)) {
+            return upper;
+        }
+        String lower = token.toLowerCase(Locale.ROOT);
+        return NATIONAL_CODES.contains(lower) ? lower : null;
+    }
 }
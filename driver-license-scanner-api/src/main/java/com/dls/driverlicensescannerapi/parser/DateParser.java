@@ -3,12 +3,16 @@ package com.dls.driverlicensescannerapi.parser;
 import java.time.Year;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Finds {@code dd.mm.yy(yy)} dates, with {@code .}, {@code /} or {@code -} separators, that are not
+ * part of a longer digit run. Scanning is a single forward pass with constant work per start
+ * position, so long digit or separator runs in OCR output stay linear.
+ */
 final class DateParser {
-    private static final Pattern DATE_PATTERN =
-            Pattern.compile("(?<!\\d)(\\d{2})[./-](\\d{2})[./-](\\d{2,4})(?!\\d)");
+
+    /** A matched date; {@code end} is the index after the year. */
+    record DateMatch(String day, String month, String year, int end) {}
 
     private DateParser() {}
 
@@ -26,24 +30,79 @@ final class DateParser {
         if (value.isEmpty()) {
             return null;
         }
-        Matcher matcher = DATE_PATTERN.matcher(value.get());
-        if (!matcher.find()) {
+        DateMatch match = find(value.get(), 0, false);
+        if (match == null) {
             return null;
         }
-        String day = matcher.group(1);
-        String month = matcher.group(2);
-        String year = normalizeYear(matcher.group(3), isBirthDate);
+        String year = normalizeYear(match.year(), isBirthDate);
         if (year == null) {
             return null;
         }
-        return day + "." + month + "." + year;
+        return match.day() + "." + match.month() + "." + year;
     }
 
     static boolean containsDate(String value) {
         if (value == null || value.isBlank()) {
             return false;
         }
-        return DATE_PATTERN.matcher(value).find();
+        return find(value, 0, false) != null;
+    }
+
+    /**
+     * First date at or after {@code from}. With {@code lenient}, the letters {@code O I S B} (any
+     * case) are also accepted in place of digits, as OCR commonly confuses them; the boundary
+     * checks still only look at real digits.
+     */
+    static DateMatch find(String text, int from, boolean lenient) {
+        int length = text.length();
+        for (int start = Math.max(0, from); start + 8 <= length; start++) {
+            if (start > 0 && isDigit(text.charAt(start - 1))) {
+                continue;
+            }
+            if (!isDateChar(text, start, lenient) || !isDateChar(text, start + 1, lenient)
+                    || !isSeparator(text.charAt(start + 2))
+                    || !isDateChar(text, start + 3, lenient) || !isDateChar(text, start + 4, lenient)
+                    || !isSeparator(text.charAt(start + 5))) {
+                continue;
+            }
+            int yearStart = start + 6;
+            int run = 0;
+            while (run < 4 && isDateChar(text, yearStart + run, lenient)) {
+                run++;
+            }
+            // Same as a greedy {2,4} year followed by (?!digit): take the longest year that ends
+            // before a non-digit.
+            for (int yearLength = run; yearLength >= 2; yearLength--) {
+                int end = yearStart + yearLength;
+                if (end == length || !isDigit(text.charAt(end))) {
+                    return new DateMatch(text.substring(start, start + 2), text.substring(start + 3, start + 5),
+                            text.substring(yearStart, end), end);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDateChar(String text, int index, boolean lenient) {
+        if (index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        if (isDigit(c)) {
+            return true;
+        }
+        return lenient && switch (c) {
+            case 'O', 'o', 'I', 'i', 'S', 's', 'B', 'b' -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '/' || c == '-';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     private static String normalizeYear(String raw, boolean isBirthDate) {
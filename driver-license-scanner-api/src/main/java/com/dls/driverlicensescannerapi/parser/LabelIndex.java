@@ -4,16 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Field labels ({@code 1.}, {@code 4b)}, ...) found in the normalised lines. A label either
+ * starts its line or stands inline after a non-alphanumeric character, and is followed by
+ * whitespace, {@code .}, {@code )} or the end of the line. Matching is a single forward scan per
+ * line with constant lookahead, so hostile OCR text cannot trigger regex backtracking.
+ */
 final class LabelIndex {
-    private static final Pattern LABEL_PATTERN =
-            Pattern.compile("^(?<label>(?:1|2|3|4a|4b|5|7|8|9))(?=\\s|[\\.)]|$)\\s*[\\.)]?\\s*(?<value>.*)$",
-                    Pattern.CASE_INSENSITIVE);
-    private static final Pattern INLINE_LABEL_PATTERN =
-            Pattern.compile("(?<![A-Z0-9])(?<label>(?:1|2|3|4a|4b|5|7|8|9))(?=\\s|[\\.)]|$)",
-                    Pattern.CASE_INSENSITIVE);
 
     private final List<LabelMatch> matches;
 
@@ -25,18 +23,27 @@ final class LabelIndex {
         List<LabelMatch> matches = new ArrayList<>();
             for (int i = 0; i < lines.size(); i++) {
                 String line = lines.get(i);
-                Matcher matcher = LABEL_PATTERN.matcher(line);
-                if (matcher.matches()) {
-                    String label = matcher.group("label").toLowerCase(Locale.ROOT);
-                    String value = lineNormalize(matcher.group("value"));
-                    matches.add(new LabelMatch(label, value, i));
+                int end = labelEnd(line, 0);
+                if (end > 0) {
+                    String label = line.substring(0, end).toLowerCase(Locale.ROOT);
+                    int valueStart = skipSpaces(line, end);
+                    if (valueStart < line.length() && isLabelPunctuation(line.charAt(valueStart))) {
+                        valueStart = skipSpaces(line, valueStart + 1);
+                    }
+                    matches.add(new LabelMatch(label, lineNormalize(line.substring(valueStart)), i));
                 } else {
-                    Matcher inline = INLINE_LABEL_PATTERN.matcher(line);
-                    if (inline.find()) {
-                        String label = inline.group("label").toLowerCase(Locale.ROOT);
-                        String value = lineNormalize(line.substring(inline.end())
-                                .replaceFirst("^[\\.)\\s]+", ""));
-                        matches.add(new LabelMatch(label, value, i));
+                    for (int start = 1; start < line.length(); start++) {
+                        end = isAsciiAlphanumeric(line.charAt(start - 1)) ? -1 : labelEnd(line, start);
+                        if (end > 0) {
+                            int valueStart = end;
+                            while (valueStart < line.length()
+                                    && (isLabelPunctuation(line.charAt(valueStart)) || isSpace(line.charAt(valueStart)))) {
+                                valueStart++;
+                            }
+                            String label = line.substring(start, end).toLowerCase(Locale.ROOT);
+                            matches.add(new LabelMatch(label, lineNormalize(line.substring(valueStart)), i));
+                            break;
+                        }
                     }
                 }
             }
@@ -85,11 +92,81 @@ final class LabelIndex {
     }
 
     static boolean isLabelLine(String line) {
-        return LABEL_PATTERN.matcher(line).matches();
+        return labelEnd(line, 0) > 0;
+    }
+
+    /**
+     * End of the label starting at {@code start}: one of {@code 1 2 3 4a 4b 5 7 8 9}, case
+     * insensitive, followed by whitespace, {@code .}, {@code )} or the end. Returns -1 for none.
+     */
+    private static int labelEnd(String line, int start) {
+        if (start >= line.length()) {
+            return -1;
+        }
+        int end;
+        switch (line.charAt(start)) {
+            case '1', '2', '3', '5', '7', '8', '9' -> end = start + 1;
+            case '4' -> {
+                if (start + 1 >= line.length()) {
+                    return -1;
+                }
+                char suffix = line.charAt(start + 1);
+                if (suffix != 'a' && suffix != 'A' && suffix != 'b' && suffix != 'B') {
+                    return -1;
+                }
+                end = start + 2;
+            }
+            default -> {
+                return -1;
+            }
+        }
+        if (end == line.length() || isSpace(line.charAt(end)) || isLabelPunctuation(line.charAt(end))) {
+            return end;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String line, int index) {
+        while (index < line.length() && isSpace(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isLabelPunctuation(char c) {
+        return c == '.' || c == ')';
+    }
+
+    /** The characters of {@code \\s} without {@code UNICODE_CHARACTER_CLASS}. */
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    static String lineNormalize(String text) {
+        return text == null ? "" : collapseWhitespace(text);
     }
 
-    private static String lineNormalize(String text) {
-        return text == null ? "" : text.replaceAll("\\s+", " ").trim();
+    /** Same as {@code text.replaceAll("\\s+", " ").trim()} in one pass. */
+    static String collapseWhitespace(String text) {
+        StringBuilder collapsed = new StringBuilder(text.length());
+        boolean inSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isSpace(c)) {
+                if (!inSpace) {
+                    collapsed.append(' ');
+                }
+                inSpace = true;
+            } else {
+                collapsed.append(c);
+                inSpace = false;
+            }
+        }
+        return collapsed.toString().trim();
     }
 
     record LabelMatch(String label, String value, int index) {}
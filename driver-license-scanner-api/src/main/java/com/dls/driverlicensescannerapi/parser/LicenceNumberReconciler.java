@@ -0,0 +1,190 @@
+package com.dls.driverlicensescannerapi.parser;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Cross-checks the licence number against the surname and date of birth it encodes.
+ *
+ * <p>A DVLA licence number is laid out as surname (5, padded with 9), decade of birth, birth month
+ * (+50 for female holders), birth day, year digit, two initials, an arbitrary digit and two check
+ * letters, optionally followed by a two digit issue number. Each position only admits letters or
+ * digits, so the usual OCR confusions (O/0, I/1, S/5, B/8) can be undone without another OCR call.
+ */
+public final class LicenceNumberReconciler {
+
+    private static final int BASE_LENGTH = 16;
+    private static final int MAX_LENGTH = 18;
+
+    private LicenceNumberReconciler() {}
+
+    public static LicenseFields reconcile(LicenseFields fields, List<OcrLine> lines) {
+        if (fields == null || fields.licenceNumber() == null) {
+            return fields;
+        }
+        String licenceNumber = correctLicenceNumber(fields.licenceNumber());
+        if (licenceNumber == null) {
+            return fields;
+        }
+
+        String lastName = reconcileLastName(fields.lastName(), licenceNumber.substring(0, 5));
+        String dateOfBirth = fields.dateOfBirth();
+        if (dateOfBirth == null) {
+            dateOfBirth = recoverDateOfBirth(licenceNumber, lines);
+        }
+
+        return new LicenseFields(
+                fields.firstName(),
+                lastName,
+                dateOfBirth,
+                fields.addressLine(),
+                licenceNumber,
+                fields.expiryDate(),
+                fields.categories()
+        );
+    }
+
+    static String correctLicenceNumber(String value) {
+        String raw = value.replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+        if (raw.length() < BASE_LENGTH || raw.length() > MAX_LENGTH || raw.length() == BASE_LENGTH + 1) {
+            return null;
+        }
+        char[] chars = raw.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = isLetterPosition(i) ? toLetter(chars[i]) : toDigit(chars[i]);
+        }
+        // Positions 13 (second initial) and 1-5 (short surnames) may legitimately hold a 9.
+        for (int i = 0; i < chars.length; i++) {
+            boolean paddingAllowed = i < 5 || i == 12;
+            if (isLetterPosition(i) && !Character.isLetter(chars[i]) && !(paddingAllowed && chars[i] == '9')) {
+                return null;
+            }
+            if (!isLetterPosition(i) && !Character.isDigit(chars[i])) {
+                return null;
+            }
+        }
+        String corrected = new String(chars);
+        if (!hasValidSurnamePadding(corrected.substring(0, 5)) || decodeBirthDate(corrected) == null) {
+            return null;
+        }
+        return corrected;
+    }
+
+    private static String reconcileLastName(String lastName, String surnameSegment) {
+        if (lastName == null) {
+            return null;
+        }
+        if (surnameSegment.equals(surnameKey(lastName))) {
+            return lastName;
+        }
+        String candidate = digitsToLetters(lastName);
+        return surnameSegment.equals(surnameKey(candidate)) ? candidate : lastName;
+    }
+
+    private static String recoverDateOfBirth(String licenceNumber, List<OcrLine> lines) {
+        EncodedBirthDate encoded = decodeBirthDate(licenceNumber);
+        if (encoded == null || lines == null) {
+            return null;
+        }
+        for (OcrLine line : lines) {
+            if (line == null || line.text() == null) {
+                continue;
+            }
+            DateParser.DateMatch match = DateParser.find(line.text(), 0, true);
+            for (; match != null; match = DateParser.find(line.text(), match.end(), true)) {
+                String candidate = lettersToDigits(match.day()) + "."
+                        + lettersToDigits(match.month()) + "."
+                        + lettersToDigits(match.year());
+                String date = DateParser.parseDate(Optional.of(candidate), true);
+                if (date != null && encoded.matches(date)) {
+                    return date;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static EncodedBirthDate decodeBirthDate(String licenceNumber) {
+        int decade = licenceNumber.charAt(5) - '0';
+        int month = Integer.parseInt(licenceNumber.substring(6, 8));
+        int day = Integer.parseInt(licenceNumber.substring(8, 10));
+        int yearDigit = licenceNumber.charAt(10) - '0';
+        if (month > 50) {
+            month -= 50;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        return new EncodedBirthDate(day, month, decade * 10 + yearDigit);
+    }
+
+    private static String surnameKey(String lastName) {
+        String letters = lastName.replaceAll("[^A-Za-z]", "").toUpperCase(Locale.ROOT);
+        if (letters.startsWith("MAC")) {
+            letters = "MC" + letters.substring(3);
+        }
+        StringBuilder key = new StringBuilder(letters.length() > 5 ? letters.substring(0, 5) : letters);
+        while (key.length() < 5) {
+            key.append('9');
+        }
+        return key.toString();
+    }
+
+    private static boolean hasValidSurnamePadding(String segment) {
+        int firstPadding = segment.indexOf('9');
+        return firstPadding != 0 && (firstPadding < 0 || segment.substring(firstPadding).chars().allMatch(c -> c == '9'));
+    }
+
+    private static boolean isLetterPosition(int index) {
+        return index < 5 || index == 11 || index == 12 || index == 14 || index == 15;
+    }
+
+    private static String digitsToLetters(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            builder.append(c == '9' ? c : toLetter(c));
+        }
+        return builder.toString();
+    }
+
+    private static String lettersToDigits(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            builder.append(toDigit(Character.toUpperCase(value.charAt(i))));
+        }
+        return builder.toString();
+    }
+
+    private static char toLetter(char c) {
+        return switch (c) {
+            case '0' -> 'O';
+            case '1' -> 'I';
+            case '5' -> 'S';
+            case '8' -> 'B';
+            default -> c;
+        };
+    }
+
+    private static char toDigit(char c) {
+        return switch (c) {
+            case 'O' -> '0';
+            case 'I' -> '1';
+            case 'S' -> '5';
+            case 'B' -> '8';
+            default -> c;
+        };
+    }
+
+    private record EncodedBirthDate(int day, int month, int twoDigitYear) {
+        boolean matches(String date) {
+            String[] parts = date.split("\\.");
+            return Integer.parseInt(parts[0]) == day
+                    && Integer.parseInt(parts[1]) == month
+                    && Integer.parseInt(parts[2]) % 100 == twoDigitYear;
+        }
+    }
+}
@@ -12,12 +12,19 @@ public final class LicenseFieldParser {
     private LicenseFieldParser() {}
 
     public static LicenseFields parse(List<OcrLine> lines) {
+        return parse(lines, ParserLimits.DEFAULT);
+    }
+
+    /**
+     * Parses at most {@code limits.maxLines()} lines, each cut to {@code limits.maxLineLength()}.
+     */
+    public static LicenseFields parse(List<OcrLine> lines, ParserLimits limits) {
         if (lines == null || lines.isEmpty()) {
             return emptyFields();
         }
 
         List<String> normalizedLines = new ArrayList<>();
-        for (OcrLine line : lines) {
+        for (OcrLine line : limits.apply(lines)) {
             if (line == null || line.text() == null) {
                 continue;
             }
@@ -63,12 +70,32 @@ public final class LicenseFieldParser {
         );
     }
 
+    /**
+     * Driving categories held, read from the category table on the back of the card.
+     */
+    public static List<String> parseBackCategories(List<OcrLine> lines) {
+        return parseBackCategories(lines, ParserLimits.DEFAULT);
+    }
+
+    public static List<String> parseBackCategories(List<OcrLine> lines, ParserLimits limits) {
+        if (lines == null || lines.isEmpty()) {
+            return List.of();
+        }
+        List<String> normalizedLines = new ArrayList<>();
+        for (OcrLine line : limits.apply(lines)) {
+            if (line != null && line.text() != null) {
+                normalizedLines.add(normalize(line.text()));
+            }
+        }
+        return CategoryParser.parseTable(normalizedLines);
+    }
+
     private static LicenseFields emptyFields() {
         return new LicenseFields(null, null, null, null, null, null, List.of());
     }
 
     private static String normalize(String text) {
-        return text.replaceAll("\\s+", " ").trim();
+        return LabelIndex.collapseWhitespace(text);
     }
 
     private static String sanitizeValue(String value) {
@@ -79,6 +106,19 @@ public final class LicenseFieldParser {
         return normalize(sanitized);
     }
 
+    private static boolean isAllDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static String nullIfBlank(String value) {
         return value == null || value.isBlank() ? null : value;
     }
@@ -117,7 +157,7 @@ public final class LicenseFieldParser {
                 if (normalized.length() == 1) {
                     continue;
                 }
-                if (normalized.matches("^\\d+$")) {
+                if (isAllDigits(normalized)) {
                     continue;
                 }
             }
@@ -143,7 +183,7 @@ public final class LicenseFieldParser {
                 index--;
                 continue;
             }
-            if (line.matches("^\\d+$")) {
+            if (isAllDigits(line)) {
                 index--;
                 continue;
             }
@@ -0,0 +1,51 @@
+package com.dls.driverlicensescannerapi.parser;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounds on the OCR text the parser will look at. A licence face has a few dozen short lines, so
+ * anything past these limits is noise or hostile input; lines past {@code maxLines} are dropped
+ * and longer lines truncated, keeping parse time bounded whatever the engine returns.
+ */
+public record ParserLimits(int maxLines, int maxLineLength) {
+
+    public static final ParserLimits DEFAULT = new ParserLimits(200, 256);
+
+    public ParserLimits {
+        maxLines = Math.max(1, maxLines);
+        maxLineLength = Math.max(1, maxLineLength);
+    }
+
+    /**
+     * The lines within these limits. Returns {@code lines} itself when nothing needs cutting.
+     */
+    public List<OcrLine> apply(List<OcrLine> lines) {
+        if (lines == null || withinLimits(lines)) {
+            return lines;
+        }
+        int count = Math.min(lines.size(), maxLines);
+        List<OcrLine> bounded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OcrLine line = lines.get(i);
+            if (line != null && line.text() != null && line.text().length() > maxLineLength) {
+                line = new OcrLine(line.text().substring(0, maxLineLength), line.confidence());
+            }
+            bounded.add(line);
+        }
+        return bounded;
+    }
+
+    private boolean withinLimits(List<OcrLine> lines) {
+        if (lines.size() > maxLines) {
+            return false;
+        }
+        for (OcrLine line : lines) {
+            if (line != null && line.text() != null && line.text().length() > maxLineLength) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
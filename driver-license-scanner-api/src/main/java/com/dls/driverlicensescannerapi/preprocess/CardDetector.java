@@ -0,0 +1,484 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the card in a photo on a downscaled grayscale copy: Sobel edges, the largest edge
+ * contours, and for each the largest quadrilateral inside its convex hull. A quadrilateral is only
+ * accepted when it is big enough, roughly card shaped and its four sides actually run along
+ * edges; anything less returns {@code null} so the caller keeps the original image.
+ * {@link #detectAll} applies the same checks to photos holding several cards.
+ */
+final class CardDetector {
+
+    static final int WORK_SIZE = 480;
+
+    private static final int MIN_EDGE_MAGNITUDE = 48;
+    private static final double EDGE_PERCENTILE = 0.88;
+    private static final int CANDIDATE_CONTOURS = 3;
+    private static final int MAX_HULL_POINTS = 48;
+    private static final double MIN_AREA_FRACTION = 0.12;
+    private static final double MIN_MULTI_AREA_FRACTION = 0.025;
+    private static final int CANDIDATES_PER_CARD = 4;
+    private static final double MAX_OVERLAP = 0.2;
+    private static final double ASPECT_TOLERANCE = 0.35;
+    private static final int SUPPORT_SAMPLES = 40;
+    private static final int SUPPORT_RADIUS = 2;
+    private static final double MIN_SIDE_SUPPORT = 0.5;
+    private static final double MIN_CONFIDENCE = 0.7;
+
+    private CardDetector() {}
+
+    static CardQuad detect(BufferedImage image) {
+        CardQuad best = null;
+        for (CardQuad candidate : candidates(image, CANDIDATE_CONTOURS, MIN_AREA_FRACTION)) {
+            if (best == null || candidate.confidence() > best.confidence()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every card in a photo of several laid out side by side, at most {@code maxCards}, in
+     * reading order: rows top to bottom, each left to right. Cards only need a smaller share of
+     * the frame here, and a quadrilateral overlapping a larger one already kept (a photo or text
+     * block printed on that card) is dropped.
+     */
+    static List<CardQuad> detectAll(BufferedImage image, int maxCards) {
+        List<CardQuad> cards = new ArrayList<>();
+        for (CardQuad candidate : candidates(image, maxCards * CANDIDATES_PER_CARD, MIN_MULTI_AREA_FRACTION)) {
+            if (cards.size() == maxCards) {
+                break;
+            }
+            if (cards.stream().noneMatch(card -> overlaps(card, candidate))) {
+                cards.add(candidate);
+            }
+        }
+        return readingOrder(cards);
+    }
+
+    /**
+     * Accepted quadrilaterals of the {@code contourCount} largest edge contours, largest first,
+     * in the coordinates of {@code image}.
+     */
+    private static List<CardQuad> candidates(BufferedImage image, int contourCount, double minAreaFraction) {
+        double scale = Math.min(1.0, (double) WORK_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = (int) Math.round(image.getWidth() * scale);
+        int height = (int) Math.round(image.getHeight() * scale);
+        if (width < 16 || height < 16) {
+            return List.of();
+        }
+
+        int[] magnitude = sobel(blur(grayscale(image, width, height), width, height), width, height);
+        boolean[] edges = threshold(magnitude);
+        int[] labels = new int[width * height];
+        List<Contour> contours = contours(dilate(edges, width, height), labels, width, height);
+
+        List<CardQuad> accepted = new ArrayList<>();
+        for (int i = 0; i < Math.min(contourCount, contours.size()); i++) {
+            double[][] hull = hull(contours.get(i).label(), labels, width, height);
+            CardQuad quad = accept(largestQuad(hull), edges, width, height, minAreaFraction);
+            if (quad == null) {
+                continue;
+            }
+            double[] xs = new double[4];
+            double[] ys = new double[4];
+            for (int corner = 0; corner < 4; corner++) {
+                xs[corner] = (quad.xs()[corner] + 0.5) / scale - 0.5;
+                ys[corner] = (quad.ys()[corner] + 0.5) / scale - 0.5;
+            }
+            accepted.add(new CardQuad(xs, ys, quad.confidence()));
+        }
+        return accepted;
+    }
+
+    /** Whether the bounding boxes share more than a fifth of the smaller one. */
+    private static boolean overlaps(CardQuad a, CardQuad b) {
+        double[] boxA = bounds(a);
+        double[] boxB = bounds(b);
+        double overlapX = Math.min(boxA[2], boxB[2]) - Math.max(boxA[0], boxB[0]);
+        double overlapY = Math.min(boxA[3], boxB[3]) - Math.max(boxA[1], boxB[1]);
+        if (overlapX <= 0 || overlapY <= 0) {
+            return false;
+        }
+        double smaller = Math.min((boxA[2] - boxA[0]) * (boxA[3] - boxA[1]), (boxB[2] - boxB[0]) * (boxB[3] - boxB[1]));
+        return overlapX * overlapY > MAX_OVERLAP * smaller;
+    }
+
+    /** {minX, minY, maxX, maxY} of the corners. */
+    private static double[] bounds(CardQuad quad) {
+        double[] box = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = 0; i < 4; i++) {
+            box[0] = Math.min(box[0], quad.xs()[i]);
+            box[1] = Math.min(box[1], quad.ys()[i]);
+            box[2] = Math.max(box[2], quad.xs()[i]);
+            box[3] = Math.max(box[3], quad.ys()[i]);
+        }
+        return box;
+    }
+
+    /**
+     * Groups cards into rows, a card joining the row above when its centre is less than half a
+     * card below that row's first card, then sorts each row left to right.
+     */
+    private static List<CardQuad> readingOrder(List<CardQuad> cards) {
+        List<CardQuad> byTop = new ArrayList<>(cards);
+        byTop.sort(Comparator.comparingDouble(card -> centre(card)[1]));
+        List<CardQuad> ordered = new ArrayList<>(cards.size());
+        int rowStart = 0;
+        for (int i = 1; i <= byTop.size(); i++) {
+            CardQuad first = byTop.get(rowStart);
+            if (i == byTop.size() || centre(byTop.get(i))[1] - centre(first)[1] > first.height() / 2) {
+                List<CardQuad> row = new ArrayList<>(byTop.subList(rowStart, i));
+                row.sort(Comparator.comparingDouble(card -> centre(card)[0]));
+                ordered.addAll(row);
+                rowStart = i;
+            }
+        }
+        return ordered;
+    }
+
+    private static double[] centre(CardQuad quad) {
+        double x = 0;
+        double y = 0;
+        for (int i = 0; i < 4; i++) {
+            x += quad.xs()[i];
+            y += quad.ys()[i];
+        }
+        return new double[] {x / 4, y / 4};
+    }
+
+    private static int[] grayscale(BufferedImage image, int width, int height) {
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return gray.getRaster().getPixels(0, 0, width, height, (int[]) null);
+    }
+
+    /** Separable 5-tap binomial blur, so paper grain and JPEG noise do not become edges. */
+    private static int[] blur(int[] pixels, int width, int height) {
+        int[] kernel = {1, 4, 6, 4, 1};
+        int[] horizontal = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int k = -2; k <= 2; k++) {
+                    int sx = Math.min(width - 1, Math.max(0, x + k));
+                    sum += kernel[k + 2] * pixels[y * width + sx];
+                }
+                horizontal[y * width + x] = sum;
+            }
+        }
+        int[] blurred = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int k = -2; k <= 2; k++) {
+                    int sy = Math.min(height - 1, Math.max(0, y + k));
+                    sum += kernel[k + 2] * horizontal[sy * width + x];
+                }
+                blurred[y * width + x] = sum / 256;
+            }
+        }
+        return blurred;
+    }
+
+    private static int[] sobel(int[] pixels, int width, int height) {
+        int[] magnitude = new int[pixels.length];
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int i = y * width + x;
+                int gx = pixels[i - width + 1] + 2 * pixels[i + 1] + pixels[i + width + 1]
+                        - pixels[i - width - 1] - 2 * pixels[i - 1] - pixels[i + width - 1];
+                int gy = pixels[i + width - 1] + 2 * pixels[i + width] + pixels[i + width + 1]
+                        - pixels[i - width - 1] - 2 * pixels[i - width] - pixels[i - width + 1];
+                magnitude[i] = Math.abs(gx) + Math.abs(gy);
+            }
+        }
+        return magnitude;
+    }
+
+    /**
+     * Keeps the strongest gradients, but never weak ones: on a plain background most of the frame
+     * is flat and a pure percentile would promote noise to edges.
+     */
+    private static boolean[] threshold(int[] magnitude) {
+        int[] histogram = new int[2048];
+        for (int value : magnitude) {
+            histogram[Math.min(value, histogram.length - 1)]++;
+        }
+        long target = (long) Math.ceil(magnitude.length * EDGE_PERCENTILE);
+        long seen = 0;
+        int percentile = histogram.length - 1;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen >= target) {
+                percentile = value;
+                break;
+            }
+        }
+        int cutoff = Math.max(MIN_EDGE_MAGNITUDE, percentile);
+        boolean[] edges = new boolean[magnitude.length];
+        for (int i = 0; i < magnitude.length; i++) {
+            edges[i] = magnitude[i] >= cutoff;
+        }
+        return edges;
+    }
+
+    private static boolean[] dilate(boolean[] edges, int width, int height) {
+        boolean[] dilated = new boolean[edges.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!edges[y * width + x]) {
+                    continue;
+                }
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                            dilated[ny * width + nx] = true;
+                        }
+                    }
+                }
+            }
+        }
+        return dilated;
+    }
+
+    /**
+     * Labels 8-connected edge regions and returns them largest bounding box first.
+     */
+    private static List<Contour> contours(boolean[] edges, int[] labels, int width, int height) {
+        List<Contour> contours = new ArrayList<>();
+        int[] stack = new int[edges.length];
+        int next = 0;
+        for (int start = 0; start < edges.length; start++) {
+            if (!edges[start] || labels[start] != 0) {
+                continue;
+            }
+            int label = ++next;
+            int minX = width;
+            int minY = height;
+            int maxX = -1;
+            int maxY = -1;
+            int top = 0;
+            stack[top++] = start;
+            labels[start] = label;
+            while (top > 0) {
+                int i = stack[--top];
+                int x = i % width;
+                int y = i / width;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                            continue;
+                        }
+                        int n = ny * width + nx;
+                        if (edges[n] && labels[n] == 0) {
+                            labels[n] = label;
+                            stack[top++] = n;
+                        }
+                    }
+                }
+            }
+            contours.add(new Contour(label, (long) (maxX - minX + 1) * (maxY - minY + 1)));
+        }
+        contours.sort(Comparator.comparingLong(Contour::boxArea).reversed());
+        return contours;
+    }
+
+    /**
+     * Convex hull (monotone chain) of the leftmost and rightmost pixel of each row of the region,
+     * which is all the hull can touch.
+     */
+    private static double[][] hull(int label, int[] labels, int width, int height) {
+        List<int[]> points = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            int first = -1;
+            int last = -1;
+            for (int x = 0; x < width; x++) {
+                if (labels[y * width + x] == label) {
+                    if (first < 0) {
+                        first = x;
+                    }
+                    last = x;
+                }
+            }
+            if (first >= 0) {
+                points.add(new int[] {first, y});
+                if (last != first) {
+                    points.add(new int[] {last, y});
+                }
+            }
+        }
+        points.sort(Comparator.<int[]>comparingInt(point -> point[0]).thenComparingInt(point -> point[1]));
+        int[][] hull = new int[points.size() * 2][];
+        int size = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int floor = size;
+            for (int i = 0; i < points.size(); i++) {
+                int[] point = points.get(pass == 0 ? i : points.size() - 1 - i);
+                while (size >= floor + 2 && cross(hull[size - 2], hull[size - 1], point) <= 0) {
+                    size--;
+                }
+                hull[size++] = point;
+            }
+            size--;
+        }
+        int step = Math.max(1, (int) Math.ceil((double) size / MAX_HULL_POINTS));
+        List<double[]> reduced = new ArrayList<>();
+        for (int i = 0; i < size; i += step) {
+            reduced.add(new double[] {hull[i][0], hull[i][1]});
+        }
+        return reduced.toArray(double[][]::new);
+    }
+
+    private static long cross(int[] origin, int[] a, int[] b) {
+        return (long) (a[0] - origin[0]) * (b[1] - origin[1]) - (long) (a[1] - origin[1]) * (b[0] - origin[0]);
+    }
+
+    /**
+     * Largest-area quadrilateral with corners on the hull; the hull has at most
+     * {@value #MAX_HULL_POINTS} points, so trying every combination is cheap.
+     */
+    private static double[][] largestQuad(double[][] hull) {
+        if (hull.length < 4) {
+            return null;
+        }
+        double bestArea = 0;
+        int[] best = null;
+        for (int a = 0; a < hull.length; a++) {
+            for (int b = a + 1; b < hull.length; b++) {
+                for (int c = b + 1; c < hull.length; c++) {
+                    for (int d = c + 1; d < hull.length; d++) {
+                        double area = area(hull[a], hull[b], hull[c], hull[d]);
+                        if (area > bestArea) {
+                            bestArea = area;
+                            best = new int[] {a, b, c, d};
+                        }
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        return new double[][] {hull[best[0]], hull[best[1]], hull[best[2]], hull[best[3]]};
+    }
+
+    private static double area(double[]... corners) {
+        double twice = 0;
+        for (int i = 0; i < corners.length; i++) {
+            double[] from = corners[i];
+            double[] to = corners[(i + 1) % corners.length];
+            twice += from[0] * to[1] - to[0] * from[1];
+        }
+        return Math.abs(twice) / 2;
+    }
+
+    private static CardQuad accept(double[][] corners, boolean[] edges, int width, int height,
+                                   double minAreaFraction) {
+        if (corners == null || area(corners) < minAreaFraction * width * height) {
+            return null;
+        }
+        CardQuad quad = orient(corners);
+        double aspect = quad.width() / quad.height();
+        if (Math.abs(aspect - CardQuad.CARD_ASPECT) > ASPECT_TOLERANCE * CardQuad.CARD_ASPECT) {
+            return null;
+        }
+        double total = 0;
+        for (int side = 0; side < 4; side++) {
+            double support = support(quad, side, edges, width, height);
+            if (support < MIN_SIDE_SUPPORT) {
+                return null;
+            }
+            total += support;
+        }
+        double confidence = total / 4;
+        return confidence < MIN_CONFIDENCE ? null : new CardQuad(quad.xs(), quad.ys(), confidence);
+    }
+
+    /**
+     * Orders the corners clockwise (on screen) and starts at the end of a long edge nearest the
+     * top-left, so the crop is landscape.
+     */
+    private static CardQuad orient(double[][] corners) {
+        double cx = 0;
+        double cy = 0;
+        for (double[] corner : corners) {
+            cx += corner[0] / 4;
+            cy += corner[1] / 4;
+        }
+        double centerX = cx;
+        double centerY = cy;
+        double[][] sorted = corners.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(corner -> Math.atan2(corner[1] - centerY, corner[0] - centerX)));
+        double firstEdges = Math.hypot(sorted[1][0] - sorted[0][0], sorted[1][1] - sorted[0][1])
+                + Math.hypot(sorted[3][0] - sorted[2][0], sorted[3][1] - sorted[2][1]);
+        double secondEdges = Math.hypot(sorted[2][0] - sorted[1][0], sorted[2][1] - sorted[1][1])
+                + Math.hypot(sorted[0][0] - sorted[3][0], sorted[0][1] - sorted[3][1]);
+        int start = firstEdges >= secondEdges ? 0 : 1;
+        if (sorted[start + 2][0] + sorted[start + 2][1] < sorted[start][0] + sorted[start][1]) {
+            start += 2;
+        }
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        for (int i = 0; i < 4; i++) {
+            xs[i] = sorted[(start + i) % 4][0];
+            ys[i] = sorted[(start + i) % 4][1];
+        }
+        return new CardQuad(xs, ys, 0);
+    }
+
+    /**
+     * Share of points along the middle of a side that have an edge pixel close by.
+     */
+    private static double support(CardQuad quad, int side, boolean[] edges, int width, int height) {
+        int from = side;
+        int to = (side + 1) % 4;
+        int hits = 0;
+        for (int s = 0; s < SUPPORT_SAMPLES; s++) {
+            double t = 0.1 + 0.8 * s / (SUPPORT_SAMPLES - 1);
+            int x = (int) Math.round(quad.xs()[from] + t * (quad.xs()[to] - quad.xs()[from]));
+            int y = (int) Math.round(quad.ys()[from] + t * (quad.ys()[to] - quad.ys()[from]));
+            if (edgeNear(edges, x, y, width, height)) {
+                hits++;
+            }
+        }
+        return (double) hits / SUPPORT_SAMPLES;
+    }
+
+    private static boolean edgeNear(boolean[] edges, int x, int y, int width, int height) {
+        for (int dy = -SUPPORT_RADIUS; dy <= SUPPORT_RADIUS; dy++) {
+            for (int dx = -SUPPORT_RADIUS; dx <= SUPPORT_RADIUS; dx++) {
+                int nx = x + dx;
+                int ny = y + dy;
+                if (nx >= 0 && ny >= 0 && nx < width && ny < height && edges[ny * width + nx]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private record Contour(int label, long boxArea) {}
+}
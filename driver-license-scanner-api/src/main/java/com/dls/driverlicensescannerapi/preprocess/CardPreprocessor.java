@@ -0,0 +1,223 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.Timer;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Crops uploads to the card before OCR: the card is located with {@link CardDetector}, its
+ * perspective corrected and the result re-encoded as a JPEG at ID-1 proportions, at most
+ * {@code CARD_CROP_WIDTH} pixels wide. Anything that cannot be decoded or has no confidently
+ * detected card is passed on untouched.
+ *
+ * <p>Cropping single-card uploads is off unless {@code CARD_DETECTION_ENABLED} is set, until
+ * its effect on OCR accuracy has been measured on real uploads. Splitting a multi-card photo is
+ * asked for explicitly by the caller and runs either way.
+ *
+ * <p>Each call is timed as the {@value ScanMetrics#STAGE_PREPROCESS} stage, with outcome
+ * {@code cropped}, {@code not_found}, {@code unsupported} or {@code error}; the share of
+ * {@code cropped} is the hit rate.
+ */
+@Component
+public class CardPreprocessor {
+
+    static final String OUTCOME_CROPPED = "cropped";
+    static final String OUTCOME_NOT_FOUND = "not_found";
+    static final String OUTCOME_UNSUPPORTED = "unsupported";
+    static final String OUTCOME_ERROR = "error";
+
+    private static final float JPEG_QUALITY = 0.9f;
+    /**
+     * Phone photos are subsampled to about this many pixels on the long side: a card filling half
+     * the frame still has more pixels than the crop keeps.
+     */
+    static final int DECODE_LONG_SIDE = 2048;
+
+    private static final Logger logger = LoggerFactory.getLogger(CardPreprocessor.class);
+
+    private final ScanMetrics scanMetrics;
+    private final boolean enabled;
+    private final int cropWidth;
+    private final long maxPixels;
+
+    public CardPreprocessor(
+            ScanMetrics scanMetrics,
+            @Value("${CARD_DETECTION_ENABLED:false}") boolean enabled,
+            @Value("${CARD_CROP_WIDTH:1012}") int cropWidth,
+            @Value("${CARD_DETECTION_MAX_PIXELS:24000000}") long maxPixels
+    ) {
+        this.scanMetrics = scanMetrics;
+        this.enabled = enabled;
+        this.cropWidth = Math.max(64, cropWidth);
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * How large the quality gate should decode uploads so {@link #prepare} can reuse the bitmap,
+     * or {@code 0} when single uploads are not cropped.
+     */
+    int decodeLongSide() {
+        return enabled ? DECODE_LONG_SIDE : 0;
+    }
+
+    public MultipartFile prepare(MultipartFile image, ScanContext context) {
+        if (!enabled || image == null || image.isEmpty()) {
+            return image;
+        }
+        Timer.Sample sample = scanMetrics.start();
+        MultipartFile prepared = image;
+        String outcome;
+        try {
+            BufferedImage decoded = ImageDecoder.decode(image, maxPixels, DECODE_LONG_SIDE);
+            if (decoded == null) {
+                outcome = OUTCOME_UNSUPPORTED;
+            } else {
+                CardQuad quad = CardDetector.detect(decoded);
+                if (quad == null) {
+                    outcome = OUTCOME_NOT_FOUND;
+                } else {
+                    prepared = new PreparedImage(image, encode(crop(decoded, quad)));
+                    outcome = OUTCOME_CROPPED;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Card detection failed requestId={} error={}", context.requestId(), ex.getClass().getSimpleName());
+            prepared = image;
+            outcome = OUTCOME_ERROR;
+        }
+        long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_PREPROCESS, null, outcome);
+        context.timeline().record(ScanMetrics.STAGE_PREPROCESS, null, durationNanos);
+        return prepared;
+    }
+
+    /**
+     * Crops every card in a photo of several, at most {@code maxCards}, in reading order. When
+     * detection finds no card the upload itself is the only element, so it is scanned as one
+     * card. Timed as the {@value ScanMetrics#STAGE_PREPROCESS} stage like {@link #prepare}.
+     *
+     * <p>The photo is decoded large enough for {@code maxCards} cards side by side to each keep
+     * the crop width, rather than at the size a single card needs; the source itself is still
+     * bounded by {@code CARD_DETECTION_MAX_PIXELS}.
+     */
+    public List<MultipartFile> split(MultipartFile image, ScanContext context, int maxCards) {
+        if (image == null || image.isEmpty()) {
+            return Collections.singletonList(image);
+        }
+        Timer.Sample sample = scanMetrics.start();
+        List<MultipartFile> cards = List.of(image);
+        String outcome;
+        try {
+            BufferedImage decoded = ImageDecoder.decode(image, maxPixels, splitDecodeLongSide(maxCards));
+            if (decoded == null) {
+                outcome = OUTCOME_UNSUPPORTED;
+            } else {
+                List<CardQuad> quads = CardDetector.detectAll(decoded, Math.max(1, maxCards));
+                if (quads.isEmpty()) {
+                    outcome = OUTCOME_NOT_FOUND;
+                } else {
+                    List<MultipartFile> crops = new ArrayList<>(quads.size());
+                    for (CardQuad quad : quads) {
+                        crops.add(new PreparedImage(image, encode(crop(decoded, quad))));
+                    }
+                    cards = List.copyOf(crops);
+                    outcome = OUTCOME_CROPPED;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Card detection failed requestId={} error={}", context.requestId(), ex.getClass().getSimpleName());
+            cards = List.of(image);
+            outcome = OUTCOME_ERROR;
+        }
+        long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_PREPROCESS, null, outcome);
+        context.timeline().record(ScanMetrics.STAGE_PREPROCESS, null, durationNanos);
+        return cards;
+    }
+
+    /**
+     * Runs detection, perspective correction and encoding over a synthetic photo of a card, so
+     * the first real upload does not pay for interpretation. Nothing is recorded in the metrics.
+     * Returns how many iterations found the card.
+     */
+    public int warmUp(int iterations, Deadline deadline) {
+        if (!enabled) {
+            return 0;
+        }
+        BufferedImage photo = syntheticPhoto();
+        int cropped = 0;
+        try {
+            for (int i = 0; i < iterations && !deadline.expired(); i++) {
+                CardQuad quad = CardDetector.detect(photo);
+                if (quad != null) {
+                    encode(PerspectiveWarp.warp(photo, quad, cropWidth, (int) Math.round(cropWidth / CardQuad.CARD_ASPECT)));
+                    cropped++;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return cropped;
+    }
+
+    int splitDecodeLongSide(int maxCards) {
+        return Math.max(DECODE_LONG_SIDE, cropWidth * Math.max(1, maxCards));
+    }
+
+    private BufferedImage crop(BufferedImage photo, CardQuad quad) {
+        int width = (int) Math.min(cropWidth, Math.round(quad.width()));
+        int height = (int) Math.round(width / CardQuad.CARD_ASPECT);
+        return PerspectiveWarp.warp(photo, quad, width, height);
+    }
+
+    private static BufferedImage syntheticPhoto() {
+        BufferedImage photo = new BufferedImage(1280, 960, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = photo.createGraphics();
+        try {
+            graphics.setColor(new Color(96, 76, 56));
+            graphics.fillRect(0, 0, photo.getWidth(), photo.getHeight());
+            graphics.setColor(new Color(236, 214, 222));
+            graphics.fillPolygon(new int[] {250, 1090, 1050, 210}, new int[] {190, 240, 770, 700}, 4);
+            graphics.setColor(Color.DARK_GRAY);
+            for (int row = 0; row < 6; row++) {
+                graphics.fillRect(500, 300 + row * 70, 360 - row * 30, 24);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return photo;
+    }
+
+    private static byte[] encode(BufferedImage card) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(card, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+/**
+ * Corners of a detected card in image pixels, clockwise from the top-left of the card as it will
+ * be read: the first edge is one of the long edges, so the crop comes out landscape.
+ */
+record CardQuad(double[] xs, double[] ys, double confidence) {
+
+    /** Aspect ratio of an ID-1 card (85.60 x 53.98 mm). */
+    static final double CARD_ASPECT = 85.60 / 53.98;
+
+    double width() {
+        return (distance(0, 1) + distance(2, 3)) / 2;
+    }
+
+    double height() {
+        return (distance(1, 2) + distance(3, 0)) / 2;
+    }
+
+    double distance(int from, int to) {
+        return Math.hypot(xs[to] - xs[from], ys[to] - ys[from]);
+    }
+}
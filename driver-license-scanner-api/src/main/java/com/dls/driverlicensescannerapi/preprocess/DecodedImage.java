@@ -0,0 +1,73 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * The original upload together with the bitmap the quality gate decoded from it, so card
+ * detection does not decode the same bytes again. Lives only as long as the request.
+ */
+final class DecodedImage implements MultipartFile {
+
+    private final MultipartFile original;
+    private final BufferedImage image;
+    private final int longSide;
+
+    DecodedImage(MultipartFile original, BufferedImage image, int longSide) {
+        this.original = original;
+        this.image = image;
+        this.longSide = longSide;
+    }
+
+    BufferedImage image() {
+        return image;
+    }
+
+    /** The long side the upload was decoded for; smaller sources are decoded at full size. */
+    int longSide() {
+        return longSide;
+    }
+
+    @Override
+    public String getName() {
+        return original.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return original.getOriginalFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return original.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return original.isEmpty();
+    }
+
+    @Override
+    public long getSize() {
+        return original.getSize();
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return original.getBytes();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return original.getInputStream();
+    }
+
+    @Override
+    public void transferTo(File destination) throws IOException {
+        original.transferTo(destination);
+    }
+}
@@ -0,0 +1,63 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Decoding shared by the quality gate and card detection.
+ */
+final class ImageDecoder {
+
+    private ImageDecoder() {
+    }
+
+    /**
+     * Decodes with whatever ImageIO reader matches, after checking the declared size so a small
+     * file cannot claim a huge bitmap. Returns {@code null} for formats without a reader and for
+     * images over {@code maxPixels}. Larger images are subsampled while decoding to about
+     * {@code longSide} pixels on the long side.
+     */
+    static BufferedImage decode(byte[] bytes, long maxPixels, int longSide) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = (int) Math.ceil((double) Math.max(width, height) / longSide);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * The bitmap an earlier stage already decoded from this upload, if it was decoded to at least
+     * {@code longSide}; otherwise decodes the upload itself.
+     */
+    static BufferedImage decode(MultipartFile upload, long maxPixels, int longSide) throws IOException {
+        if (upload instanceof DecodedImage decoded && decoded.longSide() >= longSide) {
+            return decoded.image();
+        }
+        return decode(upload.getBytes(), maxPixels, longSide);
+    }
+}
@@ -0,0 +1,31 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.util.List;
+
+/**
+ * Quality measures of a downsampled upload: variance of the Laplacian for sharpness, mean and
+ * standard deviation of luma for brightness and contrast, and the share of blown-out pixels for
+ * glare. {@code issues} names every threshold that was missed.
+ */
+public record ImageQuality(
+        boolean analyzed,
+        double sharpness,
+        double brightness,
+        double contrast,
+        double glareFraction,
+        List<String> issues
+) {
+
+    public static final String BLURRY = "BLURRY";
+    public static final String TOO_DARK = "TOO_DARK";
+    public static final String TOO_BRIGHT = "TOO_BRIGHT";
+    public static final String LOW_CONTRAST = "LOW_CONTRAST";
+    public static final String GLARE = "GLARE";
+
+    /** Formats the analyzer cannot decode are not judged, so they are never rejected. */
+    public static final ImageQuality NOT_ANALYZED = new ImageQuality(false, 0, 0, 0, 0, List.of());
+
+    public boolean acceptable() {
+        return issues.isEmpty();
+    }
+}
@@ -0,0 +1,154 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+
+/**
+ * Maps a card quadrilateral onto an upright rectangle with a homography and bilinear sampling.
+ */
+final class PerspectiveWarp {
+
+    private PerspectiveWarp() {}
+
+    static BufferedImage warp(BufferedImage source, CardQuad quad, int width, int height) {
+        double[] h = homography(quad, width, height);
+
+        int minX = clamp((int) Math.floor(min(quad.xs())), source.getWidth() - 1);
+        int minY = clamp((int) Math.floor(min(quad.ys())), source.getHeight() - 1);
+        int maxX = clamp((int) Math.ceil(max(quad.xs())), source.getWidth() - 1);
+        int maxY = clamp((int) Math.ceil(max(quad.ys())), source.getHeight() - 1);
+        int regionWidth = maxX - minX + 1;
+        int regionHeight = maxY - minY + 1;
+        int[] region = pixels(source, minX, minY, regionWidth, regionHeight);
+
+        BufferedImage card = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] out = ((DataBufferInt) card.getRaster().getDataBuffer()).getData();
+        for (int v = 0; v < height; v++) {
+            for (int u = 0; u < width; u++) {
+                double du = u + 0.5;
+                double dv = v + 0.5;
+                double w = h[6] * du + h[7] * dv + 1;
+                double x = (h[0] * du + h[1] * dv + h[2]) / w - minX;
+                double y = (h[3] * du + h[4] * dv + h[5]) / w - minY;
+                out[v * width + u] = sample(region, regionWidth, regionHeight, x, y);
+            }
+        }
+        return card;
+    }
+
+    /**
+     * Solves for the eight coefficients taking output pixel {@code (u, v)} to source
+     * {@code ((h0 u + h1 v + h2) / w, (h3 u + h4 v + h5) / w)} with {@code w = h6 u + h7 v + 1}.
+     */
+    static double[] homography(CardQuad quad, int width, int height) {
+        double[] us = {0, width, width, 0};
+        double[] vs = {0, 0, height, height};
+        double[][] a = new double[8][9];
+        for (int i = 0; i < 4; i++) {
+            double u = us[i];
+            double v = vs[i];
+            double x = quad.xs()[i];
+            double y = quad.ys()[i];
+            a[2 * i] = new double[] {u, v, 1, 0, 0, 0, -u * x, -v * x, x};
+            a[2 * i + 1] = new double[] {0, 0, 0, u, v, 1, -u * y, -v * y, y};
+        }
+        for (int column = 0; column < 8; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < 8; row++) {
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = a[column];
+            a[column] = a[pivot];
+            a[pivot] = swap;
+            if (Math.abs(a[column][column]) < 1e-12) {
+                throw new IllegalArgumentException("Degenerate card quadrilateral");
+            }
+            for (int row = 0; row < 8; row++) {
+                if (row == column) {
+                    continue;
+                }
+                double factor = a[row][column] / a[column][column];
+                for (int k = column; k < 9; k++) {
+                    a[row][k] -= factor * a[column][k];
+                }
+            }
+        }
+        double[] h = new double[8];
+        for (int i = 0; i < 8; i++) {
+            h[i] = a[i][8] / a[i][i];
+        }
+        return h;
+    }
+
+    /**
+     * Packed RGB of a region. ImageIO decodes JPEGs and most PNGs to interleaved 8-bit sRGB, which
+     * is copied straight from the backing array; {@link BufferedImage#getRGB} converts through the
+     * colour model one pixel at a time and is only the fallback.
+     */
+    private static int[] pixels(BufferedImage source, int x, int y, int width, int height) {
+        Raster raster = source.getRaster();
+        if (!(raster.getSampleModel() instanceof PixelInterleavedSampleModel model)
+                || !(raster.getDataBuffer() instanceof DataBufferByte buffer)
+                || !source.getColorModel().getColorSpace().isCS_sRGB()
+                || model.getNumBands() < 3) {
+            return source.getRGB(x, y, width, height, null, 0, width);
+        }
+        byte[] data = buffer.getData();
+        int[] offsets = model.getBandOffsets();
+        int pixelStride = model.getPixelStride();
+        int scanlineStride = model.getScanlineStride();
+        int origin = buffer.getOffset()
+                + (y - raster.getSampleModelTranslateY()) * scanlineStride
+                + (x - raster.getSampleModelTranslateX()) * pixelStride;
+        int[] rgb = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            int index = origin + row * scanlineStride;
+            for (int column = 0; column < width; column++, index += pixelStride) {
+                rgb[row * width + column] = (data[index + offsets[0]] & 0xFF) << 16
+                        | (data[index + offsets[1]] & 0xFF) << 8
+                        | (data[index + offsets[2]] & 0xFF);
+            }
+        }
+        return rgb;
+    }
+
+    /** Bilinear interpolation in 8-bit fixed point. */
+    private static int sample(int[] pixels, int width, int height, double x, double y) {
+        double fx = Math.max(0, Math.min(width - 1, x));
+        double fy = Math.max(0, Math.min(height - 1, y));
+        int x0 = (int) fx;
+        int y0 = (int) fy;
+        int x1 = Math.min(width - 1, x0 + 1);
+        int y1 = Math.min(height - 1, y0 + 1);
+        int ax = (int) ((fx - x0) * 256);
+        int ay = (int) ((fy - y0) * 256);
+        int p00 = pixels[y0 * width + x0];
+        int p10 = pixels[y0 * width + x1];
+        int p01 = pixels[y1 * width + x0];
+        int p11 = pixels[y1 * width + x1];
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            int top = ((p00 >> shift) & 0xFF) * (256 - ax) + ((p10 >> shift) & 0xFF) * ax;
+            int bottom = ((p01 >> shift) & 0xFF) * (256 - ax) + ((p11 >> shift) & 0xFF) * ax;
+            rgb |= ((top * (256 - ay) + bottom * ay) >> 16) << shift;
+        }
+        return rgb;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    private static double min(double[] values) {
+        return Math.min(Math.min(values[0], values[1]), Math.min(values[2], values[3]));
+    }
+
+    private static double max(double[] values) {
+        return Math.max(Math.max(values[0], values[1]), Math.max(values[2], values[3]));
+    }
+}
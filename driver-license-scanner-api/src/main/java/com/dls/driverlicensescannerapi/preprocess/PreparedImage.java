@@ -0,0 +1,68 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * The cropped card as a JPEG upload standing in for the original part.
+ */
+final class PreparedImage implements MultipartFile {
+
+    private final MultipartFile original;
+    private final byte[] bytes;
+
+    PreparedImage(MultipartFile original, byte[] bytes) {
+        this.original = original;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public String getName() {
+        return original.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        String filename = original.getOriginalFilename();
+        if (filename == null || filename.isBlank()) {
+            return "card.jpg";
+        }
+        int dot = filename.lastIndexOf('.');
+        return (dot > 0 ? filename.substring(0, dot) : filename) + ".jpg";
+    }
+
+    @Override
+    public String getContentType() {
+        return MediaType.IMAGE_JPEG_VALUE;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bytes.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return bytes.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public void transferTo(File destination) throws IOException {
+        Files.write(destination.toPath(), bytes);
+    }
+}
@@ -0,0 +1,250 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Per-client token buckets for scan requests, plus separate buckets for paid engines. A request
+ * is keyed by its {@code X-API-Key} only when the key is one of {@code RATE_LIMIT_API_KEYS}
+ * (SHA-256 hex digests of the issued keys, so raw keys appear neither in configuration nor in
+ * memory); any other request is keyed by IP address, so minting fresh keys buys no fresh quota.
+ *
+ * <p>Clients live in a concurrent map, so requests never queue behind one another for their
+ * buckets. Memory is bounded: clients idle for {@code RATE_LIMIT_IDLE_SECONDS} are evicted by a
+ * periodic sweep, and once there are more than {@code RATE_LIMIT_MAX_CLIENTS} the least recently
+ * seen clients are dropped as well. The cap is approximate, since clients arriving during a sweep
+ * are counted by the next one.
+ *
+ * <p>Usage metrics are tagged with the client: the key fingerprint for issued keys, and one fixed
+ * {@code anonymous} value for every client keyed by IP address, so the tag set stays bounded by the
+ * allow-list and addresses never reach the metrics.
+ */
+@Component
+public class ClientRateLimiter {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String CLIENT_ATTRIBUTE = ClientRateLimiter.class.getName() + ".client";
+    public static final String REQUEST_COUNTER = "dls.ratelimit.requests";
+    public static final String ENGINE_COUNTER = "dls.ratelimit.engine";
+    public static final String CLIENTS_GAUGE = "dls.ratelimit.clients";
+
+    private static final String KEY_PREFIX = "key:";
+    private static final String IP_PREFIX = "ip:";
+    private static final int FINGERPRINT_LENGTH = 12;
+    private static final String ANONYMOUS_CLIENT = "anonymous";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Quota requestQuota;
+    private final Map<String, Quota> engineQuotas;
+    private final Set<String> apiKeyDigests;
+    private final long idleNanos;
+    private final int maxClients;
+    private final ConcurrentMap<String, ClientBuckets> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UsageKey, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public ClientRateLimiter(
+            MeterRegistry registry,
+            @Value("${RATE_LIMIT_ENABLED:false}") boolean enabled,
+            @Value("${RATE_LIMIT_PER_MINUTE:60}") double perMinute,
+            @Value("${RATE_LIMIT_BURST:10}") int burst,
+            @Value("${RATE_LIMIT_ENGINE_QUOTAS:}") String engineQuotas,
+            @Value("${RATE_LIMIT_MAX_CLIENTS:10000}") int maxClients,
+            @Value("${RATE_LIMIT_IDLE_SECONDS:600}") long idleSeconds,
+            @Value("${RATE_LIMIT_API_KEYS:}") String apiKeyDigests
+    ) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.requestQuota = new Quota(perMinute, burst);
+        this.engineQuotas = Quota.parseEngineQuotas(engineQuotas);
+        this.apiKeyDigests = StringUtils.commaDelimitedListToSet(apiKeyDigests.toLowerCase(Locale.ROOT)).stream()
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toUnmodifiableSet());
+        this.idleNanos = Duration.ofSeconds(Math.max(1, idleSeconds)).toNanos();
+        this.maxClients = Math.max(1, maxClients);
+        Gauge.builder(CLIENTS_GAUGE, this, ClientRateLimiter::trackedClients)
+                .description("Clients with live rate limit buckets")
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String clientId(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (StringUtils.hasText(apiKey) && !apiKeyDigests.isEmpty()) {
+            String digest = digest(apiKey.trim());
+            if (apiKeyDigests.contains(digest)) {
+                return KEY_PREFIX + digest.substring(0, FINGERPRINT_LENGTH);
+            }
+        }
+        return IP_PREFIX + request.getRemoteAddr();
+    }
+
+    /**
+     * Takes a request token for {@code clientId}. Returns {@link Duration#ZERO} when the request
+     * may proceed, otherwise how long until it could.
+     */
+    public Duration acquire(String clientId) {
+        if (!enabled || clientId == null) {
+            return Duration.ZERO;
+        }
+        long now = System.nanoTime();
+        long waitNanos = bucketsFor(clientId, now).requests().tryAcquire(now);
+        count(REQUEST_COUNTER, clientId, null, waitNanos == 0);
+        return Duration.ofNanos(waitNanos);
+    }
+
+    /**
+     * Takes a token from the client's quota for {@code engine}. Engines without a quota, and
+     * requests that did not pass the request limiter, always proceed.
+     */
+    public Duration acquireEngine(String clientId, String engine) {
+        Quota quota = engine == null ? null : engineQuotas.get(engine.toLowerCase(Locale.ROOT));
+        if (!enabled || clientId == null || quota == null) {
+            return Duration.ZERO;
+        }
+        String engineKey = engine.toLowerCase(Locale.ROOT);
+        long now = System.nanoTime();
+        long waitNanos = bucketsFor(clientId, now).engines()
+                .computeIfAbsent(engineKey, key -> new TokenBucket(quota, now))
+                .tryAcquire(now);
+        count(ENGINE_COUNTER, clientId, engineKey, waitNanos == 0);
+        return Duration.ofNanos(waitNanos);
+    }
+
+    int trackedClients() {
+        return clients.size();
+    }
+
+    private ClientBuckets bucketsFor(String clientId, long now) {
+        ClientBuckets buckets = clients.get(clientId);
+        if (buckets == null) {
+            buckets = clients.computeIfAbsent(clientId, key -> new ClientBuckets(
+                    new TokenBucket(requestQuota, now), new ConcurrentHashMap<>(), now));
+        }
+        buckets.lastUsedNanos = now;
+        sweepIfDue(now);
+        return buckets;
+    }
+
+    /**
+     * Sweeps every half idle period, or straight away once the map is over its cap. Only one
+     * thread sweeps at a time; the others carry on without waiting for it.
+     */
+    private void sweepIfDue(long now) {
+        boolean overCapacity = clients.size() > maxClients;
+        if (!overCapacity && now - nextSweepNanos.get() < 0) {
+            return;
+        }
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                nextSweepNanos.set(now + idleNanos / 2);
+                evict(now);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops idle clients, then the least recently seen ones while the map is over its cap. It
+     * trims a tenth below the cap so a stream of new clients does not sort the map every time.
+     */
+    private void evict(long now) {
+        clients.values().removeIf(buckets -> now - buckets.lastUsedNanos > idleNanos);
+        int excess = clients.size() - (maxClients - maxClients / 10);
+        if (clients.size() <= maxClients || excess <= 0) {
+            return;
+        }
+        List<LastSeen> oldestFirst = new ArrayList<>(clients.size());
+        clients.forEach((clientId, buckets) ->
+                oldestFirst.add(new LastSeen(clientId, buckets, now - buckets.lastUsedNanos)));
+        oldestFirst.sort(Comparator.comparingLong(LastSeen::age).reversed());
+        for (int i = 0; i < excess && i < oldestFirst.size(); i++) {
+            clients.remove(oldestFirst.get(i).clientId(), oldestFirst.get(i).buckets());
+        }
+    }
+
+    private void count(String name, String clientId, String engine, boolean allowed) {
+        String outcome = allowed ? "allowed" : "rejected";
+        counters.computeIfAbsent(new UsageKey(name, clientTag(clientId), engine, outcome), key -> {
+            Counter.Builder builder = Counter.builder(key.name())
+                    .description(key.engine() == null ? "Scan requests seen by the rate limiter"
+                            : "Paid engine attempts seen by the rate limiter")
+                    .tag("client", key.client())
+                    .tag("outcome", key.outcome());
+            if (key.engine() != null) {
+                builder.tag("engine", key.engine());
+            }
+            return builder.register(registry);
+        }).increment();
+    }
+
+    /**
+     * Issued keys are already identified by a fingerprint of their digest; everything else is
+     * reported as one anonymous client.
+     */
+    private static String clientTag(String clientId) {
+        return clientId.startsWith(KEY_PREFIX) ? clientId.substring(KEY_PREFIX.length()) : ANONYMOUS_CLIENT;
+    }
+
+    private static String digest(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class ClientBuckets {
+
+        private final TokenBucket requests;
+        private final ConcurrentMap<String, TokenBucket> engines;
+        private volatile long lastUsedNanos;
+
+        private ClientBuckets(TokenBucket requests, ConcurrentMap<String, TokenBucket> engines, long nowNanos) {
+            this.requests = requests;
+            this.engines = engines;
+            this.lastUsedNanos = nowNanos;
+        }
+
+        TokenBucket requests() {
+            return requests;
+        }
+
+        ConcurrentMap<String, TokenBucket> engines() {
+            return engines;
+        }
+    }
+
+    private record LastSeen(String clientId, ClientBuckets buckets, long age) {}
+
+    private record UsageKey(String name, String client, String engine, String outcome) {}
+}
@@ -0,0 +1,38 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sustained rate and burst size of a token bucket.
+ */
+public record Quota(double perMinute, int burst) {
+
+    public Quota {
+        if (perMinute <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Quota needs a positive rate and a burst of at least 1");
+        }
+    }
+
+    /**
+     * Parses {@code engine:perMinute[:burst],...}, for example {@code vision:20:5}. The burst
+     * defaults to a tenth of the per-minute rate.
+     */
+    public static Map<String, Quota> parseEngineQuotas(String spec) {
+        Map<String, Quota> quotas = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return quotas;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid engine quota: " + entry);
+            }
+            double perMinute = Double.parseDouble(parts[1]);
+            int burst = parts.length == 3 ? Integer.parseInt(parts[2]) : Math.max(1, (int) (perMinute / 10));
+            quotas.put(parts[0].trim().toLowerCase(Locale.ROOT), new Quota(perMinute, burst));
+        }
+        return quotas;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A scan refused by a client quota. Thrown on every rejected request, so it skips the stack trace.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(Duration retryAfter) {
+        super("Rate limit exceeded", null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
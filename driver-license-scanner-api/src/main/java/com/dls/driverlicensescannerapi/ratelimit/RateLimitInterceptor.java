@@ -0,0 +1,33 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects scans over the client's request quota before the upload is handed to the controller,
+ * and leaves the client id on the request for the per-engine quotas.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final ClientRateLimiter rateLimiter;
+
+    public RateLimitInterceptor(ClientRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!rateLimiter.enabled()) {
+            return true;
+        }
+        String clientId = rateLimiter.clientId(request);
+        request.setAttribute(ClientRateLimiter.CLIENT_ATTRIBUTE, clientId);
+        Duration retryAfter = rateLimiter.acquire(clientId);
+        if (!retryAfter.isZero()) {
+            throw new RateLimitExceededException(retryAfter);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket: the token count and refill time are swapped together with one CAS, so
+ * concurrent requests from the same client never block each other.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(Quota quota, long nowNanos) {
+        this.capacity = quota.burst();
+        this.tokensPerNano = quota.perMinute() / 60_000_000_000.0;
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    /**
+     * Takes one token. Returns 0 when it was available, otherwise the nanoseconds until it will be.
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double tokens = Math.min(capacity, current.tokens() + (nowNanos - current.refilledAtNanos()) * tokensPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, nowNanos))) {
+                return 0;
+            }
+        }
+    }
+
+    private record State(double tokens, long refilledAtNanos) {}
+}
@@ -0,0 +1,6 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+
+public record EngineAttempt(String engine, OcrResult ocrResult, LicenseFields fields) {}
@@ -0,0 +1,169 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ValidationError;
+import com.dls.driverlicensescannerapi.parser.LicenceNumberReconciler;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Combines the parsed fields of several OCR attempts, picking the best value per field.
+ *
+ * <p>A value that passes validation beats one that fails it, which beats a missing value. Ties are
+ * broken by the engine-reported OCR confidence, then by attempt order. When the licence number,
+ * surname and date of birth come from different engines they are reconciled again, as each
+ * attempt was only checked against its own reading.
+ */
+@Component
+public class FieldMerger {
+
+    private static final String MISSING_REQUIRED_CODE = "MISSING_REQUIRED_FIELD";
+    private static final String CATEGORIES_FIELD = "categories";
+
+    private static final Map<String, Function<LicenseFields, String>> TEXT_FIELDS = textFields();
+
+    private final ValidationService validationService;
+
+    public FieldMerger(ValidationService validationService) {
+        this.validationService = validationService;
+    }
+
+    public MergedFields merge(List<EngineAttempt> attempts) {
+        List<Set<String>> invalidFields = new ArrayList<>(attempts.size());
+        for (EngineAttempt attempt : attempts) {
+            invalidFields.add(invalidFields(attempt.fields()));
+        }
+
+        Map<String, String> values = new HashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<LicenseFields, String>> field : TEXT_FIELDS.entrySet()) {
+            int best = -1;
+            int bestScore = 0;
+            for (int i = 0; i < attempts.size(); i++) {
+                LicenseFields fields = attempts.get(i).fields();
+                String value = fields == null ? null : field.getValue().apply(fields);
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                int score = invalidFields.get(i).contains(field.getKey()) ? 1 : 2;
+                if (score > bestScore || (score == bestScore && isMoreConfident(attempts.get(i), attempts.get(best)))) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best >= 0) {
+                values.put(field.getKey(), field.getValue().apply(attempts.get(best).fields()));
+                sources.put(field.getKey(), attempts.get(best).engine());
+            }
+        }
+
+        List<String> categories = List.of();
+        EngineAttempt categoriesSource = null;
+        for (EngineAttempt attempt : attempts) {
+            List<String> candidate = attempt.fields() == null ? null : attempt.fields().categories();
+            if (candidate == null || candidate.isEmpty()) {
+                continue;
+            }
+            if (categoriesSource == null
+                    || candidate.size() > categories.size()
+                    || (candidate.size() == categories.size() && isMoreConfident(attempt, categoriesSource))) {
+                categories = candidate;
+                categoriesSource = attempt;
+            }
+        }
+        if (categoriesSource != null) {
+            sources.put(CATEGORIES_FIELD, categoriesSource.engine());
+        }
+
+        LicenseFields merged = new LicenseFields(
+                values.get("firstName"),
+                values.get("lastName"),
+                values.get("dateOfBirth"),
+                values.get("addressLine"),
+                values.get("licenceNumber"),
+                values.get("expiryDate"),
+                categories
+        );
+        String licenceSource = sources.get("licenceNumber");
+        if (licenceSource != null && (!licenceSource.equals(sources.getOrDefault("lastName", licenceSource))
+                || !licenceSource.equals(sources.getOrDefault("dateOfBirth", licenceSource)))) {
+            merged = LicenceNumberReconciler.reconcile(merged, List.of());
+        }
+        return new MergedFields(merged, sources);
+    }
+
+    static Map<String, String> sourcesOf(LicenseFields fields, String engine) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        if (fields == null || engine == null) {
+            return sources;
+        }
+        for (Map.Entry<String, Function<LicenseFields, String>> field : TEXT_FIELDS.entrySet()) {
+            String value = field.getValue().apply(fields);
+            if (value != null && !value.isBlank()) {
+                sources.put(field.getKey(), engine);
+            }
+        }
+        if (fields.categories() != null && !fields.categories().isEmpty()) {
+            sources.put(CATEGORIES_FIELD, engine);
+        }
+        return sources;
+    }
+
+    private Set<String> invalidFields(LicenseFields fields) {
+        Set<String> invalid = new HashSet<>();
+        if (fields == null) {
+            return invalid;
+        }
+        for (ValidationError error : validationService.validate(fields).blockingErrors()) {
+            if (!MISSING_REQUIRED_CODE.equals(error.code()) && error.field() != null) {
+                invalid.add(error.field());
+            }
+        }
+        return invalid;
+    }
+
+    private static boolean isMoreConfident(EngineAttempt candidate, EngineAttempt current) {
+        return candidate.ocrResult().confidence() > current.ocrResult().confidence();
+    }
+
+    private static Map<String, Function<LicenseFields, String>> textFields() {
+        Map<String, Function<LicenseFields, String>> fields = new LinkedHashMap<>();
+        fields.put("firstName", LicenseFields::firstName);
+        fields.put("lastName", LicenseFields::lastName);
+        fields.put("dateOfBirth", LicenseFields::dateOfBirth);
+        fields.put("addressLine", LicenseFields::addressLine);
+        fields.put("licenceNumber", LicenseFields::licenceNumber);
+        fields.put("expiryDate", LicenseFields::expiryDate);
+        return fields;
+    }
+
+    public record MergedFields(LicenseFields fields, Map<String, String> sources) {
+
+        /**
+         * Engine that supplied the most fields; ties go to the engine behind the earlier field.
+         */
+        public String dominantEngine() {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String engine : sources.values()) {
+                counts.merge(engine, 1, Integer::sum);
+            }
+            String dominant = null;
+            int max = 0;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > max) {
+                    dominant = entry.getKey();
+                    max = entry.getValue();
+                }
+            }
+            return dominant;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.ErrorDetail;
+import com.dls.driverlicensescannerapi.dto.ErrorResponse;
+import com.dls.driverlicensescannerapi.dto.MultiCardScanResponse;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Scans a photo of several cards laid out together. Each card found is cropped and run through
+ * the usual engine chain, the first on the request thread and the rest on worker threads, so the
+ * request takes about as long as the slowest card rather than the sum of them. A card that fails
+ * is reported next to the others; the request only fails when every card does.
+ *
+ * <p>The request's own rate limit token pays for the first card; every further card takes one
+ * more from the client's quota and is reported as {@code RATE_LIMITED} when none is left. The
+ * card pool has {@code MULTI_CARD_THREADS} threads and queues at most {@code MULTI_CARD_QUEUE}
+ * cards; a card beyond that is reported as {@code OCR_BUSY}. No card is waited on past the
+ * request deadline.
+ */
+@Service
+public class MultiCardScanService {
+
+    static final String CARD_STAGE_PREFIX = "card";
+
+    private final ScanService scanService;
+    private final CardPreprocessor cardPreprocessor;
+    private final ClientRateLimiter rateLimiter;
+    private final int maxCards;
+    private final ExecutorService cardExecutor;
+
+    public MultiCardScanService(
+            ScanService scanService,
+            CardPreprocessor cardPreprocessor,
+            ClientRateLimiter rateLimiter,
+            @Value("${MULTI_CARD_THREADS:8}") int cardThreads,
+            @Value("${MULTI_CARD_QUEUE:16}") int cardQueue,
+            @Value("${MULTI_CARD_MAX_CARDS:6}") int maxCards
+    ) {
+        this.scanService = scanService;
+        this.cardPreprocessor = cardPreprocessor;
+        this.rateLimiter = rateLimiter;
+        this.maxCards = Math.max(1, maxCards);
+        this.cardExecutor = ScanWorkerPools.bounded("scan-card-", cardThreads, cardQueue);
+    }
+
+    @PreDestroy
+    public void close() {
+        cardExecutor.shutdownNow();
+    }
+
+    public MultiCardScanResponse scan(MultipartFile image, ScanContext context) {
+        List<MultipartFile> cards = cardPreprocessor.split(image, context, maxCards);
+        List<ScanContext> cardContexts = new ArrayList<>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            cardContexts.add(new ScanContext(context.requestId() + "-" + (i + 1), context.trace(),
+                    new ScanTimeline(), context.deadline(), context.clientId()));
+        }
+        List<Future<ScanResponse>> otherCards = new ArrayList<>(cards.size() - 1);
+        for (int i = 1; i < cards.size(); i++) {
+            otherCards.add(submit(cards.get(i), cardContexts.get(i), context));
+        }
+
+        List<ScanResponse> scans = new ArrayList<>(cards.size());
+        List<ErrorResponse> failures = new ArrayList<>();
+        RuntimeException firstFailure = null;
+        try {
+            for (int i = 0; i < cards.size(); i++) {
+                String cardRequestId = cardContexts.get(i).requestId();
+                try {
+                    scans.add(i == 0
+                            ? scanService.scanCard(cards.get(0), cardContexts.get(0))
+                            : await(otherCards.get(i - 1), context));
+                } catch (OcrClientException ex) {
+                    failures.add(new ErrorResponse(cardRequestId, new ErrorDetail(ex.getCode(), ex.getMessage())));
+                    firstFailure = firstFailure == null ? ex : firstFailure;
+                } catch (RateLimitExceededException ex) {
+                    failures.add(new ErrorResponse(cardRequestId,
+                            new ErrorDetail(ErrorCatalog.RATE_LIMITED_CODE, ErrorCatalog.RATE_LIMITED_MESSAGE)));
+                    firstFailure = firstFailure == null ? ex : firstFailure;
+                }
+            }
+        } finally {
+            for (Future<ScanResponse> card : otherCards) {
+                card.cancel(true);
+            }
+            for (int i = 0; i < cards.size(); i++) {
+                context.timeline().include(CARD_STAGE_PREFIX + (i + 1) + "_", cardContexts.get(i).timeline());
+            }
+        }
+
+        if (scans.isEmpty()) {
+            throw firstFailure;
+        }
+        return new MultiCardScanResponse(context.requestId(), List.copyOf(scans), List.copyOf(failures));
+    }
+
+    /**
+     * Charges the client for the card and hands it to the pool. A card that cannot be charged or
+     * queued comes back as an already failed future, so it is reported like any other failure.
+     */
+    private Future<ScanResponse> submit(MultipartFile card, ScanContext cardContext, ScanContext context) {
+        Duration quotaWait = rateLimiter.acquire(context.clientId());
+        if (!quotaWait.isZero()) {
+            return CompletableFuture.failedFuture(new RateLimitExceededException(quotaWait));
+        }
+        try {
+            return cardExecutor.submit(() -> scanService.scanCard(card, cardContext));
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(
+                    new OcrClientException(ErrorCatalog.OCR_BUSY_CODE, ErrorCatalog.OCR_BUSY_MESSAGE));
+        }
+    }
+
+    private static ScanResponse await(Future<ScanResponse> card, ScanContext context) {
+        try {
+            return card.get(context.deadline().remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.dls.driverlicensescannerapi.service;
 
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.jfr.ValidateEvent;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
 import com.dls.driverlicensescannerapi.ocr.OcrResult;
 import java.util.List;
+import java.util.Map;
 
 import com.dls.driverlicensescannerapi.validator.ValidationService;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,13 +19,16 @@ public class ResponseAssembler {
 
     private final double confidenceThreshold;
     private final ValidationService validationService;
+    private final ScanMetrics scanMetrics;
 
     public ResponseAssembler(
             @Value("${OCR_CONFIDENCE_WARN_THRESHOLD:0.70}") double confidenceThreshold,
-            ValidationService validationService
+            ValidationService validationService,
+            ScanMetrics scanMetrics
     ) {
         this.confidenceThreshold = confidenceThreshold;
         this.validationService = validationService;
+        this.scanMetrics = scanMetrics;
     }
 
     public ScanResponse assemble(String requestId, OcrResult ocrResult, LicenseFields fields) {
@@ -35,18 +43,50 @@ public class ResponseAssembler {
             LicenseFields fields,
             List<String> attemptedEngines,
             String selectedEngine
+    ) {
+        return assemble(
+                requestId,
+                ocrResult.processingTimeMs(),
+                fields,
+                attemptedEngines,
+                selectedEngine,
+                FieldMerger.sourcesOf(fields, selectedEngine)
+        );
+    }
+
+    public ScanResponse assemble(
+            String requestId,
+            long processingTimeMs,
+            LicenseFields fields,
+            List<String> attemptedEngines,
+            String selectedEngine,
+            Map<String, String> fieldSources
     ) {
         double computedConfidence = FieldConfidenceCalculator.compute(fields);
 
+        ValidateEvent event = new ValidateEvent();
+        event.begin();
+        Timer.Sample sample = scanMetrics.start();
+        ValidationResult validation = validationService.validate(fields);
+        scanMetrics.recordStage(sample, ScanMetrics.STAGE_VALIDATE, selectedEngine, ScanMetrics.OUTCOME_SUCCESS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.blockingErrors = validation.blockingErrors().size();
+            event.warnings = validation.warnings().size();
+            event.commit();
+        }
+
         return new ScanResponse(
                 requestId,
                 selectedEngine,
                 attemptedEngines,
                 computedConfidence,
                 confidenceThreshold,
-                ocrResult.processingTimeMs(),
+                processingTimeMs,
                 fields,
-                validationService.validate(fields)
+                validation,
+                fieldSources
         );
     }
 }
@@ -1,15 +1,34 @@
 package com.dls.driverlicensescannerapi.service;
 
+import com.dls.driverlicensescannerapi.analytics.ScanEventLog;
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.engine.AttemptOutcome;
+import com.dls.driverlicensescannerapi.engine.EngineBulkheads;
+import com.dls.driverlicensescannerapi.engine.EngineSelectionPolicy;
+import com.dls.driverlicensescannerapi.engine.EngineStatisticsRegistry;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
 import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.jfr.FallbackDecisionEvent;
+import com.dls.driverlicensescannerapi.jfr.ParseEvent;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
 import com.dls.driverlicensescannerapi.ocr.OcrClient;
 import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
 import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.parser.LicenceNumberReconciler;
 import com.dls.driverlicensescannerapi.parser.LicenseFieldParser;
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,80 +36,304 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class ScanService {
 
-    private static final List<String> FALLBACK_ORDER = List.of("paddle", "vision");
+    private static final String FALLBACK_REASON_INCOMPLETE = "incomplete";
+    private static final String FALLBACK_REASON_ERROR = "error";
+    private static final String FALLBACK_REASON_ACCEPTED = "accepted";
+    private static final String FALLBACK_REASON_DEADLINE = "deadline";
+    private static final String FALLBACK_REASON_QUOTA = "quota";
+    private static final String FALLBACK_REASON_BULKHEAD = "bulkhead";
 
     private final OcrClient ocrClient;
+    private final CardPreprocessor cardPreprocessor;
     private final ResponseAssembler responseAssembler;
+    private final EngineSelectionPolicy engineSelectionPolicy;
+    private final EngineStatisticsRegistry engineStatistics;
+    private final EngineTimeoutPolicy timeoutPolicy;
+    private final FieldMerger fieldMerger;
+    private final ScanMetrics scanMetrics;
+    private final ClientRateLimiter rateLimiter;
+    private final EngineBulkheads bulkheads;
+    private final ScanEventLog eventLog;
     private final boolean fallbackEnabled;
     private final int maxFallbackAttempts;
     private final double confidenceThreshold;
+    private final ParserLimits parserLimits;
 
     public ScanService(
             OcrClient ocrClient,
+            CardPreprocessor cardPreprocessor,
             ResponseAssembler responseAssembler,
+            EngineSelectionPolicy engineSelectionPolicy,
+            EngineStatisticsRegistry engineStatistics,
+            EngineTimeoutPolicy timeoutPolicy,
+            FieldMerger fieldMerger,
+            ScanMetrics scanMetrics,
+            ClientRateLimiter rateLimiter,
+            EngineBulkheads bulkheads,
+            ScanEventLog eventLog,
             @Value("${ENABLE_FALLBACK_OCR:false}") boolean fallbackEnabled,
             @Value("${MAX_FALLBACK_ATTEMPTS:2}") int maxFallbackAttempts,
-            @Value("${OCR_CONFIDENCE_WARN_THRESHOLD:0.70}") double confidenceThreshold
+            @Value("${OCR_CONFIDENCE_WARN_THRESHOLD:0.70}") double confidenceThreshold,
+            ParserLimits parserLimits
     ) {
         this.ocrClient = ocrClient;
+        this.cardPreprocessor = cardPreprocessor;
         this.responseAssembler = responseAssembler;
+        this.engineSelectionPolicy = engineSelectionPolicy;
+        this.engineStatistics = engineStatistics;
+        this.timeoutPolicy = timeoutPolicy;
+        this.fieldMerger = fieldMerger;
+        this.scanMetrics = scanMetrics;
+        this.rateLimiter = rateLimiter;
+        this.bulkheads = bulkheads;
+        this.eventLog = eventLog;
         this.fallbackEnabled = fallbackEnabled;
         this.maxFallbackAttempts = Math.max(1, maxFallbackAttempts);
         this.confidenceThreshold = confidenceThreshold;
+        this.parserLimits = parserLimits;
     }
 
     public ScanResponse scan(MultipartFile image, String requestId) {
+        return scan(image, ScanContext.of(requestId));
+    }
+
+    /**
+     * Scans {@code image} and hands the outcome to the scan event log, success or failure.
+     */
+    public ScanResponse scan(MultipartFile image, ScanContext context) {
+        return recorded(context, () -> scanWithFallback(cardPreprocessor.prepare(image, context), context));
+    }
+
+    /**
+     * Scans an image already cropped to one card, as {@link MultiCardScanService} produces, without
+     * running card detection again.
+     */
+    public ScanResponse scanCard(MultipartFile card, ScanContext context) {
+        return recorded(context, () -> scanWithFallback(card, context));
+    }
+
+    /**
+     * One OCR call on the engine the policy ranks first, without fallback, under that engine's
+     * bulkhead and the client's quota for it. Reads the back of a two-sided scan.
+     */
+    public OcrResult scanLeadingEngine(MultipartFile image, ScanContext context) {
+        return scanOn(leadingEngine(), cardPreprocessor.prepare(image, context), context);
+    }
+
+    private String leadingEngine() {
+        return engineSelectionPolicy.order().get(0).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A single attempt on {@code engine}, failing as {@code OCR_BUSY} when its bulkhead is full and
+     * as rate limited when the client's quota for it is spent.
+     */
+    private OcrResult scanOn(String engine, MultipartFile upload, ScanContext context) {
+        EngineBulkheads.Permit permit = bulkheads.tryAcquire(engine, context.deadline().remaining());
+        if (permit == null) {
+            throw new OcrClientException(ErrorCatalog.OCR_BUSY_CODE, ErrorCatalog.OCR_BUSY_MESSAGE);
+        }
+        try (permit) {
+            Duration quotaWait = rateLimiter.acquireEngine(context.clientId(), engine);
+            if (!quotaWait.isZero()) {
+                throw new RateLimitExceededException(quotaWait);
+            }
+            return ocrClient.scan(upload, context, engine, permit);
+        }
+    }
+
+    private ScanResponse recorded(ScanContext context, Supplier<ScanResponse> scan) {
+        long startedAt = System.nanoTime();
+        try {
+            ScanResponse response = scan.get();
+            eventLog.record(context, response, null, System.nanoTime() - startedAt);
+            return response;
+        } catch (OcrClientException ex) {
+            eventLog.record(context, null, ex.getCode(), System.nanoTime() - startedAt);
+            throw ex;
+        } catch (RateLimitExceededException ex) {
+            eventLog.record(context, null, ErrorCatalog.RATE_LIMITED_CODE, System.nanoTime() - startedAt);
+            throw ex;
+        } catch (RuntimeException ex) {
+            eventLog.record(context, null, ErrorCatalog.INTERNAL_ERROR_CODE, System.nanoTime() - startedAt);
+            throw ex;
+        }
+    }
+
+    private ScanResponse scanWithFallback(MultipartFile upload, ScanContext context) {
+        String requestId = context.requestId();
         if (!fallbackEnabled) {
-            OcrResult ocrResult = ocrClient.scan(image, requestId);
-            LicenseFields fields = LicenseFieldParser.parse(ocrResult.lines());
-            return responseAssembler.assemble(requestId, ocrResult, fields);
+            String engine = leadingEngine();
+            OcrResult ocrResult = scanOn(engine, upload, context);
+            LicenseFields fields = parseFields(ocrResult, engine, context);
+            return assemble(context, () -> responseAssembler.assemble(requestId, ocrResult, fields));
         }
 
         List<String> attemptedEngines = new ArrayList<>();
-        ScanResponse lastResponse = null;
+        List<EngineAttempt> attempts = new ArrayList<>();
+        FieldMerger.MergedFields merged = null;
         OcrClientException lastException = null;
+        String fallbackFrom = null;
+        String fallbackReason = null;
+        Duration quotaRetryAfter = null;
+        boolean saturated = false;
 
-        for (String engine : FALLBACK_ORDER) {
+        for (String engine : engineSelectionPolicy.orderForScan()) {
             if (attemptedEngines.size() >= maxFallbackAttempts) {
                 break;
             }
             String normalizedEngine = engine.toLowerCase(Locale.ROOT);
-            try {
-                OcrResult ocrResult = ocrClient.scan(image, requestId, normalizedEngine);
-                String selectedEngine = ocrResult.engine() == null ? normalizedEngine : ocrResult.engine();
-                attemptedEngines.add(normalizedEngine);
-
-                LicenseFields fields = LicenseFieldParser.parse(ocrResult.lines());
-                double confidence = FieldConfidenceCalculator.compute(fields);
-                boolean missingRequired = FieldConfidenceCalculator.hasMissingRequired(fields);
-
-                lastResponse = responseAssembler.assemble(
-                        requestId,
-                        ocrResult,
-                        fields,
-                        List.copyOf(attemptedEngines),
-                        selectedEngine
-                );
-
-                if (!shouldFallback(confidence, missingRequired)) {
-                    return lastResponse;
+            if (!attemptedEngines.isEmpty()
+                    && !timeoutPolicy.fits(normalizedEngine, context.deadline().remaining())) {
+                scanMetrics.fallbackSkipped(normalizedEngine, FALLBACK_REASON_DEADLINE);
+                recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_DEADLINE, null);
+                continue;
+            }
+            EngineBulkheads.Permit permit = bulkheads.tryAcquire(normalizedEngine, context.deadline().remaining());
+            if (permit == null) {
+                scanMetrics.fallbackSkipped(normalizedEngine, FALLBACK_REASON_BULKHEAD);
+                recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_BULKHEAD, null);
+                saturated = true;
+                continue;
+            }
+            try (permit) {
+                Duration quotaWait = rateLimiter.acquireEngine(context.clientId(), normalizedEngine);
+                if (!quotaWait.isZero()) {
+                    scanMetrics.fallbackSkipped(normalizedEngine, FALLBACK_REASON_QUOTA);
+                    recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_QUOTA, null);
+                    quotaRetryAfter = quotaRetryAfter == null || quotaWait.compareTo(quotaRetryAfter) < 0
+                            ? quotaWait
+                            : quotaRetryAfter;
+                    continue;
+                }
+                if (fallbackFrom != null) {
+                    // Counted once the next engine actually runs, against the engine that asked for it.
+                    scanMetrics.fallbackTriggered(fallbackFrom, fallbackReason);
+                    fallbackFrom = null;
+                }
+                boolean firstAttempt = attemptedEngines.isEmpty();
+                long startedAt = System.nanoTime();
+                Timer.Sample sample = scanMetrics.start();
+                try {
+                    OcrResult ocrResult = ocrClient.scan(upload, context, normalizedEngine, permit);
+                    String selectedEngine = ocrResult.engine() == null ? normalizedEngine : ocrResult.engine();
+                    attemptedEngines.add(normalizedEngine);
+
+                    LicenseFields fields = parseFields(ocrResult, normalizedEngine, context);
+                    attempts.add(new EngineAttempt(selectedEngine, ocrResult, fields));
+                    AttemptOutcome outcome = shouldFallback(fields) ? AttemptOutcome.FELL_BACK : AttemptOutcome.ACCEPTED;
+                    engineStatistics.record(normalizedEngine, elapsedMillis(startedAt), outcome, firstAttempt);
+                    long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_ATTEMPT, normalizedEngine,
+                            outcome.name().toLowerCase(Locale.ROOT));
+                    context.timeline().record(ScanMetrics.STAGE_ATTEMPT, normalizedEngine, durationNanos);
+
+                    merged = fieldMerger.merge(attempts);
+                    if (!shouldFallback(merged.fields())) {
+                        recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_ACCEPTED, merged.fields());
+                        break;
+                    }
+                    fallbackFrom = normalizedEngine;
+                    fallbackReason = FALLBACK_REASON_INCOMPLETE;
+                    recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_INCOMPLETE, merged.fields());
+                } catch (OcrClientException ex) {
+                    engineStatistics.record(normalizedEngine, elapsedMillis(startedAt), AttemptOutcome.FAILED,
+                            firstAttempt);
+                    long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_ATTEMPT, normalizedEngine,
+                            ScanMetrics.outcomeOf(ex.getCode()));
+                    context.timeline().record(ScanMetrics.STAGE_ATTEMPT, normalizedEngine, durationNanos);
+                    fallbackFrom = normalizedEngine;
+                    fallbackReason = FALLBACK_REASON_ERROR;
+                    recordFallbackDecision(context, normalizedEngine, FALLBACK_REASON_ERROR, null);
+                    attemptedEngines.add(normalizedEngine);
+                    lastException = ex;
                 }
-            } catch (OcrClientException ex) {
-                attemptedEngines.add(normalizedEngine);
-                lastException = ex;
             }
         }
 
-        if (lastResponse != null) {
-            return lastResponse;
+        if (merged != null) {
+            FieldMerger.MergedFields result = merged;
+            long processingTimeMs = attempts.stream()
+                    .mapToLong(attempt -> attempt.ocrResult().processingTimeMs())
+                    .sum();
+            return assemble(context, () -> responseAssembler.assemble(
+                    requestId,
+                    processingTimeMs,
+                    result.fields(),
+                    List.copyOf(attemptedEngines),
+                    result.dominantEngine() == null ? attempts.get(attempts.size() - 1).engine() : result.dominantEngine(),
+                    result.sources()
+            ));
         }
         if (lastException != null) {
             throw lastException;
         }
+        if (quotaRetryAfter != null) {
+            throw new RateLimitExceededException(quotaRetryAfter);
+        }
+        if (saturated) {
+            throw new OcrClientException(ErrorCatalog.OCR_BUSY_CODE, ErrorCatalog.OCR_BUSY_MESSAGE);
+        }
         throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
     }
 
-    private boolean shouldFallback(double confidence, boolean missingRequired) {
+    /**
+     * Tags the parse stage with the engine that was asked for rather than the name the worker
+     * reported, so the metric's engine tag stays within the configured set.
+     */
+    private LicenseFields parseFields(OcrResult ocrResult, String engine, ScanContext context) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        Timer.Sample sample = scanMetrics.start();
+        List<OcrLine> lines = parserLimits.apply(ocrResult.lines());
+        LicenseFields fields = LicenseFieldParser.parse(lines, parserLimits);
+        LicenseFields reconciled = LicenceNumberReconciler.reconcile(fields, lines);
+        long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_PARSE, engine,
+                ScanMetrics.OUTCOME_SUCCESS);
+        context.timeline().record(ScanMetrics.STAGE_PARSE, ocrResult.engine(), durationNanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestId = context.requestId();
+            event.engine = ocrResult.engine();
+            event.lineCount = ocrResult.lines().size();
+            event.confidence = FieldConfidenceCalculator.compute(reconciled);
+            event.commit();
+        }
+        return reconciled;
+    }
+
+    /**
+     * Carries the confidence the decision was made on, not the fields themselves.
+     */
+    private static void recordFallbackDecision(ScanContext context, String engine, String reason,
+                                               LicenseFields mergedFields) {
+        FallbackDecisionEvent event = new FallbackDecisionEvent();
+        if (event.shouldCommit()) {
+            event.requestId = context.requestId();
+            event.engine = engine;
+            event.fellBack = FALLBACK_REASON_INCOMPLETE.equals(reason) || FALLBACK_REASON_ERROR.equals(reason);
+            event.reason = reason;
+            event.confidence = mergedFields == null ? 0 : FieldConfidenceCalculator.compute(mergedFields);
+            event.commit();
+        }
+    }
+
+    /**
+     * Assembly is dominated by validation, so it shows up as the validate stage on the timeline.
+     */
+    private static ScanResponse assemble(ScanContext context, Supplier<ScanResponse> assembly) {
+        long startedAt = System.nanoTime();
+        ScanResponse response = assembly.get();
+        context.timeline().record(ScanMetrics.STAGE_VALIDATE, null, System.nanoTime() - startedAt);
+        return response;
+    }
+
+    private boolean shouldFallback(LicenseFields fields) {
+        double confidence = FieldConfidenceCalculator.compute(fields);
+        boolean missingRequired = FieldConfidenceCalculator.hasMissingRequired(fields);
         return confidence < confidenceThreshold || missingRequired;
     }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
 }
@@ -0,0 +1,27 @@
+package com.dls.driverlicensescannerapi.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools for scan work that runs beside the request thread. Both the threads and the queue are
+ * bounded, and a full pool rejects the task rather than letting work pile up behind it; callers
+ * report the rejection as {@code OCR_BUSY}.
+ */
+final class ScanWorkerPools {
+
+    private ScanWorkerPools() {}
+
+    static ThreadPoolExecutor bounded(String threadPrefix, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
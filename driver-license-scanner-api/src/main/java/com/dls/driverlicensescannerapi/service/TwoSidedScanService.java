@@ -0,0 +1,158 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.parser.LicenseFieldParser;
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Scans both sides of a card in one request. The back is OCRed on a worker thread while the
+ * front runs through the usual engine chain on the request thread, so the request takes about as
+ * long as the slower side. The category table on the back replaces the front's item 9 when it
+ * yields anything.
+ *
+ * <p>The back only adds to the front, so any OCR failure on it degrades to the front-only
+ * response, as an unreadable table does. That covers a full back-side pool
+ * ({@code TWO_SIDED_BACK_THREADS} threads, at most {@code TWO_SIDED_BACK_QUEUE} queued backs), a
+ * busy engine or spent engine quota, and a back still running when the request deadline passes.
+ * Only a failure of the front fails the request.
+ */
+@Service
+public class TwoSidedScanService {
+
+    static final String BACK_STAGE_PREFIX = "back_";
+    private static final String CATEGORIES_FIELD = "categories";
+
+    private final ScanService scanService;
+    private final ResponseAssembler responseAssembler;
+    private final ScanMetrics scanMetrics;
+    private final ParserLimits parserLimits;
+    private final ExecutorService backSideExecutor;
+
+    public TwoSidedScanService(
+            ScanService scanService,
+            ResponseAssembler responseAssembler,
+            ScanMetrics scanMetrics,
+            ParserLimits parserLimits,
+            @Value("${TWO_SIDED_BACK_THREADS:8}") int backThreads,
+            @Value("${TWO_SIDED_BACK_QUEUE:16}") int backQueue
+    ) {
+        this.scanService = scanService;
+        this.responseAssembler = responseAssembler;
+        this.scanMetrics = scanMetrics;
+        this.parserLimits = parserLimits;
+        this.backSideExecutor = ScanWorkerPools.bounded("scan-back-", backThreads, backQueue);
+    }
+
+    @PreDestroy
+    public void close() {
+        backSideExecutor.shutdownNow();
+    }
+
+    public ScanResponse scan(MultipartFile front, MultipartFile back, ScanContext context) {
+        ScanContext backContext = new ScanContext(context.requestId(), context.trace(), new ScanTimeline(),
+                context.deadline(), context.clientId());
+        Future<BackSide> backSide;
+        try {
+            backSide = backSideExecutor.submit(() -> scanBack(back, backContext));
+        } catch (RejectedExecutionException ex) {
+            backSide = CompletableFuture.failedFuture(
+                    new OcrClientException(ErrorCatalog.OCR_BUSY_CODE, ErrorCatalog.OCR_BUSY_MESSAGE));
+        }
+
+        ScanResponse frontResponse;
+        BackSide backResult;
+        try {
+            frontResponse = scanService.scan(front, context);
+            backResult = awaitBack(backSide, context);
+        } finally {
+            backSide.cancel(true);
+            context.timeline().include(BACK_STAGE_PREFIX, backContext.timeline());
+        }
+
+        if (backResult == null || backResult.categories().isEmpty()) {
+            return frontResponse;
+        }
+        LicenseFields fields = frontResponse.fields();
+        LicenseFields merged = new LicenseFields(
+                fields.firstName(),
+                fields.lastName(),
+                fields.dateOfBirth(),
+                fields.addressLine(),
+                fields.licenceNumber(),
+                fields.expiryDate(),
+                backResult.categories()
+        );
+        Map<String, String> sources = new LinkedHashMap<>(frontResponse.fieldSources());
+        sources.put(CATEGORIES_FIELD, backResult.engine());
+        return responseAssembler.assemble(
+                context.requestId(),
+                Math.max(frontResponse.processingTimeMs(), backResult.processingTimeMs()),
+                merged,
+                frontResponse.attemptedEngines(),
+                frontResponse.selectedEngine(),
+                sources
+        );
+    }
+
+    /**
+     * Returns the back, or {@code null} when it could not be read in time; only a failure that is
+     * not an OCR outcome propagates.
+     */
+    private static BackSide awaitBack(Future<BackSide> backSide, ScanContext context) {
+        try {
+            return backSide.get(context.deadline().remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OcrClientException || ex.getCause() instanceof RateLimitExceededException) {
+                return null;
+            }
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE);
+        }
+    }
+
+    /**
+     * The back is read by the leading engine only: the table is printed large and fallback
+     * engines buy little there.
+     */
+    private BackSide scanBack(MultipartFile back, ScanContext context) {
+        OcrResult ocrResult = scanService.scanLeadingEngine(back, context);
+        Timer.Sample sample = scanMetrics.start();
+        List<String> categories = LicenseFieldParser.parseBackCategories(ocrResult.lines(), parserLimits);
+        long durationNanos = scanMetrics.recordStage(sample, ScanMetrics.STAGE_PARSE, null,
+                ScanMetrics.OUTCOME_SUCCESS);
+        context.timeline().record(ScanMetrics.STAGE_PARSE, ocrResult.engine(), durationNanos);
+        return new BackSide(ocrResult.engine(), ocrResult.processingTimeMs(), categories);
+    }
+
+    private record BackSide(String engine, long processingTimeMs, List<String> categories) {}
+}
@@ -0,0 +1,60 @@
+package com.dls.driverlicensescannerapi.trace;
+
+import java.time.Duration;
+
+/**
+ * Point on the monotonic clock by which a scan must answer. Callers send their budget as a
+ * relative {@code X-Request-Timeout-Ms}, so clock skew between hosts does not matter, and the
+ * remaining budget is forwarded to the worker the same way.
+ */
+public record Deadline(long expiresAtNanos) {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    /** No deadline: only the per-attempt timeouts apply. */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private static final Duration UNBOUNDED = Duration.ofNanos(Long.MAX_VALUE);
+
+    public static Deadline in(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Uses the caller's budget when it is a positive number of milliseconds, capped at
+     * {@code maxBudget}; otherwise {@code defaultBudget}.
+     */
+    public static Deadline resolve(String header, Duration defaultBudget, Duration maxBudget) {
+        Duration budget = defaultBudget;
+        if (header != null) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis > 0) {
+                    budget = Duration.ofMillis(millis);
+                }
+            } catch (NumberFormatException ignored) {
+                // Fall back to the configured budget.
+            }
+        }
+        return in(budget.compareTo(maxBudget) > 0 ? maxBudget : budget);
+    }
+
+    public Duration remaining() {
+        if (expiresAtNanos == Long.MAX_VALUE) {
+            return UNBOUNDED;
+        }
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean expired() {
+        return remaining().isZero();
+    }
+
+    /**
+     * The shorter of {@code timeout} and the remaining budget.
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+}
@@ -0,0 +1,25 @@
+package com.dls.driverlicensescannerapi.trace;
+
+/**
+ * Per-request state threaded from the controller to the OCR client: the request id, the trace
+ * context propagated to the worker, the stage timeline returned in {@code Server-Timing}, the
+ * deadline every OCR attempt is bounded by and the rate-limited client, if any.
+ */
+public record ScanContext(String requestId, TraceContext trace, ScanTimeline timeline, Deadline deadline,
+                          String clientId) {
+
+    /** Request attribute holding the context, so error responses can carry the timeline too. */
+    public static final String ATTRIBUTE = ScanContext.class.getName();
+
+    public ScanContext(String requestId, TraceContext trace, ScanTimeline timeline, Deadline deadline) {
+        this(requestId, trace, timeline, deadline, null);
+    }
+
+    public ScanContext(String requestId, TraceContext trace, ScanTimeline timeline) {
+        this(requestId, trace, timeline, Deadline.NONE);
+    }
+
+    public static ScanContext of(String requestId) {
+        return new ScanContext(requestId, TraceContext.continueOrStart(null), new ScanTimeline());
+    }
+}
@@ -0,0 +1,64 @@
+package com.dls.driverlicensescannerapi.trace;
+
+import com.dls.driverlicensescannerapi.dto.StageTiming;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stage durations of one scan, in the order they finished, rendered as a {@code Server-Timing}
+ * header. Engine attempts are kept apart by suffixing the stage with the engine name.
+ */
+public final class ScanTimeline {
+
+    public static final String HEADER = "Server-Timing";
+    public static final String STAGE_TOTAL = "total";
+    /** Processing time reported by the worker; the rest of the OCR stage is transport and queueing. */
+    public static final String STAGE_WORKER = "worker";
+
+    private final long startedAtNanos = System.nanoTime();
+    private final List<StageTiming> stages = new ArrayList<>();
+    private boolean finished;
+
+    public synchronized void record(String stage, String engine, long durationNanos) {
+        stages.add(new StageTiming(stage, engine, Math.round(durationNanos / 100_000.0) / 10.0));
+    }
+
+    /**
+     * Adds stages timed on another timeline, such as a side of the card scanned concurrently,
+     * with {@code prefix} in front of each stage name.
+     */
+    public synchronized void include(String prefix, ScanTimeline other) {
+        for (StageTiming stage : other.stages()) {
+            stages.add(new StageTiming(prefix + stage.stage(), stage.engine(), stage.durationMs()));
+        }
+    }
+
+    /**
+     * Records the time since the timeline was created as {@value #STAGE_TOTAL}; later calls are
+     * ignored so the controller and the exception handler can both call it.
+     */
+    public synchronized void finish() {
+        if (!finished) {
+            finished = true;
+            record(STAGE_TOTAL, null, System.nanoTime() - startedAtNanos);
+        }
+    }
+
+    public synchronized List<StageTiming> stages() {
+        return List.copyOf(stages);
+    }
+
+    public synchronized String toServerTiming() {
+        List<String> entries = new ArrayList<>(stages.size());
+        for (StageTiming stage : stages) {
+            String name = stage.engine() == null ? stage.stage() : stage.stage() + "_" + stage.engine();
+            entries.add(token(name) + ";dur=" + String.format(Locale.ROOT, "%.1f", stage.durationMs()));
+        }
+        return String.join(", ", entries);
+    }
+
+    private static String token(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_.-]", "_");
+    }
+}
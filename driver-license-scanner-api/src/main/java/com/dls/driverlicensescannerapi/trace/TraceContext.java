@@ -0,0 +1,54 @@
+package com.dls.driverlicensescannerapi.trace;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * W3C trace context for one scan. An incoming {@code traceparent} is continued, otherwise a new
+ * trace is started; every call to the OCR worker gets its own span id under the same trace.
+ */
+public record TraceContext(String traceId, String spanId, String flags) {
+
+    public static final String HEADER = "traceparent";
+
+    private static final Pattern TRACEPARENT_PATTERN =
+            Pattern.compile("^00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})$");
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+    private static final String INVALID_SPAN_ID = "0".repeat(16);
+    private static final String SAMPLED = "01";
+
+    public static TraceContext continueOrStart(String traceparent) {
+        if (traceparent != null) {
+            Matcher matcher = TRACEPARENT_PATTERN.matcher(traceparent.trim().toLowerCase(Locale.ROOT));
+            if (matcher.matches()
+                    && !INVALID_TRACE_ID.equals(matcher.group(1))
+                    && !INVALID_SPAN_ID.equals(matcher.group(2))) {
+                return new TraceContext(matcher.group(1), randomHex(16), matcher.group(3));
+            }
+        }
+        return new TraceContext(randomHex(32), randomHex(16), SAMPLED);
+    }
+
+    public String header() {
+        return "00-" + traceId + "-" + spanId + "-" + flags;
+    }
+
+    /**
+     * Header for an outgoing call, with a fresh span id.
+     */
+    public String childHeader() {
+        return "00-" + traceId + "-" + randomHex(16) + "-" + flags;
+    }
+
+    private static String randomHex(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder hex = new StringBuilder(length);
+        while (hex.length() < length) {
+            String chunk = String.format("%016x", random.nextLong());
+            hex.append(chunk, 0, Math.min(chunk.length(), length - hex.length()));
+        }
+        return hex.toString();
+    }
+}
@@ -25,8 +25,12 @@ public class ValidationService {
     private static final Pattern POSTCODE_PATTERN =
             Pattern.compile("\\b[A-Z]{1,2}\\d[A-Z\\d]? ?\\d[A-Z]{2}\\b", Pattern.CASE_INSENSITIVE);
 
+    /**
+     * DVLA layout: surname block padded with trailing 9s, six birth digits, two initials (the
+     * second a 9 for holders with one forename), a digit, two check letters and the issue number.
+     */
     private static final Pattern LICENCE_NUMBER_PATTERN =
-            Pattern.compile("^[A-Z]{5}\\d{6}[A-Z]{2}\\d[A-Z]{2}\\d{0,2}$");
+            Pattern.compile("^[A-Z](?:[A-Z]{4}|[A-Z]{3}9|[A-Z]{2}99|[A-Z]999|9999)\\d{6}[A-Z][A-Z9]\\d[A-Z]{2}\\d{0,2}$");
 
     public ValidationResult validate(LicenseFields fields) {
         List<ValidationError> blockingErrors = new ArrayList<>();
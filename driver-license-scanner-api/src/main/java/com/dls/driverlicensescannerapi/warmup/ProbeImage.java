@@ -0,0 +1,78 @@
+package com.dls.driverlicensescannerapi.warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import javax.imageio.ImageIO;
+import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * A blank 64x40 PNG, small enough that the worker answers fast but decoded and run through the
+ * OCR engine like a real upload.
+ */
+final class ProbeImage implements MultipartFile {
+
+    private final byte[] bytes;
+
+    ProbeImage() {
+        BufferedImage image = new BufferedImage(64, 40, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, 0xFFFFFF);
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.bytes = png.toByteArray();
+    }
+
+    @Override
+    public String getName() {
+        return "image";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return "warmup.png";
+    }
+
+    @Override
+    public String getContentType() {
+        return MediaType.IMAGE_PNG_VALUE;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bytes.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return bytes.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public void transferTo(File destination) throws IOException {
+        Files.write(destination.toPath(), bytes);
+    }
+}
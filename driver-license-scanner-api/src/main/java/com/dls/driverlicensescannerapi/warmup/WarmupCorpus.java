@@ -0,0 +1,73 @@
+package com.dls.driverlicensescannerapi.warmup;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Invented worker results that take the parser and validator down their common branches: clean
+ * cards, split and merged labels, confused characters and cards with required fields missing.
+ */
+final class WarmupCorpus {
+
+    private static final String[] SURNAMES = {"CAMPBELL", "MACDONALD", "SMITH", "OBRIEN", "NG", "WILLIAMSON"};
+    private static final String[] GIVEN_NAMES = {"ANDREA JOAN", "PETER", "SIOBHAN MARY", "LEO", "GRACE ELLEN"};
+    private static final String[] ADDRESSES = {
+            "8. 123 CASTLEROCK ROAD, COLERAINE|CO. LONDONDERRY|BT51 3TB",
+            "8. 4 HIGH STREET, LEEDS|LS1 4AB",
+            "8. 77 MILL LANE, CARDIFF|CF10 1AA"
+    };
+    private static final String[] CATEGORIES = {"9. AM/A/B1/B/f/k/p/q", "9. B", "9. A1/A2/A/B/BE/C1"};
+    private static final String[] ENGINES = {"paddle", "vision"};
+
+    private WarmupCorpus() {}
+
+    static List<OcrResult> generate(int size) {
+        Random random = new Random(7L);
+        List<OcrResult> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            corpus.add(new OcrResult("warmup", ENGINES[i % ENGINES.length], 0.9, lines(random, i % 4), 0L, null));
+        }
+        return corpus;
+    }
+
+    private static List<OcrLine> lines(Random random, int variant) {
+        String surname = SURNAMES[random.nextInt(SURNAMES.length)];
+        String dateOfBirth = String.format(Locale.ROOT, "%02d.%02d.%d",
+                1 + random.nextInt(28), 1 + random.nextInt(12), 1950 + random.nextInt(50));
+        List<String> text = new ArrayList<>(List.of(
+                "DRIVING LICENCE",
+                "1. " + surname,
+                "2. " + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)],
+                "3. " + dateOfBirth + " UNITED KINGDOM",
+                "4a. 01.12.2021",
+                "4b. 30.11.2031",
+                "4c. DVLA",
+                "5. " + (surname + "99999").substring(0, 5) + "607054AJ9AB"
+        ));
+        text.addAll(List.of(ADDRESSES[random.nextInt(ADDRESSES.length)].split("\\|")));
+        text.add(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+
+        switch (variant) {
+            case 1 -> {
+                text.set(3, "3.");
+                text.add(4, dateOfBirth + " UNITED KINGDOM");
+            }
+            case 2 -> text.replaceAll(line -> line.replace('O', '0').replace('I', '1'));
+            case 3 -> {
+                text.remove(7);
+                text.remove(5);
+            }
+            default -> {
+            }
+        }
+        List<OcrLine> lines = new ArrayList<>(text.size());
+        for (String line : text) {
+            lines.add(new OcrLine(line, 0.6 + random.nextDouble() * 0.39));
+        }
+        return lines;
+    }
+}
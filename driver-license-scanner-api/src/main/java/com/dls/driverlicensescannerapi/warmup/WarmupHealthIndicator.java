@@ -0,0 +1,36 @@
+package com.dls.driverlicensescannerapi.warmup;
+
+import java.util.Locale;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code OUT_OF_SERVICE} while {@link WarmupRunner} is pending or running, {@code UP} once it has
+ * completed, timed out or is disabled. Part of the readiness group, so pods take traffic only
+ * after warm-up.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupRunner warmupRunner;
+
+    public WarmupHealthIndicator(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @Override
+    public Health health() {
+        WarmupRunner.State state = warmupRunner.state();
+        Health.Builder builder = switch (state) {
+            case PENDING, RUNNING -> Health.outOfService();
+            case COMPLETED, TIMED_OUT, DISABLED -> Health.up();
+        };
+        return builder
+                .withDetail("state", state.name().toLowerCase(Locale.ROOT))
+                .withDetail("durationMs", warmupRunner.durationMs())
+                .withDetail("iterations", warmupRunner.completedIterations())
+                .withDetail("connections", warmupRunner.openConnections())
+                .build();
+    }
+}
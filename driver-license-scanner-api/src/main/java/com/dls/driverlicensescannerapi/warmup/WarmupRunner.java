@@ -0,0 +1,167 @@
+package com.dls.driverlicensescannerapi.warmup;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrClient;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.parser.LicenceNumberReconciler;
+import com.dls.driverlicensescannerapi.parser.LicenseFieldParser;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.service.EngineAttempt;
+import com.dls.driverlicensescannerapi.service.FieldConfidenceCalculator;
+import com.dls.driverlicensescannerapi.service.FieldMerger;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the scan path once the application is ready: runs a synthetic corpus through parsing,
+ * reconciliation, merging and validation until the JIT has compiled it, does the same for card
+ * detection, opens worker connections and optionally sends a probe image.
+ * {@link WarmupHealthIndicator} keeps readiness down until this finishes or
+ * {@code WARMUP_TIMEOUT_SECONDS} runs out.
+ *
+ * <p>The corpus bypasses {@code ScanService}, so warm-up does not show in the scan metrics.
+ */
+@Component
+public class WarmupRunner {
+
+    public enum State { PENDING, RUNNING, COMPLETED, TIMED_OUT, DISABLED }
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final int CORPUS_SIZE = 64;
+    private static final int CARD_DETECTION_ITERATIONS = 30;
+    private static final String REQUEST_ID = "warmup";
+
+    private final OcrClient ocrClient;
+    private final CardPreprocessor cardPreprocessor;
+    private final ValidationService validationService;
+    private final FieldMerger fieldMerger;
+    private final boolean enabled;
+    private final int iterations;
+    private final int connections;
+    private final boolean probeImage;
+    private final Duration timeout;
+
+    private volatile State state;
+    private volatile Deadline deadline = Deadline.NONE;
+    private volatile long durationMs;
+    private volatile int completedIterations;
+    private volatile int openConnections;
+
+    public WarmupRunner(
+            OcrClient ocrClient,
+            CardPreprocessor cardPreprocessor,
+            ValidationService validationService,
+            FieldMerger fieldMerger,
+            @Value("${WARMUP_ENABLED:true}") boolean enabled,
+            @Value("${WARMUP_ITERATIONS:5000}") int iterations,
+            @Value("${WARMUP_CONNECTIONS:4}") int connections,
+            @Value("${WARMUP_PROBE_IMAGE:false}") boolean probeImage,
+            @Value("${WARMUP_TIMEOUT_SECONDS:30}") int timeoutSeconds
+    ) {
+        this.ocrClient = ocrClient;
+        this.cardPreprocessor = cardPreprocessor;
+        this.validationService = validationService;
+        this.fieldMerger = fieldMerger;
+        this.enabled = enabled;
+        this.iterations = Math.max(0, iterations);
+        this.connections = Math.max(0, connections);
+        this.probeImage = probeImage;
+        this.timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || state != State.PENDING) {
+            return;
+        }
+        deadline = Deadline.in(timeout);
+        state = State.RUNNING;
+        Thread thread = new Thread(this::run, "scan-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The current state; a run past its time limit reports {@link State#TIMED_OUT} even while the
+     * warm-up thread is still winding down.
+     */
+    public State state() {
+        State current = state;
+        if (current == State.RUNNING && deadline.expired()) {
+            return State.TIMED_OUT;
+        }
+        return current;
+    }
+
+    public long durationMs() {
+        return durationMs;
+    }
+
+    public int completedIterations() {
+        return completedIterations;
+    }
+
+    public int openConnections() {
+        return openConnections;
+    }
+
+    void run() {
+        long startedAt = System.nanoTime();
+        try {
+            warmParseAndValidate();
+            cardPreprocessor.warmUp(CARD_DETECTION_ITERATIONS, deadline);
+            if (!deadline.expired()) {
+                openConnections = ocrClient.warmUpConnections(connections);
+            }
+            if (probeImage && !deadline.expired()) {
+                sendProbe();
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Warm-up failed", ex);
+        } finally {
+            durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+            state = deadline.expired() ? State.TIMED_OUT : State.COMPLETED;
+            logger.info("Warm-up {} durationMs={} iterations={} connections={}",
+                    state.name().toLowerCase(Locale.ROOT), durationMs, completedIterations, openConnections);
+        }
+    }
+
+    private void warmParseAndValidate() {
+        List<OcrResult> corpus = WarmupCorpus.generate(CORPUS_SIZE);
+        for (int i = 0; i < iterations; i++) {
+            if ((i & 0xFF) == 0 && deadline.expired()) {
+                return;
+            }
+            OcrResult result = corpus.get(i % corpus.size());
+            LicenseFields fields = LicenceNumberReconciler.reconcile(
+                    LicenseFieldParser.parse(result.lines()), result.lines());
+            FieldConfidenceCalculator.compute(fields);
+            validationService.validate(fields);
+            fieldMerger.merge(List.of(new EngineAttempt(result.engine(), result, fields)));
+            completedIterations = i + 1;
+        }
+    }
+
+    private void sendProbe() {
+        ScanContext context = new ScanContext(REQUEST_ID, TraceContext.continueOrStart(null), new ScanTimeline(),
+                deadline);
+        try {
+            ocrClient.scan(new ProbeImage(), context, null);
+        } catch (RuntimeException ex) {
+            logger.warn("Warm-up probe image failed: {}", ex.getMessage());
+        }
+    }
+}
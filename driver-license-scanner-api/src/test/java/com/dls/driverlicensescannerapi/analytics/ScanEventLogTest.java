@@ -0,0 +1,178 @@
+package com.dls.driverlicensescannerapi.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.ValidationError;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScanEventLogTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesScansToSegmentsAndExportsThemAsCsv() throws Exception {
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 64, 1 << 20, 4);
+        log.start();
+        ScanContext scanned = ScanContext.of("req-1");
+        scanned.timeline().record(ScanMetrics.STAGE_ATTEMPT, "paddle", 40_000_000L);
+        scanned.timeline().record(ScanMetrics.STAGE_ATTEMPT, "vision", 60_000_000L);
+        scanned.timeline().record(ScanMetrics.STAGE_PARSE, "vision", 1_500_000L);
+        ScanResponse response = new ScanResponse("req-1", "vision", List.of("paddle", "vision"),
+                0.875, 0.70, 90L, new LicenseFields(null, null, null, null, null, null, List.of()),
+                new ValidationResult(List.of(
+                        new ValidationError("MISSING_REQUIRED_FIELD", "firstName", "Missing required field: firstName"),
+                        new ValidationError("INVALID_POSTCODE", "addressLine", "Invalid UK postcode in addressLine.")),
+                        List.of("Age outside 21-75")));
+        ScanContext failed = ScanContext.of("req-2");
+        failed.timeline().record(ScanMetrics.STAGE_OCR, "paddle", 5_000_000L);
+
+        log.record(scanned, response, null, 120_000_000L);
+        log.record(failed, null, ErrorCatalog.OCR_TIMEOUT_CODE, 6_000_000L);
+        log.close();
+
+        List<ScanEvent> events = ScanEventReader.read(directory);
+        assertEquals(2, events.size());
+        ScanEvent event = events.get(0);
+        assertEquals("req-1", event.requestId());
+        assertEquals("vision", event.engine());
+        assertEquals(2, event.attempts());
+        assertEquals(0.875f, event.confidence());
+        assertNull(event.errorCode());
+        assertEquals(List.of("MISSING_REQUIRED_FIELD", "INVALID_POSTCODE"),
+                ScanEventCodec.validationCodes(event.validationCodes()));
+        assertEquals(1, event.warnings());
+        assertEquals(100_000, event.stageMicros()[ScanEventCodec.STAGES.indexOf(ScanMetrics.STAGE_ATTEMPT)]);
+        assertEquals(1_500, event.stageMicros()[ScanEventCodec.STAGES.indexOf(ScanMetrics.STAGE_PARSE)]);
+        assertEquals(120_000, event.stageMicros()[ScanEventCodec.STAGES.indexOf("scan")]);
+
+        ScanEvent failure = events.get(1);
+        assertEquals("paddle", failure.engine());
+        assertEquals(1, failure.attempts());
+        assertEquals(ErrorCatalog.OCR_TIMEOUT_CODE, failure.errorCode());
+
+        StringBuilder csv = new StringBuilder();
+        ScanEventExport.write(events, csv);
+        String[] rows = csv.toString().split("\n");
+        assertEquals(3, rows.length);
+        assertThat(rows[0]).startsWith("timestamp,request_id,engine,attempts,confidence,error_code");
+        assertThat(rows[1]).contains(",req-1,vision,2,0.875,,MISSING_REQUIRED_FIELD|INVALID_POSTCODE,1,")
+                .contains(",100.000,1.500,");
+        assertThat(rows[2]).contains(",req-2,paddle,1,0.000,OCR_TIMEOUT,,0,");
+        assertEquals(2.0, registry.get(ScanEventLog.RECORD_COUNTER).tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    void rollsToNewSegmentsAndKeepsTheNewest() throws Exception {
+        int twoRecords = ScanEventCodec.HEADER_BYTES + 2 * ScanEventCodec.RECORD_BYTES;
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 64, twoRecords, 2);
+        log.start();
+
+        for (int i = 1; i <= 7; i++) {
+            log.record(ScanContext.of("req-" + i), null, ErrorCatalog.OCR_FAILED_CODE, 1_000_000L);
+        }
+        log.close();
+
+        assertEquals(2, ScanEventLog.segmentFiles(directory).size());
+        assertThat(ScanEventReader.read(directory))
+                .extracting(ScanEvent::requestId)
+                .containsExactly("req-5", "req-6", "req-7");
+    }
+
+    @Test
+    void wakesTheParkedWriterForEachEvent() throws Exception {
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 64, 1 << 20, 4);
+        log.start();
+        try {
+            for (int i = 1; i <= 3; i++) {
+                Thread.sleep(50);
+                log.record(ScanContext.of("req-" + i), null, ErrorCatalog.OCR_FAILED_CODE, 1_000_000L);
+                awaitCount("written", i);
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    void countsAnEventThatCannotBeWrittenAndCarriesOn() throws Exception {
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 64, 1 << 20, 4);
+        log.start();
+
+        log.publish(new ScanEvent(0L, "req-broken", null, 1, 0f, null, 0, 0, null));
+        log.record(ScanContext.of("req-2"), null, ErrorCatalog.OCR_FAILED_CODE, 1_000_000L);
+        log.close();
+
+        assertEquals(1.0, registry.get(ScanEventLog.RECORD_COUNTER).tag("outcome", "failed").counter().count());
+        assertThat(ScanEventReader.read(directory)).extracting(ScanEvent::requestId).containsExactly("req-2");
+    }
+
+    @Test
+    void dropsEventsInsteadOfWaitingWhenTheWriterFallsBehind() {
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 4, 1 << 20, 4);
+        ScanEvent event = ScanEventLog.toEvent(ScanContext.of("req-1"), null, ErrorCatalog.OCR_FAILED_CODE, 0L);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(log.publish(event));
+        }
+        assertFalse(log.publish(event));
+
+        assertEquals(4, log.backlog());
+        assertEquals(1.0, registry.get(ScanEventLog.RECORD_COUNTER).tag("outcome", "dropped").counter().count());
+    }
+
+    @Test
+    void keepsEveryEventFromConcurrentPublishers() throws Exception {
+        ScanEventLog log = new ScanEventLog(registry, true, directory.toString(), 1 << 14, 1 << 20, 16);
+        log.start();
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int publisher = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    log.record(ScanContext.of(publisher + "-" + i), null, ErrorCatalog.OCR_FAILED_CODE, 0L);
+                }
+            });
+            thread.start();
+            publishers.add(thread);
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        log.close();
+
+        Set<String> requestIds = new HashSet<>();
+        for (ScanEvent event : ScanEventReader.read(directory)) {
+            requestIds.add(event.requestId());
+        }
+        assertEquals(8_000, requestIds.size());
+    }
+
+    private void awaitCount(String outcome, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (registry.get(ScanEventLog.RECORD_COUNTER).tag("outcome", outcome).counter().count() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, registry.get(ScanEventLog.RECORD_COUNTER).tag("outcome", outcome).counter().count());
+    }
+}
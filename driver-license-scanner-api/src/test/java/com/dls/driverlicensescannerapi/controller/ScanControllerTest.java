@@ -1,11 +1,35 @@
 package com.dls.driverlicensescannerapi.controller;
 
+import com.dls.driverlicensescannerapi.config.ApiMediaTypes;
+import com.dls.driverlicensescannerapi.dto.ErrorDetail;
+import com.dls.driverlicensescannerapi.dto.ErrorResponse;
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.MultiCardScanResponse;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
 import com.dls.driverlicensescannerapi.dto.ValidationResult;
 import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.exception.ApiExceptionHandler;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.preprocess.ImageQualityAnalyzer;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitInterceptor;
+import com.dls.driverlicensescannerapi.service.MultiCardScanService;
 import com.dls.driverlicensescannerapi.service.ScanService;
+import com.dls.driverlicensescannerapi.service.TwoSidedScanService;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -15,15 +39,23 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -34,9 +66,20 @@ class ScanControllerTest {
     @Mock
     private ScanService scanService;
 
+    @Mock
+    private TwoSidedScanService twoSidedScanService;
+
+    @Mock
+    private MultiCardScanService multiCardScanService;
+
+    private final ScanMetrics scanMetrics = new ScanMetrics(new SimpleMeterRegistry());
+
+    private final ImageQualityAnalyzer qualityAnalyzer =
+            new ImageQualityAnalyzer(scanMetrics, new CardPreprocessor(scanMetrics, false, 1012, 24_000_000), 100, 50, 225, 20, 0.08, 24_000_000);
+
     @Test
     void returnsBadRequestWhenImageMissing() throws Exception {
-        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService)).build();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
 
         mockMvc.perform(multipart("/license/scan"))
                 .andExpect(status().isBadRequest())
@@ -47,7 +90,7 @@ class ScanControllerTest {
 
     @Test
     void returnsBadRequestWhenImageTooLarge() throws Exception {
-        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService)).build();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
 
         byte[] bytes = new byte[10 * 1024 * 1024 + 1];
         MockMultipartFile file = new MockMultipartFile(
@@ -65,7 +108,7 @@ class ScanControllerTest {
 
     @Test
     void returnsBadRequestWhenFormatInvalid() throws Exception {
-        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService)).build();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
 
         MockMultipartFile file = new MockMultipartFile(
                 "image",
@@ -82,7 +125,7 @@ class ScanControllerTest {
 
     @Test
     void returnsOkForValidImage() throws Exception {
-        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService)).build();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
 
         MockMultipartFile file = new MockMultipartFile(
                 "image",
@@ -102,7 +145,7 @@ class ScanControllerTest {
                 new ValidationResult(List.of(), List.of())
         );
 
-        when(scanService.scan(any(), anyString())).thenReturn(response);
+        when(scanService.scan(any(), any(ScanContext.class))).thenReturn(response);
 
         mockMvc.perform(multipart("/license/scan")
                         .file(file)
@@ -111,8 +154,277 @@ class ScanControllerTest {
                 .andExpect(header().string("Cache-Control", containsString("no-store")))
                 .andExpect(jsonPath("$.requestId", is("req-123")));
 
-        ArgumentCaptor<String> requestIdCaptor = ArgumentCaptor.forClass(String.class);
-        verify(scanService).scan(any(), requestIdCaptor.capture());
-        assertEquals("req-123", requestIdCaptor.getValue());
+        ArgumentCaptor<ScanContext> contextCaptor = ArgumentCaptor.forClass(ScanContext.class);
+        verify(scanService).scan(any(), contextCaptor.capture());
+        assertEquals("req-123", contextCaptor.getValue().requestId());
+    }
+
+    @Test
+    void scansBothSidesTogether() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+        MockMultipartFile front = new MockMultipartFile("front", "front.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        MockMultipartFile back = new MockMultipartFile("back", "back.jpg", "image/jpeg", new byte[] {4, 5, 6});
+        when(twoSidedScanService.scan(any(), any(), any(ScanContext.class))).thenReturn(new ScanResponse(
+                "req-both", "paddle", List.of("paddle"), 1.0, 0.70, 40L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of("AM", "B")),
+                new ValidationResult(List.of(), List.of()), Map.of("categories", "paddle")));
+
+        mockMvc.perform(multipart("/license/scan/two-sided").file(front).file(back).header("X-Request-Id", "req-both"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.fields.categories[1]", is("B")));
+
+        ArgumentCaptor<MultipartFile> backCaptor = ArgumentCaptor.forClass(MultipartFile.class);
+        verify(twoSidedScanService).scan(any(), backCaptor.capture(), any(ScanContext.class));
+        assertEquals("back.jpg", backCaptor.getValue().getOriginalFilename());
+    }
+
+    @Test
+    void scansEveryCardInMultiMode() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+        MockMultipartFile photo = new MockMultipartFile("image", "desk.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        when(multiCardScanService.scan(any(), any(ScanContext.class))).thenReturn(new MultiCardScanResponse(
+                "req-desk",
+                List.of(new ScanResponse("req-desk-1", "paddle", List.of("paddle"), 1.0, 0.70, 40L,
+                        new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of()),
+                        new ValidationResult(List.of(), List.of()))),
+                List.of(new ErrorResponse("req-desk-2",
+                        new ErrorDetail(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE)))));
+
+        mockMvc.perform(multipart("/license/scan").file(photo).param("mode", "multi").header("X-Request-Id", "req-desk"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.requestId", is("req-desk")))
+                .andExpect(jsonPath("$.cards[0].requestId", is("req-desk-1")))
+                .andExpect(jsonPath("$.failures[0].error.code", is(ErrorCatalog.OCR_TIMEOUT_CODE)));
+
+        verifyNoInteractions(scanService);
+    }
+
+    @Test
+    void rejectsUnknownScanMode() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+        MockMultipartFile photo = new MockMultipartFile("image", "desk.jpg", "image/jpeg", new byte[] {1, 2, 3});
+
+        mockMvc.perform(multipart("/license/scan").file(photo).param("mode", "multiple"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.error.code", is(ErrorCatalog.INVALID_MODE_CODE)));
+
+        verifyNoInteractions(scanService, multiCardScanService);
+    }
+
+    @Test
+    void rejectsTwoSidedScanWithoutBack() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+        MockMultipartFile front = new MockMultipartFile("front", "front.jpg", "image/jpeg", new byte[] {1, 2, 3});
+
+        mockMvc.perform(multipart("/license/scan/two-sided").file(front))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.message", is(ErrorCatalog.MISSING_IMAGE_MESSAGE)));
+    }
+
+    @Test
+    void prechecksImageQualityWithoutScanning() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+
+        mockMvc.perform(multipart("/license/precheck").file(flatGreyPhoto("image")).header("X-Request-Id", "req-pre"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.requestId", is("req-pre")))
+                .andExpect(jsonPath("$.analyzed", is(true)))
+                .andExpect(jsonPath("$.acceptable", is(false)))
+                .andExpect(jsonPath("$.issues[0]", is("BLURRY")))
+                .andExpect(jsonPath("$.issues[1]", is("LOW_CONTRAST")));
+
+        verify(scanService, never()).scan(any(), any(ScanContext.class));
+    }
+
+    @Test
+    void qualityGateRejectsUnreadablePhotosBeforeOcr() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, true, false, 30_000, 60_000)).build();
+        MockMultipartFile front = new MockMultipartFile("front", "front.jpg", "image/jpeg", new byte[] {1, 2, 3});
+
+        mockMvc.perform(multipart("/license/scan").file(flatGreyPhoto("image")))
+                .andExpect(status().isUnprocessableContent())
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.error.code", is(ErrorCatalog.IMAGE_QUALITY_TOO_LOW_CODE)));
+        mockMvc.perform(multipart("/license/scan/two-sided").file(front).file(flatGreyPhoto("back")))
+                .andExpect(status().isUnprocessableContent())
+                .andExpect(jsonPath("$.error.code", is(ErrorCatalog.IMAGE_QUALITY_TOO_LOW_CODE)));
+
+        verify(scanService, never()).scan(any(), any(ScanContext.class));
+        verify(twoSidedScanService, never()).scan(any(), any(), any(ScanContext.class));
+    }
+
+    @Test
+    void returnsServerTimingAndContinuesIncomingTrace() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, true, 30_000, 60_000)).build();
+
+        MockMultipartFile file = new MockMultipartFile(
+                "image",
+                "license.jpg",
+                "image/jpeg",
+                new byte[] {1, 2, 3}
+        );
+        ScanResponse response = new ScanResponse(
+                "req-123",
+                "paddle",
+                List.of("paddle"),
+                1.0,
+                0.70,
+                123L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of()),
+                new ValidationResult(List.of(), List.of())
+        );
+        when(scanService.scan(any(), any(ScanContext.class))).thenAnswer(invocation -> {
+            ScanContext context = invocation.getArgument(1);
+            context.timeline().record("ocr", "paddle", 12_000_000L);
+            return response;
+        });
+
+        mockMvc.perform(multipart("/license/scan")
+                        .file(file)
+                        .header("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("ocr_paddle;dur=12.0")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")))
+                .andExpect(jsonPath("$.timings[0].stage", is("ocr")))
+                .andExpect(jsonPath("$.timings[0].engine", is("paddle")));
+
+        ArgumentCaptor<ScanContext> contextCaptor = ArgumentCaptor.forClass(ScanContext.class);
+        verify(scanService).scan(any(), contextCaptor.capture());
+        TraceContext trace = contextCaptor.getValue().trace();
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", trace.traceId());
+        assertNotEquals("00f067aa0ba902b7", trace.spanId());
+    }
+
+    @Test
+    void returnsCborWhenRequested() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000)).build();
+
+        MockMultipartFile file = new MockMultipartFile(
+                "image",
+                "license.jpg",
+                "image/jpeg",
+                new byte[] {1, 2, 3}
+        );
+        ScanResponse response = new ScanResponse(
+                "req-123",
+                "paddle",
+                List.of("paddle"),
+                1.0,
+                0.70,
+                123L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of()),
+                new ValidationResult(List.of(), List.of())
+        );
+        when(scanService.scan(any(), any(ScanContext.class))).thenReturn(response);
+
+        byte[] body = mockMvc.perform(multipart("/license/scan")
+                        .file(file)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        assertEquals("req-123", new CBORMapper().readValue(body, ScanResponse.class).requestId());
+    }
+
+    @Test
+    void returnsSmileErrorWhenRequested() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000))
+                .setControllerAdvice(new ApiExceptionHandler(scanMetrics))
+                .build();
+
+        MockMultipartFile file = new MockMultipartFile(
+                "image",
+                "license.jpg",
+                "image/jpeg",
+                new byte[] {1, 2, 3}
+        );
+        when(scanService.scan(any(), any(ScanContext.class))).thenThrow(
+                new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE));
+
+        byte[] body = mockMvc.perform(multipart("/license/scan")
+                        .file(file)
+                        .accept(ApiMediaTypes.APPLICATION_SMILE))
+                .andExpect(status().isBadGateway())
+                .andExpect(content().contentType(ApiMediaTypes.APPLICATION_SMILE))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        ErrorResponse error = new SmileMapper().readValue(body, ErrorResponse.class);
+        assertEquals(ErrorCatalog.OCR_FAILED_CODE, error.error().code());
+    }
+
+    @Test
+    void returnsTooManyRequestsWithRetryAfterOnceTheClientsBurstIsSpent() throws Exception {
+        // SHA-256 digests of the issued keys client-a and client-b.
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(new SimpleMeterRegistry(), true, 6, 1, "", 100, 600,
+                "e0b107f9f96f69a2b6165a2ac7ae551643a4240881e2c14a01e8e9a56212a39a,"
+                        + "32e00e98e076eaa0011b1e93d848b91009ed571b7ab0c469cf6e39d5b24655fa");
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, scanMetrics, qualityAnalyzer, false, false, 30_000, 60_000))
+                .setControllerAdvice(new ApiExceptionHandler(scanMetrics))
+                .addInterceptors(new RateLimitInterceptor(rateLimiter))
+                .build();
+        MockMultipartFile file = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        when(scanService.scan(any(), any(ScanContext.class))).thenReturn(new ScanResponse(
+                "req-rl", "paddle", List.of("paddle"), 1.0, 0.70, 10L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of()),
+                new ValidationResult(List.of(), List.of())));
+
+        mockMvc.perform(multipart("/license/scan").file(file).header(ClientRateLimiter.API_KEY_HEADER, "client-a"))
+                .andExpect(status().isOk());
+        mockMvc.perform(multipart("/license/scan").file(file)
+                        .header(ClientRateLimiter.API_KEY_HEADER, "client-a")
+                        .header("X-Request-Id", "req-limited"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"))
+                .andExpect(header().string("Cache-Control", containsString("no-store")))
+                .andExpect(jsonPath("$.requestId", is("req-limited")))
+                .andExpect(jsonPath("$.error.code", is(ErrorCatalog.RATE_LIMITED_CODE)));
+        mockMvc.perform(multipart("/license/scan").file(file).header(ClientRateLimiter.API_KEY_HEADER, "client-b"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<ScanContext> contextCaptor = ArgumentCaptor.forClass(ScanContext.class);
+        verify(scanService, times(2)).scan(any(), contextCaptor.capture());
+        assertThat(contextCaptor.getAllValues()).extracting(ScanContext::clientId)
+                .allMatch(clientId -> clientId.startsWith("key:"))
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void recordsRequestStageForEveryFailure() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScanMetrics metrics = new ScanMetrics(registry);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScanController(scanService, twoSidedScanService, multiCardScanService, metrics, qualityAnalyzer, false, false, 30_000, 60_000))
+                .setControllerAdvice(new ApiExceptionHandler(metrics))
+                .build();
+        MockMultipartFile file = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        when(scanService.scan(any(), any(ScanContext.class))).thenThrow(new RateLimitExceededException(Duration.ofSeconds(5)));
+
+        mockMvc.perform(multipart("/license/scan").file(file))
+                .andExpect(status().isTooManyRequests());
+
+        assertEquals(1, registry.get(ScanMetrics.STAGE_TIMER)
+                .tag("stage", ScanMetrics.STAGE_REQUEST)
+                .tag("outcome", ScanMetrics.OUTCOME_ERROR)
+                .timer()
+                .count());
+    }
+
+    private static MockMultipartFile flatGreyPhoto(String part) throws Exception {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return new MockMultipartFile(part, part + ".png", "image/png", bytes.toByteArray());
     }
 }
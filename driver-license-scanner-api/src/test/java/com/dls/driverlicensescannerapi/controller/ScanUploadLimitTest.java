@@ -0,0 +1,71 @@
+package com.dls.driverlicensescannerapi.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.service.TwoSidedScanService;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Runs the real servlet container, since the multipart limits are enforced while the request is
+ * parsed and never reach a standalone MockMvc.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "OCR_WORKER_URL=http://localhost:8000",
+        "X_INTERNAL_KEY=test-internal-key"
+})
+class ScanUploadLimitTest {
+
+    private static final int PHONE_PHOTO_BYTES = 6 * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private TwoSidedScanService twoSidedScanService;
+
+    @Test
+    void acceptsTwoSidesThatTogetherExceedOneFileLimit() {
+        when(twoSidedScanService.scan(any(MultipartFile.class), any(MultipartFile.class), any(ScanContext.class)))
+                .thenReturn(new ScanResponse("req-both", "paddle", List.of("paddle"), 0.9, 0.7, 80L,
+                        new LicenseFields("ANDREA", "CAMPBELL", null, null, null, null, List.of()), null, Map.of()));
+        LinkedMultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("front", photoPart("front.jpg"));
+        body.add("back", photoPart("back.jpg"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<String> response = new RestTemplate().postForEntity(
+                "http://localhost:" + port + "/license/scan/two-sided", new HttpEntity<>(body, headers), String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+    }
+
+    private static HttpEntity<ByteArrayResource> photoPart(String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.IMAGE_JPEG);
+        return new HttpEntity<>(new ByteArrayResource(new byte[PHONE_PHOTO_BYTES]) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        }, headers);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveEngineSelectionPolicyTest {
+
+    @Test
+    void keepsDefaultOrderUntilEnoughSamples() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        AdaptiveEngineSelectionPolicy policy = new AdaptiveEngineSelectionPolicy(statistics, "vision:0", 5, 0);
+
+        record(statistics, "vision", 3, 100, AttemptOutcome.ACCEPTED);
+
+        assertEquals(List.of("paddle", "vision"), policy.order());
+    }
+
+    @Test
+    void prefersEngineWithLowerExpectedCostPerAcceptedScan() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        AdaptiveEngineSelectionPolicy policy = new AdaptiveEngineSelectionPolicy(statistics, "paddle:0,vision:100", 5, 0);
+
+        record(statistics, "paddle", 10, 800, AttemptOutcome.FELL_BACK);
+        record(statistics, "paddle", 2, 800, AttemptOutcome.ACCEPTED);
+        record(statistics, "vision", 10, 400, AttemptOutcome.ACCEPTED);
+
+        assertEquals(List.of("vision", "paddle"), policy.order());
+        assertEquals(1, policy.ranking().get(0).rank());
+    }
+
+    @Test
+    void costWeightKeepsCheapEngineFirst() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        AdaptiveEngineSelectionPolicy policy = new AdaptiveEngineSelectionPolicy(statistics, "vision:5000", 5, 0);
+
+        record(statistics, "paddle", 6, 800, AttemptOutcome.FELL_BACK);
+        record(statistics, "paddle", 4, 800, AttemptOutcome.ACCEPTED);
+        record(statistics, "vision", 10, 400, AttemptOutcome.ACCEPTED);
+
+        assertEquals(List.of("paddle", "vision"), policy.order());
+    }
+
+    @Test
+    void explorationGivesDemotedEngineFirstTries() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        AdaptiveEngineSelectionPolicy policy = new AdaptiveEngineSelectionPolicy(statistics, "vision:5000", 5, 1.0);
+
+        record(statistics, "paddle", 10, 800, AttemptOutcome.ACCEPTED);
+        record(statistics, "vision", 10, 400, AttemptOutcome.ACCEPTED);
+
+        assertEquals(List.of("paddle", "vision"), policy.order());
+        assertEquals(List.of("vision", "paddle"), policy.orderForScan());
+    }
+
+    @Test
+    void acceptanceRateOnlyCountsFirstAttempts() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        AdaptiveEngineSelectionPolicy policy = new AdaptiveEngineSelectionPolicy(statistics, "paddle:0,vision:0", 5, 0);
+
+        record(statistics, "paddle", 10, 400, AttemptOutcome.ACCEPTED);
+        for (int i = 0; i < 10; i++) {
+            statistics.record("vision", 300, AttemptOutcome.ACCEPTED, false);
+        }
+        statistics.record("vision", 300, AttemptOutcome.FELL_BACK, true);
+
+        assertEquals(0.0, statistics.forEngine("vision").snapshot().acceptanceRate());
+        assertEquals(List.of("paddle", "vision"), policy.order());
+    }
+
+    private static void record(
+            EngineStatisticsRegistry statistics,
+            String engine,
+            int times,
+            long latencyMs,
+            AttemptOutcome outcome
+    ) {
+        for (int i = 0; i < times; i++) {
+            statistics.record(engine, latencyMs, outcome);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class EngineBulkheadsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void enginesHaveSeparatePools() {
+        EngineBulkheads bulkheads = new EngineBulkheads(registry, true, 2, 0, 250, "vision:1:0");
+
+        EngineBulkheads.Permit vision = bulkheads.tryAcquire("vision", Duration.ofSeconds(1));
+        assertThat(vision).isNotNull();
+        assertThat(bulkheads.tryAcquire("VISION", Duration.ofSeconds(1))).isNull();
+        EngineBulkheads.Permit paddle = bulkheads.tryAcquire("paddle", Duration.ofSeconds(1));
+        assertThat(paddle).isNotNull();
+        assertThat(registry.get(EngineBulkheads.ACTIVE_GAUGE).tag("engine", "vision").gauge().value()).isEqualTo(1);
+
+        vision.close();
+        assertThat(bulkheads.tryAcquire("vision", Duration.ofSeconds(1))).isNotNull();
+        paddle.close();
+    }
+
+    @Test
+    void releasedPermitIsFreedOnceAndCanBeTakenBack() {
+        EngineBulkheads bulkheads = new EngineBulkheads(registry, true, 1, 0, 250, "");
+        EngineBulkheads.Permit permit = bulkheads.tryAcquire("vision", Duration.ofSeconds(1));
+
+        permit.close();
+        permit.close();
+        EngineBulkheads.Permit other = bulkheads.tryAcquire("vision", Duration.ofSeconds(1));
+        assertThat(other).isNotNull();
+        assertThat(bulkheads.tryAcquire("vision", Duration.ofSeconds(1))).isNull();
+        assertThat(permit.reacquire(Duration.ofSeconds(1))).isFalse();
+
+        other.close();
+        assertThat(permit.reacquire(Duration.ofSeconds(1))).isTrue();
+        assertThat(bulkheads.tryAcquire("vision", Duration.ofSeconds(1))).isNull();
+        permit.close();
+    }
+
+    @Test
+    void queuedCallerGetsTheNextFreePermit() throws Exception {
+        EngineBulkheads bulkheads = new EngineBulkheads(registry, true, 1, 1, 2_000, "");
+        EngineBulkheads.Permit held = bulkheads.tryAcquire("vision", Duration.ofSeconds(1));
+        CountDownLatch queued = new CountDownLatch(1);
+
+        CompletableFuture<EngineBulkheads.Permit> waiter = CompletableFuture.supplyAsync(() -> {
+            queued.countDown();
+            return bulkheads.tryAcquire("vision", Duration.ofSeconds(5));
+        });
+        queued.await();
+        while (registry.get(EngineBulkheads.QUEUED_GAUGE).tag("engine", "vision").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+        long startedAt = System.nanoTime();
+        assertThat(bulkheads.tryAcquire("vision", Duration.ofSeconds(5))).as("queue is full").isNull();
+        assertThat(System.nanoTime() - startedAt).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+
+        held.close();
+        assertThat(waiter.get(1, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void doesNotWaitPastTheRemainingDeadline() {
+        EngineBulkheads bulkheads = new EngineBulkheads(registry, true, 1, 4, 2_000, "");
+        EngineBulkheads.Permit held = bulkheads.tryAcquire("paddle", Duration.ofSeconds(1));
+
+        long startedAt = System.nanoTime();
+        assertThat(bulkheads.tryAcquire("paddle", Duration.ofMillis(20))).isNull();
+        assertThat(System.nanoTime() - startedAt).isLessThan(TimeUnit.MILLISECONDS.toNanos(1_000));
+        held.close();
+    }
+
+    @Test
+    void parsesPerEngineLimits() {
+        assertThat(EngineBulkheads.parseLimits("vision:4:2, Paddle:12", new EngineBulkheads.Limit(16, 8)))
+                .containsEntry("vision", new EngineBulkheads.Limit(4, 2))
+                .containsEntry("paddle", new EngineBulkheads.Limit(12, 8));
+    }
+}
@@ -0,0 +1,56 @@
+package com.dls.driverlicensescannerapi.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class EngineTimeoutPolicyTest {
+
+    @Test
+    void usesCeilingUntilEnoughSamples() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        EngineTimeoutPolicy policy = new EngineTimeoutPolicy(statistics, true, 0.99, 2.0, 500, 20_000, 10);
+
+        record(statistics, "paddle", 9, 300);
+
+        assertEquals(Duration.ofSeconds(20), policy.timeoutFor("paddle"));
+        assertEquals(Duration.ofSeconds(20), policy.timeoutFor(null));
+    }
+
+    @Test
+    void derivesTimeoutFromObservedPercentileWithinBounds() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        EngineTimeoutPolicy policy = new EngineTimeoutPolicy(statistics, true, 0.99, 2.0, 500, 20_000, 10);
+
+        record(statistics, "paddle", 20, 400);
+        record(statistics, "paddle", 1, 900);
+        record(statistics, "vision", 20, 100);
+        record(statistics, "slow", 20, 15_000);
+
+        assertEquals(Duration.ofMillis(1800), policy.timeoutFor("paddle"));
+        assertEquals(Duration.ofMillis(500), policy.timeoutFor("vision"));
+        assertEquals(Duration.ofSeconds(20), policy.timeoutFor("slow"));
+    }
+
+    @Test
+    void attemptFitsOnlyWhenRemainingCoversFloorAndMedianLatency() {
+        EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+        EngineTimeoutPolicy policy = new EngineTimeoutPolicy(statistics, true, 0.99, 2.0, 500, 20_000, 10);
+
+        record(statistics, "paddle", 20, 2_000);
+
+        assertFalse(policy.fits("vision", Duration.ofMillis(400)));
+        assertTrue(policy.fits("vision", Duration.ofMillis(600)));
+        assertFalse(policy.fits("paddle", Duration.ofMillis(1_500)));
+        assertTrue(policy.fits("paddle", Duration.ofMillis(2_500)));
+    }
+
+    private static void record(EngineStatisticsRegistry statistics, String engine, int count, long latencyMs) {
+        for (int i = 0; i < count; i++) {
+            statistics.record(engine, latencyMs, AttemptOutcome.ACCEPTED);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.dls.driverlicensescannerapi.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+class ScanRecordingEndpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordsScanEventsWithoutEnvironmentOrSystemProperties() throws Exception {
+        ScanRecordingEndpoint endpoint = new ScanRecordingEndpoint(30, 1, 16, 1);
+
+        WebEndpointResponse<ScanRecordingEndpoint.RecordingStarted> started = endpoint.start(5);
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody().seconds()).isEqualTo(1);
+        long id = started.getBody().id();
+
+        WebEndpointResponse<Resource> result = endpoint.dump(id);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (result.getStatus() == ScanRecordingEndpoint.STATUS_CONFLICT && System.nanoTime() < deadline) {
+            OcrAttemptEvent event = new OcrAttemptEvent();
+            event.requestId = "req-jfr";
+            event.engine = "paddle";
+            event.imageBytes = 1024;
+            event.outcome = "success";
+            event.commit();
+            Thread.sleep(20);
+            result = endpoint.dump(id);
+        }
+
+        assertThat(result.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        Path file = tempDir.resolve("scan.jfr");
+        Files.write(file, result.getBody().getContentAsByteArray());
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> attempts = events.stream()
+                .filter(event -> event.getEventType().getName().equals(ScanEvents.PREFIX + "OcrAttempt"))
+                .toList();
+        assertThat(attempts).isNotEmpty();
+        assertThat(attempts.get(0).getString("requestId")).isEqualTo("req-jfr");
+        assertThat(attempts.get(0).getLong("imageBytes")).isEqualTo(1024);
+        assertThat(events)
+                .extracting(event -> event.getEventType().getName())
+                .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+        assertThat(endpoint.dump(id).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void capsConcurrentRecordings() {
+        ScanRecordingEndpoint endpoint = new ScanRecordingEndpoint(60, 60, 16, 1);
+        try {
+            long id = endpoint.start(null).getBody().id();
+
+            assertThat(endpoint.start(1).getStatus()).isEqualTo(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+            assertThat(endpoint.dump(id).getStatus()).isEqualTo(ScanRecordingEndpoint.STATUS_CONFLICT);
+        } finally {
+            endpoint.close();
+        }
+    }
+
+    @Test
+    void returnsNotFoundForUnknownRecording() {
+        ScanRecordingEndpoint endpoint = new ScanRecordingEndpoint(30, 120, 16, 1);
+
+        assertThat(endpoint.dump(-1).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class FailureLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(FailureLogTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void logsFirstFailurePerWindowAndSummarisesTheRest() throws InterruptedException {
+        FailureLog log = new FailureLog(logger, Duration.ofMillis(200));
+
+        for (int i = 0; i < 50; i++) {
+            log.warn("OCR request timeout", "vision", "req-" + i);
+        }
+        log.warn("OCR request timeout", "paddle", "req-p");
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+                "OCR request timeout requestId=req-0 engine=vision",
+                "OCR request timeout requestId=req-p engine=paddle");
+
+        Thread.sleep(250);
+        log.warn("OCR request timeout", "vision", "req-next");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).endsWith(
+                "OCR request timeout engine=vision repeated 49 times in the last 0s",
+                "OCR request timeout requestId=req-next engine=vision");
+        assertThat(appender.list).allMatch(event -> event.getThrowableProxy() == null);
+    }
+
+    @Test
+    void expectedFailuresCarryNoStackTrace() {
+        OcrClientException timeout = new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE);
+        OcrClientException unexpected = new OcrClientException(
+                ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE, new IllegalStateException());
+
+        assertThat(timeout.getStackTrace()).isEmpty();
+        assertThat(new OcrResponseRejectedException("truncated response frame").getStackTrace()).isEmpty();
+        assertThat(unexpected.getStackTrace()).isNotEmpty();
+    }
+}
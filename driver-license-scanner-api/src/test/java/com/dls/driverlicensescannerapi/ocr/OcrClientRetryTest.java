@@ -0,0 +1,197 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dls.driverlicensescannerapi.engine.EngineBulkheads;
+import com.dls.driverlicensescannerapi.engine.EngineStatisticsRegistry;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+
+class OcrClientRetryTest {
+
+    private static final byte[] RESPONSE = """
+            {"requestId":"req-1","engine":"paddle","confidence":0.9,"lines":[{"text":"1. CAMPBELL","confidence":0.9}],"processingTimeMs":5}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MockMultipartFile image = new MockMultipartFile("image", "licence.jpg", "image/jpeg", new byte[] {1, 2, 3});
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void retriesRefusedConnectsOnTheSameEngine() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        OcrClient client = client("http://127.0.0.1:" + port, 10);
+
+        assertThrows(OcrTransportException.class, () -> client.scan(image, "req-1", "paddle"));
+
+        assertThat(retries("paddle", "retried")).isEqualTo(2);
+        assertThat(registry.get(OcrRetryPolicy.BUDGET_GAUGE).gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    void retriesAConnectionResetOnTheSameEngine() throws IOException {
+        AtomicInteger requests = startWorkerThatDropsTheFirstRequest();
+        OcrClient client = client("http://127.0.0.1:" + server.getAddress().getPort(), 10, "");
+
+        OcrResult result = client.scan(image, "req-1", "paddle");
+
+        assertThat(result.lines()).extracting(OcrLine::text).containsExactly("1. CAMPBELL");
+        assertThat(requests).hasValue(2);
+        assertThat(retries("paddle", "retried")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotResendALostRequestToAnEngineLeftOutOfRetries() throws IOException {
+        AtomicInteger requests = startWorkerThatDropsTheFirstRequest();
+        OcrClient client = client("http://127.0.0.1:" + server.getAddress().getPort(), 10, "paddle");
+
+        OcrClientException ex = assertThrows(OcrClientException.class, () -> client.scan(image, "req-1", "vision"));
+
+        assertThat(ex.getCode()).isEqualTo(ErrorCatalog.OCR_FAILED_CODE);
+        assertThat(requests).hasValue(1);
+        assertThat(registry.find(ScanMetrics.OCR_RETRY_COUNTER).counter()).isNull();
+    }
+
+    @Test
+    void reportsAWorkerThatRanOutOfDeadlineAsATimeout() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ocr", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{\"error\":{\"code\":\"OCR_TIMEOUT\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(504, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        OcrClient client = client("http://127.0.0.1:" + server.getAddress().getPort(), 10);
+
+        OcrClientException ex = assertThrows(OcrClientException.class, () -> client.scan(image, "req-1", "paddle"));
+
+        assertThat(ex.getCode()).isEqualTo(ErrorCatalog.OCR_TIMEOUT_CODE);
+    }
+
+    @Test
+    void releasesTheBulkheadPermitWhileBackingOff() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        OcrClient client = client("http://127.0.0.1:" + port, 10);
+        EngineBulkheads bulkheads = new EngineBulkheads(registry, true, 1, 0, 250, "");
+        EngineBulkheads.Permit permit = bulkheads.tryAcquire("paddle", Duration.ofSeconds(1));
+        List<Boolean> heldDuringBackoff = new ArrayList<>();
+        EngineBulkheads.Permit observed = new EngineBulkheads.Permit() {
+            @Override
+            public void close() {
+                permit.close();
+                EngineBulkheads.Permit other = bulkheads.tryAcquire("paddle", Duration.ZERO);
+                heldDuringBackoff.add(other == null);
+                if (other != null) {
+                    other.close();
+                }
+            }
+
+            @Override
+            public boolean reacquire(Duration remaining) {
+                return permit.reacquire(remaining);
+            }
+        };
+
+        assertThrows(OcrTransportException.class,
+                () -> client.scan(image, ScanContext.of("req-1"), "paddle", observed));
+
+        assertThat(heldDuringBackoff).containsExactly(false, false);
+        assertThat(bulkheads.tryAcquire("paddle", Duration.ZERO)).isNull();
+        permit.close();
+    }
+
+    @Test
+    void stopsRetryingOnceTheBudgetIsSpent() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        OcrClient client = client("http://127.0.0.1:" + closedPort, 1);
+
+        OcrClientException first = assertThrows(OcrClientException.class, () -> client.scan(image, "req-1", "vision"));
+        assertThrows(OcrClientException.class, () -> client.scan(image, "req-2", "vision"));
+
+        assertThat(first.getCode()).isEqualTo(ErrorCatalog.OCR_FAILED_CODE);
+        assertThat(retries("vision", "retried")).isEqualTo(1);
+        assertThat(retries("vision", "budget_exhausted")).isEqualTo(2);
+    }
+
+    /**
+     * Reads the first request and closes the connection without answering, then answers the rest.
+     */
+    private AtomicInteger startWorkerThatDropsTheFirstRequest() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ocr", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (requests.incrementAndGet() == 1) {
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(RESPONSE);
+            }
+        });
+        server.start();
+        return requests;
+    }
+
+    private OcrClient client(String workerUrl, int budget) {
+        return client(workerUrl, budget, "");
+    }
+
+    private OcrClient client(String workerUrl, int budget, String retryEngines) {
+        EngineTimeoutPolicy timeoutPolicy = new EngineTimeoutPolicy(new EngineStatisticsRegistry(50), false, 0.99, 2.0, 500, 5_000, 20);
+        return new OcrClient(
+                new RestTemplateBuilder(),
+                new OcrResponseDecoder(500, 512, 1024 * 1024),
+                new ScanMetrics(registry),
+                timeoutPolicy,
+                new OcrRetryPolicy(registry, 2, 5, 20, 0.0, budget, retryEngines),
+                workerUrl,
+                "key",
+                1
+        );
+    }
+
+    private double retries(String engine, String outcome) {
+        return registry.get(ScanMetrics.OCR_RETRY_COUNTER).tag("engine", engine).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,72 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OcrResponseDecoderTest {
+
+    private final OcrResponseDecoder decoder = new OcrResponseDecoder(3, 20, 1024);
+
+    @Test
+    void decodesUsedFieldsAndSkipsRawText() {
+        OcrResult result = decoder.decode(json("""
+                {"requestId":"req-1","engine":"paddle","confidence":0.82,
+                 "rawText":"CAMPBELL\\nANDREA","debug":{"nested":[1,2,3]},
+                 "lines":[{"text":"1. CAMPBELL","confidence":0.93,"box":[0,0,1,1]},
+                          {"text":"2. ANDREA","confidence":0.91}],
+                 "processingTimeMs":620}
+                """));
+
+        assertEquals("req-1", result.requestId());
+        assertEquals("paddle", result.engine());
+        assertEquals(0.82, result.confidence());
+        assertEquals(620L, result.processingTimeMs());
+        assertEquals(List.of(new OcrLine("1. CAMPBELL", 0.93), new OcrLine("2. ANDREA", 0.91)), result.lines());
+        assertNull(result.rawText());
+    }
+
+    @Test
+    void returnsNullForEmptyBody() {
+        assertNull(decoder.decode(json("")));
+    }
+
+    @Test
+    void rejectsTooManyLines() {
+        OcrResponseRejectedException ex = assertThrows(OcrResponseRejectedException.class, () -> decoder.decode(json("""
+                {"lines":[{"text":"a"},{"text":"b"},{"text":"c"},{"text":"d"}]}
+                """)));
+
+        assertEquals("OCR_FAILED", ex.getCode());
+    }
+
+    @Test
+    void rejectsOverlongLine() {
+        assertThrows(OcrResponseRejectedException.class, () -> decoder.decode(json("""
+                {"lines":[{"text":"THIS LINE IS FAR TOO LONG TO BE A LICENCE FIELD"}]}
+                """)));
+    }
+
+    @Test
+    void rejectsOversizedResponse() {
+        String padding = "x".repeat(2048);
+        assertThrows(OcrResponseRejectedException.class, () -> decoder.decode(json("""
+                {"rawText":"%s","lines":[]}
+                """.formatted(padding))));
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThrows(OcrResponseRejectedException.class, () -> decoder.decode(json("{\"lines\":[{\"text\":")));
+    }
+
+    private static InputStream json(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dls.driverlicensescannerapi.stub.CannedOcrResults;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class UnixSocketFrameCodecTest {
+
+    private static final OcrResponseLimits LIMITS = new OcrResponseLimits(500, 512, 1024 * 1024);
+
+    @Test
+    void decodesAResponseFrame() {
+        ByteBuffer frame = UnixSocketFrameCodec.encodeResponse(UnixSocketFrameCodec.STATUS_OK,
+                CannedOcrResults.licence("req-1", "paddle"));
+        frame.getInt();
+
+        OcrResult result = UnixSocketFrameCodec.decodeResponse(frame, LIMITS);
+
+        assertEquals("req-1", result.requestId());
+        assertEquals("1. CAMPBELL", result.lines().get(1).text());
+    }
+
+    @Test
+    void rejectsALineLongerThanTheRestOfTheFrame() {
+        ByteBuffer frame = ByteBuffer.allocate(64)
+                .put(UnixSocketFrameCodec.VERSION)
+                .put(UnixSocketFrameCodec.STATUS_OK)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putDouble(0.9)
+                .putLong(12L)
+                .putInt(1)
+                .putShort((short) 40)
+                .put("DL".getBytes(StandardCharsets.UTF_8))
+                .flip();
+
+        OcrResponseRejectedException ex = assertThrows(OcrResponseRejectedException.class,
+                () -> UnixSocketFrameCodec.decodeResponse(frame, LIMITS));
+
+        assertEquals("truncated response frame", ex.getReason());
+    }
+}
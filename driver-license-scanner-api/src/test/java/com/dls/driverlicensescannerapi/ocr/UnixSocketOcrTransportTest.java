@@ -0,0 +1,191 @@
+package com.dls.driverlicensescannerapi.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.stub.CannedOcrResults;
+import com.dls.driverlicensescannerapi.stub.UnixSocketOcrStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnixSocketOcrTransportTest {
+
+    private static final OcrResponseLimits LIMITS = new OcrResponseLimits(500, 512, 1024 * 1024);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OcrRetryPolicy retryPolicy = new OcrRetryPolicy(registry, 2, 5, 20, 0.0, 10, "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exchangesFramesOverPersistentConnection() throws Exception {
+        Path socket = tempDir.resolve("ocr.sock");
+        AtomicInteger imageBytes = new AtomicInteger();
+        try (UnixSocketOcrStubServer ignored = new UnixSocketOcrStubServer(socket, request -> {
+                 imageBytes.addAndGet(request.image().length);
+                 return CannedOcrResults.licence(request.requestId(), request.engine());
+             });
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(socket, 2, Duration.ofSeconds(5), LIMITS, retryPolicy)) {
+
+            OcrResult first = transport.scan("req-1", "vision", "key", new byte[] {1, 2, 3});
+            OcrResult second = transport.scan("req-2", null, "key", new byte[] {4, 5});
+
+            assertEquals("req-1", first.requestId());
+            assertEquals("vision", first.engine());
+            assertEquals("1. CAMPBELL", first.lines().get(1).text());
+            assertEquals("paddle", second.engine());
+            assertEquals(5, imageBytes.get());
+        }
+    }
+
+    @Test
+    void mapsWorkerFailureToOcrFailed() throws Exception {
+        Path socket = tempDir.resolve("failing.sock");
+        try (UnixSocketOcrStubServer ignored = new UnixSocketOcrStubServer(socket, request -> {
+                 throw new IllegalStateException("engine crashed");
+             });
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(socket, 2, Duration.ofSeconds(5), LIMITS, retryPolicy)) {
+
+            OcrClientException ex = assertThrows(OcrClientException.class,
+                    () -> transport.scan("req-1", "paddle", "key", new byte[] {1}));
+
+            assertEquals(ErrorCatalog.OCR_FAILED_CODE, ex.getCode());
+        }
+    }
+
+    @Test
+    void rejectsResponsesAboveLineLimit() throws Exception {
+        Path socket = tempDir.resolve("limits.sock");
+        try (UnixSocketOcrStubServer ignored = UnixSocketOcrStubServer.canned(socket);
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(
+                     socket, 2, Duration.ofSeconds(5), new OcrResponseLimits(3, 512, 1024 * 1024), retryPolicy)) {
+
+            assertThrows(OcrResponseRejectedException.class,
+                    () -> transport.scan("req-1", "paddle", "key", new byte[] {1}));
+        }
+    }
+
+    @Test
+    void failsWhenNoWorkerIsListening() {
+        try (UnixSocketOcrTransport transport = new UnixSocketOcrTransport(
+                tempDir.resolve("missing.sock"), 2, Duration.ofSeconds(5), LIMITS, retryPolicy)) {
+
+            OcrClientException ex = assertThrows(OcrClientException.class,
+                    () -> transport.scan("req-1", "paddle", "key", new byte[] {1}));
+
+            assertEquals(ErrorCatalog.OCR_FAILED_CODE, ex.getCode());
+        }
+    }
+
+    @Test
+    void retriesOnFreshConnectionWhenWorkerDroppedTheIdleOne() throws Exception {
+        Path socket = tempDir.resolve("idle.sock");
+        try (OneExchangeWorker worker = new OneExchangeWorker(socket, false);
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(socket, 2, Duration.ofSeconds(5), LIMITS, retryPolicy)) {
+
+            transport.scan("req-1", "paddle", "key", new byte[] {1});
+            worker.awaitClosed();
+            OcrResult second = transport.scan("req-2", "paddle", "key", new byte[] {2});
+
+            assertEquals("req-2", second.requestId());
+            assertEquals(2, worker.requests.get());
+            assertEquals(9, registry.get(OcrRetryPolicy.BUDGET_GAUGE).gauge().value());
+        }
+    }
+
+    @Test
+    void doesNotReplaceTheIdleConnectionOnceTheRetryBudgetIsSpent() throws Exception {
+        Path socket = tempDir.resolve("spent.sock");
+        OcrRetryPolicy spent = new OcrRetryPolicy(registry, 2, 5, 20, 0.0, 0, "");
+        try (OneExchangeWorker worker = new OneExchangeWorker(socket, false);
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(socket, 2, Duration.ofSeconds(5), LIMITS, spent)) {
+
+            transport.scan("req-1", "paddle", "key", new byte[] {1});
+            worker.awaitClosed();
+
+            assertThrows(OcrTransportException.class, () -> transport.scan("req-2", "paddle", "key", new byte[] {2}));
+            assertEquals(1, worker.requests.get());
+        }
+    }
+
+    @Test
+    void doesNotResendARequestTheWorkerAlreadyReceived() throws Exception {
+        Path socket = tempDir.resolve("dropped.sock");
+        try (OneExchangeWorker worker = new OneExchangeWorker(socket, true);
+             UnixSocketOcrTransport transport = new UnixSocketOcrTransport(socket, 2, Duration.ofSeconds(5), LIMITS, retryPolicy)) {
+
+            transport.scan("req-1", "paddle", "key", new byte[] {1});
+            OcrTransportException ex = assertThrows(OcrTransportException.class,
+                    () -> transport.scan("req-2", "paddle", "key", new byte[] {2}));
+
+            assertEquals(ErrorCatalog.OCR_FAILED_CODE, ex.getCode());
+            assertTrue(ex.requestSent());
+            assertEquals(2, worker.requests.get());
+        }
+    }
+
+    /**
+     * Answers the first request on each connection, then closes it: straight away, or after
+     * reading the next request when {@code readNext} is set.
+     */
+    private static final class OneExchangeWorker implements AutoCloseable {
+
+        final AtomicInteger requests = new AtomicInteger();
+        private final ServerSocketChannel server;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final Thread thread;
+
+        OneExchangeWorker(Path socket, boolean readNext) throws IOException {
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socket));
+            thread = new Thread(() -> {
+                while (server.isOpen()) {
+                    try (SocketChannel channel = server.accept()) {
+                        ByteBuffer frame = UnixSocketFrameCodec.readFrame(channel, 1 << 20);
+                        requests.incrementAndGet();
+                        UnixSocketFrameCodec.RequestFrame request = UnixSocketFrameCodec.decodeRequest(frame);
+                        ByteBuffer response = UnixSocketFrameCodec.encodeResponse(UnixSocketFrameCodec.STATUS_OK,
+                                CannedOcrResults.licence(request.requestId(), request.engine()));
+                        while (response.hasRemaining()) {
+                            channel.write(response);
+                        }
+                        if (readNext && UnixSocketFrameCodec.readFrame(channel, 1 << 20) != null) {
+                            requests.incrementAndGet();
+                        }
+                    } catch (IOException ex) {
+                        return;
+                    } finally {
+                        closed.countDown();
+                    }
+                }
+            }, "ocr-one-exchange");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void awaitClosed() throws InterruptedException {
+            closed.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() throws Exception {
+            server.close();
+            thread.join(5_000);
+        }
+    }
+}
@@ -2,10 +2,22 @@ package com.dls.driverlicensescannerapi.parser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
+import com.dls.driverlicensescannerapi.corpus.LicenceCase;
+import com.dls.driverlicensescannerapi.corpus.OcrNoise;
+import com.dls.driverlicensescannerapi.corpus.SyntheticLicenceCorpus;
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
 import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
 
 class LicenseFieldParserTest {
@@ -35,6 +47,15 @@ class LicenseFieldParserTest {
         assertEquals(List.of("AM", "B1", "B"), fields.categories());
     }
 
+    @Test
+    void parsesCleanSyntheticCorpusExactly() {
+        for (LicenceCase licenceCase : SyntheticLicenceCorpus.generate(7L, 200, OcrNoise.NONE)) {
+            LicenseFields fields = LicenseFieldParser.parse(licenceCase.lines());
+
+            assertEquals(licenceCase.expected(), fields, licenceCase.lines().toString());
+        }
+    }
+
     @Test
     void returnsNullsWhenNoLabelsPresent() {
         List<OcrLine> lines = List.of(new OcrLine("DRIVING LICENCE", 0.9));
@@ -81,4 +102,116 @@ class LicenseFieldParserTest {
         assertEquals("123 CASTLEROCK ROAD, COLERAINE, CO. LONDONDERRY, BT51 3TB", fields.addressLine());
         assertEquals(List.of("AM", "A", "B1", "B", "f", "k", "n", "p", "q"), fields.categories());
     }
+
+    @Test
+    void readsHeldCategoriesFromTheBackTable() {
+        List<OcrLine> lines = List.of(
+                new OcrLine("9. 10. 11. 12.", 0.90),
+                new OcrLine("AM 19.03.2014 30.11.2031", 0.95),
+                new OcrLine("A1", 0.80),
+                new OcrLine("B 19.03.2014 30.11.2031 01", 0.96),
+                new OcrLine("C1", 0.80),
+                new OcrLine("f. 19.03.2014 30.11.2031", 0.91),
+                new OcrLine("1 19.03.2014 30.11.2031", 0.88),
+                new OcrLine("12. Codes 01 Eyesight correction", 0.70)
+        );
+
+        assertEquals(List.of("AM", "B", "f", "l"), LicenseFieldParser.parseBackCategories(lines));
+    }
+
+    @Test
+    void ignoresLinesPastTheLimitsAndTruncatesLongLines() {
+        List<OcrLine> lines = List.of(
+                new OcrLine("1. CAMPBELL" + " X".repeat(100), 0.99),
+                new OcrLine("2. ANDREA", 0.99),
+                new OcrLine("5. 99999999", 0.99)
+        );
+
+        LicenseFields fields = LicenseFieldParser.parse(lines, new ParserLimits(2, 11));
+
+        assertEquals("CAMPBELL", fields.lastName());
+        assertEquals("ANDREA", fields.firstName());
+        assertNull(fields.licenceNumber());
+    }
+
+    @Test
+    void parsesAdversarialOcrOutputInBoundedTime() {
+        String hostile = "1 1 1 ".repeat(20_000) + "12.12.12.12.".repeat(20_000) + "4".repeat(100_000);
+        List<OcrLine> lines = Collections.nCopies(100_000, new OcrLine(hostile, 0.5));
+
+        LicenseFields fields = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> LicenseFieldParser.parse(lines));
+
+        assertEquals(LicenseFieldParser.parse(lines.subList(0, 200).stream()
+                .map(line -> new OcrLine(line.text().substring(0, 256), line.confidence()))
+                .toList()), fields);
+    }
+
+    @Test
+    void scannersMatchTheRegexesTheyReplace() {
+        Pattern label = Pattern.compile(
+                "^(?<label>(?:1|2|3|4a|4b|5|7|8|9))(?=\\s|[\\.)]|$)\\s*[\\.)]?\\s*(?<value>.*)$", Pattern.CASE_INSENSITIVE);
+        Pattern inlineLabel = Pattern.compile(
+                "(?<![A-Z0-9])(?<label>(?:1|2|3|4a|4b|5|7|8|9))(?=\\s|[\\.)]|$)", Pattern.CASE_INSENSITIVE);
+        Pattern date = Pattern.compile("(?<!\\d)(\\d{2})[./-](\\d{2})[./-](\\d{2,4})(?!\\d)");
+        Pattern lenientDate = Pattern.compile(
+                "(?<![0-9])([0-9OISB]{2})[./-]([0-9OISB]{2})[./-]([0-9OISB]{2,4})(?![0-9])", Pattern.CASE_INSENSITIVE);
+        String alphabet = "0123456789412. )-/\tabABoOsSiIxX";
+        Random random = new Random(48L);
+
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String line = text.toString();
+
+            Optional<String> expectedLabel = Optional.empty();
+            Matcher full = label.matcher(line);
+            Matcher inline = inlineLabel.matcher(line);
+            if (full.matches()) {
+                expectedLabel = Optional.of(full.group("label").toLowerCase(Locale.ROOT) + "|"
+                        + LabelIndex.lineNormalize(full.group("value")));
+            } else if (inline.find()) {
+                expectedLabel = Optional.of(inline.group("label").toLowerCase(Locale.ROOT) + "|"
+                        + LabelIndex.lineNormalize(line.substring(inline.end()).replaceFirst("^[\\.)\\s]+", "")));
+            }
+            assertEquals(expectedLabel, scannedLabel(line), line);
+            assertEquals(full.matches(), LabelIndex.isLabelLine(line), line);
+
+            assertEquals(dates(date.matcher(line)), dates(line, false), line);
+            assertEquals(dates(lenientDate.matcher(line)), dates(line, true), line);
+            assertEquals(line.replaceAll("(?<=\\d)(?=[A-Z])", " ").replaceAll("(?<=[A-Z])(?=\\d)", " "),
+                    AddressAssembler.separateDigitsFromLetters(line), line);
+        }
+    }
+
+    private static Optional<String> scannedLabel(String line) {
+        LabelIndex index = LabelIndex.from(List.of(line));
+        for (String label : List.of("1", "2", "3", "4a", "4b", "5", "7", "8", "9")) {
+            Optional<LabelIndex.LabelMatch> match = index.labelMatch(label);
+            if (match.isPresent()) {
+                return Optional.of(label + "|" + match.get().value());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<String> dates(Matcher matcher) {
+        List<String> dates = new ArrayList<>();
+        while (matcher.find()) {
+            dates.add(matcher.group(1) + "." + matcher.group(2) + "." + matcher.group(3));
+        }
+        return dates;
+    }
+
+    private static List<String> dates(String line, boolean lenient) {
+        List<String> dates = new ArrayList<>();
+        for (DateParser.DateMatch match = DateParser.find(line, 0, lenient); match != null;
+                match = DateParser.find(line, match.end(), lenient)) {
+            dates.add(match.day() + "." + match.month() + "." + match.year());
+        }
+        return dates;
+    }
 }
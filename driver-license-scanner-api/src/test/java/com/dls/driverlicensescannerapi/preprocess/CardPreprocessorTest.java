@@ -0,0 +1,202 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+class CardPreprocessorTest {
+
+    private static final Color CARD = new Color(236, 214, 222);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CardPreprocessor preprocessor = new CardPreprocessor(new ScanMetrics(registry), true, 1012, 24_000_000);
+
+    @Test
+    void cropsTiltedCardToNormalizedSize() throws IOException {
+        MockMultipartFile photo = upload(photo(new int[] {310, 1360, 1310, 260}, new int[] {240, 300, 960, 880}), "png");
+
+        MultipartFile prepared = preprocessor.prepare(photo, ScanContext.of("req-crop"));
+
+        assertThat(prepared).isNotSameAs(photo);
+        assertThat(prepared.getContentType()).isEqualTo("image/jpeg");
+        assertThat(prepared.getOriginalFilename()).isEqualTo("licence.jpg");
+        assertThat(prepared.getSize()).isLessThan(photo.getSize());
+        BufferedImage card = ImageIO.read(new ByteArrayInputStream(prepared.getBytes()));
+        assertThat(card.getWidth()).isEqualTo(1012);
+        assertThat(card.getHeight()).isEqualTo(638);
+        for (int[] point : new int[][] {{25, 25}, {985, 25}, {985, 612}, {25, 612}}) {
+            assertThat(new Color(card.getRGB(point[0], point[1])).getRed())
+                    .as("pixel %s,%s", point[0], point[1])
+                    .isGreaterThan(200);
+        }
+        assertThat(outcomeCount(CardPreprocessor.OUTCOME_CROPPED)).isEqualTo(1);
+    }
+
+    @Test
+    void splitsPhotoOfSeveralCardsInReadingOrder() throws IOException {
+        MockMultipartFile photo = upload(desk(new int[][] {{140, 120, 440}, {820, 160, 560}, {420, 700, 500}}), "png");
+
+        List<MultipartFile> cards = preprocessor.split(photo, ScanContext.of("req-desk"), 6);
+
+        assertThat(cards).hasSize(3);
+        int[] expectedWidths = {440, 560, 500};
+        for (int i = 0; i < cards.size(); i++) {
+            BufferedImage card = ImageIO.read(new ByteArrayInputStream(cards.get(i).getBytes()));
+            assertThat(card.getWidth()).as("card %s", i + 1).isCloseTo(expectedWidths[i], within(20));
+            assertThat(new Color(card.getRGB(25, card.getHeight() - 25)).getRed()).isGreaterThan(200);
+        }
+        assertThat(outcomeCount(CardPreprocessor.OUTCOME_CROPPED)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEachCardOfAFullResolutionPhotoNearTheCropWidth() throws IOException {
+        int[][] row = {{160, 1260, 800}, {1120, 1260, 800}, {2080, 1260, 800}, {3040, 1260, 800}};
+        MockMultipartFile photo = upload(desk(4032, 3024, row), "jpg");
+
+        List<MultipartFile> cards = preprocessor.split(photo, ScanContext.of("req-row"), 4);
+
+        assertThat(cards).hasSize(4);
+        for (int i = 0; i < cards.size(); i++) {
+            BufferedImage card = ImageIO.read(new ByteArrayInputStream(cards.get(i).getBytes()));
+            assertThat(card.getWidth()).as("card %s", i + 1).isGreaterThanOrEqualTo(750);
+        }
+    }
+
+    @Test
+    void splitKeepsAtMostTheRequestedNumberOfCards() throws IOException {
+        MockMultipartFile photo = upload(desk(new int[][] {{140, 120, 440}, {820, 160, 560}, {420, 700, 500}}), "png");
+
+        assertThat(preprocessor.split(photo, ScanContext.of("req-desk"), 2)).hasSize(2);
+    }
+
+    @Test
+    void leavesSingleUploadsAloneWhenDisabledButStillSplits() throws IOException {
+        CardPreprocessor disabled = new CardPreprocessor(new ScanMetrics(registry), false, 1012, 24_000_000);
+        MockMultipartFile photo = upload(desk(new int[][] {{140, 120, 440}, {820, 160, 560}}), "png");
+
+        assertThat(disabled.prepare(photo, ScanContext.of("req-off"))).isSameAs(photo);
+        assertThat(disabled.split(photo, ScanContext.of("req-off"), 6)).hasSize(2);
+    }
+
+    @Test
+    void passesThroughWhenNoCardIsFound() throws IOException {
+        BufferedImage clutter = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        Graphics2D graphics = clutter.createGraphics();
+        for (int i = 0; i < 400; i++) {
+            graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            graphics.fillOval(random.nextInt(1200), random.nextInt(900), 20 + random.nextInt(80), 20 + random.nextInt(80));
+        }
+        graphics.dispose();
+        MockMultipartFile photo = upload(clutter, "jpg");
+
+        assertThat(preprocessor.prepare(photo, ScanContext.of("req-none"))).isSameAs(photo);
+        assertThat(outcomeCount(CardPreprocessor.OUTCOME_NOT_FOUND)).isEqualTo(1);
+    }
+
+    @Test
+    void passesThroughUndecodableUploads() {
+        MockMultipartFile upload = new MockMultipartFile("image", "licence.webp", "image/webp", new byte[] {1, 2, 3});
+
+        assertThat(preprocessor.prepare(upload, ScanContext.of("req-webp"))).isSameAs(upload);
+        assertThat(outcomeCount(CardPreprocessor.OUTCOME_UNSUPPORTED)).isEqualTo(1);
+    }
+
+    @Test
+    void warmUpCropsItsSyntheticCardWithoutRecordingMetrics() {
+        assertThat(preprocessor.warmUp(2, Deadline.NONE)).isEqualTo(2);
+        assertThat(registry.find(ScanMetrics.STAGE_TIMER).timers()).isEmpty();
+    }
+
+    private long outcomeCount(String outcome) {
+        return registry.get(ScanMetrics.STAGE_TIMER)
+                .tag("stage", ScanMetrics.STAGE_PREPROCESS)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    /**
+     * A card with printed text on a grainy desk, with a pen lying next to it.
+     */
+    private static BufferedImage photo(int[] xs, int[] ys) {
+        BufferedImage photo = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                int grain = 90 + random.nextInt(24);
+                photo.setRGB(x, y, new Color(grain, grain - 20, grain - 40).getRGB());
+            }
+        }
+        Graphics2D graphics = photo.createGraphics();
+        graphics.setColor(new Color(20, 30, 120));
+        graphics.setStroke(new BasicStroke(14));
+        graphics.drawLine(1450, 150, 1520, 1000);
+        graphics.setColor(CARD);
+        graphics.fillPolygon(new Polygon(xs, ys, 4));
+        graphics.setColor(new Color(40, 40, 40));
+        for (int row = 0; row < 8; row++) {
+            graphics.fillRect(620 + row * 6, 380 + row * 60, 420 - row * 20, 22);
+        }
+        graphics.fillRect(380, 380, 200, 260);
+        graphics.dispose();
+        return photo;
+    }
+
+    /**
+     * Upright cards, each {x, y, width} with text printed on it, on a grainy desk.
+     */
+    private static BufferedImage desk(int[][] cards) {
+        return desk(1600, 1200, cards);
+    }
+
+    private static BufferedImage desk(int width, int height, int[][] cards) {
+        BufferedImage photo = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(11);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                int grain = 90 + random.nextInt(24);
+                photo.setRGB(x, y, new Color(grain, grain - 20, grain - 40).getRGB());
+            }
+        }
+        Graphics2D graphics = photo.createGraphics();
+        for (int[] card : cards) {
+            int cardWidth = card[2];
+            int cardHeight = (int) Math.round(cardWidth / 1.586);
+            graphics.setColor(CARD);
+            graphics.fillRect(card[0], card[1], cardWidth, cardHeight);
+            graphics.setColor(new Color(40, 40, 40));
+            graphics.fillRect(card[0] + cardWidth / 12, card[1] + cardHeight / 4, cardWidth / 4, cardHeight / 2);
+            for (int row = 0; row < 5; row++) {
+                graphics.fillRect(card[0] + cardWidth * 2 / 5, card[1] + cardHeight / 4 + row * cardHeight / 9,
+                        cardWidth / 2 - row * cardWidth / 20, cardHeight / 20);
+            }
+        }
+        graphics.dispose();
+        return photo;
+    }
+
+    private static MockMultipartFile upload(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, format, bytes);
+        return new MockMultipartFile("image", "licence." + format, "image/" + format, bytes.toByteArray());
+    }
+}
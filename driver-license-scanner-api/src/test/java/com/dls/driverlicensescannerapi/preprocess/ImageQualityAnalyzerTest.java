@@ -0,0 +1,194 @@
+package com.dls.driverlicensescannerapi.preprocess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+class ImageQualityAnalyzerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ScanMetrics scanMetrics = new ScanMetrics(registry);
+    private final ImageQualityAnalyzer analyzer = new ImageQualityAnalyzer(scanMetrics,
+            new CardPreprocessor(scanMetrics, false, 1012, 24_000_000), 100, 50, 225, 20, 0.08, 24_000_000);
+
+    @Test
+    void acceptsSharpWellExposedPhoto() throws IOException {
+        ImageQuality quality = analyzer.analyze(upload(photo()), ScanContext.of("req-sharp"));
+
+        assertThat(quality.analyzed()).isTrue();
+        assertThat(quality.issues()).isEmpty();
+        assertThat(quality.acceptable()).isTrue();
+        assertThat(outcomeCount(ImageQualityAnalyzer.OUTCOME_ACCEPTABLE)).isEqualTo(1);
+    }
+
+    @Test
+    void flagsBlurredPhoto() throws IOException {
+        BufferedImage photo = photo();
+        ImageQuality sharp = analyzer.analyze(upload(photo), ScanContext.of("req-sharp"));
+        ImageQuality blurred = analyzer.analyze(upload(blur(photo)), ScanContext.of("req-blur"));
+
+        assertThat(blurred.sharpness()).isLessThan(sharp.sharpness() / 10);
+        assertThat(blurred.issues()).containsExactly(ImageQuality.BLURRY);
+        assertThat(outcomeCount(ImageQualityAnalyzer.OUTCOME_REJECTED)).isEqualTo(1);
+    }
+
+    @Test
+    void flagsUnderexposedPhoto() throws IOException {
+        BufferedImage photo = photo();
+        BufferedImage dark = new BufferedImage(photo.getWidth(), photo.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                Color color = new Color(photo.getRGB(x, y));
+                dark.setRGB(x, y, new Color(color.getRed() / 8, color.getGreen() / 8, color.getBlue() / 8).getRGB());
+            }
+        }
+
+        ImageQuality quality = analyzer.analyze(upload(dark), ScanContext.of("req-dark"));
+
+        assertThat(quality.issues()).contains(ImageQuality.TOO_DARK, ImageQuality.LOW_CONTRAST);
+    }
+
+    @Test
+    void flagsGlare() throws IOException {
+        BufferedImage photo = photo();
+        Graphics2D graphics = photo.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillOval(500, 350, 600, 400);
+        graphics.dispose();
+
+        ImageQuality quality = analyzer.analyze(upload(photo), ScanContext.of("req-glare"));
+
+        assertThat(quality.glareFraction()).isGreaterThan(0.08);
+        assertThat(quality.issues()).contains(ImageQuality.GLARE);
+    }
+
+    @Test
+    void doesNotJudgeUndecodableUploads() {
+        MockMultipartFile upload = new MockMultipartFile("image", "licence.webp", "image/webp", new byte[] {1, 2, 3});
+
+        ImageQuality quality = analyzer.analyze(upload, ScanContext.of("req-webp"));
+
+        assertThat(quality.analyzed()).isFalse();
+        assertThat(quality.acceptable()).isTrue();
+        assertThat(outcomeCount(ImageQualityAnalyzer.OUTCOME_NOT_ANALYZED)).isEqualTo(1);
+    }
+
+    @Test
+    void passesThroughUploadsAboveTheDecodeBudget() throws IOException {
+        ImageQualityAnalyzer budgeted = new ImageQualityAnalyzer(scanMetrics,
+                new CardPreprocessor(scanMetrics, true, 1012, 24_000_000), 100, 50, 225, 20, 0.08, 1_000_000);
+        MockMultipartFile upload = upload(blur(photo()));
+
+        ImageQualityAnalyzer.Check check = budgeted.check(upload, ScanContext.of("req-large"));
+
+        assertThat(check.quality().analyzed()).isFalse();
+        assertThat(check.quality().acceptable()).isTrue();
+        assertThat(check.image()).isSameAs(upload);
+        assertThat(outcomeCount(ImageQualityAnalyzer.OUTCOME_NOT_ANALYZED)).isEqualTo(1);
+    }
+
+    @Test
+    void handsItsDecodeToCropping() throws IOException {
+        CardPreprocessor cardPreprocessor = new CardPreprocessor(scanMetrics, true, 1012, 24_000_000);
+        ImageQualityAnalyzer croppingAnalyzer =
+                new ImageQualityAnalyzer(scanMetrics, cardPreprocessor, 100, 50, 225, 20, 0.08, 24_000_000);
+        AtomicInteger reads = new AtomicInteger();
+        MockMultipartFile upload = upload(photo());
+        MockMultipartFile counted = new MockMultipartFile("image", "licence.jpg", "image/jpeg", upload.getBytes()) {
+            @Override
+            public byte[] getBytes() throws IOException {
+                reads.incrementAndGet();
+                return super.getBytes();
+            }
+        };
+
+        ImageQualityAnalyzer.Check check = croppingAnalyzer.check(counted, ScanContext.of("req-crop"));
+        cardPreprocessor.prepare(check.image(), ScanContext.of("req-crop"));
+
+        assertThat(check.quality().issues()).isEmpty();
+        assertThat(reads).hasValue(1);
+    }
+
+    @Test
+    void measuresALargerDecodeAtTheAnalysisSize() throws IOException {
+        BufferedImage photo = photo();
+        BufferedImage small = new BufferedImage(photo.getWidth() / 4, photo.getHeight() / 4, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < small.getHeight(); y++) {
+            for (int x = 0; x < small.getWidth(); x++) {
+                small.setRGB(x, y, photo.getRGB(x * 4, y * 4));
+            }
+        }
+
+        assertThat(analyzer.analyze(photo)).isEqualTo(analyzer.analyze(small));
+    }
+
+    private long outcomeCount(String outcome) {
+        return registry.get(ScanMetrics.STAGE_TIMER)
+                .tag("stage", ScanMetrics.STAGE_QUALITY)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    /**
+     * A card with printed text on a grainy desk.
+     */
+    static BufferedImage photo() {
+        BufferedImage photo = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(11);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                int grain = 90 + random.nextInt(12);
+                photo.setRGB(x, y, new Color(grain, grain - 20, grain - 40).getRGB());
+            }
+        }
+        Graphics2D graphics = photo.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setColor(new Color(226, 214, 222));
+        graphics.fillRoundRect(260, 240, 1080, 680, 40, 40);
+        graphics.setColor(new Color(40, 40, 40));
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 44));
+        String[] lines = {"DRIVING LICENCE", "1. SAMPLE", "2. ALEX", "3. 01.01.1990", "4a. 01.01.2020", "5. SAMPL901010AB9CD"};
+        for (int i = 0; i < lines.length; i++) {
+            graphics.drawString(lines[i], 620, 340 + i * 90);
+        }
+        graphics.fillRect(320, 380, 240, 300);
+        graphics.dispose();
+        return photo;
+    }
+
+    /** Loses detail the way an out-of-focus lens does, by scaling down and back up. */
+    private static BufferedImage blur(BufferedImage photo) {
+        BufferedImage small = new BufferedImage(photo.getWidth() / 16, photo.getHeight() / 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D down = small.createGraphics();
+        down.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        down.drawImage(photo, 0, 0, small.getWidth(), small.getHeight(), null);
+        down.dispose();
+        BufferedImage blurred = new BufferedImage(photo.getWidth(), photo.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D up = blurred.createGraphics();
+        up.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        up.drawImage(small, 0, 0, blurred.getWidth(), blurred.getHeight(), null);
+        up.dispose();
+        return blurred;
+    }
+
+    private static MockMultipartFile upload(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", bytes);
+        return new MockMultipartFile("image", "licence.jpg", "image/jpeg", bytes.toByteArray());
+    }
+}
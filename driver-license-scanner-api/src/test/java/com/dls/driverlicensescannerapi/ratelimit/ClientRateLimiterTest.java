@@ -0,0 +1,152 @@
+package com.dls.driverlicensescannerapi.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ClientRateLimiterTest {
+
+    /** SHA-256 of {@code secret-key}. */
+    private static final String SECRET_KEY_DIGEST = "85dbe15d75ef9308c7ae0f33c7a324cc6f4bf519a2ed2f3027bd33c140a4f9aa";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsTheBurstThenReportsTheWaitForTheNextToken() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 3, "", 100, 600, "");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.acquire("key:a")).isZero();
+        }
+        Duration wait = limiter.acquire("key:a");
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(limiter.acquire("key:b")).isZero();
+        assertThat(registry.get(ClientRateLimiter.REQUEST_COUNTER)
+                .tag("outcome", "rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void tagsIssuedKeysByFingerprintAndEveryAddressAsAnonymous() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 3, "", 100, 600, SECRET_KEY_DIGEST);
+        MockHttpServletRequest withKey = new MockHttpServletRequest();
+        withKey.addHeader(ClientRateLimiter.API_KEY_HEADER, "secret-key");
+        MockHttpServletRequest withUnknownKey = new MockHttpServletRequest();
+        withUnknownKey.addHeader(ClientRateLimiter.API_KEY_HEADER, "made-up-key");
+        withUnknownKey.setRemoteAddr("203.0.113.7");
+        MockHttpServletRequest withoutKey = new MockHttpServletRequest();
+        withoutKey.setRemoteAddr("198.51.100.4");
+
+        String keyClient = limiter.clientId(withKey);
+        limiter.acquire(keyClient);
+        limiter.acquire(keyClient);
+        limiter.acquire(limiter.clientId(withUnknownKey));
+        limiter.acquire(limiter.clientId(withoutKey));
+
+        assertThat(keyClient).isEqualTo("key:" + SECRET_KEY_DIGEST.substring(0, 12));
+        assertThat(limiter.clientId(withUnknownKey)).isEqualTo("ip:203.0.113.7");
+        assertThat(registry.get(ClientRateLimiter.REQUEST_COUNTER)
+                .tag("client", SECRET_KEY_DIGEST.substring(0, 12)).counter().count()).isEqualTo(2.0);
+        assertThat(registry.get(ClientRateLimiter.REQUEST_COUNTER)
+                .tag("client", "anonymous").counter().count()).isEqualTo(2.0);
+        assertThat(registry.getMeters())
+                .flatExtracting(meter -> meter.getId().getTags())
+                .noneMatch(tag -> tag.getValue().contains("secret-key") || tag.getValue().contains("203.0.113")
+                        || tag.getValue().contains("198.51.100"));
+    }
+
+    @Test
+    void freshKeysShareTheirAddressesQuota() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 1, "", 100, 600, SECRET_KEY_DIGEST);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(ClientRateLimiter.API_KEY_HEADER, "key-" + i);
+            request.setRemoteAddr("203.0.113.7");
+            Duration wait = limiter.acquire(limiter.clientId(request));
+            assertThat(wait.isZero()).isEqualTo(i == 0);
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlySeenClientOnceFull() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 1, "", 2, 600, "");
+
+        limiter.acquire("ip:a");
+        limiter.acquire("ip:b");
+        limiter.acquire("ip:a");
+        limiter.acquire("ip:c");
+
+        assertThat(limiter.trackedClients()).isEqualTo(2);
+        assertThat(limiter.acquire("ip:a")).isPositive();
+        assertThat(limiter.acquire("ip:b")).isZero();
+    }
+
+    @Test
+    void keepsRoughlyTheCapUnderConcurrentNewClients() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 1, "", 100, 600, "");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int worker = 0; worker < 4; worker++) {
+                int offset = worker * 1_000;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        limiter.acquire("ip:" + (offset + i));
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(limiter.trackedClients()).isLessThanOrEqualTo(104);
+        assertThat(limiter.acquire("ip:latest")).isZero();
+        assertThat(limiter.acquire("ip:latest")).isPositive();
+    }
+
+    @Test
+    void appliesEngineQuotasOnlyToConfiguredEngines() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, true, 60, 10, "vision:1:1", 100, 600, "");
+
+        assertThat(limiter.acquireEngine("key:a", "vision")).isZero();
+        assertThat(limiter.acquireEngine("key:a", "vision")).isPositive();
+        assertThat(limiter.acquireEngine("key:a", "paddle")).isZero();
+        assertThat(limiter.acquireEngine("key:b", "vision")).isZero();
+        assertThat(registry.get(ClientRateLimiter.ENGINE_COUNTER).tag("engine", "vision").tag("client", "a").counters())
+                .extracting(meter -> meter.getId().getTag("outcome"))
+                .containsExactlyInAnyOrder("allowed", "rejected");
+    }
+
+    @Test
+    void allowsEverythingWhenDisabled() {
+        ClientRateLimiter limiter = new ClientRateLimiter(registry, false, 60, 1, "vision:1:1", 100, 600, "");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.acquire("key:a")).isZero();
+            assertThat(limiter.acquireEngine("key:a", "vision")).isZero();
+        }
+    }
+
+    @Test
+    void parsesEngineQuotas() {
+        Map<String, Quota> quotas = Quota.parseEngineQuotas(" Vision:20:5, textract:30 ");
+
+        assertThat(quotas).containsEntry("vision", new Quota(20, 5)).containsEntry("textract", new Quota(30, 3));
+        assertThatThrownBy(() -> Quota.parseEngineQuotas("vision")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.MultiCardScanResponse;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.dto.StageTiming;
+import com.dls.driverlicensescannerapi.dto.ValidationResult;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MultiCardScanServiceTest {
+
+    @Mock
+    private ScanService scanService;
+
+    @Mock
+    private CardPreprocessor cardPreprocessor;
+
+    private final MockMultipartFile photo = new MockMultipartFile("image", "desk.jpg", "image/jpeg", new byte[] {1});
+    private final List<MultipartFile> crops = List.of(
+            new MockMultipartFile("image", "card-1.jpg", "image/jpeg", new byte[] {1}),
+            new MockMultipartFile("image", "card-2.jpg", "image/jpeg", new byte[] {2}),
+            new MockMultipartFile("image", "card-3.jpg", "image/jpeg", new byte[] {3}));
+    private final ClientRateLimiter unlimited = new ClientRateLimiter(new SimpleMeterRegistry(), false, 60, 10, "", 100, 600, "");
+    private MultiCardScanService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void scansCardsConcurrentlyInReadingOrder() {
+        service = new MultiCardScanService(scanService, cardPreprocessor, unlimited, 2, 4, 6);
+        ScanContext context = ScanContext.of("req-1");
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(crops);
+        // Each card waits until all three are in flight, so a sequential scan never gets past the first.
+        CyclicBarrier allCards = new CyclicBarrier(crops.size());
+        when(scanService.scanCard(any(), any(ScanContext.class))).thenAnswer(invocation -> {
+            ScanContext cardContext = invocation.getArgument(1);
+            allCards.await(5, TimeUnit.SECONDS);
+            cardContext.timeline().record(ScanMetrics.STAGE_OCR, "paddle", 300_000_000L);
+            return response(cardContext.requestId());
+        });
+
+        MultiCardScanResponse response = service.scan(photo, context);
+
+        assertEquals("req-1", response.requestId());
+        assertThat(response.cards()).extracting(ScanResponse::requestId)
+                .containsExactly("req-1-1", "req-1-2", "req-1-3");
+        assertThat(response.failures()).isEmpty();
+        assertThat(context.timeline().stages()).extracting(StageTiming::stage)
+                .containsExactlyInAnyOrder("card1_ocr", "card2_ocr", "card3_ocr");
+    }
+
+    @Test
+    void reportsCardsThatFailNextToTheOthers() {
+        service = new MultiCardScanService(scanService, cardPreprocessor, unlimited, 2, 4, 6);
+        ScanContext context = ScanContext.of("req-1");
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(crops);
+        when(scanService.scanCard(any(), any(ScanContext.class)))
+                .thenAnswer(invocation -> response(invocation.<ScanContext>getArgument(1).requestId()));
+        when(scanService.scanCard(eq(crops.get(1)), any(ScanContext.class)))
+                .thenThrow(new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE));
+
+        MultiCardScanResponse response = service.scan(photo, context);
+
+        assertThat(response.cards()).extracting(ScanResponse::requestId).containsExactly("req-1-1", "req-1-3");
+        assertEquals(1, response.failures().size());
+        assertEquals("req-1-2", response.failures().get(0).requestId());
+        assertEquals(ErrorCatalog.OCR_TIMEOUT_CODE, response.failures().get(0).error().code());
+    }
+
+    @Test
+    void failsLikeASingleScanWhenNoCardCanBeRead() {
+        service = new MultiCardScanService(scanService, cardPreprocessor, unlimited, 2, 4, 6);
+        ScanContext context = ScanContext.of("req-1");
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(List.of(photo));
+        when(scanService.scanCard(eq(photo), any(ScanContext.class)))
+                .thenThrow(new OcrClientException(ErrorCatalog.OCR_FAILED_CODE, ErrorCatalog.OCR_FAILED_MESSAGE));
+
+        OcrClientException thrown = assertThrows(OcrClientException.class, () -> service.scan(photo, context));
+
+        assertEquals(ErrorCatalog.OCR_FAILED_CODE, thrown.getCode());
+    }
+
+    @Test
+    void reportsCardsBeyondThePoolAsBusy() {
+        service = new MultiCardScanService(scanService, cardPreprocessor, unlimited, 1, 1, 6);
+        ScanContext context = ScanContext.of("req-1");
+        List<MultipartFile> fourCards = new ArrayList<>(crops);
+        fourCards.add(new MockMultipartFile("image", "card-4.jpg", "image/jpeg", new byte[] {4}));
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(fourCards);
+        CountDownLatch firstCardRead = new CountDownLatch(1);
+        when(scanService.scanCard(any(), any(ScanContext.class))).thenAnswer(invocation -> {
+            ScanContext cardContext = invocation.getArgument(1);
+            if (invocation.getArgument(0) == fourCards.get(0)) {
+                firstCardRead.countDown();
+            } else {
+                firstCardRead.await(5, TimeUnit.SECONDS);
+            }
+            return response(cardContext.requestId());
+        });
+
+        MultiCardScanResponse response = service.scan(photo, context);
+
+        assertThat(response.cards()).extracting(ScanResponse::requestId).containsExactly("req-1-1", "req-1-2", "req-1-3");
+        assertEquals(1, response.failures().size());
+        assertEquals("req-1-4", response.failures().get(0).requestId());
+        assertEquals(ErrorCatalog.OCR_BUSY_CODE, response.failures().get(0).error().code());
+    }
+
+    @Test
+    void chargesTheClientForEveryCardAfterTheFirst() {
+        ClientRateLimiter limiter = new ClientRateLimiter(new SimpleMeterRegistry(), true, 60, 2, "", 100, 600, "");
+        service = new MultiCardScanService(scanService, cardPreprocessor, limiter, 2, 4, 6);
+        ScanContext context = new ScanContext("req-1", TraceContext.continueOrStart(null), new ScanTimeline(),
+                Deadline.in(Duration.ofSeconds(30)), "ip:10.0.0.1");
+        assertThat(limiter.acquire("ip:10.0.0.1")).isZero();
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(crops);
+        when(scanService.scanCard(any(), any(ScanContext.class)))
+                .thenAnswer(invocation -> response(invocation.<ScanContext>getArgument(1).requestId()));
+
+        MultiCardScanResponse response = service.scan(photo, context);
+
+        assertThat(response.cards()).extracting(ScanResponse::requestId).containsExactly("req-1-1", "req-1-2");
+        assertEquals(1, response.failures().size());
+        assertEquals("req-1-3", response.failures().get(0).requestId());
+        assertEquals(ErrorCatalog.RATE_LIMITED_CODE, response.failures().get(0).error().code());
+        verify(scanService, never()).scanCard(eq(crops.get(2)), any(ScanContext.class));
+    }
+
+    @Test
+    void stopsWaitingForCardsAtTheDeadline() {
+        service = new MultiCardScanService(scanService, cardPreprocessor, unlimited, 2, 4, 6);
+        ScanContext context = new ScanContext("req-1", TraceContext.continueOrStart(null), new ScanTimeline(),
+                Deadline.in(Duration.ofMillis(200)), null);
+        when(cardPreprocessor.split(photo, context, 6)).thenReturn(crops.subList(0, 2));
+        CountDownLatch released = new CountDownLatch(1);
+        when(scanService.scanCard(any(), any(ScanContext.class))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) != crops.get(0)) {
+                released.await(5, TimeUnit.SECONDS);
+            }
+            return response(invocation.<ScanContext>getArgument(1).requestId());
+        });
+
+        try {
+            MultiCardScanResponse response = service.scan(photo, context);
+
+            assertThat(response.cards()).extracting(ScanResponse::requestId).containsExactly("req-1-1");
+            assertEquals(ErrorCatalog.OCR_TIMEOUT_CODE, response.failures().get(0).error().code());
+        } finally {
+            released.countDown();
+        }
+    }
+
+    private static ScanResponse response(String requestId) {
+        return new ScanResponse(requestId, "paddle", List.of("paddle"), 0.9, 0.70, 300L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of()),
+                new ValidationResult(List.of(), List.of()));
+    }
+}
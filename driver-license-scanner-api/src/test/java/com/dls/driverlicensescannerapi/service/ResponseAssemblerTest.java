@@ -2,7 +2,9 @@ package com.dls.driverlicensescannerapi.service;
 
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
 import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 
 import com.dls.driverlicensescannerapi.validator.ValidationService;
@@ -25,7 +27,7 @@ class ResponseAssemblerTest {
     }
 
     private static ScanResponse getScanResponse(ValidationService validationService) {
-        ResponseAssembler assembler = new ResponseAssembler(0.70, validationService);
+        ResponseAssembler assembler = new ResponseAssembler(0.70, validationService, new ScanMetrics(new SimpleMeterRegistry()));
 
         LicenseFields fields = new LicenseFields(
                 "ANDREA",
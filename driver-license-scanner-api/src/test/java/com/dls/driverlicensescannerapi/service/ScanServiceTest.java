@@ -1,10 +1,30 @@
 package com.dls.driverlicensescannerapi.service;
 
+import com.dls.driverlicensescannerapi.analytics.ScanEventLog;
 import com.dls.driverlicensescannerapi.dto.LicenseFields;
 import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.engine.EngineBulkheads;
+import com.dls.driverlicensescannerapi.engine.EngineRanking;
+import com.dls.driverlicensescannerapi.engine.EngineSelectionPolicy;
+import com.dls.driverlicensescannerapi.engine.EngineStatisticsRegistry;
+import com.dls.driverlicensescannerapi.engine.EngineTimeoutPolicy;
+import com.dls.driverlicensescannerapi.engine.FixedOrderEngineSelectionPolicy;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
 import com.dls.driverlicensescannerapi.ocr.OcrLine;
 import com.dls.driverlicensescannerapi.ocr.OcrResult;
 import com.dls.driverlicensescannerapi.ocr.OcrClient;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.ratelimit.ClientRateLimiter;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import java.time.Duration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 
 import com.dls.driverlicensescannerapi.validator.ValidationService;
@@ -17,7 +37,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -34,6 +60,19 @@ class ScanServiceTest {
     @Captor
     private ArgumentCaptor<LicenseFields> fieldsCaptor;
 
+    private final EngineStatisticsRegistry statistics = new EngineStatisticsRegistry(50);
+    private final EngineSelectionPolicy policy = new FixedOrderEngineSelectionPolicy(statistics);
+    private final EngineTimeoutPolicy timeoutPolicy =
+            new EngineTimeoutPolicy(statistics, true, 0.99, 2.0, 500, 20_000, 20);
+    private final FieldMerger fieldMerger = new FieldMerger(new ValidationService());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScanMetrics scanMetrics = new ScanMetrics(meterRegistry);
+    private final CardPreprocessor cardPreprocessor = new CardPreprocessor(scanMetrics, false, 1012, 24_000_000);
+    private final ClientRateLimiter rateLimiter =
+            new ClientRateLimiter(meterRegistry, true, 60, 10, "vision:1:1", 100, 600, "");
+    private final EngineBulkheads bulkheads = new EngineBulkheads(meterRegistry, true, 16, 16, 250, "vision:1:0");
+    private final ScanEventLog eventLog = new ScanEventLog(meterRegistry, false, "", 16, 4096, 1);
+
     @Test
     void scansWithParsedFields() {
         List<OcrLine> lines = List.of(
@@ -55,7 +94,7 @@ class ScanServiceTest {
                 null
         );
 
-        when(ocrClient.scan(any(), any())).thenReturn(ocrResult);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(ocrResult);
         when(responseAssembler.assemble(any(), any(), any())).thenReturn(response);
 
         MockMultipartFile image = new MockMultipartFile(
@@ -65,7 +104,7 @@ class ScanServiceTest {
                 new byte[] {1, 2, 3}
         );
 
-        ScanService scanService = new ScanService(ocrClient, responseAssembler, false, 1, 0.70);
+        ScanService scanService = new ScanService(ocrClient, cardPreprocessor, responseAssembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, false, 1, 0.70, ParserLimits.DEFAULT);
         scanService.scan(image, "req-1");
 
         verify(responseAssembler).assemble(any(), any(), fieldsCaptor.capture());
@@ -78,10 +117,23 @@ class ScanServiceTest {
         assertEquals("99999999", parsed.licenceNumber());
     }
 
+    @Test
+    void recordsUnexpectedFailuresAsInternalErrors() {
+        ScanEventLog events = mock(ScanEventLog.class);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, responseAssembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, events, false, 1, 0.70, ParserLimits.DEFAULT);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class)))
+                .thenThrow(new IllegalStateException("boom"));
+        MockMultipartFile image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1, 2, 3});
+
+        assertThrows(IllegalStateException.class, () -> service.scan(image, "req-internal"));
+
+        verify(events).record(any(ScanContext.class), isNull(), eq(ErrorCatalog.INTERNAL_ERROR_CODE), anyLong());
+    }
+
     @Test
     void fallsBackWhenConfidenceIsLow() {
-        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService());
-        ScanService service = new ScanService(ocrClient, assembler, true, 2, 0.70);
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
 
         OcrResult firstAttempt = new OcrResult("req-2", "paddle", 0.2, List.of(), 100L, null);
         OcrResult secondAttempt = new OcrResult(
@@ -100,8 +152,8 @@ class ScanServiceTest {
                 null
         );
 
-        when(ocrClient.scan(any(), any(), "paddle")).thenReturn(firstAttempt);
-        when(ocrClient.scan(any(), any(), "vision")).thenReturn(secondAttempt);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(firstAttempt);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(secondAttempt);
 
         MockMultipartFile image = new MockMultipartFile(
                 "image",
@@ -114,7 +166,261 @@ class ScanServiceTest {
 
         assertEquals("vision", response.selectedEngine());
         assertEquals(List.of("paddle", "vision"), response.attemptedEngines());
-        verify(ocrClient, times(1)).scan(any(), any(), "paddle");
-        verify(ocrClient, times(1)).scan(any(), any(), "vision");
+        verify(ocrClient, times(1)).scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class));
+        verify(ocrClient, times(1)).scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class));
+        assertEquals(1.0, meterRegistry.get(ScanMetrics.FALLBACK_COUNTER)
+                .tag("engine", "paddle")
+                .tag("reason", "incomplete")
+                .counter()
+                .count());
+        assertEquals(2, meterRegistry.get(ScanMetrics.STAGE_TIMER).tag("stage", ScanMetrics.STAGE_ATTEMPT).timers().size());
+    }
+
+    @Test
+    void mergesBestFieldsAcrossEngines() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+
+        OcrResult paddle = new OcrResult(
+                "req-3",
+                "paddle",
+                0.8,
+                List.of(
+                        new OcrLine("1. CAMPBELL", 0.99),
+                        new OcrLine("2. ANDREA", 0.99),
+                        new OcrLine("3. 05.07.1964", 0.98),
+                        new OcrLine("4b. 30.11.2031", 0.97),
+                        new OcrLine("8. 123 CASTLEROCK ROAD, COLERAINE", 0.95),
+                        new OcrLine("BT51 3TB", 0.95)
+                ),
+                100L,
+                null
+        );
+        OcrResult vision = new OcrResult(
+                "req-3",
+                "vision",
+                0.9,
+                List.of(
+                        new OcrLine("1. CAMPBELL", 0.99),
+                        new OcrLine("5. CAMPB607054AJ9AB", 0.99),
+                        new OcrLine("8. CASTLEROCK", 0.60)
+                ),
+                120L,
+                null
+        );
+
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(paddle);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(vision);
+
+        MockMultipartFile image = new MockMultipartFile(
+                "image",
+                "license.jpg",
+                "image/jpeg",
+                new byte[] {1, 2, 3}
+        );
+
+        ScanResponse response = service.scan(image, "req-3");
+
+        assertEquals("CAMPB607054AJ9AB", response.fields().licenceNumber());
+        assertEquals("123 CASTLEROCK ROAD, COLERAINE, BT51 3TB", response.fields().addressLine());
+        assertEquals("ANDREA", response.fields().firstName());
+        assertEquals("vision", response.fieldSources().get("licenceNumber"));
+        assertEquals("paddle", response.fieldSources().get("addressLine"));
+        assertEquals("paddle", response.selectedEngine());
+        assertEquals(1.0, response.ocrConfidence());
+        assertEquals(220L, response.processingTimeMs());
+    }
+
+    @Test
+    void reconcilesMergedFieldsFromDifferentEngines() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+        OcrResult paddle = new OcrResult("req-4", "paddle", 0.8, List.of(
+                new OcrLine("1. CAMP8ELL", 0.90),
+                new OcrLine("2. ANDREA", 0.99),
+                new OcrLine("3. 05.07.1964", 0.98),
+                new OcrLine("4b. 30.11.2031", 0.97),
+                new OcrLine("8. 123 CASTLEROCK ROAD, COLERAINE", 0.95),
+                new OcrLine("BT51 3TB", 0.95)
+        ), 100L, null);
+        OcrResult vision = new OcrResult("req-4", "vision", 0.9, List.of(
+                new OcrLine("5. CAMPB607054AJ9AB", 0.99)
+        ), 120L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(paddle);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(vision);
+
+        ScanResponse response = service.scan(new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1}), "req-4");
+
+        assertEquals("paddle", response.fieldSources().get("lastName"));
+        assertEquals("vision", response.fieldSources().get("licenceNumber"));
+        assertEquals("CAMPBELL", response.fields().lastName());
+    }
+
+    @Test
+    void skipsFallbackThatCannotFitTheDeadline() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+        OcrResult incomplete = new OcrResult("req-4", "paddle", 0.2, List.of(new OcrLine("1. CAMPBELL", 0.99)), 100L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(incomplete);
+
+        ScanContext context = new ScanContext("req-4", TraceContext.continueOrStart(null), new ScanTimeline(),
+                Deadline.in(Duration.ofMillis(200)));
+        ScanResponse response = service.scan(new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1}), context);
+
+        assertEquals("paddle", response.selectedEngine());
+        assertEquals(List.of("paddle"), response.attemptedEngines());
+        verify(ocrClient, never()).scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class));
+        assertEquals(1.0, meterRegistry.get(ScanMetrics.FALLBACK_SKIPPED_COUNTER)
+                .tag("engine", "vision")
+                .tag("reason", "deadline")
+                .counter()
+                .count());
+        assertEquals(0, meterRegistry.find(ScanMetrics.FALLBACK_COUNTER).counters().size());
+    }
+
+    @Test
+    void tagsParseStageWithTheRequestedEngine() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 1, 0.70, ParserLimits.DEFAULT);
+        OcrResult result = new OcrResult("req-10", "paddle-ocr 2.7.3 (gpu)", 0.2, List.of(new OcrLine("1. CAMPBELL", 0.99)), 100L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(result);
+
+        service.scan(new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1}), "req-10");
+
+        assertEquals(1, meterRegistry.get(ScanMetrics.STAGE_TIMER)
+                .tag("stage", ScanMetrics.STAGE_PARSE)
+                .tag("engine", "paddle")
+                .timer()
+                .count());
+        assertEquals(0, meterRegistry.find(ScanMetrics.STAGE_TIMER)
+                .tag("stage", ScanMetrics.STAGE_PARSE)
+                .tag("engine", "paddle-ocr 2.7.3 (gpu)")
+                .timers()
+                .size());
+    }
+
+    @Test
+    void skipsEnginesOverTheClientsQuota() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+        OcrResult incomplete = new OcrResult("req-5", "paddle", 0.2, List.of(new OcrLine("1. CAMPBELL", 0.99)), 100L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(incomplete);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(incomplete);
+        MockMultipartFile image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1});
+
+        ScanResponse first = service.scan(image, clientContext("req-5", "key:abc"));
+        ScanResponse second = service.scan(image, clientContext("req-6", "key:abc"));
+        ScanResponse otherClient = service.scan(image, clientContext("req-7", "key:def"));
+
+        assertEquals(List.of("paddle", "vision"), first.attemptedEngines());
+        assertEquals(List.of("paddle"), second.attemptedEngines());
+        assertEquals(List.of("paddle", "vision"), otherClient.attemptedEngines());
+        assertEquals(1.0, meterRegistry.get(ScanMetrics.FALLBACK_SKIPPED_COUNTER)
+                .tag("engine", "vision")
+                .tag("reason", "quota")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void skipsEnginesWhoseBulkheadIsFullWithoutWaiting() {
+        ResponseAssembler assembler = new ResponseAssembler(0.70, new ValidationService(), scanMetrics);
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, assembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, bulkheads, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+        OcrResult incomplete = new OcrResult("req-8", "paddle", 0.2, List.of(new OcrLine("1. CAMPBELL", 0.99)), 100L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("paddle"), any(EngineBulkheads.Permit.class))).thenReturn(incomplete);
+        MockMultipartFile image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1});
+
+        ScanResponse response;
+        try (EngineBulkheads.Permit busyVision = bulkheads.tryAcquire("vision", Duration.ZERO)) {
+            response = service.scan(image, clientContext("req-8", null));
+        }
+
+        assertEquals(List.of("paddle"), response.attemptedEngines());
+        verify(ocrClient, never()).scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class));
+        assertEquals(1.0, meterRegistry.get(ScanMetrics.FALLBACK_SKIPPED_COUNTER)
+                .tag("engine", "vision")
+                .tag("reason", "bulkhead")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void failsAsBusyWhenEveryEngineIsSaturated() {
+        EngineBulkheads single = new EngineBulkheads(meterRegistry, true, 1, 0, 250, "");
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, responseAssembler, policy, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, single, eventLog, true, 2, 0.70, ParserLimits.DEFAULT);
+        MockMultipartFile image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1});
+
+        OcrClientException ex;
+        try (EngineBulkheads.Permit paddle = single.tryAcquire("paddle", Duration.ZERO);
+             EngineBulkheads.Permit vision = single.tryAcquire("vision", Duration.ZERO)) {
+            ex = assertThrows(OcrClientException.class, () -> service.scan(image, clientContext("req-9", null)));
+        }
+
+        assertEquals(ErrorCatalog.OCR_BUSY_CODE, ex.getCode());
+        verify(ocrClient, never()).scan(any(), any(ScanContext.class), any(), any(EngineBulkheads.Permit.class));
+    }
+
+    @Test
+    void readsWithTheLeadingEngineUnderItsBulkheadAndQuota() {
+        EngineSelectionPolicy visionFirst = visionFirst();
+        EngineBulkheads single = new EngineBulkheads(meterRegistry, true, 1, 0, 250, "");
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, responseAssembler, visionFirst, statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, single, eventLog, false, 1, 0.70, ParserLimits.DEFAULT);
+        MockMultipartFile image = new MockMultipartFile("back", "back.jpg", "image/jpeg", new byte[] {1});
+        OcrResult back = new OcrResult("req-11", "vision", 0.9, List.of(), 80L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(back);
+
+        OcrClientException busy;
+        try (EngineBulkheads.Permit vision = single.tryAcquire("vision", Duration.ZERO)) {
+            busy = assertThrows(OcrClientException.class,
+                    () -> service.scanLeadingEngine(image, clientContext("req-11", "key:abc")));
+        }
+        assertEquals(back, service.scanLeadingEngine(image, clientContext("req-12", "key:abc")));
+        assertThrows(RateLimitExceededException.class,
+                () -> service.scanLeadingEngine(image, clientContext("req-13", "key:abc")));
+
+        assertEquals(ErrorCatalog.OCR_BUSY_CODE, busy.getCode());
+        verify(ocrClient, times(1)).scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class));
+    }
+
+    @Test
+    void scansWithoutFallbackUnderTheLeadingEnginesBulkheadAndQuota() {
+        EngineBulkheads single = new EngineBulkheads(meterRegistry, true, 1, 0, 250, "");
+        ScanService service = new ScanService(ocrClient, cardPreprocessor, responseAssembler, visionFirst(), statistics, timeoutPolicy, fieldMerger, scanMetrics, rateLimiter, single, eventLog, false, 1, 0.70, ParserLimits.DEFAULT);
+        MockMultipartFile image = new MockMultipartFile("image", "license.jpg", "image/jpeg", new byte[] {1});
+        OcrResult result = new OcrResult("req-14", "vision", 0.9, List.of(new OcrLine("1. CAMPBELL", 0.99)), 80L, null);
+        when(ocrClient.scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class))).thenReturn(result);
+
+        OcrClientException busy;
+        try (EngineBulkheads.Permit vision = single.tryAcquire("vision", Duration.ZERO)) {
+            busy = assertThrows(OcrClientException.class, () -> service.scan(image, clientContext("req-14", "key:abc")));
+        }
+        service.scan(image, clientContext("req-15", "key:abc"));
+        assertThrows(RateLimitExceededException.class, () -> service.scan(image, clientContext("req-16", "key:abc")));
+
+        assertEquals(ErrorCatalog.OCR_BUSY_CODE, busy.getCode());
+        verify(ocrClient, times(1)).scan(any(), any(ScanContext.class), eq("vision"), any(EngineBulkheads.Permit.class));
+    }
+
+    private static EngineSelectionPolicy visionFirst() {
+        return new EngineSelectionPolicy() {
+            @Override
+            public String name() {
+                return "vision-first";
+            }
+
+            @Override
+            public List<String> order() {
+                return List.of("vision", "paddle");
+            }
+
+            @Override
+            public List<EngineRanking> ranking() {
+                return List.of();
+            }
+        };
+    }
+
+    private static ScanContext clientContext(String requestId, String clientId) {
+        return new ScanContext(requestId, TraceContext.continueOrStart(null), new ScanTimeline(), Deadline.NONE, clientId);
     }
 }
@@ -0,0 +1,210 @@
+package com.dls.driverlicensescannerapi.service;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.dto.ScanResponse;
+import com.dls.driverlicensescannerapi.error.ErrorCatalog;
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClientException;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.parser.ParserLimits;
+import com.dls.driverlicensescannerapi.ratelimit.RateLimitExceededException;
+import com.dls.driverlicensescannerapi.trace.Deadline;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.trace.ScanTimeline;
+import com.dls.driverlicensescannerapi.trace.TraceContext;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwoSidedScanServiceTest {
+
+    @Mock
+    private ScanService scanService;
+
+    private final ScanMetrics scanMetrics = new ScanMetrics(new SimpleMeterRegistry());
+    private final MockMultipartFile front = new MockMultipartFile("front", "front.jpg", "image/jpeg", new byte[] {1});
+    private final MockMultipartFile back = new MockMultipartFile("back", "back.jpg", "image/jpeg", new byte[] {2});
+    private TwoSidedScanService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void scansSidesConcurrentlyAndTakesCategoriesFromTheBack() {
+        service = newService(2, 2);
+        // Each side waits for the other to start, so the scan only completes when they overlap.
+        CyclicBarrier bothSides = new CyclicBarrier(2);
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenAnswer(invocation -> {
+            bothSides.await(5, TimeUnit.SECONDS);
+            return frontResponse();
+        });
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class))).thenAnswer(invocation -> {
+            bothSides.await(5, TimeUnit.SECONDS);
+            return new OcrResult("req-1", "paddle", 0.9, List.of(
+                    new OcrLine("AM 19.03.2014 30.11.2031", 0.95),
+                    new OcrLine("B 19.03.2014 30.11.2031", 0.95),
+                    new OcrLine("C1", 0.80)
+            ), 90L, null);
+        });
+        ScanContext context = ScanContext.of("req-1");
+
+        ScanResponse response = service.scan(front, back, context);
+
+        assertEquals(List.of("AM", "B"), response.fields().categories());
+        assertEquals("paddle", response.fieldSources().get("categories"));
+        assertEquals("CAMPBELL", response.fields().lastName());
+        assertEquals(120L, response.processingTimeMs());
+        assertThat(context.timeline().stages())
+                .extracting(stage -> stage.stage())
+                .contains(TwoSidedScanService.BACK_STAGE_PREFIX + ScanMetrics.STAGE_PARSE);
+    }
+
+    @Test
+    void keepsFrontCategoriesWhenTheBackHasNone() {
+        service = newService(1, 1);
+        ScanResponse frontResponse = frontResponse();
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenReturn(frontResponse);
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class)))
+                .thenReturn(new OcrResult("req-1", "paddle", 0.4, List.of(new OcrLine("DVLA", 0.5)), 50L, null));
+
+        assertEquals(frontResponse, service.scan(front, back, ScanContext.of("req-1")));
+    }
+
+    @Test
+    void fallsBackToTheFrontWhenTheBackCannotBeRead() {
+        service = newService(1, 1);
+        ScanResponse frontResponse = frontResponse();
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenReturn(frontResponse);
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class))).thenThrow(
+                new OcrClientException(ErrorCatalog.OCR_BUSY_CODE, ErrorCatalog.OCR_BUSY_MESSAGE));
+
+        assertEquals(frontResponse, service.scan(front, back, ScanContext.of("req-1")));
+    }
+
+    @Test
+    void fallsBackToTheFrontWhenTheEngineQuotaIsSpent() {
+        service = newService(1, 1);
+        ScanResponse frontResponse = frontResponse();
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenReturn(frontResponse);
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class)))
+                .thenThrow(new RateLimitExceededException(Duration.ofSeconds(1)));
+
+        assertEquals(frontResponse, service.scan(front, back, ScanContext.of("req-1")));
+    }
+
+    @Test
+    void failsWhenTheFrontCannotBeRead() {
+        service = newService(1, 1);
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenThrow(
+                new OcrClientException(ErrorCatalog.OCR_TIMEOUT_CODE, ErrorCatalog.OCR_TIMEOUT_MESSAGE));
+        lenient().when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class)))
+                .thenReturn(new OcrResult("req-1", "paddle", 0.4, List.of(), 50L, null));
+
+        OcrClientException ex = assertThrows(OcrClientException.class,
+                () -> service.scan(front, back, ScanContext.of("req-1")));
+        assertEquals(ErrorCatalog.OCR_TIMEOUT_CODE, ex.getCode());
+    }
+
+    @Test
+    void stopsWaitingForTheBackAtTheDeadline() {
+        service = newService(1, 1);
+        ScanResponse frontResponse = frontResponse();
+        CountDownLatch release = new CountDownLatch(1);
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenReturn(frontResponse);
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new OcrResult("req-1", "paddle", 0.9, List.of(new OcrLine("B 19.03.2014 30.11.2031", 0.95)),
+                    90L, null);
+        });
+        ScanContext context = new ScanContext("req-1", TraceContext.continueOrStart(null), new ScanTimeline(),
+                Deadline.in(Duration.ofMillis(200)));
+
+        try {
+            assertEquals(frontResponse, service.scan(front, back, context));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void scansOnlyTheFrontWhenTheBackPoolIsFull() throws Exception {
+        service = newService(1, 1);
+        CountDownLatch frontsStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ScanResponse frontResponse = frontResponse();
+        when(scanService.scan(eq(front), any(ScanContext.class))).thenAnswer(invocation -> {
+            ScanContext context = invocation.getArgument(1);
+            if (!context.requestId().equals("req-3")) {
+                frontsStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return frontResponse;
+        });
+        when(scanService.scanLeadingEngine(eq(back), any(ScanContext.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new OcrResult("req-1", "paddle", 0.4, List.of(), 50L, null);
+        });
+
+        // One back running and one queued fill the pool; a front only starts once its back is in.
+        CompletableFuture<ScanResponse> running = CompletableFuture.supplyAsync(
+                () -> service.scan(front, back, ScanContext.of("req-1")));
+        CompletableFuture<ScanResponse> queued = CompletableFuture.supplyAsync(
+                () -> service.scan(front, back, ScanContext.of("req-2")));
+        assertThat(frontsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ScanResponse frontOnly = service.scan(front, back, ScanContext.of("req-3"));
+        release.countDown();
+
+        assertEquals(frontResponse, frontOnly);
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        verify(scanService, times(3)).scan(eq(front), any(ScanContext.class));
+        verify(scanService, times(2)).scanLeadingEngine(eq(back), any(ScanContext.class));
+    }
+
+    private TwoSidedScanService newService(int backThreads, int backQueue) {
+        return new TwoSidedScanService(scanService, new ResponseAssembler(0.70, new ValidationService(), scanMetrics),
+                scanMetrics, ParserLimits.DEFAULT, backThreads, backQueue);
+    }
+
+    private static ScanResponse frontResponse() {
+        return new ScanResponse(
+                "req-1",
+                "paddle",
+                List.of("paddle"),
+                1.0,
+                0.70,
+                120L,
+                new LicenseFields("ANDREA", "CAMPBELL", "05.07.1964", null, "99999999", "30.11.2031", List.of("AM")),
+                null,
+                Map.of("lastName", "paddle", "categories", "paddle")
+        );
+    }
+}
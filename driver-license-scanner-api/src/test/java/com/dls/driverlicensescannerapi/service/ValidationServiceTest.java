@@ -53,6 +53,32 @@ class ValidationServiceTest {
                 .anyMatch(error -> "INVALID_LICENCE_NUMBER".equals(error.code())));
     }
 
+    @Test
+    void paddedLicenceNumbersAreValid() {
+        for (String licenceNumber : List.of("NG999607054A99AB", "LEE99607054AJ9AB", "WOOD9607054A99AB01")) {
+            LicenseFields fields = validFields()
+                    .withLicenceNumber(licenceNumber)
+                    .build();
+
+            ValidationResult result = validationService.validate(fields);
+
+            assertTrue(result.blockingErrors().stream()
+                    .noneMatch(error -> "INVALID_LICENCE_NUMBER".equals(error.code())), licenceNumber);
+        }
+    }
+
+    @Test
+    void licenceNumberPaddingMustTrailTheSurname() {
+        LicenseFields fields = validFields()
+                .withLicenceNumber("N9G99607054AJ9AB")
+                .build();
+
+        ValidationResult result = validationService.validate(fields);
+
+        assertTrue(result.blockingErrors().stream()
+                .anyMatch(error -> "INVALID_LICENCE_NUMBER".equals(error.code())));
+    }
+
     @Test
     void expiryDateInPastIsBlocking() {
         String expired = LocalDate.now().minusDays(1).format(DATE_FORMATTER);
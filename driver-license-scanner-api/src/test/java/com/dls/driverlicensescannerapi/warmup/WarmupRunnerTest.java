@@ -0,0 +1,61 @@
+package com.dls.driverlicensescannerapi.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dls.driverlicensescannerapi.metrics.ScanMetrics;
+import com.dls.driverlicensescannerapi.ocr.OcrClient;
+import com.dls.driverlicensescannerapi.preprocess.CardPreprocessor;
+import com.dls.driverlicensescannerapi.service.FieldMerger;
+import com.dls.driverlicensescannerapi.trace.ScanContext;
+import com.dls.driverlicensescannerapi.validator.ValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.web.multipart.MultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupRunnerTest {
+
+    @Mock
+    private OcrClient ocrClient;
+
+    private final ValidationService validationService = new ValidationService();
+    private final FieldMerger fieldMerger = new FieldMerger(validationService);
+    private final CardPreprocessor cardPreprocessor =
+            new CardPreprocessor(new ScanMetrics(new SimpleMeterRegistry()), true, 1012, 24_000_000);
+
+    @Test
+    void readinessStaysOutOfServiceUntilWarmupCompletes() {
+        when(ocrClient.warmUpConnections(3)).thenReturn(3);
+        WarmupRunner runner = new WarmupRunner(ocrClient, cardPreprocessor, validationService, fieldMerger, true, 200, 3, true, 30);
+        WarmupHealthIndicator indicator = new WarmupHealthIndicator(runner);
+
+        assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+
+        runner.run();
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+        assertEquals("completed", indicator.health().getDetails().get("state"));
+        assertEquals(200, runner.completedIterations());
+        assertEquals(3, runner.openConnections());
+        verify(ocrClient).scan(any(MultipartFile.class), any(ScanContext.class), isNull());
+    }
+
+    @Test
+    void disabledWarmupIsReadyImmediately() {
+        WarmupRunner runner = new WarmupRunner(ocrClient, cardPreprocessor, validationService, fieldMerger, false, 200, 3, true, 30);
+
+        runner.start();
+
+        assertEquals(Status.UP, new WarmupHealthIndicator(runner).health().getStatus());
+        verify(ocrClient, never()).warmUpConnections(3);
+    }
+}
@@ -0,0 +1,10 @@
+package com.dls.driverlicensescannerapi.corpus;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.List;
+
+/**
+ * One synthetic card: the OCR lines a worker would return and the fields printed on the card.
+ */
+public record LicenceCase(List<OcrLine> lines, LicenseFields expected) {}
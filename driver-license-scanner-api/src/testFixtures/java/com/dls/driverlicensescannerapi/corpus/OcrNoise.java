@@ -0,0 +1,43 @@
+package com.dls.driverlicensescannerapi.corpus;
+
+import java.util.Locale;
+
+/**
+ * Per-card noise rates applied by {@link SyntheticLicenceCorpus}. Split and merge rates are per
+ * line, confusion is per character, stamps are per card.
+ *
+ * <p>Parsed from {@code split=0.1,merge=0.05,confusion=0.02,stamp=0.3}; keys may be omitted.
+ */
+public record OcrNoise(double splitLineRate, double mergedLabelRate, double confusionRate, double stampRate) {
+
+    public static final OcrNoise NONE = new OcrNoise(0, 0, 0, 0);
+    public static final OcrNoise TYPICAL = new OcrNoise(0.08, 0.05, 0.015, 0.3);
+
+    public static OcrNoise parse(String spec) {
+        if (spec == null || spec.isBlank() || "none".equalsIgnoreCase(spec)) {
+            return NONE;
+        }
+        if ("typical".equalsIgnoreCase(spec)) {
+            return TYPICAL;
+        }
+        double split = 0;
+        double merge = 0;
+        double confusion = 0;
+        double stamp = 0;
+        for (String setting : spec.split(",")) {
+            String[] keyValue = setting.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid noise setting: " + setting);
+            }
+            double value = Double.parseDouble(keyValue[1].trim());
+            switch (keyValue[0].trim().toLowerCase(Locale.ROOT)) {
+                case "split" -> split = value;
+                case "merge" -> merge = value;
+                case "confusion" -> confusion = value;
+                case "stamp" -> stamp = value;
+                default -> throw new IllegalArgumentException("Unknown noise setting: " + setting);
+            }
+        }
+        return new OcrNoise(split, merge, confusion, stamp);
+    }
+}
@@ -0,0 +1,231 @@
+package com.dls.driverlicensescannerapi.corpus;
+
+import com.dls.driverlicensescannerapi.dto.LicenseFields;
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates DVLA-style cards with known ground truth and the OCR lines a worker would return for
+ * them, optionally degraded by {@link OcrNoise}. Output is a pure function of the seed, so a
+ * corpus can be regenerated instead of checked in. All personal data is invented.
+ */
+public final class SyntheticLicenceCorpus {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.uuuu", Locale.UK);
+
+    private static final String[] SURNAMES = {
+            "CAMPBELL", "SMITH", "JONES", "WILLIAMS", "TAYLOR", "BROWN", "DAVIES", "EVANS", "WILSON",
+            "THOMAS", "JOHNSON", "ROBERTS", "ROBINSON", "THOMPSON", "WRIGHT", "WALKER", "WHITE",
+            "EDWARDS", "HUGHES", "GREEN", "HALL", "LEWIS", "HARRIS", "CLARKE", "PATEL", "JACKSON",
+            "WOOD", "TURNER", "MARTIN", "COOPER", "HILL", "WARD", "MORRIS", "MOORE", "KING", "LEE",
+            "MACDONALD", "MCLAUGHLIN", "OBRIEN", "FERGUSON", "BOYLE", "KELLY", "MURPHY", "QUINN", "NG"
+    };
+    private static final String[] GIVEN_NAMES = {
+            "ANDREA", "JOAN", "JAMES", "OLIVIA", "AMELIA", "ISLA", "GEORGE", "NOAH", "ARTHUR", "MUHAMMAD",
+            "LEO", "HARRY", "OSCAR", "ARCHIE", "HENRY", "SOPHIA", "GRACE", "LILY", "FREYA", "EMILY",
+            "IVY", "ELLA", "ROSIE", "EVIE", "FLORENCE", "PETER", "SIOBHAN", "CIARAN", "DAVID", "SARAH",
+            "MICHAEL", "HELEN", "PAUL", "RUTH", "SEAN", "ANNE", "IAN", "BETH"
+    };
+    private static final String[] STREETS = {
+            "CASTLEROCK ROAD", "HIGH STREET", "STATION ROAD", "CHURCH LANE", "PARK AVENUE", "MILL LANE",
+            "VICTORIA ROAD", "KINGS CRESCENT", "ELM GROVE", "MEADOW CLOSE", "QUEENS DRIVE", "ORCHARD WAY",
+            "MARKET PLACE", "ABBEY COURT", "BRIDGE STREET", "WINDSOR TERRACE", "ROSE GARDENS", "OAK HILL"
+    };
+    private static final String[][] TOWNS = {
+            {"COLERAINE", "CO. LONDONDERRY", "BT"},
+            {"BELFAST", null, "BT"},
+            {"LEEDS", "WEST YORKSHIRE", "LS"},
+            {"MANCHESTER", null, "M"},
+            {"SWANSEA", null, "SA"},
+            {"CARDIFF", null, "CF"},
+            {"GLASGOW", null, "G"},
+            {"EDINBURGH", null, "EH"},
+            {"BRISTOL", null, "BS"},
+            {"NORWICH", "NORFOLK", "NR"},
+            {"YORK", "NORTH YORKSHIRE", "YO"},
+            {"EXETER", "DEVON", "EX"},
+            {"ABERDEEN", null, "AB"},
+            {"LONDON", null, "SW"}
+    };
+    private static final String[] PLACES_OF_BIRTH = {"UNITED KINGDOM", "BELFAST", "LONDON", "GLASGOW", "CARDIFF"};
+    private static final String[] CATEGORY_ORDER = {"AM", "A1", "A2", "A", "B1", "B", "BE", "C1", "C1E", "C",
+            "CE", "D1", "D1E", "D", "DE", "f", "k", "l", "n", "p", "q"};
+    private static final String[] STAMPS = {"UK", "DVLA", "*", "EU", "MAR 21", "DRIVING LICENCE", "7."};
+    private static final String LETTERS = "ABCDEFGHJKLMNPRSTUVWXYZ";
+    private static final String POSTCODE_LETTERS = "ABDEFGHJLNPQRSTUWXYZ";
+
+    private SyntheticLicenceCorpus() {}
+
+    public static List<LicenceCase> generate(long seed, int size, OcrNoise noise) {
+        Random random = new Random(seed);
+        List<LicenceCase> cases = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cases.add(generateCase(random, noise));
+        }
+        return cases;
+    }
+
+    private static LicenceCase generateCase(Random random, OcrNoise noise) {
+        String surname = pick(random, SURNAMES);
+        String firstGiven = pick(random, GIVEN_NAMES);
+        String givenNames = random.nextInt(3) == 0 ? firstGiven : firstGiven + " " + pick(random, GIVEN_NAMES);
+        boolean female = random.nextBoolean();
+        LocalDate dateOfBirth = LocalDate.of(1940 + random.nextInt(66), 1 + random.nextInt(12), 1 + random.nextInt(28));
+        LocalDate issued = LocalDate.of(2015 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28));
+        LocalDate expiry = issued.plusYears(10).minusDays(1);
+
+        String licenceNumber = licenceNumber(random, surname, givenNames, dateOfBirth, female);
+        String issueNumber = random.nextInt(4) == 0 ? String.format(Locale.ROOT, "%02d", 1 + random.nextInt(40)) : "";
+
+        String[] town = pick(random, TOWNS);
+        String street = (1 + random.nextInt(250)) + " " + pick(random, STREETS);
+        String postcode = postcode(random, town[2]);
+        List<String> categories = categories(random);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("DRIVING LICENCE");
+        lines.add("1. " + surname);
+        lines.add("2. " + givenNames);
+        lines.add("3. " + DATE.format(dateOfBirth) + " " + pick(random, PLACES_OF_BIRTH));
+        lines.add("4a. " + DATE.format(issued));
+        lines.add("4b. " + DATE.format(expiry));
+        lines.add("4c. DVLA");
+        lines.add("5. " + licenceNumber + (issueNumber.isEmpty() ? "" : " " + issueNumber));
+        lines.add("8. " + street + ", " + town[0]);
+        if (town[1] != null) {
+            lines.add(town[1]);
+        }
+        lines.add(postcode);
+        lines.add("9. " + String.join("/", categories));
+
+        List<String> addressParts = new ArrayList<>(List.of(street, town[0]));
+        if (town[1] != null) {
+            addressParts.add(town[1]);
+        }
+        addressParts.add(postcode);
+
+        LicenseFields expected = new LicenseFields(
+                givenNames,
+                surname,
+                DATE.format(dateOfBirth),
+                String.join(", ", addressParts),
+                licenceNumber + issueNumber,
+                DATE.format(expiry),
+                categories
+        );
+        return new LicenceCase(degrade(random, lines, noise), expected);
+    }
+
+    /**
+     * Surname (5, MAC as MC, padded with 9), decade, month (+50 for female holders), day, year,
+     * two initials (padded with 9), the arbitrary digit 9 and two check letters.
+     */
+    private static String licenceNumber(Random random, String surname, String givenNames, LocalDate dateOfBirth,
+                                        boolean female) {
+        String key = surname.startsWith("MAC") ? "MC" + surname.substring(3) : surname;
+        StringBuilder number = new StringBuilder(key.length() > 5 ? key.substring(0, 5) : key);
+        while (number.length() < 5) {
+            number.append('9');
+        }
+        int year = dateOfBirth.getYear() % 100;
+        int month = dateOfBirth.getMonthValue() + (female ? 50 : 0);
+        number.append(year / 10)
+                .append(String.format(Locale.ROOT, "%02d", month))
+                .append(String.format(Locale.ROOT, "%02d", dateOfBirth.getDayOfMonth()))
+                .append(year % 10);
+        String[] initials = givenNames.split(" ");
+        number.append(initials[0].charAt(0)).append(initials.length > 1 ? initials[1].charAt(0) : '9');
+        number.append('9');
+        number.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        number.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        return number.toString();
+    }
+
+    private static String postcode(Random random, String area) {
+        return area + (1 + random.nextInt(area.length() == 1 ? 40 : 80)) + " " + random.nextInt(10)
+                + POSTCODE_LETTERS.charAt(random.nextInt(POSTCODE_LETTERS.length()))
+                + POSTCODE_LETTERS.charAt(random.nextInt(POSTCODE_LETTERS.length()));
+    }
+
+    private static List<String> categories(Random random) {
+        List<String> categories = new ArrayList<>();
+        for (String category : CATEGORY_ORDER) {
+            if ("B".equals(category) || random.nextInt(3) == 0) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    private static List<OcrLine> degrade(Random random, List<String> lines, OcrNoise noise) {
+        List<String> noisy = new ArrayList<>(lines.size() + 4);
+        for (String line : lines) {
+            String confused = confuse(random, line, noise.confusionRate());
+            int space = confused.indexOf(' ', labelLength(confused) + 1);
+            if (space > 0 && random.nextDouble() < noise.splitLineRate()) {
+                noisy.add(confused.substring(0, space));
+                noisy.add(confused.substring(space + 1));
+            } else {
+                noisy.add(confused);
+            }
+        }
+        for (int i = 0; i + 1 < noisy.size(); i++) {
+            if (random.nextDouble() < noise.mergedLabelRate()) {
+                noisy.set(i, noisy.get(i) + " " + noisy.remove(i + 1));
+            }
+        }
+        if (random.nextDouble() < noise.stampRate()) {
+            noisy.add(random.nextInt(noisy.size() + 1), pick(random, STAMPS));
+        }
+
+        List<OcrLine> ocrLines = new ArrayList<>(noisy.size());
+        boolean degraded = noise != OcrNoise.NONE;
+        for (String line : noisy) {
+            double confidence = degraded ? 0.55 + random.nextDouble() * 0.44 : 0.95 + random.nextDouble() * 0.04;
+            ocrLines.add(new OcrLine(line, Math.round(confidence * 100) / 100.0));
+        }
+        return ocrLines;
+    }
+
+    /**
+     * Swaps the characters OCR engines most often confuse. Field labels are left intact: a
+     * misread label is a different failure the split and merge noise already covers.
+     */
+    private static String confuse(Random random, String line, double rate) {
+        if (rate <= 0) {
+            return line;
+        }
+        char[] chars = line.toCharArray();
+        for (int i = labelLength(line); i < chars.length; i++) {
+            if (random.nextDouble() >= rate) {
+                continue;
+            }
+            chars[i] = switch (chars[i]) {
+                case 'O' -> '0';
+                case '0' -> 'O';
+                case 'I' -> '1';
+                case '1' -> 'I';
+                case 'S' -> '5';
+                case '5' -> 'S';
+                case 'B' -> '8';
+                case '8' -> 'B';
+                default -> chars[i];
+            };
+        }
+        return new String(chars);
+    }
+
+    private static int labelLength(String line) {
+        int dot = line.indexOf(". ");
+        return dot > 0 && dot <= 2 && Character.isDigit(line.charAt(0)) ? dot + 1 : 0;
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
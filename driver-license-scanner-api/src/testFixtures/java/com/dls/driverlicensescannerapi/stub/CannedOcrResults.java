@@ -0,0 +1,36 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import java.util.List;
+
+/**
+ * Synthetic worker results for stubs and benchmarks. The licence data is invented.
+ */
+public final class CannedOcrResults {
+
+    private static final List<OcrLine> LICENCE_LINES = List.of(
+            new OcrLine("DRIVING LICENCE", 0.99),
+            new OcrLine("1. CAMPBELL", 0.99),
+            new OcrLine("2. ANDREA JOAN", 0.99),
+            new OcrLine("3. 05.07.1964 BELFAST", 0.98),
+            new OcrLine("4a. 01.12.2021", 0.97),
+            new OcrLine("4b. 30.11.2031", 0.97),
+            new OcrLine("4c. DVLA", 0.96),
+            new OcrLine("5. CAMPB657054AJ9AB", 0.99),
+            new OcrLine("8. 123 CASTLEROCK ROAD, COLERAINE", 0.93),
+            new OcrLine("CO. LONDONDERRY", 0.98),
+            new OcrLine("BT51 3TB", 0.99),
+            new OcrLine("9. AM/A/B1/B/f/k/p/q", 0.82)
+    );
+
+    private CannedOcrResults() {}
+
+    public static OcrResult licence(String requestId, String engine) {
+        return new OcrResult(requestId, engine == null ? "paddle" : engine, 0.95, LICENCE_LINES, 15L, null);
+    }
+
+    public static OcrResult empty(String requestId, String engine) {
+        return new OcrResult(requestId, engine == null ? "paddle" : engine, 0.10, List.of(), 15L, null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * How the stub worker behaves for one {@code X-OCR-ENGINE}: service time, the share of requests
+ * answered with a 500, the share left hanging past the client read timeout, and the line set
+ * returned on success.
+ *
+ * <p>Parsed from {@code latency=lognormal:400:0.6,error=0.02,timeout=0.01,payload=noisy}; keys may
+ * be omitted.
+ */
+public record EngineProfile(
+        LatencyDistribution latency,
+        double errorRate,
+        double timeoutRate,
+        String payload,
+        double confidence
+) {
+
+    public static final EngineProfile CANNED = new EngineProfile(LatencyDistribution.NONE, 0, 0, OcrLineSets.CLEAN, 0.95);
+
+    public EngineProfile {
+        if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1) {
+            throw new IllegalArgumentException("error and timeout rates must be within [0, 1]");
+        }
+    }
+
+    public List<OcrLine> lines() {
+        return "empty".equals(payload) ? List.of() : OcrLineSets.named(payload);
+    }
+
+    public static EngineProfile parse(String spec) {
+        LatencyDistribution latency = CANNED.latency();
+        double errorRate = 0;
+        double timeoutRate = 0;
+        String payload = CANNED.payload();
+        double confidence = CANNED.confidence();
+        for (String setting : spec.split(",")) {
+            String[] keyValue = setting.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid engine profile setting: " + setting);
+            }
+            String value = keyValue[1].trim();
+            switch (keyValue[0].trim().toLowerCase(Locale.ROOT)) {
+                case "latency" -> latency = LatencyDistribution.parse(value);
+                case "error" -> errorRate = Double.parseDouble(value);
+                case "timeout" -> timeoutRate = Double.parseDouble(value);
+                case "payload" -> payload = value.toLowerCase(Locale.ROOT);
+                case "confidence" -> confidence = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown engine profile setting: " + setting);
+            }
+        }
+        return new EngineProfile(latency, errorRate, timeoutRate, payload, confidence);
+    }
+
+    /**
+     * Parses {@code paddle[latency=...,error=...];vision[...]} into profiles keyed by engine.
+     */
+    public static Map<String, EngineProfile> parseAll(String spec) {
+        Map<String, EngineProfile> profiles = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return profiles;
+        }
+        for (String entry : spec.split(";")) {
+            int open = entry.indexOf('[');
+            if (open < 0 || !entry.trim().endsWith("]")) {
+                throw new IllegalArgumentException("Invalid engine profile: " + entry);
+            }
+            String engine = entry.substring(0, open).trim().toLowerCase(Locale.ROOT);
+            String settings = entry.substring(open + 1, entry.lastIndexOf(']'));
+            profiles.put(engine, settings.isBlank() ? CANNED : parse(settings));
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,43 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Service time of a stub engine. Parsed from {@code fixed:MS}, {@code uniform:MIN:MAX} or
+ * {@code lognormal:MEDIAN:SIGMA}; the log-normal shape gives the long tail real OCR engines have.
+ */
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = random -> 0L;
+
+    long sampleMillis(Random random);
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    static LatencyDistribution lognormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        try {
+            return switch (parts[0]) {
+                case "none" -> NONE;
+                case "fixed" -> fixed(Long.parseLong(parts[1]));
+                case "uniform" -> uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal" -> lognormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import com.dls.driverlicensescannerapi.ocr.OcrLine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic OCR line sets for benchmarks. Each set is deterministic so runs can be compared
+ * between commits. The licence data is invented.
+ */
+public final class OcrLineSets {
+
+    public static final String CLEAN = "clean";
+    public static final String NOISY = "noisy";
+    public static final String ADVERSARIAL = "adversarial";
+
+    private static final long SEED = 42L;
+
+    private OcrLineSets() {}
+
+    public static List<OcrLine> named(String name) {
+        return switch (name) {
+            case CLEAN -> clean();
+            case NOISY -> noisy();
+            case ADVERSARIAL -> adversarial();
+            default -> throw new IllegalArgumentException("Unknown line set: " + name);
+        };
+    }
+
+    /** What a well lit, well framed card yields. */
+    public static List<OcrLine> clean() {
+        return CannedOcrResults.licence("bench", "paddle").lines();
+    }
+
+    /**
+     * A glare-affected capture: character confusions, split labels, stray punctuation, doubled
+     * whitespace and a few lines of background text.
+     */
+    public static List<OcrLine> noisy() {
+        return List.of(
+                new OcrLine("DRlVING  LlCENCE", 0.71),
+                new OcrLine("UK", 0.55),
+                new OcrLine("1 . CAMP8ELL", 0.74),
+                new OcrLine("2) ANDREA  JOAN", 0.81),
+                new OcrLine("3.", 0.60),
+                new OcrLine("O5.O7.1964  BELFAST", 0.58),
+                new OcrLine("4a. 01.12.2021 4b. 30.11.2031", 0.66),
+                new OcrLine("4c.  DVLA", 0.77),
+                new OcrLine("5 CAMP8657O54AJ9A8", 0.63),
+                new OcrLine("7.", 0.40),
+                new OcrLine("8.123 CASTLEROCK R0AD,, COLERAINE", 0.69),
+                new OcrLine("CO. LONDONDERRY", 0.72),
+                new OcrLine("BT51  3TB", 0.70),
+                new OcrLine("9.  AM / A / B1 / B / f / k / p / q", 0.52),
+                new OcrLine("~~ ;; ..", 0.21)
+        );
+    }
+
+    /**
+     * Input shaped to stress the parser within the worker response limits: the longest allowed
+     * lines, label-like tokens everywhere, long digit runs next to date separators and many lines.
+     */
+    public static List<OcrLine> adversarial() {
+        Random random = new Random(SEED);
+        List<OcrLine> lines = new ArrayList<>(clean());
+        String[] labels = {"1", "2", "3", "4a", "4b", "5", "7", "8", "9"};
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder(512);
+            text.append(labels[i % labels.length]).append(". ");
+            while (text.length() < 500) {
+                switch (random.nextInt(5)) {
+                    case 0 -> text.append(labels[random.nextInt(labels.length)]).append(") ");
+                    case 1 -> text.append("11111111.").append(random.nextInt(100)).append('.');
+                    case 2 -> text.append("BT").append(random.nextInt(100)).append(' ');
+                    case 3 -> text.append("A/B1/B/C1/").append((char) ('A' + random.nextInt(26))).append('/');
+                    default -> text.append("   ,, ..  ");
+                }
+            }
+            lines.add(new OcrLine(text.substring(0, 500), random.nextDouble()));
+        }
+        return lines;
+    }
+}
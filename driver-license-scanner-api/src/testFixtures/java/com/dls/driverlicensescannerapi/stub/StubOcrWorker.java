@@ -0,0 +1,144 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Embeddable HTTP OCR worker implementing {@code POST /ocr} and {@code GET /health}.
+ *
+ * <p>Behaviour is programmed per {@code X-OCR-ENGINE} with an {@link EngineProfile}; requests
+ * without the header use the {@value #DEFAULT_ENGINE} profile. A timed-out request is held for
+ * {@code timeoutHold} and then dropped without a response.
+ */
+public class StubOcrWorker implements Closeable {
+
+    public static final String DEFAULT_ENGINE = "default";
+
+    private static final Duration DEFAULT_TIMEOUT_HOLD = Duration.ofSeconds(25);
+
+    private final JsonMapper jsonMapper = new JsonMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, EngineProfile> profiles;
+    private final Duration timeoutHold;
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    public StubOcrWorker(int port, int threads) throws IOException {
+        this(port, threads, Map.of(), DEFAULT_TIMEOUT_HOLD);
+    }
+
+    public StubOcrWorker(int port, int threads, Map<String, EngineProfile> profiles, Duration timeoutHold)
+            throws IOException {
+        this.profiles = Map.copyOf(profiles);
+        this.timeoutHold = timeoutHold;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/health", this::health);
+        server.createContext("/ocr", this::ocr);
+        server.start();
+    }
+
+    /**
+     * Usage: {@code StubOcrWorker [port] [profiles]}, profiles as in {@link EngineProfile#parseAll}.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8000;
+        Map<String, EngineProfile> profiles = EngineProfile.parseAll(args.length > 1 ? args[1] : "");
+        try (StubOcrWorker worker = new StubOcrWorker(port, 256, profiles, DEFAULT_TIMEOUT_HOLD)) {
+            System.out.println("OCR stub listening on " + worker.url() + " profiles=" + profiles.keySet());
+            Thread.currentThread().join();
+        }
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Requests received so far, keyed by engine.
+     */
+    public Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((engine, count) -> counts.put(engine, count.sum()));
+        return counts;
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "{\"status\":\"ok\"}".getBytes());
+    }
+
+    private void ocr(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        String engineHeader = exchange.getRequestHeaders().getFirst("X-OCR-ENGINE");
+        String engine = engineHeader == null ? DEFAULT_ENGINE : engineHeader.toLowerCase(Locale.ROOT);
+        String requestId = exchange.getRequestHeaders().getFirst("X-Request-Id");
+        requestCounts.computeIfAbsent(engine, key -> new LongAdder()).increment();
+
+        EngineProfile profile = profiles.getOrDefault(engine, profiles.getOrDefault(DEFAULT_ENGINE, EngineProfile.CANNED));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < profile.timeoutRate()) {
+            sleep(timeoutHold.toMillis());
+            exchange.close();
+            return;
+        }
+        long latencyMs = Math.max(0, profile.latency().sampleMillis(random));
+        sleep(latencyMs);
+        if (roll < profile.timeoutRate() + profile.errorRate()) {
+            send(exchange, 500, "{\"error\":\"stub failure\"}".getBytes());
+            return;
+        }
+        OcrResult result = new OcrResult(
+                requestId,
+                engineHeader == null ? "paddle" : engine,
+                profile.confidence(),
+                profile.lines(),
+                latencyMs,
+                null
+        );
+        send(exchange, 200, jsonMapper.writeValueAsBytes(result));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.dls.driverlicensescannerapi.stub;
+
+import com.dls.driverlicensescannerapi.ocr.OcrResult;
+import com.dls.driverlicensescannerapi.ocr.UnixSocketFrameCodec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Local OCR worker speaking the {@link UnixSocketFrameCodec} protocol, answering every request with
+ * a canned result. Each accepted connection is served on its own thread until the client closes it.
+ */
+public class UnixSocketOcrStubServer implements Closeable {
+
+    private static final long MAX_REQUEST_BYTES = 16L * 1024 * 1024;
+
+    private final Path socketPath;
+    private final Function<UnixSocketFrameCodec.RequestFrame, OcrResult> responder;
+    private final ServerSocketChannel server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ocr-stub-unix");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UnixSocketOcrStubServer(Path socketPath, Function<UnixSocketFrameCodec.RequestFrame, OcrResult> responder)
+            throws IOException {
+        this.socketPath = socketPath;
+        this.responder = responder;
+        Files.deleteIfExists(socketPath);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(socketPath));
+        executor.execute(this::acceptLoop);
+    }
+
+    public static UnixSocketOcrStubServer canned(Path socketPath) throws IOException {
+        return new UnixSocketOcrStubServer(
+                socketPath,
+                request -> CannedOcrResults.licence(request.requestId(), request.engine())
+        );
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path socketPath = Path.of(args.length > 0 ? args[0] : "/tmp/ocr-worker.sock");
+        try (UnixSocketOcrStubServer ignored = canned(socketPath)) {
+            System.out.println("OCR stub listening on unix:" + socketPath);
+            Thread.currentThread().join();
+        }
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                executor.execute(() -> serve(channel));
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (channel) {
+            ByteBuffer frame;
+            while ((frame = UnixSocketFrameCodec.readFrame(channel, MAX_REQUEST_BYTES)) != null) {
+                ByteBuffer response = respond(UnixSocketFrameCodec.decodeRequest(frame));
+                while (response.hasRemaining()) {
+                    channel.write(response);
+                }
+            }
+        } catch (IOException ex) {
+            // Client went away; nothing to clean up beyond the channel.
+        }
+    }
+
+    private ByteBuffer respond(UnixSocketFrameCodec.RequestFrame request) {
+        try {
+            OcrResult result = responder.apply(request);
+            return UnixSocketFrameCodec.encodeResponse(UnixSocketFrameCodec.STATUS_OK, result);
+        } catch (RuntimeException ex) {
+            return UnixSocketFrameCodec.encodeResponse(UnixSocketFrameCodec.STATUS_FAILED, null);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        executor.shutdownNow();
+        Files.deleteIfExists(socketPath);
+    }
+}
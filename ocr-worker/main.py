@@ -3,6 +3,8 @@ from fastapi.responses import JSONResponse
 from uuid import uuid4
 import logging
 import os
+import re
+import time
 from io import BytesIO
 
 from PIL import Image
@@ -16,6 +18,20 @@ from services.ocr_service import run_ocr
 
 logger = logging.getLogger("uvicorn.error")
 
+TRACEPARENT_PATTERN = re.compile(r"^00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}$")
+
+
+def trace_id_of(traceparent: str | None) -> str:
+    match = TRACEPARENT_PATTERN.match((traceparent or "").strip().lower())
+    return match.group(1) if match else "-"
+
+
+def budget_ms_of(timeout_header: str | None) -> int | None:
+    try:
+        return int((timeout_header or "").strip())
+    except ValueError:
+        return None
+
 
 def create_app() -> FastAPI:
     app = FastAPI(title="Driver License Scanner", version="0.2.0")
@@ -49,8 +65,11 @@ def create_app() -> FastAPI:
         image: bytes | None = File(default=None),
         x_internal_key: str | None = Header(default=None, alias="X-INTERNAL-KEY"),
         x_ocr_engine: str | None = Header(default=None, alias="X-OCR-ENGINE"),
+        x_request_id: str | None = Header(default=None, alias="X-Request-Id"),
+        traceparent: str | None = Header(default=None),
+        x_request_timeout_ms: str | None = Header(default=None, alias="X-Request-Timeout-Ms"),
     ) -> JSONResponse | OcrResponse:
-        request_id = str(uuid4())
+        request_id = x_request_id or str(uuid4())
         expected_key = os.getenv("X_INTERNAL_KEY")
         if not expected_key or x_internal_key != expected_key:
             return error_response(
@@ -60,6 +79,16 @@ def create_app() -> FastAPI:
                 status.HTTP_401_UNAUTHORIZED,
             )
 
+        budget_ms = budget_ms_of(x_request_timeout_ms)
+        if budget_ms is not None and budget_ms <= 0:
+            return error_response(
+                request_id,
+                "OCR_TIMEOUT",
+                "Request deadline already passed.",
+                status.HTTP_504_GATEWAY_TIMEOUT,
+            )
+
+        started = time.monotonic()
         try:
             response = run_ocr(request_id, image or b"", x_ocr_engine)
         except ImageValidationError as exc:
@@ -74,9 +103,20 @@ def create_app() -> FastAPI:
                 status.HTTP_500_INTERNAL_SERVER_ERROR,
             )
 
+        elapsed_ms = int((time.monotonic() - started) * 1000)
+        if budget_ms is not None and elapsed_ms > budget_ms:
+            logger.warning(
+                "ocr_deadline_exceeded requestId=%s engine=%s timeMs=%d budgetMs=%d",
+                request_id,
+                response.engine,
+                elapsed_ms,
+                budget_ms,
+            )
+
         logger.info(
-            "ocr_complete requestId=%s engine=%s confidence=%.3f timeMs=%d",
+            "ocr_complete requestId=%s traceId=%s engine=%s confidence=%.3f timeMs=%d",
             request_id,
+            trace_id_of(traceparent),
             response.engine,
             response.confidence,
             response.processingTimeMs,
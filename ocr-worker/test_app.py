@@ -82,3 +82,15 @@ def test_ocr_missing_image(monkeypatch):
     assert response.status_code == 400
     payload = response.json()
     assert payload["error"]["code"] == "INVALID_IMAGE"
+
+
+def test_ocr_rejects_spent_deadline(monkeypatch):
+    monkeypatch.setenv("X_INTERNAL_KEY", "secret")
+    client = TestClient(main.create_app())
+    response = client.post(
+        "/ocr",
+        headers={"X-INTERNAL-KEY": "secret", "X-Request-Timeout-Ms": "0"},
+        files={"image": ("test.png", _png_bytes(), "image/png")},
+    )
+    assert response.status_code == 504
+    assert response.json()["error"]["code"] == "OCR_TIMEOUT"
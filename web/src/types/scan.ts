@@ -17,11 +17,13 @@ export type ScanResult = {
   requestId: string;
   selectedEngine?: string;
   attemptedEngines?: string[];
+  fieldSources?: Record<string, string>;
   ocrConfidence?: number;
   confidenceThreshold?: number;
   processingTimeMs?: number;
   fields?: ScanFields;
   validation?: ScanValidation;
+  timings?: Array<{ stage: string; engine?: string | null; durationMs: number }>;
 };
 
 export type ScanErrorPayload = {